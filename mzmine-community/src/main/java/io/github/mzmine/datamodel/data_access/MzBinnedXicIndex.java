@@ -0,0 +1,520 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.datamodel.data_access;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.IntensityMode;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.MzMode;
+import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.taskcontrol.progress.TotalFinishedItemsProgress;
+import io.github.mzmine.util.MemoryMapStorage;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.lang.ref.WeakReference;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Inverted index of all MS1 signals of a {@link RawDataFile}: signals are binned by m/z and each
+ * bin holds postings of (scan, m/z, intensity) sorted by scan and m/z. Extracting an ion
+ * chromatogram only visits the bins that overlap the m/z range instead of every scan. Signals are
+ * visited in the same order as a walk over all scans, so that {@link BuildingIonSeries} results are
+ * identical to the scan based extraction.
+ * <p>
+ * Built once per file and {@link ScanDataType} with {@link #getOrBuild(RawDataFile, ScanDataType,
+ * MemoryMapStorage)}. Every mass list change of a file is reported by
+ * {@link RawDataFile#applyMassListChanged} to {@link #massListsChanged(RawDataFile)}, which marks
+ * {@link ScanDataType#MASS_LIST} indices of the file as outdated. Outdated indices are dropped on
+ * the next lookup. The postings are stored in the {@link MemoryMapStorage} if available.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class MzBinnedXicIndex {
+
+  public static final double DEFAULT_BIN_WIDTH = 0.01;
+  private static final Logger logger = Logger.getLogger(MzBinnedXicIndex.class.getName());
+
+  private static final Map<RawDataFile, FileIndices> INDEX = Collections.synchronizedMap(
+      new WeakHashMap<>());
+
+  // no strong reference to the file so that the index does not keep the weak key alive
+  private final WeakReference<RawDataFile> dataFile;
+  private final ScanDataType type;
+  // mass list modification stamp of the file when the build started
+  private final long massListStamp;
+  private final double binWidth;
+  // indexed scans as index in RawDataFile#getScans and their retention times
+  private final int[] fileScanIndices;
+  private final float[] rts;
+  private final long firstBin;
+  // postings of bin b are in [binStarts[b], binStarts[b+1])
+  private final int[] binStarts;
+  private final int signals;
+  private final IntBuffer scanPositions;
+  private final DoubleBuffer mzs;
+  private final DoubleBuffer intensities;
+
+  private MzBinnedXicIndex(RawDataFile dataFile, ScanDataType type, long massListStamp,
+      double binWidth, int[] fileScanIndices, float[] rts, long firstBin, int[] binStarts,
+      IntBuffer scanPositions, DoubleBuffer mzs, DoubleBuffer intensities) {
+    this.dataFile = new WeakReference<>(dataFile);
+    this.type = type;
+    this.massListStamp = massListStamp;
+    this.binWidth = binWidth;
+    this.fileScanIndices = fileScanIndices;
+    this.rts = rts;
+    this.firstBin = firstBin;
+    this.binStarts = binStarts;
+    this.signals = binStarts[binStarts.length - 1];
+    this.scanPositions = scanPositions;
+    this.mzs = mzs;
+    this.intensities = intensities;
+  }
+
+  /**
+   * @return the index of this file and type or null if it was not built yet or if mass lists
+   * changed since it was built
+   */
+  @Nullable
+  public static MzBinnedXicIndex get(@NotNull RawDataFile dataFile, @NotNull ScanDataType type) {
+    final FileIndices indices = INDEX.get(dataFile);
+    if (indices == null) {
+      return null;
+    }
+    synchronized (indices) {
+      return indices.getCurrent(type);
+    }
+  }
+
+  /**
+   * Get the index or build it over all MS1 scans of the file. Concurrent calls for the same file
+   * wait for the first build.
+   *
+   * @param storage stores the postings. null to keep them in memory
+   * @return the index or null if the file has more signals than an index can hold
+   */
+  @Nullable
+  public static MzBinnedXicIndex getOrBuild(@NotNull RawDataFile dataFile,
+      @NotNull ScanDataType type, @Nullable MemoryMapStorage storage) {
+    return getOrBuild(dataFile, type, storage, null, null);
+  }
+
+  /**
+   * Get the index or build it over all MS1 scans of the file. Concurrent calls for the same file
+   * wait for the first build.
+   *
+   * @param storage  stores the postings. null to keep them in memory
+   * @param task     stops the build when canceled
+   * @param progress receives the number of processed scans during the build
+   * @return the index or null if the build was canceled, if mass lists changed during the build, or
+   * if the file has more signals than an index can hold
+   */
+  @Nullable
+  public static MzBinnedXicIndex getOrBuild(@NotNull RawDataFile dataFile,
+      @NotNull ScanDataType type, @Nullable MemoryMapStorage storage, @Nullable Task task,
+      @Nullable TotalFinishedItemsProgress progress) {
+    final FileIndices indices;
+    synchronized (INDEX) {
+      indices = INDEX.computeIfAbsent(dataFile, _ -> new FileIndices());
+    }
+    synchronized (indices) {
+      MzBinnedXicIndex index = indices.getCurrent(type);
+      if (index == null) {
+        index = build(dataFile, type, storage, DEFAULT_BIN_WIDTH, indices.massListStamp.get(),
+            task, progress);
+        if (index == null || !indices.isCurrent(index)) {
+          return null;
+        }
+        indices.indices.put(type, index);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Remove all indices of this file
+   */
+  public static void invalidate(@NotNull RawDataFile dataFile) {
+    INDEX.remove(dataFile);
+  }
+
+  /**
+   * Marks the {@link ScanDataType#MASS_LIST} indices of this file as outdated. Called by
+   * {@link RawDataFile#applyMassListChanged} for every scan with a new mass list, so it only
+   * increments a counter.
+   */
+  public static void massListsChanged(@NotNull RawDataFile dataFile) {
+    final FileIndices indices = INDEX.get(dataFile);
+    if (indices != null) {
+      indices.massListStamp.incrementAndGet();
+    }
+  }
+
+  /**
+   * Builds an index over all MS1 scans in three passes: m/z bounds (first and last signal of each
+   * sorted scan), counts per bin, fill postings. Postings within a bin are sorted by scan and m/z
+   * because scans are visited in order and signals in each scan are sorted by m/z.
+   *
+   * @return the index or null if there are too many signals
+   */
+  @Nullable
+  public static MzBinnedXicIndex build(@NotNull RawDataFile dataFile, @NotNull ScanDataType type,
+      @Nullable MemoryMapStorage storage, double binWidth) {
+    return build(dataFile, type, storage, binWidth, 0, null, null);
+  }
+
+  /**
+   * @param massListStamp modification stamp of the mass lists before the build
+   * @param task          stops the build when canceled
+   * @param progress      total is set to three passes over all MS1 scans
+   * @return the index or null if there are too many signals or if the task was canceled
+   */
+  @Nullable
+  private static MzBinnedXicIndex build(@NotNull RawDataFile dataFile,
+      @NotNull ScanDataType type, @Nullable MemoryMapStorage storage, double binWidth,
+      long massListStamp, @Nullable Task task, @Nullable TotalFinishedItemsProgress progress) {
+    final long start = System.nanoTime();
+
+    final List<Scan> allScans = dataFile.getScans();
+    final IntArrayList fileIndices = new IntArrayList();
+    final List<Scan> scans = new ArrayList<>();
+    for (int i = 0; i < allScans.size(); i++) {
+      final Scan scan = allScans.get(i);
+      if (scan.getMSLevel() == 1) {
+        fileIndices.add(i);
+        scans.add(scan);
+      }
+    }
+    final float[] rts = new float[scans.size()];
+    for (int i = 0; i < rts.length; i++) {
+      rts[i] = scans.get(i).getRetentionTime();
+    }
+    if (progress != null) {
+      progress.setTotal(3L * scans.size());
+    }
+
+    // bounds
+    final ScanDataAccess data = EfficientDataAccess.of(dataFile, type, scans);
+    double minMz = Double.POSITIVE_INFINITY;
+    double maxMz = Double.NEGATIVE_INFINITY;
+    long totalSignals = 0;
+    while (data.hasNextScan()) {
+      if (countScanAndCheckCanceled(task, progress)) {
+        return null;
+      }
+      data.nextScan();
+      final int n = data.getNumberOfDataPoints();
+      if (n > 0) {
+        minMz = Math.min(minMz, data.getMzValue(0));
+        maxMz = Math.max(maxMz, data.getMzValue(n - 1));
+        totalSignals += n;
+      }
+    }
+    if (totalSignals > Integer.MAX_VALUE - 8) {
+      logger.warning(
+          "Cannot build m/z index for %s with %d signals".formatted(dataFile.getName(),
+              totalSignals));
+      return null;
+    }
+
+    final int signals = (int) totalSignals;
+    final long firstBin = signals == 0 ? 0 : (long) Math.floor(minMz / binWidth);
+    final int bins = signals == 0 ? 0 : (int) ((long) Math.floor(maxMz / binWidth) - firstBin + 1);
+
+    // counts, shifted by one to become the start offsets after the prefix sum
+    final int[] binStarts = new int[bins + 1];
+    data.reset();
+    while (data.hasNextScan()) {
+      if (countScanAndCheckCanceled(task, progress)) {
+        return null;
+      }
+      data.nextScan();
+      for (int dp = 0, n = data.getNumberOfDataPoints(); dp < n; dp++) {
+        binStarts[(int) ((long) Math.floor(data.getMzValue(dp) / binWidth) - firstBin) + 1]++;
+      }
+    }
+    for (int b = 1; b < binStarts.length; b++) {
+      binStarts[b] += binStarts[b - 1];
+    }
+
+    // fill
+    final int[] scanPositions = new int[signals];
+    final double[] mzs = new double[signals];
+    final double[] intensities = new double[signals];
+    final int[] next = Arrays.copyOf(binStarts, bins);
+    data.reset();
+    int scanPosition = -1;
+    while (data.hasNextScan()) {
+      if (countScanAndCheckCanceled(task, progress)) {
+        return null;
+      }
+      data.nextScan();
+      scanPosition++;
+      for (int dp = 0, n = data.getNumberOfDataPoints(); dp < n; dp++) {
+        final double mz = data.getMzValue(dp);
+        final int i = next[(int) ((long) Math.floor(mz / binWidth) - firstBin)]++;
+        scanPositions[i] = scanPosition;
+        mzs[i] = mz;
+        intensities[i] = data.getIntensityValue(dp);
+      }
+    }
+
+    final MzBinnedXicIndex index = new MzBinnedXicIndex(dataFile, type, massListStamp, binWidth,
+        fileIndices.toIntArray(), rts, firstBin, binStarts,
+        StorageUtils.storeValuesToIntBuffer(signals == 0 ? null : storage, scanPositions),
+        StorageUtils.storeValuesToDoubleBuffer(storage, mzs),
+        StorageUtils.storeValuesToDoubleBuffer(storage, intensities));
+
+    logger.info(
+        "Built m/z index for %s (%s): %d scans, %d signals in %d bins, %.1f MB in %.2f s".formatted(
+            dataFile.getName(), type, rts.length, signals, bins, index.getSizeInBytes() / 1E6,
+            (System.nanoTime() - start) / 1E9));
+    return index;
+  }
+
+  /**
+   * Counts a processed scan
+   *
+   * @return true if the task was canceled
+   */
+  private static boolean countScanAndCheckCanceled(@Nullable Task task,
+      @Nullable TotalFinishedItemsProgress progress) {
+    if (progress != null) {
+      progress.getAndIncrement();
+    }
+    return task != null && task.isCanceled();
+  }
+
+  public ScanDataType getScanDataType() {
+    return type;
+  }
+
+  public double getBinWidth() {
+    return binWidth;
+  }
+
+  /**
+   * @return number of indexed scans
+   */
+  public int getNumberOfScans() {
+    return fileScanIndices.length;
+  }
+
+  public int getNumberOfSignals() {
+    return signals;
+  }
+
+  /**
+   * @return approximate size of the postings and lookup arrays
+   */
+  public long getSizeInBytes() {
+    return (long) getNumberOfSignals() * (Integer.BYTES + 2 * Double.BYTES)
+           + (long) binStarts.length * Integer.BYTES + (long) rts.length * (Integer.BYTES
+                                                                           + Float.BYTES);
+  }
+
+  /**
+   * @return the scan at this position of the index
+   */
+  @NotNull
+  public Scan getScan(int scanPosition) {
+    final RawDataFile file = dataFile.get();
+    if (file == null) {
+      throw new IllegalStateException("Raw data file of m/z index was already removed");
+    }
+    return file.getScan(fileScanIndices[scanPosition]);
+  }
+
+  /**
+   * Maps scans to their positions in this index.
+   *
+   * @param scans scans in the order of the raw data file
+   * @return array with the position in scans for each index position or -1. null if any scan is
+   * not part of this index or out of order.
+   */
+  @Nullable
+  public int[] mapScanPositions(@NotNull List<? extends Scan> scans) {
+    final RawDataFile file = dataFile.get();
+    if (file == null) {
+      return null;
+    }
+    final int[] positions = new int[fileScanIndices.length];
+    Arrays.fill(positions, -1);
+    int p = 0;
+    for (int i = 0; i < scans.size(); i++) {
+      final Scan scan = scans.get(i);
+      while (p < fileScanIndices.length && file.getScan(fileScanIndices[p]) != scan) {
+        p++;
+      }
+      if (p == fileScanIndices.length) {
+        return null;
+      }
+      positions[p] = i;
+      p++;
+    }
+    return positions;
+  }
+
+  /**
+   * Visit all signals with lower <= mz <= upper in scan positions [fromScan, toScan]. Signals are
+   * visited bin by bin in ascending m/z, so the signals of each scan are visited in ascending m/z.
+   */
+  public void forEachSignal(double lower, double upper, int fromScan, int toScan,
+      @NotNull SignalConsumer consumer) {
+    if (signals == 0 || upper < lower || toScan < fromScan) {
+      return;
+    }
+    final int bins = binStarts.length - 1;
+    final long lowerBin = Math.max((long) Math.floor(lower / binWidth) - firstBin, 0);
+    final long upperBin = Math.min((long) Math.floor(upper / binWidth) - firstBin, bins - 1);
+    for (int b = (int) lowerBin; b <= upperBin; b++) {
+      final int end = binStarts[b + 1];
+      for (int i = firstPostingOfScan(binStarts[b], end, fromScan); i < end; i++) {
+        final int scan = scanPositions.get(i);
+        if (scan > toScan) {
+          break;
+        }
+        final double mz = mzs.get(i);
+        if (mz >= lower && mz <= upper) {
+          consumer.accept(scan, mz, intensities.get(i));
+        }
+      }
+    }
+  }
+
+  /**
+   * @return first posting in [from, to) with scan position >= scan
+   */
+  private int firstPostingOfScan(int from, int to, int scan) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (scanPositions.get(mid) < scan) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Extract an ion chromatogram. Runtime scales with the number of signals in the m/z bins of
+   * the m/z range and the number of scans in the retention time range.
+   *
+   * @param storage stores the resulting series
+   * @return ion time series with one leading and trailing zero around detected data points
+   */
+  @NotNull
+  public IonTimeSeries<? extends Scan> getIonTimeSeries(@NotNull Range<Double> mzRange,
+      @NotNull Range<Float> rtRange, @NotNull MzMode mzMode, @NotNull IntensityMode intensityMode,
+      @Nullable MemoryMapStorage storage) {
+    final int from = lowerBoundRt(rtRange.lowerEndpoint());
+    final int to = lowerBoundRt(Math.nextUp(rtRange.upperEndpoint())) - 1;
+    if (to < from) {
+      return IonTimeSeries.EMPTY;
+    }
+
+    final BuildingIonSeries series = new BuildingIonSeries(to - from + 1, mzMode, intensityMode);
+    forEachSignal(mzRange.lowerEndpoint(), mzRange.upperEndpoint(), from, to,
+        (scan, mz, intensity) -> series.addValue(scan - from, mz, intensity));
+
+    final List<Scan> windowScans = new ArrayList<>(to - from + 1);
+    for (int i = from; i <= to; i++) {
+      windowScans.add(getScan(i));
+    }
+    return series.toIonTimeSeriesWithLeadingAndTrailingZero(storage, windowScans);
+  }
+
+  /**
+   * @return first scan position with rt >= the given rt, may be {@link #getNumberOfScans()}
+   */
+  private int lowerBoundRt(float rt) {
+    int low = 0;
+    int high = rts.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (rts[mid] < rt) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * All indices of one file and the modification stamp of its mass lists
+   */
+  private static final class FileIndices {
+
+    private final EnumMap<ScanDataType, MzBinnedXicIndex> indices = new EnumMap<>(
+        ScanDataType.class);
+    private final AtomicLong massListStamp = new AtomicLong();
+
+    /**
+     * Mass lists may change after an index was built. Raw data never changes.
+     */
+    private boolean isCurrent(MzBinnedXicIndex index) {
+      return index.type != ScanDataType.MASS_LIST || index.massListStamp == massListStamp.get();
+    }
+
+    @Nullable
+    private MzBinnedXicIndex getCurrent(ScanDataType type) {
+      final MzBinnedXicIndex index = indices.get(type);
+      if (index != null && !isCurrent(index)) {
+        indices.remove(type);
+        return null;
+      }
+      return index;
+    }
+  }
+
+  @FunctionalInterface
+  public interface SignalConsumer {
+
+    /**
+     * @param scanPosition position of the scan in this index
+     */
+    void accept(int scanPosition, double mz, double intensity);
+  }
+}
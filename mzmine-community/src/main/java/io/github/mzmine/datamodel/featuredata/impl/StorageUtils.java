@@ -29,6 +29,7 @@ import io.github.mzmine.datamodel.featuredata.IonSeries;
 import io.github.mzmine.datamodel.impl.AbstractStorableSpectrum;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.IOException;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
@@ -162,7 +163,8 @@ public class StorageUtils {
    * Stores the given array into a double buffer.
    *
    * @param storage The storage to be used. If null, the values will be wrapped using {@link
-   *                DoubleBuffer#wrap(double[])}.
+   *                DoubleBuffer#wrap(double[])}. Otherwise the {@link TieredStorageManager} places
+   *                the values on heap, off-heap or memory mapped.
    * @param values  The values to be stored. If storage is null, a double buffer will be wrapped
    *                around this array. Changes in the array will therefore be reflected in the
    *                DoubleBuffer.
@@ -178,7 +180,7 @@ public class StorageUtils {
     DoubleBuffer buffer;
     if (storage != null) {
       try {
-        buffer = storage.storeData(values);
+        buffer = TieredStorageManager.storeData(storage, values);
       } catch (IOException e) {
         e.printStackTrace();
         buffer = DoubleBuffer.wrap(values);
@@ -209,7 +211,7 @@ public class StorageUtils {
     FloatBuffer buffer;
     if (storage != null) {
       try {
-        buffer = storage.storeData(values);
+        buffer = TieredStorageManager.storeData(storage, values);
       } catch (IOException e) {
         e.printStackTrace();
         buffer = FloatBuffer.wrap(values);
@@ -237,7 +239,7 @@ public class StorageUtils {
     IntBuffer buffer;
     if (storage != null) {
       try {
-        buffer = storage.storeData(values);
+        buffer = TieredStorageManager.storeData(storage, values);
       } catch (IOException e) {
         e.printStackTrace();
         buffer = IntBuffer.wrap(values);
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import io.github.mzmine.datamodel.features.types.DataType;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javafx.beans.InvalidationListener;
+import javafx.collections.MapChangeListener;
+import javafx.collections.ObservableMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The map of a {@link ModularDataModel} that stores values of numeric types in the shared
+ * {@link DataTypeColumns} of the feature list and all other values in a map. Listeners are notified
+ * the same way as for {@link javafx.collections.FXCollections#observableMap(Map)}. Not thread safe,
+ * same as the observable map it replaces.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+@SuppressWarnings("rawtypes")
+final class ColumnarDataModelMap extends AbstractMap<DataType, Object> implements
+    ObservableMap<DataType, Object> {
+
+  private final Map<DataType, Object> objects = new HashMap<>();
+  private final DataTypeColumns columns;
+  private final int index;
+  private List<MapChangeListener<? super DataType, ? super Object>> changeListeners;
+  private List<InvalidationListener> invalidationListeners;
+
+  ColumnarDataModelMap(@NotNull DataTypeColumns columns) {
+    this.columns = columns;
+    this.index = columns.nextIndex();
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (DataTypeColumns.isColumnType(key)) {
+      final Object value = columns.get((DataType) key, index);
+      if (value != null) {
+        return value;
+      }
+    }
+    return objects.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return (DataTypeColumns.isColumnType(key) && columns.get((DataType) key, index) != null)
+        || objects.containsKey(key);
+  }
+
+  @Override
+  public Object put(DataType key, Object value) {
+    final boolean contained = containsKey(key);
+    final Object old;
+    if (DataTypeColumns.isColumnType(key)) {
+      if (DataTypeColumns.canStore(key, value)) {
+        final Object oldColumn = columns.put(key, index, value);
+        final Object oldObject = objects.remove(key);
+        old = oldColumn != null ? oldColumn : oldObject;
+      } else {
+        // null or values of unexpected class are kept in the map
+        final Object oldColumn = columns.remove(key, index);
+        final Object oldObject = objects.put(key, value);
+        old = oldColumn != null ? oldColumn : oldObject;
+      }
+    } else {
+      old = objects.put(key, value);
+    }
+
+    if (!contained) {
+      fireChange(key, old, value, true, false);
+    } else if (!Objects.equals(old, value)) {
+      fireChange(key, old, value, true, true);
+    }
+    return old;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (!containsKey(key)) {
+      return null;
+    }
+    Object old = null;
+    if (DataTypeColumns.isColumnType(key)) {
+      old = columns.remove((DataType) key, index);
+    }
+    final Object oldObject = objects.remove(key);
+    if (old == null) {
+      old = oldObject;
+    }
+    fireChange((DataType) key, old, null, false, true);
+    return old;
+  }
+
+  @Override
+  public int size() {
+    return objects.size() + columns.count(index);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public void clear() {
+    for (final DataType key : new ArrayList<>(keySet())) {
+      remove(key);
+    }
+  }
+
+  /**
+   * A view of all entries. The iterator works on a snapshot of the entries and removes entries from
+   * this map.
+   */
+  @NotNull
+  @Override
+  public Set<Entry<DataType, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public @NotNull Iterator<Entry<DataType, Object>> iterator() {
+        final List<Entry<DataType, Object>> entries = new ArrayList<>(size());
+        for (final Entry<DataType, Object> entry : objects.entrySet()) {
+          entries.add(new SimpleImmutableEntry<>(entry));
+        }
+        columns.forEach(index,
+            (type, value) -> entries.add(new SimpleImmutableEntry<>(type, value)));
+        final Iterator<Entry<DataType, Object>> iterator = entries.iterator();
+        return new Iterator<>() {
+          private Entry<DataType, Object> last;
+
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public Entry<DataType, Object> next() {
+            last = iterator.next();
+            return last;
+          }
+
+          @Override
+          public void remove() {
+            if (last == null) {
+              throw new IllegalStateException();
+            }
+            ColumnarDataModelMap.this.remove(last.getKey());
+            last = null;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ColumnarDataModelMap.this.size();
+      }
+    };
+  }
+
+  private void fireChange(DataType key, Object removed, Object added, boolean wasAdded,
+      boolean wasRemoved) {
+    if (changeListeners != null && !changeListeners.isEmpty()) {
+      final var change = new Change(key, removed, added, wasAdded, wasRemoved);
+      for (final var listener : List.copyOf(changeListeners)) {
+        listener.onChanged(change);
+      }
+    }
+    if (invalidationListeners != null && !invalidationListeners.isEmpty()) {
+      for (final InvalidationListener listener : List.copyOf(invalidationListeners)) {
+        listener.invalidated(this);
+      }
+    }
+  }
+
+  @Override
+  public void addListener(MapChangeListener<? super DataType, ? super Object> listener) {
+    Objects.requireNonNull(listener);
+    if (changeListeners == null) {
+      changeListeners = new ArrayList<>(1);
+    }
+    changeListeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(MapChangeListener<? super DataType, ? super Object> listener) {
+    if (changeListeners != null) {
+      changeListeners.remove(listener);
+    }
+  }
+
+  @Override
+  public void addListener(InvalidationListener listener) {
+    Objects.requireNonNull(listener);
+    if (invalidationListeners == null) {
+      invalidationListeners = new ArrayList<>(1);
+    }
+    invalidationListeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(InvalidationListener listener) {
+    if (invalidationListeners != null) {
+      invalidationListeners.remove(listener);
+    }
+  }
+
+  private class Change extends MapChangeListener.Change<DataType, Object> {
+
+    private final DataType key;
+    private final Object removed;
+    private final Object added;
+    private final boolean wasAdded;
+    private final boolean wasRemoved;
+
+    private Change(DataType key, Object removed, Object added, boolean wasAdded,
+        boolean wasRemoved) {
+      super(ColumnarDataModelMap.this);
+      this.key = key;
+      this.removed = removed;
+      this.added = added;
+      this.wasAdded = wasAdded;
+      this.wasRemoved = wasRemoved;
+    }
+
+    @Override
+    public boolean wasAdded() {
+      return wasAdded;
+    }
+
+    @Override
+    public boolean wasRemoved() {
+      return wasRemoved;
+    }
+
+    @Override
+    public DataType getKey() {
+      return key;
+    }
+
+    @Override
+    public Object getValueAdded() {
+      return added;
+    }
+
+    @Override
+    public Object getValueRemoved() {
+      return removed;
+    }
+  }
+}
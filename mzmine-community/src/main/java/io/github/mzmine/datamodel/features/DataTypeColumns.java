@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.DoubleType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.FloatType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.IntegerType;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Primitive columns for the fixed numeric {@link DataType}s (float, double and integer types in
+ * the numbers package) of many {@link ModularDataModel}s. Each data model reserves one index in
+ * all columns. Values are stored in blocks of primitive arrays instead of a boxed value and a map
+ * entry per data model. Missing values are marked by a sentinel.
+ * <p>
+ * Different data models may be changed concurrently. Changes of the same data model need to be
+ * synchronized by the caller (same as for the previous map per data model). Indices are never
+ * reused, a feature list creates one instance for its features and one for its rows.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class DataTypeColumns {
+
+  private static final String NUMBERS_PACKAGE = "io.github.mzmine.datamodel.features.types.numbers";
+
+  private static final ClassValue<Boolean> COLUMN_TYPES = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(@NotNull Class<?> type) {
+      return type.getPackageName().equals(NUMBERS_PACKAGE) && (FloatType.class.isAssignableFrom(
+          type) || DoubleType.class.isAssignableFrom(type) || IntegerType.class.isAssignableFrom(
+          type));
+    }
+  };
+
+  private static final int BLOCK_BITS = 12;
+  private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+  private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+  private final AtomicInteger nextIndex = new AtomicInteger();
+  private final Map<DataType<?>, Column> columns = new ConcurrentHashMap<>();
+
+  /**
+   * @return true if values of this type are stored in primitive columns
+   */
+  public static boolean isColumnType(@Nullable Object type) {
+    return type instanceof DataType<?> && COLUMN_TYPES.get(type.getClass());
+  }
+
+  /**
+   * @return a new index for a data model
+   */
+  int nextIndex() {
+    return nextIndex.getAndIncrement();
+  }
+
+  /**
+   * @return number of indices reserved for data models
+   */
+  public int getReservedIndices() {
+    return nextIndex.get();
+  }
+
+  /**
+   * @return true if the value has the primitive type of the column
+   */
+  public static boolean canStore(@NotNull DataType<?> type, @Nullable Object value) {
+    return switch (type) {
+      case FloatType _ -> value instanceof Float;
+      case DoubleType _ -> value instanceof Double;
+      case IntegerType _ -> value instanceof Integer;
+      default -> false;
+    };
+  }
+
+  /**
+   * @return the value or null if no value was set
+   */
+  @Nullable
+  Object get(@NotNull DataType<?> type, int index) {
+    final Column column = columns.get(type);
+    return column == null ? null : column.get(index);
+  }
+
+  /**
+   * @param value a value of the column type, see {@link #canStore(DataType, Object)}
+   * @return the old value or null
+   */
+  @Nullable
+  Object put(@NotNull DataType<?> type, int index, @NotNull Object value) {
+    return columns.computeIfAbsent(type, DataTypeColumns::createColumn).put(index, value);
+  }
+
+  /**
+   * @return the removed value or null
+   */
+  @Nullable
+  Object remove(@NotNull DataType<?> type, int index) {
+    final Column column = columns.get(type);
+    return column == null ? null : column.remove(index);
+  }
+
+  /**
+   * @return number of values of a data model
+   */
+  int count(int index) {
+    int count = 0;
+    for (final Column column : columns.values()) {
+      if (column.get(index) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Apply to all values of a data model
+   */
+  void forEach(int index, @NotNull BiConsumer<DataType<?>, Object> consumer) {
+    for (final Map.Entry<DataType<?>, Column> entry : columns.entrySet()) {
+      final Object value = entry.getValue().get(index);
+      if (value != null) {
+        consumer.accept(entry.getKey(), value);
+      }
+    }
+  }
+
+  private static Column createColumn(DataType<?> type) {
+    return switch (type) {
+      case FloatType _ -> new FloatColumn();
+      case DoubleType _ -> new DoubleColumn();
+      case IntegerType _ -> new IntegerColumn();
+      default -> throw new IllegalArgumentException(
+          "No primitive column for type " + type.getClass().getName());
+    };
+  }
+
+  private abstract static class Column {
+
+    @Nullable
+    abstract Object get(int index);
+
+    @Nullable
+    abstract Object put(int index, @NotNull Object value);
+
+    @Nullable
+    abstract Object remove(int index);
+  }
+
+  /**
+   * 32 bit values. Blocks are created on demand, all values start as missing.
+   */
+  private abstract static class IntBlockColumn extends Column {
+
+    private final int missing;
+    private volatile int[][] blocks = new int[0][];
+
+    protected IntBlockColumn(int missing) {
+      this.missing = missing;
+    }
+
+    /**
+     * @return the raw value or the missing sentinel
+     */
+    protected int getRaw(int index) {
+      final int[][] current = blocks;
+      final int block = index >>> BLOCK_BITS;
+      if (block >= current.length || current[block] == null) {
+        return missing;
+      }
+      return current[block][index & BLOCK_MASK];
+    }
+
+    /**
+     * @return the old raw value or the missing sentinel
+     */
+    protected int setRaw(int index, int value) {
+      final int[] block = getOrCreateBlock(index >>> BLOCK_BITS);
+      final int old = block[index & BLOCK_MASK];
+      block[index & BLOCK_MASK] = value;
+      return old;
+    }
+
+    @Nullable
+    @Override
+    Object remove(int index) {
+      final int old = getRaw(index);
+      if (old == missing) {
+        return null;
+      }
+      setRaw(index, missing);
+      return toValue(old);
+    }
+
+    @Nullable
+    @Override
+    Object get(int index) {
+      final int raw = getRaw(index);
+      return raw == missing ? null : toValue(raw);
+    }
+
+    @Nullable
+    @Override
+    Object put(int index, @NotNull Object value) {
+      final int old = setRaw(index, toRaw(value));
+      return old == missing ? null : toValue(old);
+    }
+
+    protected abstract Object toValue(int raw);
+
+    protected abstract int toRaw(Object value);
+
+    private int[] getOrCreateBlock(int block) {
+      int[][] current = blocks;
+      if (block < current.length && current[block] != null) {
+        return current[block];
+      }
+      synchronized (this) {
+        current = blocks;
+        if (block >= current.length) {
+          current = Arrays.copyOf(current, Math.max(block + 1, current.length * 2));
+        }
+        if (current[block] == null) {
+          final int[] values = new int[BLOCK_SIZE];
+          Arrays.fill(values, missing);
+          current[block] = values;
+        }
+        blocks = current;
+        return current[block];
+      }
+    }
+  }
+
+  /**
+   * 64 bit values. Blocks are created on demand, all values start as missing.
+   */
+  private abstract static class LongBlockColumn extends Column {
+
+    private final long missing;
+    private volatile long[][] blocks = new long[0][];
+
+    protected LongBlockColumn(long missing) {
+      this.missing = missing;
+    }
+
+    protected long getRaw(int index) {
+      final long[][] current = blocks;
+      final int block = index >>> BLOCK_BITS;
+      if (block >= current.length || current[block] == null) {
+        return missing;
+      }
+      return current[block][index & BLOCK_MASK];
+    }
+
+    protected long setRaw(int index, long value) {
+      final long[] block = getOrCreateBlock(index >>> BLOCK_BITS);
+      final long old = block[index & BLOCK_MASK];
+      block[index & BLOCK_MASK] = value;
+      return old;
+    }
+
+    @Nullable
+    @Override
+    Object remove(int index) {
+      final long old = getRaw(index);
+      if (old == missing) {
+        return null;
+      }
+      setRaw(index, missing);
+      return toValue(old);
+    }
+
+    @Nullable
+    @Override
+    Object get(int index) {
+      final long raw = getRaw(index);
+      return raw == missing ? null : toValue(raw);
+    }
+
+    @Nullable
+    @Override
+    Object put(int index, @NotNull Object value) {
+      final long old = setRaw(index, toRaw(value));
+      return old == missing ? null : toValue(old);
+    }
+
+    protected abstract Object toValue(long raw);
+
+    protected abstract long toRaw(Object value);
+
+    private long[] getOrCreateBlock(int block) {
+      long[][] current = blocks;
+      if (block < current.length && current[block] != null) {
+        return current[block];
+      }
+      synchronized (this) {
+        current = blocks;
+        if (block >= current.length) {
+          current = Arrays.copyOf(current, Math.max(block + 1, current.length * 2));
+        }
+        if (current[block] == null) {
+          final long[] values = new long[BLOCK_SIZE];
+          Arrays.fill(values, missing);
+          current[block] = values;
+        }
+        blocks = current;
+        return current[block];
+      }
+    }
+  }
+
+  /**
+   * Stores the raw float bits. Missing is a signaling NaN payload that is never produced by
+   * arithmetic.
+   */
+  private static final class FloatColumn extends IntBlockColumn {
+
+    private static final int MISSING = 0x7fa0dead;
+
+    private FloatColumn() {
+      super(MISSING);
+    }
+
+    @Override
+    protected Object toValue(int raw) {
+      return Float.intBitsToFloat(raw);
+    }
+
+    @Override
+    protected int toRaw(Object value) {
+      return Float.floatToRawIntBits((Float) value);
+    }
+  }
+
+  /**
+   * Stores the raw double bits. Missing is a signaling NaN payload that is never produced by
+   * arithmetic.
+   */
+  private static final class DoubleColumn extends LongBlockColumn {
+
+    private static final long MISSING = 0x7ff4_dead_dead_deadL;
+
+    private DoubleColumn() {
+      super(MISSING);
+    }
+
+    @Override
+    protected Object toValue(long raw) {
+      return Double.longBitsToDouble(raw);
+    }
+
+    @Override
+    protected long toRaw(Object value) {
+      return Double.doubleToRawLongBits((Double) value);
+    }
+  }
+
+  /**
+   * Integers are stored as long to keep the full int range. Missing is outside of the int range.
+   */
+  private static final class IntegerColumn extends LongBlockColumn {
+
+    private IntegerColumn() {
+      super(Long.MIN_VALUE);
+    }
+
+    @Override
+    protected Object toValue(long raw) {
+      return (int) raw;
+    }
+
+    @Override
+    protected long toRaw(Object value) {
+      return (Integer) value;
+    }
+  }
+}
@@ -64,7 +64,6 @@ import io.github.mzmine.modules.tools.qualityparameters.QualityParameters;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.FeatureUtils;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -85,7 +84,8 @@ import org.jetbrains.annotations.Nullable;
 public class ModularFeature implements Feature, ModularDataModel {
 
   private static final Logger logger = Logger.getLogger(ModularFeature.class.getName());
-  private final ObservableMap<DataType, Object> map = FXCollections.observableMap(new HashMap<>());
+  // numeric values are stored in the primitive columns of the feature list
+  private final ObservableMap<DataType, Object> map;
   // buffert col charts and nodes
   @NotNull
   private ModularFeatureList flist;
@@ -94,6 +94,7 @@ public class ModularFeature implements Feature, ModularDataModel {
 
   public ModularFeature(@NotNull ModularFeatureList flist) {
     this.flist = flist;
+    map = new ColumnarDataModelMap(flist.getFeatureColumns());
 
     //
     map.addListener((MapChangeListener<? super DataType, ? super Object>) change -> {
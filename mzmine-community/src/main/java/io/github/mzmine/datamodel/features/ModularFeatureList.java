@@ -115,6 +115,10 @@ public class ModularFeatureList implements FeatureList {
 
   private final R2RNetworkingMaps r2rNetworkingMaps = new R2RNetworkingMaps();
 
+  // primitive columns for numeric types of all rows and features
+  private final DataTypeColumns rowColumns = new DataTypeColumns();
+  private final DataTypeColumns featureColumns = new DataTypeColumns();
+
   @NotNull
   private String nameProperty = "";
   private String dateCreated;
@@ -826,6 +830,22 @@ public class ModularFeatureList implements FeatureList {
     return memoryMapStorage;
   }
 
+  /**
+   * @return primitive columns for the numeric types of all rows of this list
+   */
+  @NotNull
+  DataTypeColumns getRowColumns() {
+    return rowColumns;
+  }
+
+  /**
+   * @return primitive columns for the numeric types of all features of this list
+   */
+  @NotNull
+  DataTypeColumns getFeatureColumns() {
+    return featureColumns;
+  }
+
   /**
    * Replaces {@link CachedIMSRawDataFile}s and {@link CachedIMSFrame}s in the selected scans and
    * raw data files of this feature list. Cached files are used during feature list import to avoid
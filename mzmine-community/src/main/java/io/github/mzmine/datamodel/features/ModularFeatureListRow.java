@@ -107,7 +107,7 @@ public class ModularFeatureListRow implements FeatureListRow {
    * this final map is used in the FeaturesType - only ModularFeatureListRow is supposed to change
    * this map see {@link #addFeature}
    */
-  private final ObservableMap<DataType, Object> map = FXCollections.observableMap(new HashMap<>());
+  private final ObservableMap<DataType, Object> map;
   private final Map<RawDataFile, ModularFeature> features;
   @NotNull
   private ModularFeatureList flist;
@@ -120,6 +120,8 @@ public class ModularFeatureListRow implements FeatureListRow {
    */
   public ModularFeatureListRow(@NotNull ModularFeatureList flist, int id) {
     this.flist = flist;
+    // numeric values are stored in the primitive columns of the feature list
+    map = new ColumnarDataModelMap(flist.getRowColumns());
 
     map.addListener((MapChangeListener<? super DataType, ? super Object>) change -> {
       if (change.wasAdded()) {
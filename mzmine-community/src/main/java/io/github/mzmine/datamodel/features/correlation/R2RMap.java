@@ -26,19 +26,43 @@
 package io.github.mzmine.datamodel.features.correlation;
 
 import io.github.mzmine.datamodel.features.FeatureListRow;
-import io.github.mzmine.util.MathUtils;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
- * Map an object to two rows
+ * Map an object to two rows. The undirected pair of row IDs is packed into a primitive long key
+ * and the values are stored in fastutil maps without boxing. The map is split into stripes that
+ * are locked independently so that many threads can add relationships concurrently.
  *
  * @author Robin Schmid
  */
-public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
+public class R2RMap<T> {
+
+  // power of 2, the upper bits of the mixed key select the stripe
+  private static final int STRIPE_BITS = 6;
+  private static final int STRIPES = 1 << STRIPE_BITS;
+
+  private final Long2ObjectOpenHashMap<T>[] stripes;
 
   public R2RMap() {
+    this(0);
+  }
+
+  /**
+   * @param expectedSize expected number of relationships to size the stripes
+   */
+  @SuppressWarnings("unchecked")
+  public R2RMap(int expectedSize) {
+    stripes = new Long2ObjectOpenHashMap[STRIPES];
+    final int stripeSize = Math.max(16, expectedSize / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Long2ObjectOpenHashMap<>(stripeSize);
+    }
   }
 
   /**
@@ -48,8 +72,36 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * @param b Feature list row with getID >=0
    * @return unique undirected ID
    */
-  public static int toKey(FeatureListRow a, FeatureListRow b) {
-    return MathUtils.undirectedPairing(a.getID(), b.getID());
+  public static long toKey(FeatureListRow a, FeatureListRow b) {
+    return toKey(a.getID(), b.getID());
+  }
+
+  /**
+   * A unique undirected key: the lower ID in the upper 32 bits and the higher ID in the lower 32
+   * bits. Unique for all IDs >= 0.
+   *
+   * @return unique undirected ID
+   */
+  public static long toKey(int idA, int idB) {
+    return idA < idB ? ((long) idA << 32) | idB : ((long) idB << 32) | idA;
+  }
+
+  /**
+   * @return the lower row ID of the key
+   */
+  public static int lowerID(long key) {
+    return (int) (key >>> 32);
+  }
+
+  /**
+   * @return the higher row ID of the key
+   */
+  public static int higherID(long key) {
+    return (int) key;
+  }
+
+  private Long2ObjectOpenHashMap<T> stripe(long key) {
+    return stripes[(int) (HashCommon.mix(key) >>> (Long.SIZE - STRIPE_BITS))];
   }
 
   /**
@@ -59,7 +111,7 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * @param value values is mapped to the pair of FeatureListRows a and b
    */
   public void add(FeatureListRow a, FeatureListRow b, T value) {
-    this.put(toKey(a, b), value);
+    put(a, b, value);
   }
 
   /**
@@ -67,9 +119,22 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * and yield the same mapping.
    *
    * @param value values is mapped to the pair of FeatureListRows a and b
+   * @return the previous value or null
    */
-  public void put(FeatureListRow a, FeatureListRow b, T value) {
-    super.put(toKey(a, b), value);
+  public T put(FeatureListRow a, FeatureListRow b, T value) {
+    return put(toKey(a, b), value);
+  }
+
+  /**
+   * @param key   undirected key, see {@link #toKey(int, int)}
+   * @param value the value
+   * @return the previous value or null
+   */
+  public T put(long key, T value) {
+    final Long2ObjectOpenHashMap<T> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.put(key, value);
+    }
   }
 
   /**
@@ -81,6 +146,30 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
     return get(toKey(a, b));
   }
 
+  /**
+   * @param key undirected key, see {@link #toKey(int, int)}
+   * @return the value or null if no mapping exists
+   */
+  public T get(long key) {
+    final Long2ObjectOpenHashMap<T> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.get(key);
+    }
+  }
+
+  /**
+   * The order of arguments does not matter
+   *
+   * @return the removed value or null
+   */
+  public T remove(FeatureListRow a, FeatureListRow b) {
+    final long key = toKey(a, b);
+    final Long2ObjectOpenHashMap<T> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.remove(key);
+    }
+  }
+
   /**
    * Performance optimised version to get a stream of all correlated rows in this {@link R2RMap}.
    * Mapping is based on the ID of the two rows. Make sure the row and allRows originate from the
@@ -107,4 +196,74 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
   public boolean contains(final FeatureListRow a, final FeatureListRow b) {
     return get(a, b) != null;
   }
+
+  /**
+   * @return number of mapped row pairs
+   */
+  public int size() {
+    int size = 0;
+    for (final Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    for (final Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        if (!stripe.isEmpty()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public void clear() {
+    for (final Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  /**
+   * @return a snapshot of all values. Changes to the map are not reflected.
+   */
+  public List<T> values() {
+    final List<T> values = new ArrayList<>(size());
+    for (final Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        values.addAll(stripe.values());
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Add all mappings of another map. Each stripe of the other map is copied before it is added to
+   * this map so that both maps are never locked at the same time.
+   *
+   * @param map the source map
+   */
+  public void putAll(R2RMap<? extends T> map) {
+    for (final Long2ObjectOpenHashMap<? extends T> source : map.stripes) {
+      final long[] keys;
+      final List<T> values;
+      synchronized (source) {
+        keys = new long[source.size()];
+        values = new ArrayList<>(source.size());
+        int i = 0;
+        for (final Long2ObjectMap.Entry<? extends T> entry : source.long2ObjectEntrySet()) {
+          keys[i++] = entry.getLongKey();
+          values.add(entry.getValue());
+        }
+      }
+      for (int i = 0; i < keys.length; i++) {
+        put(keys[i], values.get(i));
+      }
+    }
+  }
 }
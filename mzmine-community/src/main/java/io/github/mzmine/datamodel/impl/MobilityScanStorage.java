@@ -32,7 +32,9 @@ import io.github.mzmine.datamodel.featuredata.impl.SimpleIonMobilogramTimeSeries
 import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
 import io.github.mzmine.datamodel.impl.masslist.StoredMobilityScanMassList;
 import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetector;
+import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import io.github.mzmine.util.exceptions.MissingMassListException;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.nio.DoubleBuffer;
@@ -46,16 +48,20 @@ import org.jetbrains.annotations.Nullable;
 /**
  * Memory efficient storage of {@link MobilityScan}s. Methods return an instance of
  * {@link StoredMobilityScan} or {@link StoredMobilityScanMassList} which is garbage collected if
- * not used anymore.
+ * not used anymore. Values are encoded as set by {@link #setEncoding(MobilityScanStorageEncoding)}
+ * to reduce the size of temporary files for large ion mobility data.
  *
  * @author https://github.com/steffenheu
  */
 public class MobilityScanStorage {
 
+  private static volatile MobilityScanStorageEncoding encoding =
+      MobilityScanStorageEncoding.LOSSLESS;
+
   // raw data
   private final Frame frame;
-  private final DoubleBuffer rawMzValues;
-  private final DoubleBuffer rawIntensityValues;
+  private final MobilityScanValues rawMzValues;
+  private final MobilityScanValues rawIntensityValues;
   /**
    * Per scan
    */
@@ -67,8 +73,8 @@ public class MobilityScanStorage {
   private final int rawMaxNumPoints;
 
   // mass list
-  private DoubleBuffer massListMzValues = null;
-  private DoubleBuffer massListIntensityValues = null;
+  private MobilityScanValues massListMzValues = null;
+  private MobilityScanValues massListIntensityValues = null;
   /**
    * Per scan
    */
@@ -90,13 +96,15 @@ public class MobilityScanStorage {
     }
 
     this.frame = frame;
+    final MemoryMapStorage mobilityStorage = TieredStorageManager.forMobilityScansOf(storage);
 
     final List<double[][]> data = StorageUtils.mapTo2dDoubleArrayList(mobilityScans,
         BuildingMobilityScan::getMzValues, BuildingMobilityScan::getIntensityValues);
 
     final AtomicInteger biggestOffset = new AtomicInteger(0);
     final int[] rawStorageOffsets = StorageUtils.generateOffsets(data, biggestOffset);
-    this.rawStorageOffsets = StorageUtils.storeValuesToIntBuffer(storage, rawStorageOffsets);
+    this.rawStorageOffsets = StorageUtils.storeValuesToIntBuffer(mobilityStorage,
+        rawStorageOffsets);
 
     rawMaxNumPoints = biggestOffset.get();
 
@@ -107,10 +115,13 @@ public class MobilityScanStorage {
 
     StorageUtils.putAllValuesIntoOneArray(data, 0, mzs);
     final int[] rawBasePeakIndices = StorageUtils.putAllValuesIntoOneArray(data, 1, intensities);
-    this.rawBasePeakIndices = StorageUtils.storeValuesToIntBuffer(storage, rawBasePeakIndices);
+    this.rawBasePeakIndices = StorageUtils.storeValuesToIntBuffer(mobilityStorage,
+        rawBasePeakIndices);
 
-    rawMzValues = StorageUtils.storeValuesToDoubleBuffer(storage, mzs);
-    rawIntensityValues = StorageUtils.storeValuesToDoubleBuffer(storage, intensities);
+    final MobilityScanStorageEncoding encoding = MobilityScanStorage.encoding;
+    rawMzValues = MobilityScanValues.encodeMzs(mobilityStorage, mzs, encoding);
+    rawIntensityValues = MobilityScanValues.encodeIntensities(mobilityStorage, intensities,
+        encoding);
   }
 
   public MobilityScanStorage(@Nullable MemoryMapStorage storage, @NotNull final Frame frame,
@@ -130,8 +141,9 @@ public class MobilityScanStorage {
    * Costructor with preloaded already memory mapped data. This is used in the mzML
    * @param storage for memory mapping
    * @param frame the actual frame
-   * @param mzValues already memory mapped mz values
-   * @param intensityValues already memory mapped intensity values
+   * @param mzValues already memory mapped mz values, encoded again unless the encoding is
+   *                 {@link MobilityScanStorageEncoding#DOUBLE}
+   * @param intensityValues already memory mapped intensity values, encoded like the mz values
    * @param maxNumPoints the maximum number of signals in the largest scan
    * @param storageOffsets the offsets to find the start of each mobility scan in the memory mapped mz and intensity buffers
    * @param basePeakIndices the
@@ -141,10 +153,19 @@ public class MobilityScanStorage {
       final DoubleBuffer mzValues, final DoubleBuffer intensityValues, final int maxNumPoints,
       final int[] storageOffsets, final int[] basePeakIndices, final boolean useAsMassList) {
     this.frame = frame;
-    rawBasePeakIndices = StorageUtils.storeValuesToIntBuffer(storage, basePeakIndices);
-    rawStorageOffsets = StorageUtils.storeValuesToIntBuffer(storage, storageOffsets);
-    rawMzValues = mzValues;
-    rawIntensityValues = intensityValues;
+    final MemoryMapStorage mobilityStorage = TieredStorageManager.forMobilityScansOf(storage);
+    rawBasePeakIndices = StorageUtils.storeValuesToIntBuffer(mobilityStorage, basePeakIndices);
+    rawStorageOffsets = StorageUtils.storeValuesToIntBuffer(mobilityStorage, storageOffsets);
+    final MobilityScanStorageEncoding encoding = MobilityScanStorage.encoding;
+    if (encoding == MobilityScanStorageEncoding.DOUBLE) {
+      rawMzValues = new MobilityScanValues.DoubleValues(mzValues);
+      rawIntensityValues = new MobilityScanValues.DoubleValues(intensityValues);
+    } else {
+      rawMzValues = MobilityScanValues.encodeMzs(mobilityStorage,
+          DataPointUtils.getDoubleBufferAsArray(mzValues), encoding);
+      rawIntensityValues = MobilityScanValues.encodeIntensities(mobilityStorage,
+          DataPointUtils.getDoubleBufferAsArray(intensityValues), encoding);
+    }
     rawMaxNumPoints = maxNumPoints;
 
     if (useAsMassList) {
@@ -196,9 +217,10 @@ public class MobilityScanStorage {
    *                in this frame
    */
   public void setMassLists(final @Nullable MemoryMapStorage storage, final List<double[][]> data) {
+    final MemoryMapStorage mobilityStorage = TieredStorageManager.forMobilityScansOf(storage);
     AtomicInteger biggestOffset = new AtomicInteger(0);
     final int[] massListStorageOffsets = StorageUtils.generateOffsets(data, biggestOffset);
-    this.massListStorageOffsets = StorageUtils.storeValuesToIntBuffer(storage,
+    this.massListStorageOffsets = StorageUtils.storeValuesToIntBuffer(mobilityStorage,
         massListStorageOffsets);
     massListMaxNumPoints = biggestOffset.get();
 
@@ -210,10 +232,25 @@ public class MobilityScanStorage {
     StorageUtils.putAllValuesIntoOneArray(data, 0, mzs);
     final int[] massListBasePeakIndices = StorageUtils.putAllValuesIntoOneArray(data, 1,
         intensities);
-    this.massListBasePeakIndices = StorageUtils.storeValuesToIntBuffer(storage,
+    this.massListBasePeakIndices = StorageUtils.storeValuesToIntBuffer(mobilityStorage,
         massListBasePeakIndices);
-    massListMzValues = StorageUtils.storeValuesToDoubleBuffer(storage, mzs);
-    massListIntensityValues = StorageUtils.storeValuesToDoubleBuffer(storage, intensities);
+    massListMzValues = MobilityScanValues.encodeMzs(mobilityStorage, mzs, encoding);
+    massListIntensityValues = MobilityScanValues.encodeIntensities(mobilityStorage, intensities,
+        encoding);
+  }
+
+  /**
+   * @return the encoding of values in new storages
+   */
+  public static MobilityScanStorageEncoding getEncoding() {
+    return encoding;
+  }
+
+  /**
+   * Sets the encoding of m/z and intensity values. Only applies to new data.
+   */
+  public static void setEncoding(@NotNull MobilityScanStorageEncoding encoding) {
+    MobilityScanStorage.encoding = encoding;
   }
 
   public MassList getMassList(int mobilityScanIndex) {
@@ -267,7 +304,7 @@ public class MobilityScanStorage {
     if (index < rawStorageOffsets.capacity() - 1) {
       return rawStorageOffsets.get(index + 1) - rawStorageOffsets.get(index);
     } else {
-      return rawMzValues.capacity() - rawStorageOffsets.get(index);
+      return rawMzValues.size() - rawStorageOffsets.get(index);
     }
   }
 
@@ -291,7 +328,7 @@ public class MobilityScanStorage {
    * @return The total number of points in this {@link  MobilityScanStorage}.
    */
   public int getRawTotalNumPoints() {
-    return rawMzValues.capacity();
+    return rawMzValues.size();
   }
 
   public Frame getFrame() {
@@ -344,7 +381,7 @@ public class MobilityScanStorage {
     if (index < massListStorageOffsets.capacity() - 1) {
       return massListStorageOffsets.get(index + 1) - massListStorageOffsets.get(index);
     } else {
-      return massListMzValues.capacity() - massListStorageOffsets.get(index);
+      return massListMzValues.size() - massListStorageOffsets.get(index);
     }
   }
 
@@ -395,7 +432,7 @@ public class MobilityScanStorage {
           "No mass list present for mobility scans. Run mass detection for scan type \"Mobility scans\" prior.",
           null);
     }
-    return massListIntensityValues.capacity();
+    return massListIntensityValues.size();
   }
 
   public void getMassListMzValues(int mobilityScanIndex, double[] dst, int offset) {
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.datamodel.impl;
+
+/**
+ * Encoding of the m/z and intensity values in a {@link MobilityScanStorage}. All values are
+ * decoded transparently when accessed through the mobility scans.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public enum MobilityScanStorageEncoding {
+
+  /**
+   * 8 bytes per m/z and intensity
+   */
+  DOUBLE,
+
+  /**
+   * m/z values are stored as indices into the sorted unique m/z values of each frame (TOF data
+   * has a limited number of m/z bins per frame). Intensities are stored as int if all values are
+   * integers (e.g., TDF data). Otherwise the values are stored as double. No loss of precision.
+   */
+  LOSSLESS,
+
+  /**
+   * Same as {@link #LOSSLESS} but stores non-integer intensities and m/z values that cannot be
+   * indexed as float. The relative error of these values is below 6E-8 (0.06 ppm for m/z).
+   */
+  COMPACT;
+
+  @Override
+  public String toString() {
+    return switch (this) {
+      case DOUBLE -> "Double precision";
+      case LOSSLESS -> "Compact lossless";
+      case COMPACT -> "Compact (float precision)";
+    };
+  }
+}
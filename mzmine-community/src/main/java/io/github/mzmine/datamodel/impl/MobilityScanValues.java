@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.datamodel.impl;
+
+import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The m/z or intensity values of all mobility scans in a {@link MobilityScanStorage}, encoded as
+ * defined by {@link MobilityScanStorageEncoding}.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+sealed interface MobilityScanValues {
+
+  /**
+   * Maximum number of unique values that are indexed by 16 bit
+   */
+  int MAX_SHORT_INDEX = 1 << 16;
+
+  /**
+   * @param mzs m/z values of all mobility scans
+   * @return the encoded values
+   */
+  @NotNull
+  static MobilityScanValues encodeMzs(@Nullable MemoryMapStorage storage, double[] mzs,
+      @NotNull MobilityScanStorageEncoding encoding) {
+    if (encoding == MobilityScanStorageEncoding.DOUBLE || mzs.length == 0) {
+      return new DoubleValues(StorageUtils.storeValuesToDoubleBuffer(storage, mzs));
+    }
+
+    // TOF data has a limited number of m/z bins per frame, index the unique values
+    final double[] unique = uniqueSorted(mzs);
+    final int n = mzs.length;
+    if (unique.length <= MAX_SHORT_INDEX && unique.length < n * 3L / 4) {
+      final int[] packed = new int[(n + 1) / 2];
+      for (int i = 0; i < n; i++) {
+        final int index = Arrays.binarySearch(unique, mzs[i]);
+        packed[i >> 1] |= index << ((i & 1) << 4);
+      }
+      return new ShortIndexedValues(StorageUtils.storeValuesToDoubleBuffer(storage, unique),
+          StorageUtils.storeValuesToIntBuffer(storage, packed), n);
+    }
+    if (unique.length < n / 2) {
+      final int[] indices = new int[n];
+      for (int i = 0; i < n; i++) {
+        indices[i] = Arrays.binarySearch(unique, mzs[i]);
+      }
+      return new IntIndexedValues(StorageUtils.storeValuesToDoubleBuffer(storage, unique),
+          StorageUtils.storeValuesToIntBuffer(storage, indices));
+    }
+    return encodeWithoutIndex(storage, mzs, encoding);
+  }
+
+  /**
+   * @param intensities intensities of all mobility scans
+   * @return the encoded values
+   */
+  @NotNull
+  static MobilityScanValues encodeIntensities(@Nullable MemoryMapStorage storage,
+      double[] intensities, @NotNull MobilityScanStorageEncoding encoding) {
+    if (encoding == MobilityScanStorageEncoding.DOUBLE) {
+      return new DoubleValues(StorageUtils.storeValuesToDoubleBuffer(storage, intensities));
+    }
+
+    final int[] ints = toIntegers(intensities);
+    if (ints != null) {
+      return new IntValues(StorageUtils.storeValuesToIntBuffer(storage, ints));
+    }
+    return encodeWithoutIndex(storage, intensities, encoding);
+  }
+
+  private static MobilityScanValues encodeWithoutIndex(@Nullable MemoryMapStorage storage,
+      double[] values, @NotNull MobilityScanStorageEncoding encoding) {
+    if (encoding == MobilityScanStorageEncoding.COMPACT) {
+      final float[] floats = new float[values.length];
+      for (int i = 0; i < values.length; i++) {
+        floats[i] = (float) values[i];
+      }
+      return new FloatValues(StorageUtils.storeValuesToFloatBuffer(storage, floats));
+    }
+    return new DoubleValues(StorageUtils.storeValuesToDoubleBuffer(storage, values));
+  }
+
+  /**
+   * @return the values as int array or null if any value is not an integer
+   */
+  @Nullable
+  private static int[] toIntegers(double[] values) {
+    final int[] ints = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final int value = (int) values[i];
+      if (value != values[i]) {
+        return null;
+      }
+      ints[i] = value;
+    }
+    return ints;
+  }
+
+  private static double[] uniqueSorted(double[] values) {
+    final double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int unique = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (unique == 0 || Double.compare(sorted[unique - 1], sorted[i]) != 0) {
+        sorted[unique++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, unique);
+  }
+
+  /**
+   * @return number of values
+   */
+  int size();
+
+  double get(int index);
+
+  /**
+   * Decodes a range of values
+   *
+   * @param index  first value
+   * @param dst    destination array
+   * @param offset offset in destination array
+   * @param length number of values
+   */
+  default void get(int index, double[] dst, int offset, int length) {
+    for (int i = 0; i < length; i++) {
+      dst[offset + i] = get(index + i);
+    }
+  }
+
+  record DoubleValues(DoubleBuffer values) implements MobilityScanValues {
+
+    @Override
+    public int size() {
+      return values.capacity();
+    }
+
+    @Override
+    public double get(int index) {
+      return values.get(index);
+    }
+
+    @Override
+    public void get(int index, double[] dst, int offset, int length) {
+      values.get(index, dst, offset, length);
+    }
+  }
+
+  record FloatValues(FloatBuffer values) implements MobilityScanValues {
+
+    @Override
+    public int size() {
+      return values.capacity();
+    }
+
+    @Override
+    public double get(int index) {
+      return values.get(index);
+    }
+  }
+
+  record IntValues(IntBuffer values) implements MobilityScanValues {
+
+    @Override
+    public int size() {
+      return values.capacity();
+    }
+
+    @Override
+    public double get(int index) {
+      return values.get(index);
+    }
+  }
+
+  /**
+   * @param unique  sorted unique values
+   * @param indices index into unique values for each value
+   */
+  record IntIndexedValues(DoubleBuffer unique, IntBuffer indices) implements
+      MobilityScanValues {
+
+    @Override
+    public int size() {
+      return indices.capacity();
+    }
+
+    @Override
+    public double get(int index) {
+      return unique.get(indices.get(index));
+    }
+  }
+
+  /**
+   * @param unique        sorted unique values
+   * @param packedIndices two 16 bit indices into unique values per int
+   * @param size          number of values
+   */
+  record ShortIndexedValues(DoubleBuffer unique, IntBuffer packedIndices, int size) implements
+      MobilityScanValues {
+
+    @Override
+    public double get(int index) {
+      final int word = packedIndices.get(index >> 1);
+      return unique.get((word >>> ((index & 1) << 4)) & 0xFFFF);
+    }
+  }
+}
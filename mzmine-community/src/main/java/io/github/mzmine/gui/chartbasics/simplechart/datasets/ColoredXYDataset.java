@@ -50,6 +50,7 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jfree.data.DomainOrder;
 import org.jfree.data.xy.IntervalXYDataset;
 
 /**
@@ -61,7 +62,8 @@ import org.jfree.data.xy.IntervalXYDataset;
  * @author https://github.com/SteffenHeu
  */
 public class ColoredXYDataset extends AbstractTaskXYDataset implements IntervalXYDataset,
-    SeriesKeyProvider, LabelTextProvider, ToolTipTextProvider, ColorPropertyProvider {
+    SeriesKeyProvider, LabelTextProvider, ToolTipTextProvider, ColorPropertyProvider,
+    DecimatedXYDataset {
 
   private static final Logger logger = Logger.getLogger(ColoredXYDataset.class.getName());
   protected final XYValueProvider xyValueProvider;
@@ -84,6 +86,8 @@ public class ColoredXYDataset extends AbstractTaskXYDataset implements IntervalX
 
   protected Range<Double> domainRange;
   protected Range<Double> rangeRange;
+  protected boolean domainAscending;
+  protected XYDecimation decimation;
 
   private ColoredXYDataset(XYValueProvider xyValueProvider,
       SeriesKeyProvider<Comparable<?>> seriesKeyProvider, LabelTextProvider labelTextProvider,
@@ -315,11 +319,14 @@ public class ColoredXYDataset extends AbstractTaskXYDataset implements IntervalX
     double maxDomain = Double.NEGATIVE_INFINITY;
     double minRange = Double.POSITIVE_INFINITY;
     double maxRange = Double.NEGATIVE_INFINITY;
+    boolean ascending = true;
 
     for (int i = 0; i < computedItemCount; i++) {
       final double rangeValue = xyValueProvider.getRangeValue(i);
       final double domainValue = xyValueProvider.getDomainValue(i);
 
+      ascending = ascending && domainValue >= maxDomain;
+
       minDomain = Math.min(domainValue, minDomain);
       maxDomain = Math.max(domainValue, maxDomain);
       minRange = Math.min(rangeValue, minRange);
@@ -330,6 +337,8 @@ public class ColoredXYDataset extends AbstractTaskXYDataset implements IntervalX
 
     domainRange = computedItemCount > 0 ? Range.closed(minDomain, maxDomain) : Range.closed(0d, 1d);
     rangeRange = computedItemCount > 0 ? Range.closed(minRange, maxRange) : Range.closed(0d, 1d);
+    domainAscending = ascending;
+    decimation = ascending ? XYDecimation.create(this, 0) : null;
 
 //    if (setToFinished) {
     onCalculationsFinished();
@@ -420,6 +429,20 @@ public class ColoredXYDataset extends AbstractTaskXYDataset implements IntervalX
     return isLocalMaximum[item];
   }
 
+  /**
+   * Ascending domain values allow the plot to only process the visible items.
+   */
+  @Override
+  public DomainOrder getDomainOrder() {
+    return domainAscending ? DomainOrder.ASCENDING : DomainOrder.NONE;
+  }
+
+  @Override
+  @Nullable
+  public XYDecimation getDecimation() {
+    return decimation;
+  }
+
   /**
    * @return The domain value range. Null if called before the computation has been finished.
    */
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.gui.chartbasics.simplechart.datasets;
+
+import io.github.mzmine.javafx.concurrent.threading.FxThread;
+import java.awt.geom.Rectangle2D;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRendererState;
+import org.jfree.data.Range;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * Level of detail for large line data like profile spectra, summed chromatograms or mobilograms.
+ * For each pixel column of the visible domain range only the first, last, lowest and highest item
+ * are drawn (M4 aggregation). The resulting line covers the same pixels as the line through all
+ * items, so the rendering cost is bound by the plot width instead of the number of items.
+ * <p>
+ * An overview of the whole domain range is selected on creation. After the visible range changed,
+ * the selection for this range is computed in the background and the overview is drawn meanwhile.
+ * Zoomed in ranges with only a few items per pixel column are drawn at full resolution.
+ * <p>
+ * Requires a single series with ascending domain values. Datasets provide an instance by
+ * {@link DecimatedXYDataset#getDecimation()} and line renderers call
+ * {@link #getDrawnItems(XYPlot, XYDataset, Rectangle2D, Runnable)} in their initialise method and
+ * {@link #isSkipped(DrawnItems, XYItemRendererState, int, int)} for each item. Item indices are
+ * not changed, so cursor positions and tooltips still refer to the original items.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class XYDecimation {
+
+  /**
+   * Datasets with fewer items are always drawn at full resolution
+   */
+  public static final int MIN_ITEMS = 5_000;
+  /**
+   * The visible range is drawn at full resolution if it contains at most this number of items per
+   * pixel column
+   */
+  static final int MAX_ITEMS_PER_COLUMN = 4;
+  static final int OVERVIEW_COLUMNS = 4096;
+
+  private static final Logger logger = Logger.getLogger(XYDecimation.class.getName());
+  private static final ExecutorService exec = Executors.newFixedThreadPool(2, runnable -> {
+    Thread t = new Thread(runnable, "XY decimation");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private final @NotNull XYDataset dataset;
+  private final int series;
+  private final int itemCount;
+  private final @NotNull DrawnItems overview;
+  // selection of the last requested visible range
+  private volatile DrawnItems view;
+  private final AtomicReference<ViewRequest> pending = new AtomicReference<>();
+
+  private XYDecimation(@NotNull XYDataset dataset, int series) {
+    this.dataset = dataset;
+    this.series = series;
+    itemCount = dataset.getItemCount(series);
+    final double lower = dataset.getXValue(series, 0);
+    final double upper = dataset.getXValue(series, itemCount - 1);
+    overview = new DrawnItems(lower, upper, OVERVIEW_COLUMNS,
+        selectItems(dataset, series, 0, itemCount - 1, lower, upper, OVERVIEW_COLUMNS));
+  }
+
+  /**
+   * Call after all values of the dataset were computed. Changes to the dataset afterwards are not
+   * reflected.
+   *
+   * @return the decimation or null if the series has too few items or the domain values are not
+   * ascending
+   */
+  @Nullable
+  public static XYDecimation create(@NotNull XYDataset dataset, int series) {
+    final int items = dataset.getItemCount(series);
+    if (items < MIN_ITEMS || !isAscending(dataset, series)) {
+      return null;
+    }
+    if (!(dataset.getXValue(series, items - 1) > dataset.getXValue(series, 0))) {
+      return null;
+    }
+    return new XYDecimation(dataset, series);
+  }
+
+  /**
+   * @return true if all domain values are in ascending order and not NaN
+   */
+  public static boolean isAscending(@NotNull XYDataset dataset, int series) {
+    final int items = dataset.getItemCount(series);
+    double last = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < items; i++) {
+      final double x = dataset.getXValue(series, i);
+      if (!(x >= last)) {
+        return false;
+      }
+      last = x;
+    }
+    return true;
+  }
+
+  /**
+   * Selects the items to draw for the visible domain range of the plot. Called by renderers in
+   * {@link org.jfree.chart.renderer.xy.XYItemRenderer#initialise}.
+   *
+   * @param onUpdate called on the FX thread once the selection for a new visible range was
+   *                 computed, usually to repaint the plot
+   * @return the drawn items or null to draw all items
+   */
+  @Nullable
+  public static DrawnItems getDrawnItems(@Nullable XYPlot plot, @Nullable XYDataset dataset,
+      @NotNull Rectangle2D dataArea, @Nullable Runnable onUpdate) {
+    if (plot == null || !(dataset instanceof DecimatedXYDataset decimated)) {
+      return null;
+    }
+    final XYDecimation decimation = decimated.getDecimation();
+    if (decimation == null) {
+      return null;
+    }
+    final ValueAxis axis = plot.getDomainAxisForDataset(plot.indexOf(dataset));
+    if (axis == null) {
+      return null;
+    }
+    final Range range = axis.getRange();
+    final double pixels = plot.getOrientation() == PlotOrientation.VERTICAL ? dataArea.getWidth()
+        : dataArea.getHeight();
+    return decimation.getDrawnItems(range.getLowerBound(), range.getUpperBound(),
+        (int) Math.ceil(pixels), onUpdate);
+  }
+
+  /**
+   * The first and last item of a pass are never skipped so that the renderer state finishes the
+   * series path.
+   *
+   * @param drawn the result of {@link #getDrawnItems(XYPlot, XYDataset, Rectangle2D, Runnable)}
+   * @return true if the renderer should not draw this item
+   */
+  public static boolean isSkipped(@Nullable DrawnItems drawn, @NotNull XYItemRendererState state,
+      int series, int item) {
+    return drawn != null && series == 0 && item != state.getFirstItemIndex()
+        && item != state.getLastItemIndex() && !drawn.isDrawn(item);
+  }
+
+  /**
+   * @param lower    visible domain lower bound
+   * @param upper    visible domain upper bound
+   * @param columns  number of pixel columns
+   * @param onUpdate called on the FX thread once the selection for a new visible range was
+   *                 computed
+   * @return the drawn items or null to draw all items
+   */
+  @Nullable
+  public DrawnItems getDrawnItems(double lower, double upper, int columns,
+      @Nullable Runnable onUpdate) {
+    if (columns < 1 || !(upper > lower)) {
+      return null;
+    }
+    // one item outside on each side to draw the line to the plot border
+    final int first = Math.max(0, lowerIndex(lower) - 1);
+    final int last = Math.min(itemCount - 1, lowerIndex(upper));
+    if (last - first + 1 <= (long) columns * MAX_ITEMS_PER_COLUMN) {
+      return null;
+    }
+
+    final DrawnItems current = view;
+    if (current != null && current.matches(lower, upper, columns)) {
+      return current;
+    }
+    requestView(new ViewRequest(lower, upper, columns, first, last), onUpdate);
+    return current != null && current.covers(lower, upper) ? current : overview;
+  }
+
+  private void requestView(@NotNull ViewRequest request, @Nullable Runnable onUpdate) {
+    if (request.equals(pending.getAndSet(request))) {
+      return; // already scheduled
+    }
+    exec.execute(() -> {
+      // skip if the visible range changed again
+      if (!request.equals(pending.get())) {
+        return;
+      }
+      try {
+        view = new DrawnItems(request.lower(), request.upper(), request.columns(),
+            selectItems(dataset, series, request.first(), request.last(), request.lower(),
+                request.upper(), request.columns()));
+      } catch (Exception e) {
+        logger.log(Level.WARNING, "Cannot decimate dataset " + e.getMessage(), e);
+        return;
+      } finally {
+        pending.compareAndSet(request, null);
+      }
+      if (onUpdate != null) {
+        FxThread.runLater(onUpdate);
+      }
+    });
+  }
+
+  /**
+   * @return the first item index with a domain value >= x, may be the item count
+   */
+  int lowerIndex(double x) {
+    int low = 0;
+    int high = itemCount;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (dataset.getXValue(series, mid) < x) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * M4 aggregation: selects the first, last, lowest and highest item of each pixel column. Items
+   * outside the domain range are assigned to the first or last column.
+   *
+   * @param first first item index, inclusive
+   * @param last  last item index, inclusive
+   * @return the selected item indices
+   */
+  @NotNull
+  static BitSet selectItems(@NotNull XYDataset dataset, int series, int first, int last,
+      double lower, double upper, int columns) {
+    final BitSet selected = new BitSet(last + 1);
+    final double scale = columns / (upper - lower);
+    int column = -1;
+    int firstInColumn = -1;
+    int lastInColumn = -1;
+    int minIndex = -1;
+    int maxIndex = -1;
+    double min = 0;
+    double max = 0;
+
+    for (int i = first; i <= last; i++) {
+      final double x = dataset.getXValue(series, i);
+      final double y = dataset.getYValue(series, i);
+      final int c = Math.min(columns - 1, Math.max(0, (int) ((x - lower) * scale)));
+      if (c != column) {
+        if (column != -1) {
+          select(selected, firstInColumn, lastInColumn, minIndex, maxIndex);
+        }
+        column = c;
+        firstInColumn = i;
+        minIndex = i;
+        maxIndex = i;
+        min = y;
+        max = y;
+      } else if (y < min) {
+        min = y;
+        minIndex = i;
+      } else if (y > max) {
+        max = y;
+        maxIndex = i;
+      }
+      lastInColumn = i;
+    }
+    if (column != -1) {
+      select(selected, firstInColumn, lastInColumn, minIndex, maxIndex);
+    }
+    return selected;
+  }
+
+  private static void select(BitSet selected, int first, int last, int min, int max) {
+    selected.set(first);
+    selected.set(last);
+    selected.set(min);
+    selected.set(max);
+  }
+
+  public int getItemCount() {
+    return itemCount;
+  }
+
+  /**
+   * The items selected for a domain range and number of pixel columns
+   *
+   * @param items selected item indices
+   */
+  public record DrawnItems(double lower, double upper, int columns, @NotNull BitSet items) {
+
+    public boolean isDrawn(int item) {
+      return items.get(item);
+    }
+
+    public int getNumberOfDrawnItems() {
+      return items.cardinality();
+    }
+
+    boolean matches(double lower, double upper, int columns) {
+      return this.columns == columns && Double.compare(this.lower, lower) == 0
+          && Double.compare(this.upper, upper) == 0;
+    }
+
+    boolean covers(double lower, double upper) {
+      return this.lower <= lower && this.upper >= upper;
+    }
+  }
+
+  private record ViewRequest(double lower, double upper, int columns, int first, int last) {
+
+  }
+}
@@ -27,6 +27,8 @@ package io.github.mzmine.gui.chartbasics.simplechart.renderers;
 
 import io.github.mzmine.gui.chartbasics.simplechart.SimpleChartUtility;
 import io.github.mzmine.gui.chartbasics.simplechart.SimpleXYChart;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation.DrawnItems;
 import io.github.mzmine.gui.chartbasics.simplechart.providers.ColorProvider;
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
@@ -62,6 +64,8 @@ public class ColoredXYLineRenderer extends XYLineAndShapeRenderer {
   private double transparency = 1.0f;
 
   private XYDataset currentDataset;
+  // items of the current dataset drawn for the visible range, null to draw all
+  private transient DrawnItems drawnItems;
 
   public ColoredXYLineRenderer() {
     super(true, false);
@@ -80,11 +84,22 @@ public class ColoredXYLineRenderer extends XYLineAndShapeRenderer {
     super.drawItemLabel(g2, orientation, dataset, series, item, x, y, negative);
   }
 
+  @Override
+  public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea, XYPlot plot,
+      XYDataset data, PlotRenderingInfo info) {
+    drawnItems = XYDecimation.getDrawnItems(plot, data, dataArea, this::fireChangeEvent);
+    return super.initialise(g2, dataArea, plot, data, info);
+  }
+
   @Override
   public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea,
       PlotRenderingInfo info, XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis,
       XYDataset dataset, int series, int item, CrosshairState crosshairState, int pass) {
 
+    if (XYDecimation.isSkipped(drawnItems, state, series, item)) {
+      return;
+    }
+
     g2.setComposite(makeComposite(transparency));
     currentDataset = dataset;
 
@@ -25,6 +25,8 @@
 
 package io.github.mzmine.gui.preferences;
 
+import io.github.mzmine.datamodel.impl.MobilityScanStorage;
+import io.github.mzmine.datamodel.impl.MobilityScanStorageEncoding;
 import io.github.mzmine.gui.chartbasics.chartthemes.ChartThemeParameters;
 import io.github.mzmine.gui.chartbasics.chartutils.paintscales.PaintScaleTransform;
 import io.github.mzmine.javafx.dialogs.DialogLoggerUtil;
@@ -38,6 +40,7 @@ import io.github.mzmine.parameters.parametertypes.BooleanParameter;
 import io.github.mzmine.parameters.parametertypes.ComboParameter;
 import io.github.mzmine.parameters.parametertypes.FontSpecs;
 import io.github.mzmine.parameters.parametertypes.HiddenParameter;
+import io.github.mzmine.parameters.parametertypes.IntegerParameter;
 import io.github.mzmine.parameters.parametertypes.OptOutParameter;
 import io.github.mzmine.parameters.parametertypes.OptionalParameter;
 import io.github.mzmine.parameters.parametertypes.StringParameter;
@@ -54,6 +57,7 @@ import io.github.mzmine.util.StringUtils;
 import io.github.mzmine.util.color.ColorUtils;
 import io.github.mzmine.util.files.ExtensionFilters;
 import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import io.github.mzmine.util.web.Proxy;
 import io.github.mzmine.util.web.ProxyType;
 import io.github.mzmine.util.web.ProxyUtils;
@@ -65,6 +69,7 @@ import java.text.DecimalFormat;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -167,6 +172,32 @@ public class MZminePreferences extends SimpleParameterSet {
       KeepInMemory.ALL, KeepInMemory.MASSES_AND_FEATURES), KeepInMemory.values(),
       KeepInMemory.NONE);
 
+  public static final OptionalParameter<IntegerParameter> memoryBudget = new OptionalParameter<>(
+      new IntegerParameter("RAM budget (GB)",
+          "Places new spectral and feature data on heap, off-heap or memory mapped depending on "
+              + "the memory used by all data and the type of data. Features and mass lists are "
+              + "kept in memory longer than raw and mobility scans, which are memory mapped first "
+              + "when the budget is reached. Data is placed once when it is stored and never moved "
+              + "later. Overrides the keep in memory option and is overridden by a program "
+              + "argument like --memory 64G. Only applies to new data.", 16, 1, null), false);
+
+  public static final BooleanParameter indexMassListsForEics = new BooleanParameter(
+      "Index mass lists for EICs",
+      "Builds an m/z index of the mass lists of each raw data file in the background when ion "
+          + "chromatograms of mass lists are first shown in the raw data overview. Repeated EICs "
+          + "are then extracted from the index. Requires additional memory, about 16 bytes per "
+          + "signal.", false);
+
+  public static final ComboParameter<MobilityScanStorageEncoding> imsStorageEncoding = new ComboParameter<>(
+      "IMS data encoding", String.format(
+      "Encoding of the mobility scans of ion mobility data in memory and temporary files. %s "
+          + "stores m/z values as index into the m/z values of each frame and integer intensities "
+          + "as int, reducing the size about twofold without loss of precision. %s additionally "
+          + "stores other values as float (relative error below 6E-8). %s uses 8 bytes per value. "
+          + "Only applies to newly imported data.", MobilityScanStorageEncoding.LOSSLESS,
+      MobilityScanStorageEncoding.COMPACT, MobilityScanStorageEncoding.DOUBLE),
+      MobilityScanStorageEncoding.values(), MobilityScanStorageEncoding.LOSSLESS);
+
   /*public static final BooleanParameter applyTimsPressureCompensation = new BooleanParameter(
       "Use MALDI-TIMS pressure compensation", """
       Specifies if mobility values from Bruker timsTOF fleX MALDI raw data shall be recalibrated using a Bruker algorithm.
@@ -221,6 +252,13 @@ public class MZminePreferences extends SimpleParameterSet {
       UV spectra and chromatograms and is therefore recommended, but only available on windows.
       """, ThermoImportOptions.getOptionsForOs(), ThermoImportOptions.MSCONVERT);
 
+  public static final BooleanParameter compileSpectralLibraries = new BooleanParameter(
+      "Cache compiled spectral libraries",
+      "Writes a binary copy of each imported text spectral library (mgf, msp, json) to the "
+          + "spectral_library_cache folder in the mzmine user directory. Later imports of the "
+          + "unchanged file open the binary copy instead of parsing the text. Outdated copies of "
+          + "the same library are removed. Requires additional disk space.", false);
+
   public static final OptionalParameter<ParameterSetParameter<WatersLockmassParameters>> watersLockmass = new OptionalParameter<>(
       new ParameterSetParameter<>("Apply lockmass on import (Waters)",
           "Apply lockmass correction for native Waters raw data during raw data import via MSConvert.",
@@ -228,7 +266,8 @@ public class MZminePreferences extends SimpleParameterSet {
 
   public MZminePreferences() {
     super(// start with performance
-        numOfThreads, memoryOption, tempDirectory, proxySettings,
+        numOfThreads, memoryOption, memoryBudget, imsStorageEncoding, indexMassListsForEics,
+        tempDirectory, proxySettings,
         /*applyTimsPressureCompensation,*/
         // visuals
         // number formats
@@ -243,7 +282,8 @@ public class MZminePreferences extends SimpleParameterSet {
         // silent parameters without controls
         showTempFolderAlert, username,
         //
-        msConvertPath, keepConvertedFile, applyPeakPicking, thermoImportChoice, watersLockmass);
+        msConvertPath, keepConvertedFile, applyPeakPicking, thermoImportChoice, watersLockmass,
+        compileSpectralLibraries);
 
     darkModeProperty.subscribe(state -> {
       var oldTheme = getValue(theme);
@@ -267,14 +307,15 @@ public class MZminePreferences extends SimpleParameterSet {
     GroupedParameterSetupDialog dialog = new GroupedParameterSetupDialog(valueCheckRequired, this);
 
     // add groups
-    dialog.addParameterGroup("General", numOfThreads, memoryOption, tempDirectory, proxySettings
+    dialog.addParameterGroup("General", numOfThreads, memoryOption, memoryBudget,
+        imsStorageEncoding, indexMassListsForEics, tempDirectory, proxySettings
         /*, applyTimsPressureCompensation*/);
     dialog.addParameterGroup("Formats", mzFormat, rtFormat, mobilityFormat, ccsFormat,
         intensityFormat, ppmFormat, scoreFormat, unitFormat);
     dialog.addParameterGroup("Visuals", defaultColorPalette, defaultPaintScale, chartParam, theme,
         presentationMode, showPrecursorWindow, imageTransformation, imageNormalization);
     dialog.addParameterGroup("MS data import", msConvertPath, keepConvertedFile, applyPeakPicking,
-        thermoImportChoice, watersLockmass);
+        thermoImportChoice, watersLockmass, compileSpectralLibraries);
 //    dialog.addParameterGroup("Other", new Parameter[]{
     // imsModuleWarnings, showTempFolderAlert, windowSetttings  are hidden parameters
 //    });
@@ -296,6 +337,14 @@ public class MZminePreferences extends SimpleParameterSet {
     applyConfig(null);
   }
 
+  /**
+   * @return the RAM budget in bytes for the {@link TieredStorageManager} or 0 if not selected
+   */
+  public long getMemoryBudget() {
+    final Integer gigabytes = getEmbeddedParameterValueIfSelectedOrElse(memoryBudget, null);
+    return gigabytes == null ? 0 : gigabytes * 1024L * 1024L * 1024L;
+  }
+
   public void applyConfig(final @Nullable Themes previousTheme) {
     // Update proxy settings
     updateSystemProxySettings();
@@ -308,6 +357,10 @@ public class MZminePreferences extends SimpleParameterSet {
     final KeepInMemory keepInMemory = config.getPreferences()
         .getParameter(MZminePreferences.memoryOption).getValue();
     keepInMemory.enforceToMemoryMapping();
+    TieredStorageManager.setBudget(getMemoryBudget());
+    MobilityScanStorage.setEncoding(
+        Objects.requireNonNullElse(getValue(MZminePreferences.imsStorageEncoding),
+            MobilityScanStorageEncoding.LOSSLESS));
 
     final Themes theme = getValue(MZminePreferences.theme);
     if (previousTheme != null) {
@@ -30,6 +30,8 @@ import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.ImagingRawDataFile;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.impl.MobilityScanStorage;
+import io.github.mzmine.datamodel.impl.MobilityScanStorageEncoding;
 import io.github.mzmine.gui.DesktopService;
 import io.github.mzmine.gui.HeadLessDesktop;
 import io.github.mzmine.gui.MZmineDesktop;
@@ -55,6 +57,7 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.StringUtils;
 import io.github.mzmine.util.files.FileAndPathUtil;
 import io.github.mzmine.util.io.SemverVersionReader;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import io.github.mzmine.util.web.ProxyChangedEvent;
 import io.github.mzmine.util.web.ProxyUtils;
 import io.mzio.events.AuthRequiredEvent;
@@ -213,15 +216,25 @@ public final class MZmineCore {
       }
 
       KeepInMemory keepInMemory;
+      long memoryBudget;
       try {
         var memory = argsParser.isKeepInMemory();
         if (StringUtils.hasValue(memory)) {
-          keepInMemory = KeepInMemory.parse(memory);
+          // either a RAM budget like 64G or one of the keep in memory options
+          memoryBudget = Math.max(TieredStorageManager.parseBudget(memory), 0);
+          keepInMemory = memoryBudget > 0 ? KeepInMemory.NONE : KeepInMemory.parse(memory);
 
           // set to preferences
           preferences.setParameter(MZminePreferences.memoryOption, keepInMemory);
+          if (memoryBudget > 0) {
+            preferences.setParameter(MZminePreferences.memoryBudget, true,
+                (int) Math.ceil(memoryBudget / (1024d * 1024d * 1024d)));
+          } else {
+            preferences.setParameter(MZminePreferences.memoryBudget, false);
+          }
         } else {
           keepInMemory = preferences.getParameter(MZminePreferences.memoryOption).getValue();
+          memoryBudget = preferences.getMemoryBudget();
         }
       } catch (Exception exception) {
         logger.warning("Issue while reading keep in memory option from CLI argument");
@@ -241,6 +254,10 @@ public final class MZmineCore {
 
       // apply memory management option
       keepInMemory.enforceToMemoryMapping();
+      TieredStorageManager.setBudget(memoryBudget);
+      MobilityScanStorage.setEncoding(
+          Objects.requireNonNullElse(preferences.getValue(MZminePreferences.imsStorageEncoding),
+              MobilityScanStorageEncoding.LOSSLESS));
 
       // batch mode defined by command line argument
       File batchFile = argsParser.getBatchFile();
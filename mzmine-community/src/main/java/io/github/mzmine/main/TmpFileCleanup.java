@@ -34,6 +34,7 @@ import io.github.mzmine.project.ProjectService;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.MemoryMapStorages;
 import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
@@ -147,7 +148,8 @@ public class TmpFileCleanup implements Runnable {
 
     for (final MemoryMapStorage storage : MemoryMapStorages.getStorageList()) {
       try {
-        storage.discard(theUnsafe);
+        // also discards the linked storage of mobility scans
+        TieredStorageManager.discard(storage, theUnsafe);
       } catch (IOException e) {
         e.printStackTrace();
       }
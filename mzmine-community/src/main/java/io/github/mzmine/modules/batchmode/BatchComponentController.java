@@ -59,6 +59,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -109,6 +111,8 @@ public class BatchComponentController implements LastFilesComponent {
   public ComboBox<OriginalFeatureListOption> cmbHandleFlists;
 
   private BatchQueue batchQueue;
+  // bound to the parameter component, saved to and loaded from batch files
+  private final BooleanProperty pipelinePerFileSteps = new SimpleBooleanProperty(false);
 
   public void initialize() {
 
@@ -387,6 +391,8 @@ public class BatchComponentController implements LastFilesComponent {
 
     // Serialize batch queue.
     batchQueue.saveToXml(element);
+    element.setAttribute(BatchModeParameters.XML_PIPELINE_PER_FILE_STEPS_ATTR,
+        String.valueOf(pipelinePerFileSteps.get()));
 
     String extension = ExtensionFilters.getExtensionName(ExtensionFilters.MZ_BATCH);
     file = FileAndPathUtil.getRealFilePath(file, extension);
@@ -410,8 +416,8 @@ public class BatchComponentController implements LastFilesComponent {
       throws ParserConfigurationException, IOException, SAXException {
     List<String> errorMessages = new ArrayList<>();
     // allow missing modules but report them as error messages
-    final BatchQueue queue = BatchQueue.loadFromXml(XMLUtils.load(file).getDocumentElement(),
-        errorMessages, true);
+    final Element batchElement = XMLUtils.load(file).getDocumentElement();
+    final BatchQueue queue = BatchQueue.loadFromXml(batchElement, errorMessages, true);
     // check error messages and show dialog
     if (!errorMessages.isEmpty()) {
       DialogLoggerUtil.showMessageDialog("Check batch parameters carefully.",
@@ -438,6 +444,8 @@ public class BatchComponentController implements LastFilesComponent {
         index = 0;
         batchQueue.clear();
         batchQueue.addAll(queue);
+        pipelinePerFileSteps.set(Boolean.parseBoolean(
+            batchElement.getAttribute(BatchModeParameters.XML_PIPELINE_PER_FILE_STEPS_ATTR)));
       }
       case Prepend -> {
         index = 0;
@@ -459,6 +467,13 @@ public class BatchComponentController implements LastFilesComponent {
     addLastUsedFile(file);
   }
 
+  /**
+   * @return pipelining of per-file steps, saved to and loaded from batch files
+   */
+  public BooleanProperty pipelinePerFileStepsProperty() {
+    return pipelinePerFileSteps;
+  }
+
   public void changeOutputFiles(final ActionEvent event) {
     ParameterSet parameters = MZmineCore.getConfiguration()
         .getModuleParameters(ChangeOutputFilesModule.class);
@@ -47,6 +47,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 /**
  * Batch mode module
@@ -97,8 +98,8 @@ public class BatchModeModule implements MZmineProcessingModule {
 
       List<String> errorMessages = new ArrayList<>();
       // fail on missing modules - here its usually run from the command line - fail it
-      BatchQueue newQueue = BatchQueue.loadFromXml(parsedBatchXML.getDocumentElement(),
-          errorMessages, false);
+      final Element batchElement = parsedBatchXML.getDocumentElement();
+      BatchQueue newQueue = BatchQueue.loadFromXml(batchElement, errorMessages, false);
 
       // versions might have changed
       if (!errorMessages.isEmpty()) {
@@ -133,6 +134,8 @@ public class BatchModeModule implements MZmineProcessingModule {
 
       ParameterSet parameters = new BatchModeParameters();
       parameters.getParameter(BatchModeParameters.batchQueue).setValue(newQueue);
+      parameters.setParameter(BatchModeParameters.pipelinePerFileSteps, Boolean.parseBoolean(
+          batchElement.getAttribute(BatchModeParameters.XML_PIPELINE_PER_FILE_STEPS_ATTR)));
       BatchTask batchTask = new BatchTask(project, parameters, moduleCallDate);
       batchTask.run();
       return batchTask;
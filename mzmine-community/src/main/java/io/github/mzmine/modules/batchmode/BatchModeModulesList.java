@@ -120,6 +120,7 @@ import io.github.mzmine.modules.io.export_ccsbase.CcsBaseExportModule;
 import io.github.mzmine.modules.io.export_compoundAnnotations_csv.CompoundAnnotationsCSVExportModule;
 import io.github.mzmine.modules.io.export_features_all_speclib_matches.ExportAllIdsGraphicalModule;
 import io.github.mzmine.modules.io.export_features_csv.CSVExportModularModule;
+import io.github.mzmine.modules.io.export_features_parquet.ParquetExportModule;
 import io.github.mzmine.modules.io.export_features_csv_legacy.LegacyCSVExportModule;
 import io.github.mzmine.modules.io.export_features_featureML.FeatureMLExportModularModule;
 import io.github.mzmine.modules.io.export_features_gnps.fbmn.GnpsFbmnExportAndSubmitModule;
@@ -383,6 +384,7 @@ public class BatchModeModulesList {
       SiriusExportModule.class, //
       MZTabmImportModule.class, //
       CSVExportModularModule.class, //
+      ParquetExportModule.class, //
       LegacyCSVExportModule.class, //
       CompoundAnnotationsCSVExportModule.class, //
       LibraryAnalysisCSVExportModule.class, //
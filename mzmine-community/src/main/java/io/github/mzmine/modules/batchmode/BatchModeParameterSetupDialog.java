@@ -28,6 +28,7 @@ package io.github.mzmine.modules.batchmode;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.dialogs.ParameterSetupDialog;
 import io.github.mzmine.parameters.parametertypes.filenames.FileNameListSilentParameter;
+import javafx.scene.control.CheckBox;
 
 public class BatchModeParameterSetupDialog extends ParameterSetupDialog {
 
@@ -38,6 +39,11 @@ public class BatchModeParameterSetupDialog extends ParameterSetupDialog {
 
     BatchComponentController controller = batchQueue.getController();
     controller.setLastFiles(lastFiles.getValue());
+    final CheckBox pipelinePerFileSteps = getComponentForParameter(
+        BatchModeParameters.pipelinePerFileSteps);
+    controller.pipelinePerFileStepsProperty().set(pipelinePerFileSteps.isSelected());
+    pipelinePerFileSteps.selectedProperty()
+        .bindBidirectional(controller.pipelinePerFileStepsProperty());
 
     super.addCheckParametersButton();
   }
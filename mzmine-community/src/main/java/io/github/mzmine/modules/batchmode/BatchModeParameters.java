@@ -28,6 +28,7 @@ package io.github.mzmine.modules.batchmode;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.impl.SimpleParameterSet;
 import io.github.mzmine.parameters.parametertypes.AdvancedParametersParameter;
+import io.github.mzmine.parameters.parametertypes.BooleanParameter;
 import io.github.mzmine.parameters.parametertypes.filenames.FileNameListSilentParameter;
 import io.github.mzmine.util.ExitCode;
 
@@ -37,11 +38,21 @@ public class BatchModeParameters extends SimpleParameterSet {
       "Last used files");
   public static final BatchQueueParameter batchQueue = new BatchQueueParameter();
 
+  /**
+   * Attribute of the batch file root element. Batch files without it do not pipeline steps.
+   */
+  public static final String XML_PIPELINE_PER_FILE_STEPS_ATTR = "pipeline_per_file_steps";
+
+  public static final BooleanParameter pipelinePerFileSteps = new BooleanParameter(
+      "Pipeline per-file steps",
+      "Consecutive steps that process each file independently (e.g., mass detection, chromatogram building, smoothing, resolving, isotope grouping) are run per file so that each file flows through these steps independently. "
+      + "Steps that combine files, like alignment and gap filling, wait for all files.", false);
+
   public static final AdvancedParametersParameter<AdvancedBatchModeParameters> advanced = new AdvancedParametersParameter<>(
       new AdvancedBatchModeParameters());
 
   public BatchModeParameters() {
-    super(new Parameter[]{batchQueue,
+    super(new Parameter[]{batchQueue, pipelinePerFileSteps,
 //        advanced,
         lastFiles});
   }
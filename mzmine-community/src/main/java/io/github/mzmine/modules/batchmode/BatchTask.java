@@ -67,6 +67,7 @@ import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Batch mode task
@@ -93,6 +94,9 @@ public class BatchTask extends AbstractTask {
   private File parentDir;
   private int currentDataset;
   private List<StepTimeMeasurement> stepTimes = new ArrayList<>();
+  // per file times of pipelined steps
+  private final List<StepTimeMeasurement> fileStepTimes = new ArrayList<>();
+  private final boolean pipelinePerFileSteps;
 
   BatchTask(MZmineProject project, ParameterSet parameters, @NotNull Instant moduleCallDate) {
     this(project, parameters, moduleCallDate,
@@ -105,6 +109,7 @@ public class BatchTask extends AbstractTask {
     setName("Batch task");
     this.project = project;
     this.queue = parameters.getParameter(BatchModeParameters.batchQueue).getValue();
+    pipelinePerFileSteps = parameters.getValue(BatchModeParameters.pipelinePerFileSteps);
     // advanced parameters
     useAdvanced = false;
 //    useAdvanced = parameters.getParameter(BatchModeParameters.advanced).getValue();
@@ -142,8 +147,19 @@ public class BatchTask extends AbstractTask {
    */
   private static TaskStatus runInTaskPool(final MZmineProcessingModule method,
       final List<Task> tasksToRun) {
+    return runInTaskPool(STR."\{method.getName()} on \{tasksToRun.size()} items", tasksToRun);
+  }
+
+  /**
+   * Runs all tasks in a single {@link ThreadPoolTask} on the {@link TaskController#getExecutor()}
+   * default executor
+   *
+   * @param description for logging
+   * @param tasksToRun  list will be cleared after scheduling
+   * @return the {@link TaskStatus} of the carrier task reflecting the worst case of the sub tasks
+   */
+  private static TaskStatus runInTaskPool(final String description, final List<Task> tasksToRun) {
     TaskController taskController = MZmineCore.getTaskController();
-    var description = STR."\{method.getName()} on \{tasksToRun.size()} items";
     var threadPoolTask = ThreadPoolTask.createDefaultTaskManagerPool(description, tasksToRun);
     // clear tasks to not leak the long running tasks by keeping them alive
     tasksToRun.clear();
@@ -179,6 +195,7 @@ public class BatchTask extends AbstractTask {
         if (!stepTimes.isEmpty()) {
           printBatchTimes(batchStart);
           stepTimes.clear();
+          fileStepTimes.clear();
         }
 
         // change files
@@ -223,9 +240,17 @@ public class BatchTask extends AbstractTask {
         }
       }
 
-      // run step
-      processQueueStep(i % stepsPerDataset);
-      processedSteps++;
+      // run step or a chain of per-file steps
+      final int stepNumber = i % stepsPerDataset;
+      final int pipelinedSteps = pipelinePerFileSteps ? countPerFileSteps(stepNumber) : 0;
+      if (pipelinedSteps > 1) {
+        processPipelinedSteps(stepNumber, pipelinedSteps);
+        processedSteps += pipelinedSteps;
+        i += pipelinedSteps - 1;
+      } else {
+        processQueueStep(stepNumber);
+        processedSteps++;
+      }
 
       // If we are canceled or ran into error, stop here
       if (isCanceled()) {
@@ -256,6 +281,13 @@ public class BatchTask extends AbstractTask {
     logger.info(STR."""
     Timing: Whole batch took \{duration} to finish
     \{times}""");
+    if (!fileStepTimes.isEmpty()) {
+      String fileTimes = fileStepTimes.stream().map(Objects::toString)
+          .collect(Collectors.joining("\n"));
+      logger.info(STR."""
+      Timing: Pipelined steps per file
+      \{fileTimes}""");
+    }
   }
 
   private void setOutputFiles(final File parentDir, final boolean createResultsDir,
@@ -286,6 +318,13 @@ public class BatchTask extends AbstractTask {
     return stepTimes;
   }
 
+  /**
+   * @return the time of each file in pipelined per-file steps
+   */
+  public List<StepTimeMeasurement> getFileStepTimes() {
+    return fileStepTimes;
+  }
+
   public int currentStep() {
     return processedSteps % stepsPerDataset;
   }
@@ -293,6 +332,7 @@ public class BatchTask extends AbstractTask {
   private void processQueueStep(int stepNumber) {
 
     Instant start = Instant.now();
+    final long cpuStart = StepTimeMeasurement.processCpuNanos();
     logger.info("Starting step # " + (stepNumber + 1));
 
     // Run next step of the batch
@@ -314,21 +354,16 @@ public class BatchTask extends AbstractTask {
 
     // Update the RawDataFilesParameter parameters to reflect the current
     // state of the batch
-    for (Parameter<?> p : batchStepParameters.getParameters()) {
-      if (p instanceof RawDataFilesParameter rdp) {
-        RawDataFile[] createdFiles = createdDataFiles.toArray(new RawDataFile[0]);
-        final RawDataFilesSelection selectedFiles = rdp.getValue();
-        if (selectedFiles == null) {
-          setStatus(TaskStatus.ERROR);
-          setErrorMessage("Invalid parameter settings for module " + method.getName() + ": "
-                          + "Missing parameter value for " + p.getName());
-          return;
-        }
-        selectedFiles.setBatchLastFiles(createdFiles);
-      }
+    Parameter<?> missing = setBatchLastFiles(batchStepParameters,
+        createdDataFiles.toArray(new RawDataFile[0]));
+    if (missing == null) {
+      missing = setBatchLastFeatureLists(batchStepParameters,
+          createdFeatureLists.toArray(new FeatureList[0]));
     }
-
-    if (!setBatchlastFeatureListsToParamSet(method, batchStepParameters)) {
+    if (missing != null) {
+      setStatus(TaskStatus.ERROR);
+      setErrorMessage("Invalid parameter settings for module " + method.getName() + ": "
+                      + "Missing parameter value for " + missing.getName());
       return;
     }
 
@@ -402,7 +437,157 @@ public class BatchTask extends AbstractTask {
     }
 
     Duration duration = Duration.between(start, Instant.now());
-    stepTimes.add(new StepTimeMeasurement(stepNumber, method.getName(), duration));
+    Duration cpuTime = StepTimeMeasurement.cpuDuration(cpuStart,
+        StepTimeMeasurement.processCpuNanos());
+    stepTimes.add(new StepTimeMeasurement(stepNumber, method.getName(), null, duration, cpuTime));
+  }
+
+  /**
+   * @return the number of consecutive per-file steps starting at this step within the current
+   * dataset
+   */
+  private int countPerFileSteps(int stepNumber) {
+    int count = 0;
+    while (stepNumber + count < stepsPerDataset && PipelinedFileStepsTask.isPerFileStep(
+        queue.get(stepNumber + count))) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Runs a chain of per-file steps with one {@link PipelinedFileStepsTask} per raw data file. Each
+   * file flows through all steps independently. Falls back to sequential processing if the input
+   * feature lists do not map to single raw data files.
+   *
+   * @param firstStep index of the first step
+   * @param numSteps  number of per-file steps
+   */
+  private void processPipelinedSteps(int firstStep, int numSteps) {
+    Instant start = Instant.now();
+    final long cpuStart = StepTimeMeasurement.processCpuNanos();
+    logger.info(STR."Starting pipelined per-file steps # \{firstStep + 1}-\{firstStep + numSteps}");
+
+    // If the last step did not produce any data files or feature lists, use
+    // the ones from the previous step
+    if (createdDataFiles.isEmpty()) {
+      createdDataFiles = previousCreatedDataFiles;
+    }
+    if (createdFeatureLists.isEmpty()) {
+      createdFeatureLists = previousCreatedFeatureLists;
+    }
+
+    final List<MZmineProcessingStep<?>> steps = new ArrayList<>(numSteps);
+    for (int i = 0; i < numSteps; i++) {
+      steps.add(queue.get(firstStep + i));
+    }
+
+    // each feature list needs to belong to a single file to be processed in a chain
+    final boolean startsOnRawData = hasParameter(steps.getFirst().getParameterSet(),
+        RawDataFilesParameter.class);
+    final List<RawDataFile> files = startsOnRawData ? createdDataFiles
+        : createdFeatureLists.stream().filter(flist -> flist.getNumberOfRawDataFiles() == 1)
+            .map(flist -> flist.getRawDataFile(0)).distinct().toList();
+    if (files.isEmpty() || (!startsOnRawData && createdFeatureLists.stream()
+        .anyMatch(flist -> flist.getNumberOfRawDataFiles() != 1))) {
+      logger.info("Cannot pipeline steps on feature lists of multiple files, running them in order");
+      for (int i = 0; i < numSteps; i++) {
+        processQueueStep(firstStep + i);
+        if (isCanceled() || getStatus() == TaskStatus.ERROR) {
+          return;
+        }
+      }
+      return;
+    }
+
+    final Instant moduleCallDate = Instant.now();
+    final List<PipelinedFileStepsTask> chains = new ArrayList<>(files.size());
+    for (RawDataFile file : files) {
+      final FeatureList[] fileFeatureLists = createdFeatureLists.stream()
+          .filter(flist -> flist.getNumberOfRawDataFiles() == 1 && file.equals(
+              flist.getRawDataFile(0))).toArray(FeatureList[]::new);
+      chains.add(new PipelinedFileStepsTask(project, steps, firstStep, file, fileFeatureLists,
+          moduleCallDate));
+    }
+
+    final TaskStatus status = runInTaskPool(
+        STR."Batch steps \{firstStep + 1}-\{firstStep + numSteps} on \{files.size()} files",
+        new ArrayList<>(chains));
+    if (status != TaskStatus.FINISHED) {
+      if (status == TaskStatus.ERROR) {
+        setStatus(TaskStatus.ERROR);
+        setErrorMessage(chains.stream().map(PipelinedFileStepsTask::getErrorMessage)
+            .filter(Objects::nonNull).findFirst()
+            .orElse("Error in pipelined batch steps " + (firstStep + 1) + "-" + (firstStep
+                                                                                 + numSteps)));
+      }
+      return;
+    }
+
+    // the per-file steps do not create new data files
+    createdDataFiles = new ArrayList<>();
+    createdFeatureLists = new ArrayList<>();
+    for (PipelinedFileStepsTask chain : chains) {
+      for (FeatureList flist : chain.getLastFeatureLists()) {
+        // only add the new feature lists
+        if (!previousCreatedFeatureLists.contains(flist)) {
+          createdFeatureLists.add(flist);
+        }
+      }
+    }
+    if (!createdFeatureLists.isEmpty()) {
+      previousCreatedFeatureLists = createdFeatureLists;
+    }
+
+    // per step times summed over all files. The files run in parallel so the process CPU time
+    // cannot be split into steps, instead the thread CPU time of each file and step is summed.
+    // CPU is null if any file did not measure it.
+    for (int i = 0; i < numSteps; i++) {
+      final int stepNumber = firstStep + i;
+      Duration wall = Duration.ZERO;
+      Duration cpu = Duration.ZERO;
+      for (PipelinedFileStepsTask chain : chains) {
+        for (StepTimeMeasurement time : chain.getStepTimes()) {
+          if (time.stepNumber() == stepNumber) {
+            wall = wall.plus(time.duration());
+            cpu = cpu == null || time.cpuTime() == null ? null : cpu.plus(time.cpuTime());
+          }
+        }
+      }
+      stepTimes.add(new StepTimeMeasurement(stepNumber,
+          STR."\{steps.get(i).getModule().getName()} (pipelined, summed over files)", null, wall,
+          cpu));
+    }
+    chains.forEach(chain -> fileStepTimes.addAll(chain.getStepTimes()));
+
+    Duration duration = Duration.between(start, Instant.now());
+    Duration cpuTime = StepTimeMeasurement.cpuDuration(cpuStart,
+        StepTimeMeasurement.processCpuNanos());
+    logger.info(STR."Pipelined steps \{firstStep + 1}-\{firstStep + numSteps} on \{files.size()}"
+                + STR." files took \{duration} to finish (CPU \{cpuTime})");
+  }
+
+  private static boolean hasParameter(ParameterSet parameters, Class<?> parameterClass) {
+    return Arrays.stream(parameters.getParameters()).anyMatch(parameterClass::isInstance);
+  }
+
+  /**
+   * Sets the batch last files to all {@link RawDataFilesParameter}
+   *
+   * @return the first parameter without value or null on success
+   */
+  @Nullable
+  static Parameter<?> setBatchLastFiles(ParameterSet parameters, RawDataFile[] files) {
+    for (Parameter<?> p : parameters.getParameters()) {
+      if (p instanceof RawDataFilesParameter rdp) {
+        final RawDataFilesSelection selectedFiles = rdp.getValue();
+        if (selectedFiles == null) {
+          return p;
+        }
+        selectedFiles.setBatchLastFiles(files);
+      }
+    }
+    return null;
   }
 
   /**
@@ -449,30 +634,29 @@ public class BatchTask extends AbstractTask {
    * Recursively sets the last feature lists to the parameters since there might be embedded
    * parameters.
    *
-   * @return false on error
+   * @return the first parameter without value or null on success
    */
-  private boolean setBatchlastFeatureListsToParamSet(MZmineProcessingModule method,
-      ParameterSet batchStepParameters) {
+  @Nullable
+  static Parameter<?> setBatchLastFeatureLists(ParameterSet parameters,
+      FeatureList[] featureLists) {
     // Update the FeatureListsParameter parameters to reflect the current
     // state of the batch
-    for (Parameter<?> p : batchStepParameters.getParameters()) {
+    for (Parameter<?> p : parameters.getParameters()) {
       if (p instanceof FeatureListsParameter featureListsParameter) {
-        FeatureList[] createdFlists = createdFeatureLists.toArray(new FeatureList[0]);
         final FeatureListsSelection selectedFeatureLists = featureListsParameter.getValue();
         if (selectedFeatureLists == null) {
-          setStatus(TaskStatus.ERROR);
-          setErrorMessage("Invalid parameter settings for module " + method.getName() + ": "
-                          + "Missing parameter value for " + p.getName());
-          return false;
+          return p;
         }
-        selectedFeatureLists.setBatchLastFeatureLists(createdFlists);
+        selectedFeatureLists.setBatchLastFeatureLists(featureLists);
       } else if (p instanceof EmbeddedParameterSet embedded) {
-        if (!setBatchlastFeatureListsToParamSet(method, embedded.getEmbeddedParameters())) {
-          return false;
+        Parameter<?> missing = setBatchLastFeatureLists(embedded.getEmbeddedParameters(),
+            featureLists);
+        if (missing != null) {
+          return missing;
         }
       }
     }
-    return true;
+    return null;
   }
 
   @Override
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.batchmode;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.main.MZmineCore;
+import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.MZmineProcessingStep;
+import io.github.mzmine.modules.batchmode.timing.StepTimeMeasurement;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderModule;
+import io.github.mzmine.modules.dataprocessing.featdet_chromatogramdeconvolution.FeatureResolverModule;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetectionModule;
+import io.github.mzmine.modules.dataprocessing.featdet_smoothing.SmoothingModule;
+import io.github.mzmine.modules.dataprocessing.filter_isotopegrouper.IsotopeGrouperModule;
+import io.github.mzmine.parameters.Parameter;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.EmbeddedParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsParameter;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsSelection;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsSelectionType;
+import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParameter;
+import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesSelection;
+import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesSelectionType;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.taskcontrol.impl.WrappedTask;
+import io.github.mzmine.util.ExitCode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs a chain of per-file batch steps for a single raw data file. Multiple of these tasks run in
+ * parallel so that each file flows through the chain independently, instead of waiting for all
+ * files at the end of each step. The steps are run with cloned parameters where the batch last
+ * files and feature lists are set to the ones of this file. All tasks of a step are run on the
+ * thread of this task.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+class PipelinedFileStepsTask extends AbstractTask {
+
+  private static final Logger logger = Logger.getLogger(PipelinedFileStepsTask.class.getName());
+
+  /**
+   * Modules that process each raw data file or feature list independently and create at most one
+   * feature list per file. Cross-file steps like alignment or gap filling act as barriers.
+   */
+  private static final List<Class<? extends MZmineProcessingModule>> PER_FILE_MODULES = List.of(
+      MassDetectionModule.class, ModularADAPChromatogramBuilderModule.class, SmoothingModule.class,
+      FeatureResolverModule.class, IsotopeGrouperModule.class);
+
+  private final MZmineProject project;
+  private final List<MZmineProcessingStep<?>> steps;
+  private final int firstStepNumber;
+  private final RawDataFile file;
+  private final List<StepTimeMeasurement> stepTimes = new ArrayList<>();
+  private FeatureList[] lastFeatureLists;
+  private int finishedSteps;
+
+  /**
+   * @param steps             the per-file steps in order
+   * @param firstStepNumber   the index of the first step in the batch queue
+   * @param file              the raw data file processed in this chain
+   * @param lastFeatureLists  the feature lists of this file created before the first step
+   */
+  PipelinedFileStepsTask(@NotNull MZmineProject project,
+      @NotNull List<MZmineProcessingStep<?>> steps, int firstStepNumber,
+      @NotNull RawDataFile file, @NotNull FeatureList[] lastFeatureLists,
+      @NotNull Instant moduleCallDate) {
+    super(null, moduleCallDate);
+    this.project = project;
+    this.steps = steps;
+    this.firstStepNumber = firstStepNumber;
+    this.file = file;
+    this.lastFeatureLists = lastFeatureLists;
+  }
+
+  /**
+   * @return true if the step processes each file independently and only uses the files and feature
+   * lists of the previous batch step
+   */
+  static boolean isPerFileStep(@NotNull MZmineProcessingStep<?> step) {
+    final Class<?> moduleClass = step.getModule().getClass();
+    if (PER_FILE_MODULES.stream().noneMatch(c -> c.isAssignableFrom(moduleClass))) {
+      return false;
+    }
+    return usesOnlyBatchLastSelections(step.getParameterSet());
+  }
+
+  private static boolean usesOnlyBatchLastSelections(@NotNull ParameterSet parameters) {
+    for (Parameter<?> p : parameters.getParameters()) {
+      if (p instanceof RawDataFilesParameter rdp) {
+        final RawDataFilesSelection selection = rdp.getValue();
+        if (selection == null
+            || selection.getSelectionType() != RawDataFilesSelectionType.BATCH_LAST_FILES) {
+          return false;
+        }
+      } else if (p instanceof FeatureListsParameter flp) {
+        final FeatureListsSelection selection = flp.getValue();
+        if (selection == null || selection.getSelectionType()
+                                 != FeatureListsSelectionType.BATCH_LAST_FEATURELISTS) {
+          return false;
+        }
+      } else if (p instanceof EmbeddedParameterSet embedded
+                 && !usesOnlyBatchLastSelections(embedded.getEmbeddedParameters())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+
+    for (int i = 0; i < steps.size(); i++) {
+      if (isCanceled()) {
+        return;
+      }
+      if (!processStep(firstStepNumber + i, steps.get(i))) {
+        return;
+      }
+      finishedSteps++;
+    }
+
+    setStatus(TaskStatus.FINISHED);
+  }
+
+  private boolean processStep(int stepNumber, MZmineProcessingStep<?> step) {
+    final Instant start = Instant.now();
+    // all tasks of the step run on this thread
+    final long cpuStart = StepTimeMeasurement.threadCpuNanos();
+
+    final MZmineProcessingModule method = (MZmineProcessingModule) step.getModule();
+    final ParameterSet parameters = step.getParameterSet().cloneParameterSet();
+
+    final Set<FeatureList> beforeFeatureLists = new HashSet<>(project.getCurrentFeatureLists());
+
+    Parameter<?> missing = BatchTask.setBatchLastFiles(parameters, new RawDataFile[]{file});
+    if (missing == null) {
+      missing = BatchTask.setBatchLastFeatureLists(parameters, lastFeatureLists);
+    }
+    if (missing != null) {
+      error("Invalid parameter settings for module " + method.getName() + ": "
+            + "Missing parameter value for " + missing.getName());
+      return false;
+    }
+
+    final List<String> messages = new ArrayList<>();
+    if (!parameters.checkParameterValues(messages)) {
+      error("Invalid parameter settings for module " + method.getName() + ": " + Arrays.toString(
+          messages.toArray()));
+      return false;
+    }
+
+    final List<Task> tasks = new ArrayList<>();
+    final ExitCode exitCode = method.runModule(project, parameters, tasks, Instant.now());
+    if (exitCode != ExitCode.OK) {
+      error("Could not start batch step " + method.getName() + " on " + file.getName());
+      return false;
+    }
+
+    // run all tasks on this thread, the parallelism is defined by the number of files
+    for (final Task task : tasks) {
+      if (isCanceled()) {
+        return false;
+      }
+      final WrappedTask finished = MZmineCore.getTaskController()
+          .runTaskOnThisThreadBlocking(task);
+      final TaskStatus status =
+          finished == null ? TaskStatus.ERROR : finished.getActualTask().getStatus();
+      if (status == TaskStatus.CANCELED) {
+        cancel();
+        return false;
+      }
+      if (status != TaskStatus.FINISHED) {
+        error("Batch step " + method.getName() + " failed on " + file.getName() + ": "
+              + task.getErrorMessage());
+        return false;
+      }
+    }
+    tasks.clear();
+
+    // only keep the new feature lists of this file, other files are processed in parallel
+    final List<FeatureList> created = project.getCurrentFeatureLists().stream()
+        .filter(flist -> !beforeFeatureLists.contains(flist))
+        .filter(flist -> flist.getNumberOfRawDataFiles() == 1 && file.equals(
+            flist.getRawDataFile(0))).toList();
+    if (!created.isEmpty()) {
+      lastFeatureLists = created.toArray(FeatureList[]::new);
+    }
+
+    // thread CPU time misses work that a task hands to other threads, like parallel streams
+    final Duration duration = Duration.between(start, Instant.now());
+    final Duration cpuTime = StepTimeMeasurement.cpuDuration(cpuStart,
+        StepTimeMeasurement.threadCpuNanos());
+    stepTimes.add(
+        new StepTimeMeasurement(stepNumber, method.getName(), file.getName(), duration, cpuTime));
+    logger.finest(() -> stepTimes.getLast().toString());
+    return true;
+  }
+
+  /**
+   * @return the feature lists of this file created by the last step that created feature lists or
+   * the input feature lists
+   */
+  @NotNull
+  FeatureList[] getLastFeatureLists() {
+    return lastFeatureLists;
+  }
+
+  /**
+   * @return the time of each step on this file
+   */
+  @NotNull
+  List<StepTimeMeasurement> getStepTimes() {
+    return stepTimes;
+  }
+
+  @NotNull
+  RawDataFile getFile() {
+    return file;
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return STR."Batch steps \{firstStepNumber + 1}-\{firstStepNumber + steps.size()} on \{file.getName()}";
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    return steps.isEmpty() ? 0 : finishedSteps / (double) steps.size();
+  }
+}
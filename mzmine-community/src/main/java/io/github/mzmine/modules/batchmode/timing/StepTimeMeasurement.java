@@ -25,12 +25,66 @@
 
 package io.github.mzmine.modules.batchmode.timing;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
 import java.time.Duration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-public record StepTimeMeasurement(int stepNumber, String name, Duration duration) {
+/**
+ * Time of a batch step. Either of the whole step or of a single file when per-file steps are
+ * pipelined.
+ *
+ * @param file    the file name or null if the measurement covers all files of this step
+ * @param cpuTime the CPU time or null if it was not available. Whole steps use the process CPU time.
+ *                Pipelined steps use the CPU time of the thread that ran the step on a file,
+ *                summed over all files for the step measurement.
+ */
+public record StepTimeMeasurement(int stepNumber, String name, @Nullable String file,
+                                  Duration duration, @Nullable Duration cpuTime) {
+
+  public StepTimeMeasurement(int stepNumber, String name, Duration duration) {
+    this(stepNumber, name, null, duration, null);
+  }
+
+  /**
+   * @return CPU time of the whole process in nanoseconds or -1 if not supported
+   */
+  public static long processCpuNanos() {
+    final OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+    if (bean instanceof com.sun.management.OperatingSystemMXBean sunBean) {
+      return sunBean.getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  /**
+   * @return CPU time of the current thread in nanoseconds or -1 if not supported or disabled
+   */
+  public static long threadCpuNanos() {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled()) {
+      return bean.getCurrentThreadCpuTime();
+    }
+    return -1;
+  }
+
+  /**
+   * @return the duration between two nano times or null if any is negative (not supported)
+   */
+  @Nullable
+  public static Duration cpuDuration(long startNanos, long endNanos) {
+    if (startNanos < 0 || endNanos < 0) {
+      return null;
+    }
+    return Duration.ofNanos(endNanos - startNanos);
+  }
 
   @Override
-  public String toString() {
-    return STR."Step \{stepNumber + 1}: \{name} took \{duration} to finish";
+  public @NotNull String toString() {
+    final String fileStr = file == null ? "" : STR." (\{file})";
+    final String cpuStr = cpuTime == null ? "" : STR." (CPU \{cpuTime})";
+    return STR."Step \{stepNumber + 1}: \{name}\{fileStr} took \{duration} to finish\{cpuStr}";
   }
 }
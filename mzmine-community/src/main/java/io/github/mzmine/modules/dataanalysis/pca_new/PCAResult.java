@@ -26,6 +26,7 @@
 package io.github.mzmine.modules.dataanalysis.pca_new;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.linear.SingularValueDecomposition;
@@ -37,22 +38,32 @@ import org.jetbrains.annotations.NotNull;
  * into the PC space using U and a submatrix of S, which creates the scores plot. Loadings are the
  * transpose of V.
  * <p>
+ * The decomposition may be truncated to the first components, see
+ * {@link PCAUtils#truncatedPCA(io.github.mzmine.modules.dataanalysis.utils.AbundanceMatrix, int)}.
+ * <p>
  * https://stats.stackexchange.com/questions/134282/relationship-between-svd-and-pca-how-to-use-svd-to-perform-pca
  *
+ * @param u              samples x components
+ * @param singularValues the singular values in descending order, one for each component
+ * @param v              features x components
  */
-public record PCAResult(SingularValueDecomposition svd) {
+public record PCAResult(RealMatrix u, double[] singularValues, RealMatrix v) {
+
+  public PCAResult(SingularValueDecomposition svd) {
+    this(svd.getU(), svd.getSingularValues(), svd.getV());
+  }
 
   /**
    * @param numComponents
    * @return Returns a sub-matrix the first n principal components of the decomposition.
    */
   public RealMatrix firstNComponents(int numComponents) {
-    return svd.getU().getSubMatrix(0, svd.getU().getRowDimension() - 1, 0, numComponents - 1);
+    return u.getSubMatrix(0, u.getRowDimension() - 1, 0, numComponents - 1);
   }
 
   public RealMatrix principalComponentsMatrix() {
     // the u matrix of an svd contains the principal components.
-    return svd.getU();
+    return u;
   }
 
   /**
@@ -63,9 +74,10 @@ public record PCAResult(SingularValueDecomposition svd) {
    */
   public RealMatrix projectDataToScores(int numComponents) {
     final RealMatrix firstNComponents = firstNComponents(numComponents);
-    final RealMatrix subMatrixS = svd.getS()
-        .getSubMatrix(0, numComponents - 1, 0, numComponents - 1);
-    final RealMatrix projectedData = firstNComponents.multiply(subMatrixS);
+    final double[] subS = new double[numComponents];
+    System.arraycopy(singularValues, 0, subS, 0, numComponents);
+    final RealMatrix projectedData = firstNComponents.multiply(
+        MatrixUtils.createRealDiagonalMatrix(subS));
     return projectedData;
   }
 
@@ -77,7 +89,8 @@ public record PCAResult(SingularValueDecomposition svd) {
    */
   public RealMatrix projectDataToScores(int domainColIndex, int rangeColIndex) {
     final RealMatrix pcMatrix = pcMatrix(domainColIndex, rangeColIndex);
-    final RealMatrix projected = pcMatrix.multiply(svd.getS().getSubMatrix(0, 1, 0, 1));
+    final RealMatrix projected = pcMatrix.multiply(MatrixUtils.createRealDiagonalMatrix(
+        new double[]{singularValues[domainColIndex], singularValues[rangeColIndex]}));
     return projected;
   }
 
@@ -86,7 +99,7 @@ public record PCAResult(SingularValueDecomposition svd) {
    */
   @NotNull
   private RealMatrix pcMatrix(int domainColIndex, int rangeColIndex) {
-    final RealMatrix pcs = svd.getU();
+    final RealMatrix pcs = u;
     // the vectors are the respective components.
     final RealVector domainVector = pcs.getColumnVector(domainColIndex);
     final RealVector rangeVector = pcs.getColumnVector(rangeColIndex);
@@ -102,11 +115,14 @@ public record PCAResult(SingularValueDecomposition svd) {
    * loadings are the transpose of the v matrix.
    */
   public RealMatrix getLoadingsMatrix() {
-    final RealMatrix transpose = svd.getV().transpose();
+    final RealMatrix transpose = v.transpose();
     return transpose;
   }
 
+  /**
+   * @return the number of computed principal components
+   */
   public int componentCount() {
-    return principalComponentsMatrix().getRowDimension();
+    return singularValues.length;
   }
 }
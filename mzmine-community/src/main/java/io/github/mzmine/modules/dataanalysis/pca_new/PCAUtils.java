@@ -25,22 +25,50 @@
 
 package io.github.mzmine.modules.dataanalysis.pca_new;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.github.mzmine.datamodel.AbundanceMeasure;
 import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.modules.dataanalysis.utils.AbundanceMatrix;
 import io.github.mzmine.modules.dataanalysis.utils.StatisticUtils;
 import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunction;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunctions;
 import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunctions;
 import io.github.mzmine.modules.visualization.projectmetadata.SampleTypeFilter;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import java.util.List;
+import java.util.Random;
 import java.util.logging.Logger;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.jetbrains.annotations.NotNull;
 
 public class PCAUtils {
 
   private static final Logger logger = Logger.getLogger(PCAUtils.class.getName());
 
+  /**
+   * Number of principal components computed for feature lists
+   */
+  public static final int DEFAULT_COMPONENTS = 10;
+  // additional random vectors and power iterations of the randomized svd
+  private static final int OVERSAMPLING = 10;
+  private static final int POWER_ITERATIONS = 3;
+  private static final long RANDOM_SEED = 42;
+
+  /**
+   * The last result of each feature list. Changing the grouping column or the plotted components
+   * does not need a new decomposition. Feature lists are weak keys and the results soft values, so
+   * the cache does not keep removed feature lists alive.
+   */
+  private static final Cache<FeatureList, CachedPCA> cache = CacheBuilder.newBuilder()
+      .maximumSize(4).weakKeys().softValues().build();
+
   /**
    * Calculates the PCA of a matrix by singular value decomposition (svd).
    * https://stats.stackexchange.com/questions/134282/relationship-between-svd-and-pca-how-to-use-svd-to-perform-pca
@@ -97,9 +125,184 @@ public class PCAUtils {
       SampleTypeFilter sampleTypeFilter) {
     final List<RawDataFile> files = rows.stream().flatMap(row -> row.getRawDataFiles().stream())
         .distinct().filter(sampleTypeFilter::matches).toList();
-    final RealMatrix data = StatisticUtils.createDatasetFromRows(rows, files, measure);
-    StatisticUtils.imputeMissingValues(data, true, imputationFunction);
-    final PCAResult pcaResult = quickPCA(data, scalingFunction);
+    final AbundanceMatrix data = AbundanceMatrix.ofRows(rows, files, measure);
+    data.imputeMissingValues(imputationFunction).centerAndScale(scalingFunction);
+    final PCAResult pcaResult = truncatedPCA(data, DEFAULT_COMPONENTS);
     return new PCARowsResult(pcaResult, rows, files);
   }
+
+  /**
+   * Same as {@link #performPCAOnRows(List, AbundanceMeasure, ScalingFunction, ImputationFunction,
+   * SampleTypeFilter)} but reuses the last result of the feature list. The result is only reused if
+   * the row ids and their order, the files, the abundance measure and the pretreatment are the same
+   * and no method was applied to the feature list in between. Abundances that change in place
+   * without a new applied method are not detected.
+   *
+   * @param flist the feature list of the rows
+   */
+  public static PCARowsResult performPCAOnRows(@NotNull FeatureList flist,
+      List<FeatureListRow> rows, AbundanceMeasure measure, ScalingFunctions scalingFunction,
+      ImputationFunctions imputationFunction, SampleTypeFilter sampleTypeFilter) {
+    final List<RawDataFile> files = rows.stream().flatMap(row -> row.getRawDataFiles().stream())
+        .distinct().filter(sampleTypeFilter::matches).toList();
+    final PCAInput input = new PCAInput(rows.stream().map(FeatureListRow::getID).toList(),
+        flist.getAppliedMethods().size(), files, measure, scalingFunction, imputationFunction);
+    final CachedPCA cached = cache.getIfPresent(flist);
+    if (cached != null && cached.input().equals(input)) {
+      logger.finest(() -> "Reusing cached PCA result");
+      return cached.result();
+    }
+    final PCARowsResult result = performPCAOnRows(rows, measure,
+        scalingFunction.getScalingFunction(), imputationFunction.getImputer(), sampleTypeFilter);
+    cache.put(flist, new CachedPCA(input, result));
+    return result;
+  }
+
+  /**
+   * Calculates the first principal components by a randomized truncated singular value
+   * decomposition (Halko, Martinsson, Tropp 2011). Only a samples x (components + oversampling)
+   * projection of the data is decomposed, so the runtime and memory scale linearly with the number
+   * of features. Small matrices are decomposed exactly.
+   *
+   * @param data       the imputed, centered and scaled data, samples x features
+   * @param components the number of principal components
+   * @return a pca result with at most the requested number of components
+   */
+  public static PCAResult truncatedPCA(@NotNull AbundanceMatrix data, int components) {
+    final int samples = data.getNumberOfSamples();
+    final int features = data.getNumberOfFeatures();
+    final int rank = Math.min(samples, features);
+    final int k = Math.min(components, rank);
+    final int l = Math.min(k + OVERSAMPLING, rank);
+
+    if (l == rank) {
+      logger.finest(() -> "Performing singular value decomposition of a small matrix");
+      final RealMatrix dense = new Array2DRowRealMatrix(samples, features);
+      for (int feature = 0; feature < features; feature++) {
+        for (int sample = 0; sample < samples; sample++) {
+          dense.setEntry(sample, feature, data.get(sample, feature));
+        }
+      }
+      return new PCAResult(new SingularValueDecomposition(dense));
+    }
+
+    logger.finest(() -> "Performing randomized singular value decomposition");
+    // range finder: orthonormal basis of data * random gaussian matrix (samples x l)
+    final Random random = new Random(RANDOM_SEED);
+    final double[] omega = new double[features * l];
+    for (int i = 0; i < omega.length; i++) {
+      omega[i] = random.nextGaussian();
+    }
+    double[] q = data.multiply(omega, l);
+    orthonormalize(q, samples, l);
+    // power iterations separate the leading singular values
+    for (int i = 0; i < POWER_ITERATIONS; i++) {
+      final double[] z = data.transposeMultiply(q, l);
+      orthonormalize(z, features, l);
+      q = data.multiply(z, l);
+      orthonormalize(q, samples, l);
+    }
+
+    // B = Q^T * data with the small gram matrix B * B^T = Ub * S^2 * Ub^T
+    final double[] bt = data.transposeMultiply(q, l);
+    final double[][] gram = new double[l][l];
+    for (int feature = 0; feature < features; feature++) {
+      final int offset = feature * l;
+      for (int a = 0; a < l; a++) {
+        final double value = bt[offset + a];
+        for (int b = a; b < l; b++) {
+          gram[a][b] += value * bt[offset + b];
+        }
+      }
+    }
+    for (int a = 0; a < l; a++) {
+      for (int b = 0; b < a; b++) {
+        gram[a][b] = gram[b][a];
+      }
+    }
+    final EigenDecomposition eigen = new EigenDecomposition(new Array2DRowRealMatrix(gram, false));
+    final double[] eigenvalues = eigen.getRealEigenvalues();
+    final int[] order = new int[l];
+    for (int i = 0; i < l; i++) {
+      order[i] = i;
+    }
+    IntArrays.quickSort(order, (a, b) -> Double.compare(eigenvalues[b], eigenvalues[a]));
+
+    // U = Q * Ub and V = B^T * Ub * S^-1
+    final double[] singularValues = new double[k];
+    final RealMatrix u = new Array2DRowRealMatrix(samples, k);
+    final RealMatrix v = new Array2DRowRealMatrix(features, k);
+    for (int c = 0; c < k; c++) {
+      final double[] w = eigen.getEigenvector(order[c]).toArray();
+      final double s = Math.sqrt(Math.max(0, eigenvalues[order[c]]));
+      singularValues[c] = s;
+      for (int sample = 0; sample < samples; sample++) {
+        u.setEntry(sample, c, dot(q, sample * l, w));
+      }
+      if (s > 0) {
+        for (int feature = 0; feature < features; feature++) {
+          v.setEntry(feature, c, dot(bt, feature * l, w) / s);
+        }
+      }
+    }
+    return new PCAResult(u, singularValues, v);
+  }
+
+  private static double dot(double[] rowMajor, int offset, double[] vector) {
+    double sum = 0;
+    for (int i = 0; i < vector.length; i++) {
+      sum += rowMajor[offset + i] * vector[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Modified Gram-Schmidt with reorthogonalization. Linearly dependent columns are set to 0.
+   *
+   * @param matrix row-major rows x columns matrix, orthonormalized in place
+   */
+  static void orthonormalize(double[] matrix, int rows, int columns) {
+    for (int c = 0; c < columns; c++) {
+      final double initialNorm = norm(matrix, rows, columns, c);
+      for (int pass = 0; pass < 2; pass++) {
+        for (int p = 0; p < c; p++) {
+          double dot = 0;
+          for (int r = 0; r < rows; r++) {
+            dot += matrix[r * columns + c] * matrix[r * columns + p];
+          }
+          for (int r = 0; r < rows; r++) {
+            matrix[r * columns + c] -= dot * matrix[r * columns + p];
+          }
+        }
+      }
+      final double norm = norm(matrix, rows, columns, c);
+      final boolean dependent = norm <= initialNorm * 1E-10;
+      for (int r = 0; r < rows; r++) {
+        matrix[r * columns + c] = dependent ? 0 : matrix[r * columns + c] / norm;
+      }
+    }
+  }
+
+  private static double norm(double[] matrix, int rows, int columns, int column) {
+    double sum = 0;
+    for (int r = 0; r < rows; r++) {
+      sum += matrix[r * columns + column] * matrix[r * columns + column];
+    }
+    return Math.sqrt(sum);
+  }
+
+  /**
+   * @param rowIds         the ids of the rows in order
+   * @param appliedMethods the number of applied methods of the feature list, changes when the
+   *                       feature list is processed
+   */
+  private record PCAInput(List<Integer> rowIds, int appliedMethods, List<RawDataFile> files,
+                          AbundanceMeasure measure, ScalingFunctions scaling,
+                          ImputationFunctions imputation) {
+
+  }
+
+  private record CachedPCA(PCAInput input, PCARowsResult result) {
+
+  }
 }
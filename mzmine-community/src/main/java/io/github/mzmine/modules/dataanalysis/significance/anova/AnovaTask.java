@@ -38,6 +38,7 @@ import io.github.mzmine.taskcontrol.TaskStatus;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -49,7 +50,7 @@ public class AnovaTask extends AbstractTask {
   private final FeatureList flist;
   private final String groupingColumnName;
   private AnovaTest calc;
-  private int processed;
+  private final AtomicInteger processed = new AtomicInteger(0);
 
   public AnovaTask(FeatureList flist, ParameterSet parameters, @NotNull Instant moduleCallDate) {
     super(null, moduleCallDate);
@@ -64,7 +65,7 @@ public class AnovaTask extends AbstractTask {
   }
 
   public double getFinishedPercentage() {
-    return (double) processed / flist.getNumberOfRows();
+    return (double) processed.get() / flist.getNumberOfRows();
   }
 
   public void run() {
@@ -85,11 +86,12 @@ public class AnovaTask extends AbstractTask {
       return;
     }
 
-    final List<AnovaResult> anovaResults = flist.getRows().stream().map(row -> {
+    // rows are tested independently
+    final List<AnovaResult> anovaResults = flist.getRows().parallelStream().map(row -> {
       if (isCanceled()) {
         return null;
       }
-      processed++;
+      processed.getAndIncrement();
       return calc.test(row, AbundanceMeasure.Height);
     }).filter(Objects::nonNull).toList();
 
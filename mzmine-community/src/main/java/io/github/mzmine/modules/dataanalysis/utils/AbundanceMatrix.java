@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.dataanalysis.utils;
+
+import io.github.mzmine.datamodel.AbundanceMeasure;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.Feature;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularDataModel;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunction;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Abundances of features (columns) in samples (rows) stored column-major in a single float array.
+ * Same layout as {@link StatisticUtils#createDatasetFromRows(List, List, AbundanceMeasure)} but
+ * needs half the memory of a dense double matrix and all values of one feature are contiguous.
+ * Missing values are NaN. Imputation, centering and scaling are applied in place and in parallel
+ * per feature. The products with dense matrices are used by the truncated SVD in
+ * {@link io.github.mzmine.modules.dataanalysis.pca_new.PCAUtils}.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class AbundanceMatrix {
+
+  // features processed by one task in the parallel products
+  private static final int FEATURE_CHUNK = 512;
+
+  private final int samples;
+  private final int features;
+  // values[feature * samples + sample]
+  private final float[] values;
+
+  public AbundanceMatrix(int samples, int features) {
+    this.samples = samples;
+    this.features = features;
+    values = new float[Math.multiplyExact(samples, features)];
+  }
+
+  /**
+   * Extracts the abundances in parallel.
+   *
+   * @param rows    the features (columns)
+   * @param files   the samples (rows)
+   * @param measure the abundance
+   * @return the matrix with NaN for missing values
+   */
+  @NotNull
+  public static AbundanceMatrix ofRows(@NotNull List<FeatureListRow> rows,
+      @NotNull List<RawDataFile> files, @NotNull AbundanceMeasure measure) {
+    final AbundanceMatrix matrix = new AbundanceMatrix(files.size(), rows.size());
+    IntStream.range(0, rows.size()).parallel().forEach(featureIndex -> {
+      final FeatureListRow row = rows.get(featureIndex);
+      final int offset = featureIndex * matrix.samples;
+      for (int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+        final Feature feature = row.getFeature(files.get(fileIndex));
+        final Float abundance = feature == null ? null : measure.get((ModularDataModel) feature);
+        matrix.values[offset + fileIndex] = abundance == null ? Float.NaN : abundance;
+      }
+    });
+    return matrix;
+  }
+
+  public int getNumberOfSamples() {
+    return samples;
+  }
+
+  public int getNumberOfFeatures() {
+    return features;
+  }
+
+  public double get(int sample, int feature) {
+    return values[feature * samples + sample];
+  }
+
+  public void set(int sample, int feature, double value) {
+    values[feature * samples + sample] = (float) value;
+  }
+
+  /**
+   * @param buffer reused if it has the length of {@link #getNumberOfSamples()}
+   * @return the values of one feature in all samples
+   */
+  public double[] getColumn(int feature, double[] buffer) {
+    final double[] column = buffer != null && buffer.length == samples ? buffer : new double[samples];
+    final int offset = feature * samples;
+    for (int i = 0; i < samples; i++) {
+      column[i] = values[offset + i];
+    }
+    return column;
+  }
+
+  public void setColumn(int feature, double[] column) {
+    final int offset = feature * samples;
+    for (int i = 0; i < samples; i++) {
+      values[offset + i] = (float) column[i];
+    }
+  }
+
+  /**
+   * Replaces NaN values of each feature with the value of the imputation function. Same as
+   * {@link StatisticUtils#imputeMissingValues}.
+   *
+   * @return this matrix
+   */
+  public AbundanceMatrix imputeMissingValues(@NotNull ImputationFunction imputationFunction) {
+    IntStream.range(0, features).parallel().forEach(feature -> {
+      final double[] column = getColumn(feature, null);
+      final double imputedValue = imputationFunction.apply(new ArrayRealVector(column, false));
+      final int offset = feature * samples;
+      for (int i = 0; i < samples; i++) {
+        if (Float.isNaN(values[offset + i])) {
+          values[offset + i] = (float) imputedValue;
+        }
+      }
+    });
+    return this;
+  }
+
+  /**
+   * Mean centers and scales each feature. Same as
+   * {@link StatisticUtils#centerAndScale(org.apache.commons.math3.linear.RealMatrix,
+   * ScalingFunction, boolean)}. Impute missing values first.
+   *
+   * @return this matrix
+   */
+  public AbundanceMatrix centerAndScale(@NotNull ScalingFunction scalingFunction) {
+    IntStream.range(0, features).parallel().forEach(feature -> {
+      final double[] column = getColumn(feature, null);
+      double sum = 0;
+      for (final double value : column) {
+        sum += value;
+      }
+      final double mean = sum / samples;
+      for (int i = 0; i < samples; i++) {
+        column[i] -= mean;
+      }
+      final RealVector scaled = scalingFunction.apply(new ArrayRealVector(column, false));
+      for (int i = 0; i < samples; i++) {
+        values[feature * samples + i] = (float) scaled.getEntry(i);
+      }
+    });
+    return this;
+  }
+
+  /**
+   * Calculates this (samples x features) * other (features x columns).
+   *
+   * @param other   row-major features x columns matrix
+   * @param columns number of columns of other
+   * @return row-major samples x columns matrix
+   */
+  public double[] multiply(double[] other, int columns) {
+    final int chunks = (features + FEATURE_CHUNK - 1) / FEATURE_CHUNK;
+    final List<double[]> partials = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+      final double[] partial = new double[samples * columns];
+      final int end = Math.min(features, (chunk + 1) * FEATURE_CHUNK);
+      for (int feature = chunk * FEATURE_CHUNK; feature < end; feature++) {
+        final int offset = feature * samples;
+        final int otherOffset = feature * columns;
+        for (int sample = 0; sample < samples; sample++) {
+          final double value = values[offset + sample];
+          if (value == 0) {
+            continue;
+          }
+          final int resultOffset = sample * columns;
+          for (int c = 0; c < columns; c++) {
+            partial[resultOffset + c] += value * other[otherOffset + c];
+          }
+        }
+      }
+      return partial;
+    }).toList();
+
+    final double[] result = new double[samples * columns];
+    for (final double[] partial : partials) {
+      for (int i = 0; i < result.length; i++) {
+        result[i] += partial[i];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Calculates transpose(this) (features x samples) * other (samples x columns).
+   *
+   * @param other   row-major samples x columns matrix
+   * @param columns number of columns of other
+   * @return row-major features x columns matrix
+   */
+  public double[] transposeMultiply(double[] other, int columns) {
+    final double[] result = new double[features * columns];
+    IntStream.range(0, features).parallel().forEach(feature -> {
+      final int offset = feature * samples;
+      final int resultOffset = feature * columns;
+      for (int sample = 0; sample < samples; sample++) {
+        final double value = values[offset + sample];
+        if (value == 0) {
+          continue;
+        }
+        final int otherOffset = sample * columns;
+        for (int c = 0; c < columns; c++) {
+          result[resultOffset + c] += value * other[otherOffset + c];
+        }
+      }
+    });
+    return result;
+  }
+}
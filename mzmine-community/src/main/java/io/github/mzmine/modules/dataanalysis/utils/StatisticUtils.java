@@ -35,7 +35,6 @@ import io.github.mzmine.modules.dataanalysis.significance.RowSignificanceTestRes
 import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
 import org.apache.commons.math.util.MathUtils;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
@@ -46,8 +45,15 @@ public class StatisticUtils {
 
   public static double[] extractAbundance(FeatureListRow row, List<RawDataFile> group,
       AbundanceMeasure measure) {
-    return group.stream().map(file -> measure.get((ModularFeature) row.getFeature(file)))
-        .filter(Objects::nonNull).mapToDouble(Float::doubleValue).toArray();
+    final double[] abundances = new double[group.size()];
+    int n = 0;
+    for (final RawDataFile file : group) {
+      final Float abundance = measure.get((ModularFeature) row.getFeature(file));
+      if (abundance != null) {
+        abundances[n++] = abundance;
+      }
+    }
+    return n == abundances.length ? abundances : Arrays.copyOf(abundances, n);
   }
 
   public static double[] calculateLog2FoldChange(List<RowSignificanceTestResult> testResults,
@@ -28,7 +28,6 @@ package io.github.mzmine.modules.dataanalysis.volcanoplot;
 import io.github.mzmine.datamodel.AbundanceMeasure;
 import io.github.mzmine.datamodel.features.FeatureAnnotationPriority;
 import io.github.mzmine.datamodel.features.FeatureList;
-import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.types.DataType;
 import io.github.mzmine.datamodel.features.types.DataTypes;
 import io.github.mzmine.datamodel.features.types.annotations.MissingValueType;
@@ -49,6 +48,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -90,16 +90,18 @@ class VolcanoPlotUpdateTask extends FxUpdateTask<VolcanoPlotModel> {
     if (!checkPreConditions()) {
       return;
     }
-    List<RowSignificanceTestResult> rowSignificanceTestResults = new ArrayList<>();
-    for (final FeatureListRow row : flist.getRows()) {
-      if (isCanceled()) {
-        return;
-      }
-      RowSignificanceTestResult result = test.test(row, abundanceMeasure);
-      if (result != null) {
-        rowSignificanceTestResults.add(result);
-      }
-      progress.getAndIncrement();
+    // rows are tested independently
+    final List<RowSignificanceTestResult> rowSignificanceTestResults = flist.getRows()
+        .parallelStream().map(row -> {
+          if (isCanceled()) {
+            return null;
+          }
+          final RowSignificanceTestResult result = test.test(row, abundanceMeasure);
+          progress.getAndIncrement();
+          return result;
+        }).filter(Objects::nonNull).toList();
+    if (isCanceled()) {
+      return;
     }
 
     final Map<DataType<?>, List<RowSignificanceTestResult>> dataTypeMap = DataTypeUtils.groupByBestDataType(
@@ -32,6 +32,7 @@
 //import io.github.mzmine.taskcontrol.Task;
 //import io.github.mzmine.util.ExitCode;
 //import io.github.mzmine.util.MemoryMapStorage;
+//import io.github.mzmine.util.memory.TieredStorageManager;
 //import java.time.Instant;
 //import java.util.Collection;
 //import org.jetbrains.annotations.NotNull;
@@ -72,7 +73,7 @@
 //    FeatureList[] peakLists = parameters.getParameter(ADAP3DecompositionV1_5Parameters.PEAK_LISTS)
 //        .getValue().getMatchingFeatureLists();
 //
-//    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+//    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 //
 //    for (FeatureList peakList : peakLists) {
 //      Task newTask = new ADAP3DecompositionV1_5Task(project, peakList, parameters, storage,
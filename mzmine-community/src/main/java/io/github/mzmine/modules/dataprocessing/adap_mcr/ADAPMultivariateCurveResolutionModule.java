@@ -33,6 +33,7 @@
 //import io.github.mzmine.taskcontrol.Task;
 //import io.github.mzmine.util.ExitCode;
 //import io.github.mzmine.util.MemoryMapStorage;
+//import io.github.mzmine.util.memory.TieredStorageManager;
 //import java.time.Instant;
 //import java.util.Collection;
 //import java.util.Map;
@@ -87,7 +88,7 @@
 //    Map<RawDataFile, ChromatogramPeakPair> lists = ChromatogramPeakPair.fromParameterSet(
 //        parameters);
 //
-//    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+//    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 //
 //    for (Map.Entry<RawDataFile, ChromatogramPeakPair> e : lists.entrySet()) {
 //      Task newTask = new ADAP3DecompositionV2Task(project, e.getValue(), e.getKey(), parameters,
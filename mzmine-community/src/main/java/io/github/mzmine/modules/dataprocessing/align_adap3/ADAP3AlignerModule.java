@@ -31,6 +31,7 @@
 //import io.github.mzmine.taskcontrol.Task;
 //import io.github.mzmine.util.ExitCode;
 //import io.github.mzmine.util.MemoryMapStorage;
+//import io.github.mzmine.util.memory.TieredStorageManager;
 //import java.time.Instant;
 //import java.util.Collection;
 //import org.jetbrains.annotations.NotNull;
@@ -70,7 +71,7 @@
 //  @NotNull
 //  public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
 //      @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
-//    Task newTask = new ADAP3AlignerTask(project, parameters, MemoryMapStorage.forFeatureList(),
+//    Task newTask = new ADAP3AlignerTask(project, parameters, TieredStorageManager.forFeatureList(),
 //        moduleCallDate);
 //    tasks.add(newTask);
 //    return ExitCode.OK;
@@ -57,7 +57,7 @@ public class HierarAlignerGcModule implements MZmineProcessingModule {
   @NotNull
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
-//    Task newTask = new HierarAlignerGCTask(project, parameters, MemoryMapStorage.forFeatureList(), moduleCallDate);
+//    Task newTask = new HierarAlignerGCTask(project, parameters, TieredStorageManager.forFeatureList(), moduleCallDate);
 //    tasks.add(newTask);
     return ExitCode.OK;
 
@@ -32,6 +32,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -59,7 +60,7 @@ public class LcImageAlignerModule implements MZmineProcessingModule {
   public @NotNull ExitCode runModule(@NotNull MZmineProject project,
       @NotNull ParameterSet parameters, @NotNull Collection<Task> tasks,
       @NotNull Instant moduleCallDate) {
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     tasks.add(new LcImageAlignerTask(storage, moduleCallDate, parameters, project));
     return ExitCode.OK;
   }
@@ -25,7 +25,7 @@
 
 package io.github.mzmine.modules.dataprocessing.align_path;
 
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -57,7 +57,8 @@ public class PathAlignerModule implements MZmineProcessingModule {
   @NotNull
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
-    Task newTask = new PathAlignerTask(project, parameters, MemoryMapStorage.forFeatureList(), moduleCallDate);
+    Task newTask = new PathAlignerTask(project, parameters, TieredStorageManager.forFeatureList(),
+        moduleCallDate);
     tasks.add(newTask);
     return ExitCode.OK;
   }
@@ -32,7 +32,7 @@ import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -62,7 +62,7 @@ public class RansacAlignerModule implements MZmineProcessingModule {
         .getMatchingFeatureLists();
 
     Task task = new RansacAlignerTask(project, featureLists, parameters,
-        MemoryMapStorage.forFeatureList(), moduleCallDate);
+        TieredStorageManager.forFeatureList(), moduleCallDate);
 
     tasks.add(task);
 
@@ -33,7 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParameter;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -63,7 +63,7 @@ public class ADAP3DModule implements MZmineProcessingModule {
 
     for (int i = 0; i < dataFiles.length; i++) {
       Task newTask = new ADAP3DTask(project, dataFiles[i], parameters.cloneParameterSet(),
-          MemoryMapStorage.forFeatureList(), moduleCallDate);
+          TieredStorageManager.forFeatureList(), moduleCallDate);
       tasks.add(newTask);
     }
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
+
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.taskcontrol.Task;
+import it.unimi.dsi.fastutil.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects all centroids of a file in parallel primitive arrays (20 bytes per centroid) and builds
+ * {@link ADAPChromatogram}s from the most intense centroid downwards. Centroids that fall into the
+ * m/z range of an existing chromatogram are added to it, otherwise a new chromatogram is started
+ * with a range limited by the neighboring chromatograms. The m/z ranges are kept in
+ * {@link SortedMzIntervals}.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+final class CentroidChromatogramBuilder {
+
+  private final @NotNull Scan[] scans;
+  private final double[] mzs;
+  private final double[] intensities;
+  private final int[] scanIndices;
+  private int size = 0;
+  private int processed = 0;
+
+  /**
+   * @param scans    all scans, centroids reference them by index
+   * @param capacity the total number of centroids
+   */
+  CentroidChromatogramBuilder(@NotNull Scan[] scans, int capacity) {
+    this.scans = scans;
+    mzs = new double[capacity];
+    intensities = new double[capacity];
+    scanIndices = new int[capacity];
+  }
+
+  /**
+   * Add a centroid. Centroids with undefined m/z or intensity are skipped.
+   *
+   * @param scanIndex index in the scans array
+   */
+  void add(int scanIndex, double mz, double intensity) {
+    if (Double.isNaN(mz) || Double.isNaN(intensity)) {
+      return;
+    }
+    mzs[size] = mz;
+    intensities[size] = intensity;
+    scanIndices[size] = scanIndex;
+    size++;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return progress of {@link #buildChromatograms(MZTolerance, double, Task)}
+   */
+  double getProgress() {
+    return size == 0 ? 0d : processed / (double) size;
+  }
+
+  /**
+   * Sorts all centroids by intensity descending and m/z descending for equal intensities, the same
+   * order as {@link io.github.mzmine.util.DataPointSorter#DEFAULT_INTENSITY}. All arrays are
+   * permuted in place.
+   */
+  void sortByIntensity() {
+    Arrays.parallelQuickSort(0, size, (a, b) -> {
+      final int result = Double.compare(intensities[b], intensities[a]);
+      return result != 0 ? result : Double.compare(mzs[b], mzs[a]);
+    }, (a, b) -> {
+      final double mz = mzs[a];
+      mzs[a] = mzs[b];
+      mzs[b] = mz;
+      final double intensity = intensities[a];
+      intensities[a] = intensities[b];
+      intensities[b] = intensity;
+      final int scan = scanIndices[a];
+      scanIndices[a] = scanIndices[b];
+      scanIndices[b] = scan;
+    });
+  }
+
+  /**
+   * Build chromatograms from the centroids. Call {@link #sortByIntensity()} before.
+   *
+   * @param minHighestPoint minimum intensity to start a new chromatogram
+   * @return all chromatograms sorted by m/z or null if the parent task was canceled
+   */
+  @Nullable
+  List<ADAPChromatogram> buildChromatograms(@NotNull MZTolerance mzTolerance,
+      double minHighestPoint, @Nullable Task parentTask) {
+    final SortedMzIntervals intervals = new SortedMzIntervals();
+    // by interval id
+    final List<ADAPChromatogram> chromatograms = new ArrayList<>();
+
+    for (processed = 0; processed < size; processed++) {
+      if (parentTask != null && parentTask.isCanceled()) {
+        return null;
+      }
+      final int i = processed;
+      final double mz = mzs[i];
+      final int existing = intervals.find(mz);
+      if (existing >= 0) {
+        chromatograms.get(existing).addDataPoint(scans[scanIndices[i]], mz, intensities[i]);
+      } else if (intensities[i] >= minHighestPoint) {
+        // add a new chromatogram - limit ranges to avoid overlap
+        startNewChromatogramLimitMzRanges(intervals, chromatograms, mzTolerance, i);
+      }
+    }
+
+    // finish chromatograms sorted by m/z
+    final int[] ids = intervals.idsInMzOrder();
+    final List<ADAPChromatogram> sorted = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      sorted.add(chromatograms.get(id));
+    }
+    return sorted;
+  }
+
+  /**
+   * Starts a new chromatogram and limits its range so that it does not overlap with existing m/z
+   * ranges
+   */
+  private void startNewChromatogramLimitMzRanges(SortedMzIntervals intervals,
+      List<ADAPChromatogram> chromatograms, MZTolerance mzTolerance, int i) {
+    final double mz = mzs[i];
+    final double tolerance = mzTolerance.getMzToleranceForMass(mz);
+    final double lower = mz - tolerance;
+    final double upper = mz + tolerance;
+
+    // look +- mz tolerance to see if there is a range near by. If there is, use the proper boundary
+    // of that range for the new range to ensure that NONE OF THE RANGES OVERLAP.
+    final int minusRange = intervals.find(lower);
+    final int plusRange = intervals.find(upper);
+
+    final double toBeLowerBound = minusRange < 0 ? lower : intervals.getUpper(minusRange);
+    final double toBeUpperBound = plusRange < 0 ? upper : intervals.getLower(plusRange);
+
+    final Scan scan = scans[scanIndices[i]];
+    if (toBeLowerBound < toBeUpperBound) {
+      // closed open so that every value may be captured
+      final int id = intervals.add(toBeLowerBound, toBeUpperBound);
+      final ADAPChromatogram newChrom = new ADAPChromatogram();
+      newChrom.addDataPoint(scan, mz, intensities[i]);
+      chromatograms.add(id, newChrom);
+    } else if (toBeLowerBound == toBeUpperBound && plusRange >= 0) {
+      chromatograms.get(plusRange).addDataPoint(scan, mz, intensities[i]);
+    } else {
+      throw new IllegalStateException(
+          String.format("Incorrect range [%f, %f] for m/z %f", toBeLowerBound, toBeUpperBound,
+              mz));
+    }
+  }
+}
@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -57,7 +58,7 @@ public class ModularADAPChromatogramBuilderModule implements MZmineProcessingMod
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
     // one memory map storage per module call to reduce number of files and connect related feature lists
-    MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     RawDataFile[] dataFiles = parameters.getParameter(ADAPChromatogramBuilderParameters.dataFiles)
         .getValue().getMatchingRawDataFiles();
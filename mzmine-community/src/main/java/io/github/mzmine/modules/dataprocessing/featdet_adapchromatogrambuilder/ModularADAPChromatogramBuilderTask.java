@@ -28,9 +28,6 @@ package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
 
 import static java.util.Objects.requireNonNullElse;
 
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
-import com.google.common.collect.TreeRangeMap;
 import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.MassSpectrum;
@@ -54,18 +51,14 @@ import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
-import io.github.mzmine.util.DataPointSorter;
 import io.github.mzmine.util.DataTypeUtils;
 import io.github.mzmine.util.FeatureConvertors;
 import io.github.mzmine.util.FeatureListUtils;
 import io.github.mzmine.util.MemoryMapStorage;
-import io.github.mzmine.util.SortingDirection;
-import io.github.mzmine.util.SortingProperty;
 import io.github.mzmine.util.exceptions.MissingMassListException;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.List;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -93,6 +86,8 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
   private final Class<? extends MZmineModule> callingModule;
   private final boolean isImaging;
   private double progress = 0.0;
+  // set while chromatograms are built for progress
+  private volatile CentroidChromatogramBuilder chromatogramBuilder;
   private ModularFeatureList newFeatureList;
 
   /**
@@ -153,14 +148,14 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
 
   @Override
   public double getFinishedPercentage() {
-    return progress;
+    final CentroidChromatogramBuilder builder = chromatogramBuilder;
+    return builder == null ? progress : 0.1 + 0.45 * builder.getProgress();
   }
 
   public RawDataFile getDataFile() {
     return dataFile;
   }
 
-  @SuppressWarnings("UnstableApiUsage")
   @Override
   public void run() {
     setStatus(TaskStatus.PROCESSING);
@@ -232,9 +227,6 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     // update mz avg and other stuff
     //
 
-    // map the mz tolerance to chromatograms
-    RangeMap<Double, ADAPChromatogram> rangeToChromMap = TreeRangeMap.create();
-
     // make a list of all the data points
     final int totalDps = Arrays.stream(scans).map(s -> {
       if (s.getMassList() != null) {
@@ -244,15 +236,18 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
       DesktopService.getDesktop().displayErrorMessage(ex.getMessage());
       throw ex;
     }).mapToInt(MassSpectrum::getNumberOfDataPoints).sum();
-    int dpCounter = 0;
-
-    ExpandedDataPoint[] allMzValues = new ExpandedDataPoint[totalDps];
 
     ScanDataAccess scanData = EfficientDataAccess.of(dataFile, ScanDataType.MASS_LIST,
         scanSelection);
 
+    // all centroids in primitive arrays, referencing the scans by index
+    final Scan[] dataScans = new Scan[scanData.getNumberOfScans()];
+    final CentroidChromatogramBuilder builder = new CentroidChromatogramBuilder(dataScans,
+        totalDps);
+
     progress = 0;
     double progressStep = 0.1 / scanData.getNumberOfScans();
+    int scanIndex = 0;
     while (scanData.hasNextScan()) {
       if (isCanceled()) {
         return;
@@ -277,56 +272,29 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
         return;
       }
 
+      dataScans[scanIndex] = scan;
       int dps = scanData.getNumberOfDataPoints();
       for (int i = 0; i < dps; i++) {
-        ExpandedDataPoint curDatP = new ExpandedDataPoint(scanData.getMzValue(i),
-            scanData.getIntensityValue(i), scan);
-        allMzValues[dpCounter] = curDatP;
-        dpCounter++;
+        builder.add(scanIndex, scanData.getMzValue(i), scanData.getIntensityValue(i));
       }
+      scanIndex++;
       progress += progressStep;
     }
 
     // sort data points by intensity
-    Arrays.parallelSort(allMzValues,
-        new DataPointSorter(SortingProperty.Intensity, SortingDirection.Descending));
+    builder.sortByIntensity();
 
-    // count starts at 1 since we already have added one with a single point.
     progress = 0.1;
-    progressStep = (allMzValues.length > 0) ? 0.45 / allMzValues.length : 0.0;
-
-    for (ExpandedDataPoint mzFeature : allMzValues) {
-
-      progress += progressStep;
-
-      if (isCanceled()) {
-        return;
-      }
-
-      if (mzFeature == null || Double.isNaN(mzFeature.getMZ()) || Double.isNaN(
-          mzFeature.getIntensity())) {
-        continue;
-      }
-
-      final Entry<Range<Double>, ADAPChromatogram> existing = rangeToChromMap.getEntry(
-          mzFeature.getMZ());
-      if (existing != null) {
-        // add data point to chromatogram
-        existing.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
-      } else {
-        // skip it entierly if the intensity is not high enough
-        if (mzFeature.getIntensity() < minHighestPoint) {
-          continue;
-        }
-        // add a new chromatogram to the range map - limit ranges to avoid overlap
-        startNewChromatogramLimitMzRanges(rangeToChromMap, mzFeature);
-      }
+    chromatogramBuilder = builder;
+    final List<ADAPChromatogram> chromatograms = builder.buildChromatograms(mzTolerance,
+        minHighestPoint, this);
+    chromatogramBuilder = null;
+    if (chromatograms == null || isCanceled()) {
+      return;
     }
 
-    // finish chromatograms sorted by m/z
-    final Map<Range<Double>, ADAPChromatogram> finalRangeMap = rangeToChromMap.asMapOfRanges();
-
-    int numChromatograms = finalRangeMap.size();
+    progress = 0.55;
+    int numChromatograms = chromatograms.size();
     progressStep = numChromatograms > 0 ? 0.45 / numChromatograms : 0.0;
 
     // Create new feature list
@@ -337,7 +305,7 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
 
     int newFeatureID = 1;
     // add chromatograms that match criteria
-    for (ADAPChromatogram chromatogram : finalRangeMap.values()) {
+    for (ADAPChromatogram chromatogram : chromatograms) {
       if (isCanceled()) {
         return;
       }
@@ -384,51 +352,4 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     logger.info(() -> "Finished chromatogram builder on " + dataFile);
   }
 
-  /**
-   * Starts a new chromatogram and limits its range so that it does not overlap with existing m/z
-   * ranges
-   *
-   * @param rangeToChromMap started chromatograms with their non overlapping m/z range
-   * @param mzFeature       current tested data point
-   */
-  @SuppressWarnings("UnstableApiUsage")
-  private void startNewChromatogramLimitMzRanges(RangeMap<Double, ADAPChromatogram> rangeToChromMap,
-      ExpandedDataPoint mzFeature) {
-    // start new chromatogram and create new range (subract overlapping existing ranges)
-    Range<Double> toleranceRange = mzTolerance.getToleranceRange(mzFeature.getMZ());
-
-    // look +- mz tolerance to see if ther is a range near by.
-    // If there is use the proper boundry of that range for the
-    // new range to insure than NON OF THE RANGES OVERLAP.
-    final Entry<Range<Double>, ADAPChromatogram> minusRange = rangeToChromMap.getEntry(
-        toleranceRange.lowerEndpoint());
-    final Entry<Range<Double>, ADAPChromatogram> plusRange = rangeToChromMap.getEntry(
-        toleranceRange.upperEndpoint());
-
-    // If both of the above ranges are null then we make the new range spaning the full
-    // mz tolerance range.
-    // If one or both are not null we need to properly modify the range of the new
-    // chromatogram so that none of the points are overlapping.
-    Double toBeLowerBound =
-        minusRange == null ? toleranceRange.lowerEndpoint() : minusRange.getKey().upperEndpoint();
-    Double toBeUpperBound =
-        plusRange == null ? toleranceRange.upperEndpoint() : plusRange.getKey().lowerEndpoint();
-
-    if (toBeLowerBound < toBeUpperBound) {
-      // use closed open so that every value may be captured by rangeMap
-      Range<Double> newRange = Range.closedOpen(toBeLowerBound, toBeUpperBound);
-      ADAPChromatogram newChrom = new ADAPChromatogram();
-      newChrom.addMzFeature(mzFeature.getScan(), mzFeature);
-
-      rangeToChromMap.put(newRange, newChrom);
-    } else if (toBeLowerBound.equals(toBeUpperBound) && plusRange != null) {
-      plusRange.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
-    } else {
-      throw new IllegalStateException(
-          String.format("Incorrect range [%f, %f] for m/z %f", toBeLowerBound, toBeUpperBound,
-              mzFeature.getMZ()));
-    }
-  }
-
 }
-
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
+
+import java.util.Arrays;
+
+/**
+ * Primitive replacement of a {@link com.google.common.collect.TreeRangeMap} for non-overlapping
+ * closed-open m/z ranges [lower, upper). Each interval gets a consecutive id on insertion. Ids are
+ * stored in sorted blocks of limited size so that insertions only move a few values and lookups
+ * are two binary searches.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+final class SortedMzIntervals {
+
+  private static final int MAX_BLOCK_SIZE = 1024;
+
+  // interval bounds by id
+  private double[] lowers = new double[256];
+  private double[] uppers = new double[256];
+  private int numIds = 0;
+  private int numIntervals = 0;
+
+  // blocks of ids sorted by lower bound
+  private int[][] blocks = new int[16][];
+  private int[] blockSizes = new int[16];
+  private double[] blockMinLowers = new double[16];
+  private int numBlocks = 0;
+
+  /**
+   * @return number of intervals in this structure. Removed intervals are not counted.
+   */
+  public int size() {
+    return numIntervals;
+  }
+
+  public double getLower(int id) {
+    return lowers[id];
+  }
+
+  public double getUpper(int id) {
+    return uppers[id];
+  }
+
+  /**
+   * Same as {@link com.google.common.collect.RangeMap#getEntry(Comparable)}
+   *
+   * @return the id of the interval that contains the m/z or -1
+   */
+  public int find(double mz) {
+    final int b = floorBlock(mz);
+    if (b < 0) {
+      return -1;
+    }
+    final int index = lowerBoundInBlock(b, mz, true) - 1;
+    final int id = blocks[b][index];
+    return mz < uppers[id] ? id : -1;
+  }
+
+  /**
+   * Adds a new interval. Same as {@link com.google.common.collect.RangeMap#put} all intervals that
+   * are enclosed by the new interval are removed.
+   *
+   * @param lower inclusive lower bound
+   * @param upper exclusive upper bound, needs to be > lower
+   * @return the id of the new interval
+   * @throws IllegalArgumentException if the interval partially overlaps an existing interval
+   */
+  public int add(double lower, double upper) {
+    if (!(lower < upper)) {
+      throw new IllegalArgumentException("Empty interval [%f, %f)".formatted(lower, upper));
+    }
+    // an interval starting before may not reach into the new interval
+    final int floor = find(lower);
+    if (floor >= 0 && lowers[floor] < lower) {
+      throw overlapException(floor, lower, upper);
+    }
+    removeEnclosed(lower, upper);
+
+    final int id = nextId(lower, upper);
+    if (numBlocks == 0) {
+      addBlock(0);
+    }
+    int b = Math.max(floorBlock(lower), 0);
+    if (blockSizes[b] == MAX_BLOCK_SIZE) {
+      splitBlock(b);
+      if (lower >= blockMinLowers[b + 1]) {
+        b++;
+      }
+    }
+    final int index = lowerBoundInBlock(b, lower, false);
+    final int[] block = blocks[b];
+    System.arraycopy(block, index, block, index + 1, blockSizes[b] - index);
+    block[index] = id;
+    blockSizes[b]++;
+    blockMinLowers[b] = lowers[block[0]];
+    numIntervals++;
+    return id;
+  }
+
+  /**
+   * @return ids of all intervals sorted by their m/z
+   */
+  public int[] idsInMzOrder() {
+    final int[] ids = new int[numIntervals];
+    int n = 0;
+    for (int b = 0; b < numBlocks; b++) {
+      System.arraycopy(blocks[b], 0, ids, n, blockSizes[b]);
+      n += blockSizes[b];
+    }
+    return ids;
+  }
+
+  /**
+   * Checks all intervals first so that nothing is removed if an exception is thrown
+   */
+  private void removeEnclosed(double lower, double upper) {
+    if (numBlocks == 0) {
+      return;
+    }
+    final int firstBlock = Math.max(floorBlock(lower), 0);
+    final int firstIndex = lowerBoundInBlock(firstBlock, lower, false);
+    int enclosed = 0;
+    check:
+    for (int b = firstBlock, index = firstIndex; b < numBlocks; b++, index = 0) {
+      for (; index < blockSizes[b]; index++) {
+        final int id = blocks[b][index];
+        if (lowers[id] >= upper) {
+          break check;
+        }
+        if (uppers[id] > upper) {
+          throw overlapException(id, lower, upper);
+        }
+        enclosed++;
+      }
+    }
+    for (int i = 0; i < enclosed; i++) {
+      int b = Math.max(floorBlock(lower), 0);
+      int index = lowerBoundInBlock(b, lower, false);
+      if (index == blockSizes[b]) {
+        b++;
+        index = 0;
+      }
+      removeFromBlock(b, index);
+    }
+  }
+
+  private void removeFromBlock(int b, int index) {
+    final int[] block = blocks[b];
+    System.arraycopy(block, index + 1, block, index, blockSizes[b] - index - 1);
+    blockSizes[b]--;
+    numIntervals--;
+    if (blockSizes[b] == 0) {
+      removeBlock(b);
+    } else {
+      blockMinLowers[b] = lowers[block[0]];
+    }
+  }
+
+  private int nextId(double lower, double upper) {
+    if (numIds == lowers.length) {
+      lowers = Arrays.copyOf(lowers, numIds * 2);
+      uppers = Arrays.copyOf(uppers, numIds * 2);
+    }
+    lowers[numIds] = lower;
+    uppers[numIds] = upper;
+    return numIds++;
+  }
+
+  /**
+   * @return the last block with a min lower bound <= mz or -1
+   */
+  private int floorBlock(double mz) {
+    int low = 0;
+    int high = numBlocks;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (blockMinLowers[mid] <= mz) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * @param inclusive true: first index with lower bound > mz, false: first index with lower bound
+   *                  >= mz
+   */
+  private int lowerBoundInBlock(int b, double mz, boolean inclusive) {
+    final int[] block = blocks[b];
+    int low = 0;
+    int high = blockSizes[b];
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      final double value = lowers[block[mid]];
+      if (value < mz || (inclusive && value == mz)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void splitBlock(int b) {
+    addBlock(b + 1);
+    final int half = blockSizes[b] / 2;
+    final int moved = blockSizes[b] - half;
+    System.arraycopy(blocks[b], half, blocks[b + 1], 0, moved);
+    blockSizes[b] = half;
+    blockSizes[b + 1] = moved;
+    blockMinLowers[b + 1] = lowers[blocks[b + 1][0]];
+  }
+
+  private void addBlock(int b) {
+    if (numBlocks == blocks.length) {
+      blocks = Arrays.copyOf(blocks, numBlocks * 2);
+      blockSizes = Arrays.copyOf(blockSizes, numBlocks * 2);
+      blockMinLowers = Arrays.copyOf(blockMinLowers, numBlocks * 2);
+    }
+    final int moved = numBlocks - b;
+    System.arraycopy(blocks, b, blocks, b + 1, moved);
+    System.arraycopy(blockSizes, b, blockSizes, b + 1, moved);
+    System.arraycopy(blockMinLowers, b, blockMinLowers, b + 1, moved);
+    blocks[b] = new int[MAX_BLOCK_SIZE];
+    blockSizes[b] = 0;
+    numBlocks++;
+  }
+
+  private void removeBlock(int b) {
+    final int moved = numBlocks - b - 1;
+    System.arraycopy(blocks, b + 1, blocks, b, moved);
+    System.arraycopy(blockSizes, b + 1, blockSizes, b, moved);
+    System.arraycopy(blockMinLowers, b + 1, blockMinLowers, b, moved);
+    numBlocks--;
+    blocks[numBlocks] = null;
+  }
+
+  private IllegalArgumentException overlapException(int id, double lower, double upper) {
+    return new IllegalArgumentException(
+        "Interval [%f, %f) partially overlaps existing interval [%f, %f)".formatted(lower, upper,
+            lowers[id], uppers[id]));
+  }
+}
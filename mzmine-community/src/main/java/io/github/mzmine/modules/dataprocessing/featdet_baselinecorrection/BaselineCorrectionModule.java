@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -51,7 +52,7 @@ public class BaselineCorrectionModule extends AbstractProcessingModule {
 
     final @NotNull ModularFeatureList[] flists = parameters.getValue(
         BaselineCorrectionParameters.flists).getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (final @NotNull ModularFeatureList flist : flists) {
       tasks.add(new BaselineCorrectionTask(storage, moduleCallDate, parameters,
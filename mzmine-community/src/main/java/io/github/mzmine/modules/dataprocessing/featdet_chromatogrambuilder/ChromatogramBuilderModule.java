@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -61,7 +62,7 @@ public class ChromatogramBuilderModule implements MZmineProcessingModule {
     RawDataFile[] dataFiles = parameters.getParameter(ChromatogramBuilderParameters.dataFiles)
         .getValue().getMatchingRawDataFiles();
 
-    MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (int i = 0; i < dataFiles.length; i++) {
       Task newTask = new ChromatogramBuilderTask(project, dataFiles[i],
@@ -34,6 +34,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -53,7 +54,7 @@ public abstract class FeatureResolverModule implements MZmineProcessingModule {
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull final ParameterSet parameters,
       @NotNull final Collection<Task> tasks, @NotNull Instant moduleCallDate) {
     // one memory map storage per module call to reduce number of files and connect related feature lists
-    MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     FeatureList[] peakLists = parameters.getParameter(GeneralResolverParameters.PEAK_LISTS)
         .getValue().getMatchingFeatureLists();
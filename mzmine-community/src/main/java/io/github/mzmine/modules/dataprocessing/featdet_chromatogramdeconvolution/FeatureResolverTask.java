@@ -35,6 +35,7 @@ import io.github.mzmine.datamodel.featuredata.IonMobilogramTimeSeries;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
@@ -54,15 +55,20 @@ import io.github.mzmine.util.FeatureListUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.maths.CenterFunction;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 
 public class FeatureResolverTask extends AbstractTask {
 
   // Logger.
   private static final Logger logger = Logger.getLogger(FeatureResolverTask.class.getName());
+  // rows resolved by one thread with its own resolver and data access
+  private static final int ROWS_PER_CHUNK = 1000;
 
   // Feature lists.
   private final MZmineProject project;
@@ -73,7 +79,7 @@ public class FeatureResolverTask extends AbstractTask {
   private final CenterFunction mzCenterFunction;
   private FeatureList newPeakList;
   // Counters.
-  private int processedRows;
+  private final AtomicInteger processedRows = new AtomicInteger(0);
   private int totalRows;
   private String errorMsg;
   private boolean setMSMSRange, setMSMSRT;
@@ -98,7 +104,6 @@ public class FeatureResolverTask extends AbstractTask {
     parameters = parameterSet;
     originalPeakList = list;
     newPeakList = null;
-    processedRows = 0;
     totalRows = 0;
     this.mzCenterFunction = mzCenterFunction;
   }
@@ -116,7 +121,7 @@ public class FeatureResolverTask extends AbstractTask {
     if (groupMS2Task != null) {
       return groupMS2Task.getFinishedPercentage();
     }
-    return totalRows == 0 ? 0.0 : processedRows / (double) totalRows;
+    return totalRows == 0 ? 0.0 : processedRows.get() / (double) totalRows;
   }
 
   @Override
@@ -182,8 +187,8 @@ public class FeatureResolverTask extends AbstractTask {
   }
 
   private void dimensionIndependentResolve(ModularFeatureList originalFeatureList) {
-    final Resolver resolver = ((GeneralResolverParameters) parameters).getResolver(parameters,
-        originalFeatureList);
+    final GeneralResolverParameters resolverParameters = (GeneralResolverParameters) parameters;
+    final Resolver resolver = resolverParameters.getResolver(parameters, originalFeatureList);
     if (resolver == null) {
       setErrorMessage("Resolver could not be initialised.");
       setStatus(TaskStatus.ERROR);
@@ -193,42 +198,55 @@ public class FeatureResolverTask extends AbstractTask {
     final RawDataFile dataFile = originalFeatureList.getRawDataFile(0);
     final ModularFeatureList resolvedFeatureList = createNewFeatureList(originalFeatureList);
 
-    final FeatureDataAccess access = EfficientDataAccess.of(originalFeatureList,
-        EfficientDataAccess.FeatureDataType.INCLUDE_ZEROS, dataFile);
+    final List<FeatureListRow> rows = List.copyOf(originalFeatureList.getRows());
+    processedRows.set(0);
+    totalRows = rows.size();
+
+    // resolve chunks of rows in parallel. Resolvers hold buffers, so every chunk uses its own
+    // resolver and data access. Results are collected in the order of the rows
+    final int numChunks = (rows.size() + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK;
+    final List<List<ResolvedFeature>> resolvedChunks = IntStream.range(0, numChunks).parallel()
+        .mapToObj(chunk -> {
+          final int start = chunk * ROWS_PER_CHUNK;
+          final List<FeatureListRow> chunkRows = rows.subList(start,
+              Math.min(start + ROWS_PER_CHUNK, rows.size()));
+          final Resolver chunkResolver = chunk == 0 ? resolver
+              : resolverParameters.getResolver(parameters, originalFeatureList);
+          return resolveRows(originalFeatureList, dataFile, chunkRows, chunkResolver);
+        }).toList();
+
+    if (isCanceled()) {
+      return;
+    }
 
-    processedRows = 0;
-    totalRows = originalFeatureList.getNumberOfRows();
+    // merge in row order to create deterministic IDs
     int peakId = 1;
-
     int c = 0;
-
-    while (access.hasNextFeature()) {
-      final ModularFeature originalFeature = (ModularFeature) access.nextFeature();
-      final List<IonTimeSeries<? extends Scan>> resolvedSeries = resolver.resolve(access,
-          getMemoryMapStorage());
-
-      for (IonTimeSeries<? extends Scan> resolved : resolvedSeries) {
-        final ModularFeatureListRow newRow = new ModularFeatureListRow(resolvedFeatureList,
-            peakId++);
-        final ModularFeature f = new ModularFeature(resolvedFeatureList,
-            originalFeature.getRawDataFile(), resolved, originalFeature.getFeatureStatus());
-
-        if (originalFeature.getMobilityUnit() != null) {
-          f.set(MobilityUnitType.class, originalFeature.getMobilityUnit());
-        }
-        if (originalFeature.get(ImageType.class) != null) {
-          f.set(ImageType.class, true);
-        }
-        if(originalFeature.get(MaldiSpotType.class) != null) {
-          f.set(MaldiSpotType.class, originalFeature.get(MaldiSpotType.class));
-        }
-        newRow.addFeature(originalFeature.getRawDataFile(), f);
-        resolvedFeatureList.addRow(newRow);
-        if (resolved.getSpectra().size() <= 3) {
-          c++;
+    for (List<ResolvedFeature> resolvedChunk : resolvedChunks) {
+      for (ResolvedFeature resolvedFeature : resolvedChunk) {
+        final ModularFeature originalFeature = resolvedFeature.originalFeature();
+        for (IonTimeSeries<? extends Scan> resolved : resolvedFeature.resolvedSeries()) {
+          final ModularFeatureListRow newRow = new ModularFeatureListRow(resolvedFeatureList,
+              peakId++);
+          final ModularFeature f = new ModularFeature(resolvedFeatureList,
+              originalFeature.getRawDataFile(), resolved, originalFeature.getFeatureStatus());
+
+          if (originalFeature.getMobilityUnit() != null) {
+            f.set(MobilityUnitType.class, originalFeature.getMobilityUnit());
+          }
+          if (originalFeature.get(ImageType.class) != null) {
+            f.set(ImageType.class, true);
+          }
+          if(originalFeature.get(MaldiSpotType.class) != null) {
+            f.set(MaldiSpotType.class, originalFeature.get(MaldiSpotType.class));
+          }
+          newRow.addFeature(originalFeature.getRawDataFile(), f);
+          resolvedFeatureList.addRow(newRow);
+          if (resolved.getSpectra().size() <= 3) {
+            c++;
+          }
         }
       }
-      processedRows++;
     }
     logger.info(c + "/" + resolvedFeatureList.getNumberOfRows()
         + " have less than 4 scans (frames for IMS data)");
@@ -241,6 +259,31 @@ public class FeatureResolverTask extends AbstractTask {
     newPeakList = resolvedFeatureList;
   }
 
+  /**
+   * Resolves the features of a window of rows
+   *
+   * @param resolver only used by the current thread
+   * @return the resolved series of each feature in the order of the rows
+   */
+  private List<ResolvedFeature> resolveRows(ModularFeatureList originalFeatureList,
+      RawDataFile dataFile, List<FeatureListRow> rows, Resolver resolver) {
+    final FeatureDataAccess access = EfficientDataAccess.of(originalFeatureList,
+        EfficientDataAccess.FeatureDataType.INCLUDE_ZEROS, dataFile, rows);
+
+    final List<ResolvedFeature> resolvedFeatures = new ArrayList<>(rows.size());
+    while (access.hasNextFeature()) {
+      if (isCanceled()) {
+        return resolvedFeatures;
+      }
+      final ModularFeature originalFeature = (ModularFeature) access.nextFeature();
+      final List<IonTimeSeries<? extends Scan>> resolvedSeries = resolver.resolve(access,
+          getMemoryMapStorage());
+      resolvedFeatures.add(new ResolvedFeature(originalFeature, resolvedSeries));
+      processedRows.incrementAndGet();
+    }
+    return resolvedFeatures;
+  }
+
   @Override
   public void cancel() {
     super.cancel();
@@ -286,4 +329,13 @@ public class FeatureResolverTask extends AbstractTask {
 
     return resolvedFeatureList;
   }
+
+  /**
+   * @param originalFeature the resolved feature (EIC)
+   * @param resolvedSeries  the resolved series
+   */
+  private record ResolvedFeature(ModularFeature originalFeature,
+                                 List<IonTimeSeries<? extends Scan>> resolvedSeries) {
+
+  }
 }
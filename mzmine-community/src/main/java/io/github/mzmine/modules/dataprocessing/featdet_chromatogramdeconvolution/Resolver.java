@@ -41,6 +41,9 @@ import org.jetbrains.annotations.Nullable;
 /**
  * Resolves a {@link IntensitySeries}-and-{@link TimeSeries} in time dimension and/or a {@link
  * IntensitySeries}-and-{@link MobilitySeries} in mobility dimension.
+ * <p>
+ * Implementations may keep buffers between calls and are not thread safe. Create one instance per
+ * thread to resolve features in parallel.
  *
  * @author SteffenHeu https://github.com/SteffenHeu
  */
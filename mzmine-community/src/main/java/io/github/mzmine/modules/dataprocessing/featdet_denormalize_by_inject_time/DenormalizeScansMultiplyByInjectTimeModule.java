@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -64,7 +65,7 @@ public class DenormalizeScansMultiplyByInjectTimeModule implements MZmineProcess
     RawDataFile[] dataFiles = parameters.getParameter(
             DenormalizeScansMultiplyByInjectTimeParameters.dataFiles).getValue()
         .getMatchingRawDataFiles();
-    final MemoryMapStorage storage = MemoryMapStorage.forMassList();
+    final MemoryMapStorage storage = TieredStorageManager.forMassList();
     for (RawDataFile dataFile : dataFiles) {
       Task newTask = new DenormalizeScansMultiplyByInjectTimeTask(project, dataFile, parameters,
           storage, moduleCallDate);
@@ -29,6 +29,7 @@ import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.MzBinnedXicIndex;
 import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries;
@@ -52,6 +53,12 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
       ExtractMzRangesIonSeriesFunction.class.getName());
   private final List<Range<Double>> mzRangesSorted;
   private final ScanDataAccess dataAccess;
+  private final RawDataFile dataFile;
+  private final ScanDataType scanDataType;
+  // either the scans or the selection is set
+  private final @Nullable List<? extends Scan> scans;
+  private final @Nullable ScanSelection scanSelection;
+  private boolean useIndex = false;
   private MzMode mzMode = MzMode.DEFAULT;
   private IntensityMode intensityMode = IntensityMode.DEFAULT;
   private int processedScans, totalScans;
@@ -67,6 +74,10 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
 
     dataAccess = EfficientDataAccess.of(dataFile, scanDataType, scanSelection);
     this.mzRangesSorted = mzRangesSorted;
+    this.dataFile = dataFile;
+    this.scanDataType = scanDataType;
+    this.scanSelection = scanSelection;
+    this.scans = null;
     description = "Extracting %d ion series from data file %s".formatted(mzRangesSorted.size(),
         dataFile.getName());
   }
@@ -81,6 +92,10 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
 
     dataAccess = EfficientDataAccess.of(dataFile, scanDataType, scans);
     this.mzRangesSorted = mzRangesSorted;
+    this.dataFile = dataFile;
+    this.scanDataType = scanDataType;
+    this.scanSelection = null;
+    this.scans = scans;
   }
 
   public void setMzMode(final MzMode mzMode) {
@@ -91,6 +106,15 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
     this.intensityMode = intensityMode;
   }
 
+  /**
+   * @param useIndex build the {@link MzBinnedXicIndex} of the data file if it does not exist yet.
+   *                 The build blocks this extraction and stops if the parent task is canceled.
+   *                 An existing and current index is always used.
+   */
+  public void setUseIndex(final boolean useIndex) {
+    this.useIndex = useIndex;
+  }
+
   @Override
   public @NotNull String getTaskDescription() {
     return description;
@@ -122,6 +146,10 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
       chromatograms[i] = new BuildingIonSeries(dataAccess.getNumberOfScans(), mzMode, intensityMode);
     }
 
+    if (extractFromIndex(chromatograms)) {
+      return isCanceled() ? new BuildingIonSeries[0] : chromatograms;
+    }
+
     // binary search the start
     double lowestMz = mzRangesSorted.getFirst().lowerEndpoint();
 
@@ -168,4 +196,64 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
     return chromatograms;
   }
 
+  /**
+   * Extract from the {@link MzBinnedXicIndex} if available and if it yields the same result as the
+   * scan walk in {@link #get()}. This requires lower and upper endpoints sorted ascending (no
+   * nested ranges) and all scans in the index.
+   *
+   * @return true if all chromatograms were filled from the index
+   */
+  private boolean extractFromIndex(BuildingIonSeries[] chromatograms) {
+    for (int i = 1; i < mzRangesSorted.size(); i++) {
+      final Range<Double> previous = mzRangesSorted.get(i - 1);
+      final Range<Double> range = mzRangesSorted.get(i);
+      if (range.lowerEndpoint() < previous.lowerEndpoint()
+          || range.upperEndpoint() < previous.upperEndpoint()) {
+        return false;
+      }
+    }
+    MzBinnedXicIndex index =
+        useIndex ? MzBinnedXicIndex.getOrBuild(dataFile, scanDataType,
+            dataFile.getMemoryMapStorage(), getParentTask(), null)
+            : MzBinnedXicIndex.get(dataFile, scanDataType);
+    if (index == null) {
+      return false;
+    }
+    List<? extends Scan> selectedScans =
+        scans != null ? scans : scanSelection.getMatchingScans(dataFile.getScans());
+    final int[] positions = index.mapScanPositions(selectedScans);
+    if (positions == null) {
+      return false;
+    }
+    if (selectedScans.isEmpty()) {
+      return true;
+    }
+
+    int fromScan = 0;
+    while (positions[fromScan] == -1) {
+      fromScan++;
+    }
+    int toScan = positions.length - 1;
+    while (positions[toScan] == -1) {
+      toScan--;
+    }
+
+    totalScans = mzRangesSorted.size();
+    for (int t = 0; t < mzRangesSorted.size(); t++) {
+      if (isCanceled()) {
+        return true;
+      }
+      final BuildingIonSeries series = chromatograms[t];
+      final Range<Double> range = mzRangesSorted.get(t);
+      index.forEachSignal(range.lowerEndpoint(), range.upperEndpoint(), fromScan, toScan,
+          (scanPosition, mz, intensity) -> {
+            final int scan = positions[scanPosition];
+            if (scan != -1) {
+              series.addValue(scan, mz, intensity);
+            }
+          });
+      processedScans++;
+    }
+    return true;
+  }
 }
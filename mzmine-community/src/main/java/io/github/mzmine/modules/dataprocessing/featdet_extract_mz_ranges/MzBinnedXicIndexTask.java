@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.MzBinnedXicIndex;
+import io.github.mzmine.main.MZmineCore;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.TaskPriority;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.taskcontrol.progress.TotalFinishedItemsProgress;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builds the {@link MzBinnedXicIndex} of the mass lists of one raw data file in the background.
+ * Ion chromatograms are extracted by the scan walk until the index is available.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class MzBinnedXicIndexTask extends AbstractTask {
+
+  // files with a submitted build, avoids duplicate builds for repeated EIC requests
+  private static final Set<RawDataFile> BUILDING = ConcurrentHashMap.newKeySet();
+
+  private final RawDataFile dataFile;
+  private final TotalFinishedItemsProgress progress = new TotalFinishedItemsProgress();
+
+  private MzBinnedXicIndexTask(@NotNull RawDataFile dataFile) {
+    super(null, Instant.now()); // no new data stored -> null, date irrelevant (not used in batch)
+    this.dataFile = dataFile;
+  }
+
+  /**
+   * Submits a build of the mass list index if the file has no current index and no build is
+   * running
+   */
+  public static void buildInBackground(@NotNull RawDataFile dataFile) {
+    if (MzBinnedXicIndex.get(dataFile, ScanDataType.MASS_LIST) != null || !BUILDING.add(
+        dataFile)) {
+      return;
+    }
+    MZmineCore.getTaskController()
+        .addTask(new MzBinnedXicIndexTask(dataFile), TaskPriority.NORMAL);
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Building m/z index of mass lists in " + dataFile.getName();
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    return progress.progress();
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+    try {
+      MzBinnedXicIndex.getOrBuild(dataFile, ScanDataType.MASS_LIST,
+          dataFile.getMemoryMapStorage(), this, progress);
+    } finally {
+      BUILDING.remove(dataFile);
+    }
+    if (!isCanceled()) {
+      setStatus(TaskStatus.FINISHED);
+    }
+  }
+}
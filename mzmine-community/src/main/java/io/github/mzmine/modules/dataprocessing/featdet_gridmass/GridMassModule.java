@@ -34,6 +34,7 @@ import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParamete
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -62,7 +63,7 @@ public class GridMassModule implements MZmineProcessingModule {
     RawDataFile[] dataFiles =
         parameters.getParameter(new RawDataFilesParameter()).getValue().getMatchingRawDataFiles();
 
-    MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (int i = 0; i < dataFiles.length; i++) {
       Task newTask = new GridMassTask(project, dataFiles[i], parameters.cloneParameterSet(), storage, moduleCallDate);
       tasks.add(newTask);
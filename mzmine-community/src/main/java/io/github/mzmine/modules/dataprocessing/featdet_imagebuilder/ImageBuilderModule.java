@@ -36,6 +36,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -68,7 +69,7 @@ public class ImageBuilderModule implements MZmineProcessingModule {
     RawDataFile[] files = parameters.getParameter(ADAPChromatogramBuilderParameters.dataFiles)
         .getValue().getMatchingRawDataFiles();
 
-    MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (RawDataFile file : files) {
       if (!(file instanceof ImagingRawDataFile)) {
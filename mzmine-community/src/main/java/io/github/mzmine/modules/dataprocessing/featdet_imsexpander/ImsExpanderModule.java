@@ -35,6 +35,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -67,7 +68,7 @@ public class ImsExpanderModule implements MZmineProcessingModule {
     final ModularFeatureList[] featureLists = parameters.getParameter(
         ImsExpanderParameters.featureLists).getValue().getMatchingFeatureLists();
 
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (ModularFeatureList featureList : featureLists) {
       tasks.add(new ImsExpanderTask(storage, parameters, featureList, project, moduleCallDate));
     }
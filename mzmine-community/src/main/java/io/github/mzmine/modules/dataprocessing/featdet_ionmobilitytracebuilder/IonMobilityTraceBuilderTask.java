@@ -51,7 +51,7 @@ import io.github.mzmine.util.DataTypeUtils;
 import io.github.mzmine.util.FeatureConvertorIonMobility;
 import io.github.mzmine.util.FeatureConvertors;
 import io.github.mzmine.util.FeatureListUtils;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Comparator;
@@ -102,7 +102,8 @@ public class IonMobilityTraceBuilderTask extends AbstractTask {
   @SuppressWarnings("unchecked")
   public IonMobilityTraceBuilderTask(MZmineProject project, RawDataFile rawDataFile,
       List<Frame> frames, ParameterSet parameters, @NotNull Instant moduleCallDate) {
-    super(MemoryMapStorage.forFeatureList(), moduleCallDate); // Ims files are usually big, so we create our own
+    // Ims files are usually big, so we create our own
+    super(TieredStorageManager.forFeatureList(), moduleCallDate);
     this.project = project;
     this.rawDataFile = rawDataFile;
     this.mzTolerance = parameters.getParameter(IonMobilityTraceBuilderParameters.mzTolerance)
@@ -34,6 +34,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -62,7 +63,7 @@ public class MaldiSpotFeatureDetectionModule implements MZmineProcessingModule {
       @NotNull Instant moduleCallDate) {
     final RawDataFile[] files = parameters.getParameter(MaldiSpotFeatureDetectionParameters.files)
         .getValue().getMatchingRawDataFiles();
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
     for (RawDataFile file : files) {
       if (file instanceof ImagingRawDataFile imsImagingRawDataFile) {
         tasks.add(new MaldiSpotFeatureDetectionTask(storage, moduleCallDate, parameters, project,
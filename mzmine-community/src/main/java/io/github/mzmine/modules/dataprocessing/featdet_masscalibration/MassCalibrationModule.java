@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -60,7 +61,7 @@ public class MassCalibrationModule implements MZmineProcessingModule {
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
 
     // create a single storage map for all mass lists that were created with the same parameters
-    final MemoryMapStorage storageMemoryMap = MemoryMapStorage.forMassList();
+    final MemoryMapStorage storageMemoryMap = TieredStorageManager.forMassList();
 
     RawDataFile[] dataFiles = parameters.getParameter(MassCalibrationParameters.dataFiles)
         .getValue().getMatchingRawDataFiles();
@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -63,7 +64,7 @@ public class MassDetectionModule implements MZmineProcessingModule {
 
     // create a single storage map for all mass lists that were created with the same parameters
     // i.e., in the same mass detection run
-    final MemoryMapStorage storageMemoryMap = MemoryMapStorage.forMassList();
+    final MemoryMapStorage storageMemoryMap = TieredStorageManager.forMassList();
 
     for (RawDataFile dataFile : dataFiles) {
       Task newTask = new MassDetectionTask(dataFile, parameters, storageMemoryMap, moduleCallDate);
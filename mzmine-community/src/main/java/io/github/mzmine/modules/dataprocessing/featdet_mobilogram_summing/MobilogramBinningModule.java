@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -70,7 +71,7 @@ public class MobilogramBinningModule implements MZmineProcessingModule {
         .getParameter(MobilogramBinningParameters.featureLists).getValue()
         .getMatchingFeatureLists();
 
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (ModularFeatureList flist : flists) {
       tasks.add(new MobilogramBinningTask(storage, flist, parameters, project, moduleCallDate));
     }
@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -60,7 +61,7 @@ public class MsnFeatureDetectionModule implements MZmineProcessingModule {
 
     RawDataFile[] dataFiles = parameters.getParameter(MsnPeakPickerParameters.dataFiles).getValue()
         .getMatchingRawDataFiles();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (RawDataFile dataFile : dataFiles) {
       Task newTask = new MsnPeakPickingTask(project, dataFile, parameters, storage, moduleCallDate);
       tasks.add(newTask);
@@ -26,6 +26,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -57,7 +58,7 @@ public class MsnTreeFeatureDetectionModule implements MZmineProcessingModule {
 
     RawDataFile[] dataFiles = parameters.getParameter(MsnTreeFeatureDetectionParameters.dataFiles)
         .getValue().getMatchingRawDataFiles();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (RawDataFile dataFile : dataFiles) {
       Task newTask = new MsnTreeFeatureDetectionTask(project, dataFile, parameters, storage,
           moduleCallDate);
@@ -53,6 +53,7 @@ import io.github.mzmine.util.FeatureConvertors;
 import io.github.mzmine.util.FeatureListUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.exceptions.MissingMassListException;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import io.github.mzmine.util.scans.SpectraMerging;
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -88,7 +89,7 @@ public class RecursiveIMSBuilderTask extends AbstractTask {
   private final ScanSelection scanSelection;
   private final MZmineProject project;
   private final MZTolerance tolerance;
-  private final MemoryMapStorage tempStorage = MemoryMapStorage.forFeatureList();
+  private final MemoryMapStorage tempStorage = TieredStorageManager.forFeatureList();
   private final boolean enableRecursive = true;
   private final int numConsecutiveFrames;
   private final int numDataPoints;
@@ -250,7 +251,7 @@ public class RecursiveIMSBuilderTask extends AbstractTask {
     if (theUnsafe != null && tempStorage != null) {
       logger.finest(() -> "Clearing temporary files...");
       try {
-        tempStorage.discard(theUnsafe);
+        TieredStorageManager.discard(tempStorage, theUnsafe);
       } catch (IOException e) {
         e.printStackTrace();
         logger.log(Level.WARNING, e, e::getMessage);
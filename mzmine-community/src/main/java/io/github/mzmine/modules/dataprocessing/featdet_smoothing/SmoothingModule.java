@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -68,7 +69,7 @@ public class SmoothingModule implements MZmineProcessingModule {
     final ModularFeatureList[] flists = parameters.getParameter(SmoothingParameters.featureLists)
         .getValue().getMatchingFeatureLists();
 
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (ModularFeatureList flist : flists) {
       tasks.add(new SmoothingTask(project, flist, storage, parameters, moduleCallDate));
     }
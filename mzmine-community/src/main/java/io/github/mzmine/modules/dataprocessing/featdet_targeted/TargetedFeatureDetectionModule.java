@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -58,7 +59,7 @@ public class TargetedFeatureDetectionModule implements MZmineProcessingModule {
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
     RawDataFile[] dataFiles = parameters.getParameter(
         TargetedFeatureDetectionParameters.rawDataFile).getValue().getMatchingRawDataFiles();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (RawDataFile dataFile : dataFiles) {
       Task newTask = new TargetedFeatureDetectionModuleTask(project, parameters, dataFile, storage,
           moduleCallDate);
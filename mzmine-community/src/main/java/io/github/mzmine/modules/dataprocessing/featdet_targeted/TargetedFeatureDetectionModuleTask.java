@@ -45,6 +45,7 @@ import io.github.mzmine.datamodel.features.compoundannotations.CompoundDBAnnotat
 import io.github.mzmine.datamodel.features.types.numbers.MzPpmDifferenceType;
 import io.github.mzmine.datamodel.features.types.numbers.RtRelativeErrorType;
 import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.Gap;
+import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.GapSweep;
 import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.multithreaded.ImsGap;
 import io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.ionidnetworking.IonNetworkLibrary;
 import io.github.mzmine.parameters.ParameterSet;
@@ -304,7 +305,7 @@ class TargetedFeatureDetectionModuleTask extends AbstractTask {
     final MobilityScanDataAccess access = new MobilityScanDataAccess(imsFile,
         MobilityScanDataType.MASS_LIST,
         (List<Frame>) processedFeatureList.getSeletedScans(imsFile));
-    List<ImsGap> imsGaps = (List<ImsGap>) gaps;
+    final GapSweep<ImsGap> sweep = new GapSweep<>((List<ImsGap>) gaps);
 
     while (access.hasNextFrame()) {
       if (isCanceled()) {
@@ -312,10 +313,7 @@ class TargetedFeatureDetectionModuleTask extends AbstractTask {
       }
 
       final Frame frame = access.nextFrame();
-      for (ImsGap gap : imsGaps) {
-        access.resetMobilityScan();
-        gap.offerNextScan(access);
-      }
+      ImsGap.offerNextFrame(access, sweep.advanceTo(frame.getRetentionTime()));
       processedScans++;
     }
 
@@ -332,15 +330,17 @@ class TargetedFeatureDetectionModuleTask extends AbstractTask {
     final ScanDataAccess access = EfficientDataAccess.of(dataFile, ScanDataType.MASS_LIST,
         matchingScans);
 
+    final GapSweep<Gap> sweep = new GapSweep<>(gaps);
+
     while (access.hasNextScan()) {
-      access.nextScan();
+      final Scan scan = access.nextScan();
       // Canceled?
       if (isCanceled()) {
         return false;
       }
 
-      // Feed this scan to all gaps
-      for (Gap gap : gaps) {
+      // Feed this scan to all gaps within RT range
+      for (Gap gap : sweep.advanceTo(scan.getRetentionTime())) {
         gap.offerNextScan(access);
       }
 
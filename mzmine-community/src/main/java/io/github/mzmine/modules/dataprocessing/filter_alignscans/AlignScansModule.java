@@ -34,6 +34,7 @@ import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParamete
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -67,7 +68,7 @@ public class AlignScansModule implements MZmineProcessingModule {
         parameters.getParameter(new RawDataFilesParameter()).getValue().getMatchingRawDataFiles();
 
     // one storage for all files in the same module call
-    MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     for (int i = 0; i < dataFiles.length; i++) {
       Task newTask = new AlignScansTask(project, dataFiles[i], parameters.cloneParameterSet(),
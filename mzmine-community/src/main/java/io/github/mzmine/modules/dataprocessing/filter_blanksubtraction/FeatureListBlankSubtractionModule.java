@@ -31,7 +31,7 @@ import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -63,7 +63,7 @@ public class FeatureListBlankSubtractionModule implements MZmineProcessingModule
       @NotNull Instant moduleCallDate) {
 
     Task task = new FeatureListBlankSubtractionTask(project,
-        (FeatureListBlankSubtractionParameters) parameters, MemoryMapStorage.forFeatureList(),
+        (FeatureListBlankSubtractionParameters) parameters, TieredStorageManager.forFeatureList(),
         moduleCallDate);
 
     tasks.add(task);
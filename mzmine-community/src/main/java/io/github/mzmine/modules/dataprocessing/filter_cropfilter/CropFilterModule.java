@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -58,7 +59,7 @@ public class CropFilterModule implements MZmineProcessingModule {
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
     // one storage for all files in the same module call
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     for (RawDataFile dataFile : parameters.getParameter(CropFilterParameters.dataFiles).getValue()
         .getMatchingRawDataFiles()) {
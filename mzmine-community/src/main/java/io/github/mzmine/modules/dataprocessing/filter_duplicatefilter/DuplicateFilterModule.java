@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -72,7 +73,7 @@ public class DuplicateFilterModule implements MZmineProcessingModule {
     FeatureList[] peakLists = parameters.getParameter(DuplicateFilterParameters.peakLists).getValue()
         .getMatchingFeatureLists();
 
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (FeatureList peakList : peakLists) {
       Task newTask = new DuplicateFilterTask(project, peakList, parameters, storage, moduleCallDate);
       tasks.add(newTask);
@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -66,7 +67,7 @@ public class IsotopeGrouperModule implements MZmineProcessingModule {
 
     ModularFeatureList[] featureLists = parameters.getParameter(IsotopeGrouperParameters.peakLists)
         .getValue().getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (final ModularFeatureList featureList : featureLists) {
       Task newTask = new IsotopeGrouperTask(project, featureList, parameters, storage,
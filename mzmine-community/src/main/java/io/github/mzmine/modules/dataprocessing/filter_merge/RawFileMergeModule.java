@@ -26,6 +26,7 @@
 package io.github.mzmine.modules.dataprocessing.filter_merge;
 
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -66,7 +67,7 @@ public class RawFileMergeModule implements MZmineProcessingModule {
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
     // one storage for all files in the same module call
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     // merge all selected
     if (parameters.getParameter(RawFileMergeParameters.mode).getValue()
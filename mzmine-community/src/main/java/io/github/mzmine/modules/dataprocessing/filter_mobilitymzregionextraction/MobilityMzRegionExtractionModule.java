@@ -39,6 +39,7 @@ import io.github.mzmine.project.ProjectService;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.awt.geom.Point2D;
 import java.time.Instant;
 import java.util.Collection;
@@ -76,7 +77,7 @@ public class MobilityMzRegionExtractionModule implements MZmineProcessingModule
     parameterSet.getParameter(MobilityMzRegionExtractionParameters.ccsOrMobility)
         .setValue(ccsOrMobility);
 
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     Task task = new MobilityMzRegionExtractionTask(parameterSet, featureList,
         ProjectService.getProjectManager().getCurrentProject(), storage, Instant.now());
     MZmineCore.getTaskController().addTask(task);
@@ -108,7 +109,7 @@ public class MobilityMzRegionExtractionModule implements MZmineProcessingModule
         .getParameter(MobilityMzRegionExtractionParameters.featureLists).getValue()
         .getMatchingFeatureLists();
 
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (ModularFeatureList featureList : featureLists) {
       Task task = new MobilityMzRegionExtractionTask(parameters, featureList, project, storage, moduleCallDate);
       tasks.add(task);
@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.filter_peakcomparisonrowfilter;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -68,7 +69,7 @@ public class PeakComparisonRowFilterModule implements MZmineProcessingModule {
     final FeatureList[] peakLists =
         parameters.getParameter(PeakComparisonRowFilterParameters.PEAK_LISTS).getValue()
             .getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (FeatureList peakList : peakLists) {
       Task newTask = new PeakComparisonRowFilterTask(project, peakList, parameters, storage, moduleCallDate);
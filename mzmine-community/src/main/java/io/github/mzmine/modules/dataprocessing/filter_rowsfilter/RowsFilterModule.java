@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.filter_rowsfilter;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -66,7 +67,7 @@ public class RowsFilterModule implements MZmineProcessingModule {
 
     final FeatureList[] featureLists =
         parameters.getParameter(RowsFilterParameters.FEATURE_LISTS).getValue().getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (FeatureList featureList : featureLists) {
 
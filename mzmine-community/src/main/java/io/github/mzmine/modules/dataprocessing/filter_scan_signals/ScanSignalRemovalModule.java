@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -61,7 +62,7 @@ public class ScanSignalRemovalModule implements MZmineProcessingModule {
 
     RawDataFile[] dataFiles = parameters.getValue(ScanSignalRemovalParameters.dataFiles)
         .getMatchingRawDataFiles();
-    final MemoryMapStorage storage = MemoryMapStorage.forMassList();
+    final MemoryMapStorage storage = TieredStorageManager.forMassList();
     for (RawDataFile dataFile : dataFiles) {
       Task newTask = new ScanSignalRemovalTask(dataFile, parameters, storage, moduleCallDate);
       tasks.add(newTask);
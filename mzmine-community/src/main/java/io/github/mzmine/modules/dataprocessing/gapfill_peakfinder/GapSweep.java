@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Schedules gaps by their RT range while scans are iterated in ascending retention time. Gaps are
+ * activated once the scan RT enters their RT range and retired once it passed the range, so each
+ * scan is only offered to gaps that may use it instead of all gaps of a raw data file. The active
+ * gaps are kept sorted by the lower m/z bound of their m/z range to allow merging with the sorted
+ * m/z values of a spectrum.
+ * <p>
+ * If scans are not provided in ascending RT, the sweep restarts and stays correct, but slower.
+ *
+ * @param <T> the gap type
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class GapSweep<T extends Gap> {
+
+  private static final Comparator<Gap> MZ_LOWER_SORTER = Comparator.comparingDouble(
+      gap -> gap.getMzRange().lowerEndpoint());
+
+  // sorted by lower RT bound
+  private final List<T> gaps;
+  // sorted by lower m/z bound
+  private final List<T> active = new ArrayList<>();
+  private int nextToActivate = 0;
+  private float lastRt = Float.NEGATIVE_INFINITY;
+
+  public GapSweep(@NotNull List<T> gaps) {
+    this.gaps = new ArrayList<>(gaps);
+    this.gaps.sort(Comparator.comparingDouble(gap -> gap.getRtRange().lowerEndpoint()));
+  }
+
+  /**
+   * Retires all gaps that ended before this retention time and activates all gaps that started.
+   *
+   * @param rt the retention time of the next scan
+   * @return the active gaps sorted by the lower m/z bound. Do not modify, the list is reused.
+   */
+  @NotNull
+  public List<T> advanceTo(float rt) {
+    if (rt < lastRt) {
+      // scans are not sorted by RT - start over
+      active.clear();
+      nextToActivate = 0;
+    }
+    lastRt = rt;
+
+    active.removeIf(gap -> gap.getRtRange().upperEndpoint() < rt);
+
+    while (nextToActivate < gaps.size()
+           && gaps.get(nextToActivate).getRtRange().lowerEndpoint() <= rt) {
+      final T gap = gaps.get(nextToActivate++);
+      if (gap.getRtRange().upperEndpoint() >= rt) {
+        insertSortedByMz(gap);
+      }
+    }
+    return active;
+  }
+
+  private void insertSortedByMz(T gap) {
+    int low = 0;
+    int high = active.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (MZ_LOWER_SORTER.compare(active.get(mid), gap) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    active.add(low, gap);
+  }
+}
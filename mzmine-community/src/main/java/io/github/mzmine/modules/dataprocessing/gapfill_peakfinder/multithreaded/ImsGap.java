@@ -51,6 +51,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A gap in an IMS Raw data file.
@@ -64,6 +65,11 @@ public class ImsGap extends Gap {
   private final Range<Float> mobilityRange;
   private final BinningMobilogramDataAccess mobilogramBinning;
 
+  // data points of the current frame collected by offerNextFrame, reused for all frames
+  private List<MobilityScan> frameMobilogramScans;
+  private TDoubleArrayList frameMzValues;
+  private TDoubleArrayList frameIntensityValues;
+
   /**
    * Constructor: Initializes an empty gap
    *
@@ -103,8 +109,62 @@ public class ImsGap extends Gap {
       return;
     }
 
-    DataPointIonMobilitySeries mobilogram = findDataPoint(access);
+    offerMobilogram(findDataPoint(access));
+  }
+
+  /**
+   * Offers the frame to all gaps at once. Each mobility scan is only iterated once and merged with
+   * the gaps, which are sorted by their lower m/z bound. Gaps outside the RT range of the frame are
+   * skipped. Results are the same as calling {@link #offerNextScan(Scan)} on each gap. Only gaps
+   * with data points in this frame allocate their new mobilogram.
+   *
+   * @param access     access set to the current frame
+   * @param sortedGaps gaps sorted by the lower endpoint of the m/z range
+   */
+  public static void offerNextFrame(@NotNull final MobilityScanDataAccess access,
+      @NotNull final List<ImsGap> sortedGaps) {
+    if (sortedGaps.isEmpty()) {
+      return;
+    }
+    final float frameRT = access.getRetentionTime();
+
+    access.resetMobilityScan();
+    while (access.hasNextMobilityScan()) {
+      final MobilityScan scan;
+      try {
+        scan = access.nextMobilityScan();
+      } catch (MissingMassListException e) {
+        logger.log(Level.SEVERE, e.getMessage(), e);
+        sortedGaps.forEach(ImsGap::clearFrameData);
+        return;
+      }
+
+      final double mobility = scan.getMobility();
+      final int numDps = access.getNumberOfDataPoints();
+      int dpIndex = 0;
+      for (final ImsGap gap : sortedGaps) {
+        final double lowerMz = gap.mzRange.lowerEndpoint();
+        while (dpIndex < numDps && access.getMzValue(dpIndex) < lowerMz) {
+          dpIndex++;
+        }
+        if (dpIndex >= numDps) {
+          // all remaining gaps start above the highest m/z
+          break;
+        }
+        if (mobility < gap.mobilityRange.lowerEndpoint()
+            || mobility > gap.mobilityRange.upperEndpoint() || !gap.rtRange.contains(frameRT)) {
+          continue;
+        }
+        gap.addClosestDataPoint(access, scan, dpIndex);
+      }
+    }
+
+    for (final ImsGap gap : sortedGaps) {
+      gap.offerMobilogram(gap.finishFrameData());
+    }
+  }
 
+  private void offerMobilogram(@Nullable DataPointIonMobilitySeries mobilogram) {
     if (mobilogram == null) {
       return;
     }
@@ -197,6 +257,66 @@ public class ImsGap extends Gap {
     return null;
   }
 
+  /**
+   * Adds the data point closest to the center of the m/z range
+   *
+   * @param startIndex first data point index with m/z >= lower m/z bound
+   */
+  private void addClosestDataPoint(@NotNull final MobilityScanDataAccess access,
+      @NotNull final MobilityScan scan, final int startIndex) {
+    final double featureMz = RangeUtils.rangeCenter(mzRange);
+    int bestIndex = -1;
+    double bestDelta = Double.POSITIVE_INFINITY;
+    for (int i = startIndex; i < access.getNumberOfDataPoints(); i++) {
+      final double mz = access.getMzValue(i);
+      if (mz > mzRange.upperEndpoint()) {
+        break;
+      }
+
+      final double delta = Math.abs(mz - featureMz);
+      if (delta < bestDelta) {
+        bestDelta = delta;
+        bestIndex = i;
+      }
+    }
+
+    if (bestIndex == -1) {
+      return;
+    }
+    if (frameMobilogramScans == null) {
+      frameMobilogramScans = new ArrayList<>();
+      frameMzValues = new TDoubleArrayList();
+      frameIntensityValues = new TDoubleArrayList();
+    }
+    frameMzValues.add(access.getMzValue(bestIndex));
+    frameIntensityValues.add(access.getIntensityValue(bestIndex));
+    frameMobilogramScans.add(scan);
+  }
+
+  /**
+   * @return the mobilogram of the current frame or null if no data point was added. The frame data
+   * is cleared for the next frame.
+   */
+  @Nullable
+  private DataPointIonMobilitySeries finishFrameData() {
+    if (frameMobilogramScans == null || frameMobilogramScans.isEmpty()) {
+      return null;
+    }
+    // the mobilogram keeps the scan list, the buffers are reused
+    final var mobilogram = new DataPointIonMobilitySeries(null, frameMzValues.toArray(),
+        frameIntensityValues.toArray(), new ArrayList<>(frameMobilogramScans));
+    clearFrameData();
+    return mobilogram;
+  }
+
+  private void clearFrameData() {
+    if (frameMobilogramScans != null) {
+      frameMobilogramScans.clear();
+      frameMzValues.resetQuick();
+      frameIntensityValues.resetQuick();
+    }
+  }
+
   @Override
   protected boolean addFeatureToRow() {
     final IonMobilogramTimeSeries trace = IonMobilogramTimeSeriesFactory.of(
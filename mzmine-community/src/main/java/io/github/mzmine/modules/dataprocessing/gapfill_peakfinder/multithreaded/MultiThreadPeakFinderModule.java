@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.multithreaded
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -61,7 +62,7 @@ public class MultiThreadPeakFinderModule implements MZmineProcessingModule {
 
     FeatureList[] peakLists = parameters.getParameter(MultiThreadPeakFinderParameters.peakLists)
         .getValue().getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (FeatureList peakList : peakLists) {
       // start tasks
@@ -30,6 +30,7 @@ import io.github.mzmine.datamodel.FeatureStatus;
 import io.github.mzmine.datamodel.Frame;
 import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.data_access.BinningMobilogramDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.MobilityScanDataType;
@@ -41,6 +42,7 @@ import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.types.numbers.MobilityType;
 import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.Gap;
+import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.GapSweep;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
@@ -207,11 +209,16 @@ class MultiThreadPeakFinderTask extends AbstractTask {
            + " of pkl:" + peakList;
   }
 
+  /**
+   * Offers the scans in RT order to the gaps. A {@link GapSweep} only activates the gaps within
+   * their RT range.
+   */
   private void processFile(RawDataFile file, List<Gap> gaps) {
     if (file instanceof IMSRawDataFile imsFile && peakList.hasFeatureType(MobilityType.class)) {
       final MobilityScanDataAccess access = new MobilityScanDataAccess(imsFile,
           MobilityScanDataType.MASS_LIST, (List<Frame>) peakList.getSeletedScans(file));
-      List<ImsGap> imsGaps = (List<ImsGap>) (List<? extends Gap>) gaps;
+      final GapSweep<ImsGap> sweep = new GapSweep<>(
+          (List<ImsGap>) (List<? extends Gap>) gaps);
 
       while (access.hasNextFrame()) {
         if (isCanceled()) {
@@ -219,10 +226,7 @@ class MultiThreadPeakFinderTask extends AbstractTask {
         }
 
         final Frame frame = access.nextFrame();
-        for (ImsGap gap : imsGaps) {
-          access.resetMobilityScan();
-          gap.offerNextScan(access);
-        }
+        ImsGap.offerNextFrame(access, sweep.advanceTo(frame.getRetentionTime()));
         processedScans.incrementAndGet();
       }
 
@@ -231,13 +235,14 @@ class MultiThreadPeakFinderTask extends AbstractTask {
 
       final ScanDataAccess scanAccess = EfficientDataAccess.of(file, ScanDataType.MASS_LIST,
           peakList.getSeletedScans(file));
+      final GapSweep<Gap> sweep = new GapSweep<>(gaps);
       while (scanAccess.hasNextScan()) {
         if (isCanceled()) {
           return;
         }
-        scanAccess.nextScan();
-        // Feed this scan to all gaps
-        for (Gap gap : gaps) {
+        final Scan scan = scanAccess.nextScan();
+        // Feed this scan to all gaps within RT range
+        for (Gap gap : sweep.advanceTo(scan.getRetentionTime())) {
           gap.offerNextScan(scanAccess);
         }
 
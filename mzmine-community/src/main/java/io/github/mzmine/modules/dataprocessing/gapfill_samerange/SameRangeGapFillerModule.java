@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.gapfill_samerange;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -62,7 +63,7 @@ public class SameRangeGapFillerModule implements MZmineProcessingModule {
 
     FeatureList[] peakLists = parameters.getParameter(SameRangeGapFillerParameters.peakLists)
         .getValue().getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (FeatureList peakList : peakLists) {
       Task newTask = new SameRangeTask(project, peakList, parameters, storage, moduleCallDate);
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.dataprocessing.group_imagecorrelate;
+
+import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Batch co-localization of all images. Each image is filtered once into a sparse vector of the
+ * retained pixels. The similarity of two images is calculated on the pixels retained in both
+ * images, like the pairwise calculation. All sums that are needed for the Pearson correlation and
+ * the cosine similarity are accumulated as a sparse matrix product of the images with the pixel
+ * major (transposed) images, so only pixels that are retained in both images are visited. Values
+ * and sums are kept in double precision as the one-pass sums cancel out for the Pearson
+ * correlation. Blocks of rows are processed in parallel, each thread reuses its own sums.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+final class ImageColocalizationEngine {
+
+  private static final int ROWS_PER_BLOCK = 32;
+
+  private final int numRows;
+  private final SimilarityMeasure measure;
+  private final int minPixels;
+  private final double minSimilarity;
+  // one entry per raw data file
+  private final List<SparseImage[]> images = new ArrayList<>();
+  private final List<PixelMajorImages> pixelMajorImages = new ArrayList<>();
+  private final List<int[]> rowsWithImage = new ArrayList<>();
+
+  /**
+   * @param numRows       number of rows
+   * @param measure       {@link SimilarityMeasure#PEARSON} or {@link SimilarityMeasure#COSINE_SIM}
+   * @param minPixels     minimum number of pixels retained in both images, otherwise the
+   *                      similarity is 0
+   * @param minSimilarity minimum average similarity over all raw data files
+   */
+  ImageColocalizationEngine(int numRows, @NotNull SimilarityMeasure measure, int minPixels,
+      double minSimilarity) {
+    if (!supports(measure)) {
+      throw new IllegalArgumentException("Unsupported similarity measure " + measure);
+    }
+    this.numRows = numRows;
+    this.measure = measure;
+    this.minPixels = Math.max(minPixels, measure == SimilarityMeasure.PEARSON ? 2 : 1);
+    this.minSimilarity = minSimilarity;
+  }
+
+  static boolean supports(@NotNull SimilarityMeasure measure) {
+    return measure == SimilarityMeasure.PEARSON || measure == SimilarityMeasure.COSINE_SIM;
+  }
+
+  /**
+   * Filters an image once. Pixels below the noise level are removed, then the median filter,
+   * the percentile threshold, and the hotspot removal are applied to the remaining pixels.
+   * Values are normalized to the maximum as Pearson and cosine do not depend on the scale.
+   *
+   * @param intensities       intensities of all pixels (scans)
+   * @param numPixels         number of pixels in intensities
+   * @param medianFilter      median filter window or 0 to skip
+   * @param quantileThreshold remove values below this quantile or 0 to skip
+   * @param hotspotThreshold  remove values above this quantile or 0 to skip
+   * @param minPixels         filters are only applied to images with at least this number of
+   *                          pixels
+   * @return the sparse image
+   */
+  @NotNull
+  static SparseImage preprocess(double[] intensities, int numPixels, double noiseLevel,
+      int medianFilter, double quantileThreshold, double hotspotThreshold, int minPixels) {
+    int[] pixels = new int[numPixels];
+    double[] values = new double[numPixels];
+    int n = 0;
+    for (int i = 0; i < numPixels; i++) {
+      if (intensities[i] >= noiseLevel) {
+        pixels[n] = i;
+        values[n] = intensities[i];
+        n++;
+      }
+    }
+
+    if (medianFilter > 0 && numPixels >= minPixels && n > 0) {
+      values = medianFilter(values, n, medianFilter);
+    }
+    if (quantileThreshold > 0 && n >= minPixels && n > 0) {
+      final double threshold = quantile(values, n, quantileThreshold);
+      n = retain(pixels, values, n, threshold, Double.POSITIVE_INFINITY);
+    }
+    if (hotspotThreshold > 0 && n >= minPixels && n > 0) {
+      final double threshold = quantile(values, n, hotspotThreshold);
+      n = retain(pixels, values, n, Double.NEGATIVE_INFINITY, threshold);
+    }
+
+    double max = 0;
+    for (int i = 0; i < n; i++) {
+      max = Math.max(max, Math.abs(values[i]));
+    }
+    final double[] normalized = new double[n];
+    for (int i = 0; i < n; i++) {
+      normalized[i] = max > 0 ? values[i] / max : values[i];
+    }
+    return new SparseImage(Arrays.copyOf(pixels, n), normalized);
+  }
+
+  private static double[] medianFilter(double[] values, int n, int windowSize) {
+    final double[] result = new double[n];
+    final double[] window = new double[windowSize + 1];
+    final int halfWindowSize = windowSize / 2;
+    for (int i = 0; i < n; i++) {
+      final int start = Math.max(0, i - halfWindowSize);
+      final int end = Math.min(n - 1, i + halfWindowSize);
+      final int length = end - start + 1;
+      System.arraycopy(values, start, window, 0, length);
+      Arrays.sort(window, 0, length);
+      final int middle = length / 2;
+      result[i] = length % 2 == 0 ? (window[middle - 1] + window[middle]) / 2.0 : window[middle];
+    }
+    return result;
+  }
+
+  private static double quantile(double[] values, int n, double quantile) {
+    final double[] sorted = Arrays.copyOf(values, n);
+    Arrays.sort(sorted);
+    final int index = (int) Math.ceil(quantile * n) - 1;
+    return sorted[Math.max(0, Math.min(n - 1, index))];
+  }
+
+  /**
+   * Keeps values within lower and upper bound in place
+   *
+   * @return the new number of values
+   */
+  private static int retain(int[] pixels, double[] values, int n, double lower, double upper) {
+    int retained = 0;
+    for (int i = 0; i < n; i++) {
+      if (values[i] >= lower && values[i] <= upper) {
+        pixels[retained] = pixels[i];
+        values[retained] = values[i];
+        retained++;
+      }
+    }
+    return retained;
+  }
+
+  /**
+   * Adds the images of one raw data file
+   *
+   * @param imagesByRow one image per row or null if the row has no feature in this file
+   * @param numPixels   number of pixels in this file
+   */
+  void addFile(@Nullable SparseImage[] imagesByRow, int numPixels) {
+    if (imagesByRow.length != numRows) {
+      throw new IllegalArgumentException("Number of images does not match the number of rows");
+    }
+    images.add(imagesByRow);
+    rowsWithImage.add(IntStream.range(0, numRows).filter(i -> imagesByRow[i] != null).toArray());
+    pixelMajorImages.add(PixelMajorImages.of(imagesByRow, numPixels));
+  }
+
+  /**
+   * Calculates the similarity of all pairs of rows (i < j) that share at least one raw data file
+   * and reports all pairs with an average similarity >= minimum similarity
+   *
+   * @param consumer  receives the similarity in each shared raw data file
+   * @param processed counts the checked pairs
+   * @return number of checked pairs
+   */
+  long compute(@NotNull PairConsumer consumer, @NotNull BooleanSupplier isCanceled,
+      @NotNull AtomicLong processed) {
+    final int numBlocks = (numRows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+    // numFiles x numRows sums, reset after each row so they are reused for all blocks of a thread
+    final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(
+        () -> new Accumulator(numRows, images.size()));
+    return IntStream.range(0, numBlocks).parallel().mapToLong(block -> {
+      final Accumulator acc = accumulators.get();
+      long pairs = 0;
+      final int end = Math.min(numRows, (block + 1) * ROWS_PER_BLOCK);
+      for (int i = block * ROWS_PER_BLOCK; i < end; i++) {
+        if (isCanceled.getAsBoolean()) {
+          return pairs;
+        }
+        pairs += computeRow(i, acc, consumer);
+        processed.addAndGet(numRows - 1 - i);
+      }
+      return pairs;
+    }).sum();
+  }
+
+  private long computeRow(int i, Accumulator acc, PairConsumer consumer) {
+    final int numFiles = images.size();
+    for (int f = 0; f < numFiles; f++) {
+      final SparseImage image = images.get(f)[i];
+      if (image == null) {
+        continue;
+      }
+      // every row with a feature in this file counts for the average, even without overlap
+      final int[] rows = rowsWithImage.get(f);
+      for (int r = upperBound(rows, 0, rows.length, i); r < rows.length; r++) {
+        if (acc.fileCount[rows[r]]++ == 0) {
+          acc.candidates.add(rows[r]);
+        }
+      }
+
+      final PixelMajorImages pixelMajor = pixelMajorImages.get(f);
+      for (int k = 0; k < image.pixels.length; k++) {
+        final int pixel = image.pixels[k];
+        final double a = image.values[k];
+        final int end = pixelMajor.starts[pixel + 1];
+        for (int q = upperBound(pixelMajor.rows, pixelMajor.starts[pixel], end, i); q < end; q++) {
+          final int j = pixelMajor.rows[q];
+          final double b = pixelMajor.values[q];
+          if (acc.n[j]++ == 0) {
+            acc.touched.add(j);
+          }
+          acc.sumA[j] += a;
+          acc.sumB[j] += b;
+          acc.sumAA[j] += a * a;
+          acc.sumBB[j] += b * b;
+          acc.sumAB[j] += a * b;
+        }
+      }
+
+      for (int t = 0; t < acc.touched.size(); t++) {
+        final int j = acc.touched.getInt(t);
+        final double similarity = acc.n[j] >= minPixels ? similarity(acc, j) : 0d;
+        acc.fileSimilarities[f][j] = similarity;
+        acc.similaritySum[j] += similarity;
+        acc.reset(j);
+      }
+      acc.touched.clear();
+    }
+
+    final long pairs = acc.candidates.size();
+    for (int c = 0; c < acc.candidates.size(); c++) {
+      final int j = acc.candidates.getInt(c);
+      if (acc.similaritySum[j] / acc.fileCount[j] >= minSimilarity) {
+        final double[] similarities = new double[acc.fileCount[j]];
+        int s = 0;
+        for (int f = 0; f < numFiles; f++) {
+          if (images.get(f)[i] != null && images.get(f)[j] != null) {
+            similarities[s++] = acc.fileSimilarities[f][j];
+          }
+        }
+        consumer.accept(i, j, similarities);
+      }
+      for (int f = 0; f < numFiles; f++) {
+        acc.fileSimilarities[f][j] = 0d;
+      }
+      acc.fileCount[j] = 0;
+      acc.similaritySum[j] = 0d;
+    }
+    acc.candidates.clear();
+    return pairs;
+  }
+
+  private double similarity(Accumulator acc, int j) {
+    final double n = acc.n[j];
+    return switch (measure) {
+      case PEARSON -> {
+        final double covariance = n * acc.sumAB[j] - acc.sumA[j] * acc.sumB[j];
+        final double varianceA = n * acc.sumAA[j] - acc.sumA[j] * acc.sumA[j];
+        final double varianceB = n * acc.sumBB[j] - acc.sumB[j] * acc.sumB[j];
+        yield covariance / Math.sqrt(varianceA * varianceB);
+      }
+      case COSINE_SIM -> acc.sumAB[j] / Math.sqrt(acc.sumAA[j] * acc.sumBB[j]);
+      default -> throw new IllegalStateException("Unsupported similarity measure " + measure);
+    };
+  }
+
+  /**
+   * @return first index in [from, to) with array value > key
+   */
+  private static int upperBound(int[] array, int from, int to, int key) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (array[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @FunctionalInterface
+  interface PairConsumer {
+
+    /**
+     * @param similarities similarity in each raw data file with features of both rows
+     */
+    void accept(int rowA, int rowB, double[] similarities);
+  }
+
+  /**
+   * Retained pixels of an image
+   *
+   * @param pixels pixel (scan) indices ascending
+   * @param values normalized values
+   */
+  record SparseImage(int[] pixels, double[] values) {
+
+  }
+
+  /**
+   * All images of one file in pixel major order: rows and values of pixel p are in
+   * [starts[p], starts[p+1]) with ascending rows.
+   */
+  private record PixelMajorImages(int[] starts, int[] rows, double[] values) {
+
+    static PixelMajorImages of(SparseImage[] imagesByRow, int numPixels) {
+      final int[] starts = new int[numPixels + 1];
+      for (SparseImage image : imagesByRow) {
+        if (image != null) {
+          for (int pixel : image.pixels) {
+            starts[pixel + 1]++;
+          }
+        }
+      }
+      for (int p = 0; p < numPixels; p++) {
+        starts[p + 1] += starts[p];
+      }
+      final int[] next = Arrays.copyOf(starts, numPixels);
+      final int[] rows = new int[starts[numPixels]];
+      final double[] values = new double[starts[numPixels]];
+      for (int r = 0; r < imagesByRow.length; r++) {
+        final SparseImage image = imagesByRow[r];
+        if (image == null) {
+          continue;
+        }
+        for (int k = 0; k < image.pixels.length; k++) {
+          final int index = next[image.pixels[k]]++;
+          rows[index] = r;
+          values[index] = image.values[k];
+        }
+      }
+      return new PixelMajorImages(starts, rows, values);
+    }
+  }
+
+  /**
+   * Reusable sums of one thread, indexed by the second row
+   */
+  private static class Accumulator {
+
+    private final int[] n;
+    private final double[] sumA;
+    private final double[] sumB;
+    private final double[] sumAA;
+    private final double[] sumBB;
+    private final double[] sumAB;
+    private final int[] fileCount;
+    private final double[] similaritySum;
+    private final double[][] fileSimilarities;
+    private final IntArrayList touched = new IntArrayList();
+    private final IntArrayList candidates = new IntArrayList();
+
+    private Accumulator(int numRows, int numFiles) {
+      n = new int[numRows];
+      sumA = new double[numRows];
+      sumB = new double[numRows];
+      sumAA = new double[numRows];
+      sumBB = new double[numRows];
+      sumAB = new double[numRows];
+      fileCount = new int[numRows];
+      similaritySum = new double[numRows];
+      fileSimilarities = new double[numFiles][numRows];
+    }
+
+    private void reset(int j) {
+      n[j] = 0;
+      sumA[j] = 0;
+      sumB[j] = 0;
+      sumAA[j] = 0;
+      sumBB[j] = 0;
+      sumAB[j] = 0;
+    }
+  }
+}
@@ -29,6 +29,7 @@ import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.impl.IonMobilitySupport;
 import io.github.mzmine.parameters.impl.SimpleParameterSet;
+import io.github.mzmine.parameters.parametertypes.BooleanParameter;
 import io.github.mzmine.parameters.parametertypes.ComboParameter;
 import io.github.mzmine.parameters.parametertypes.DoubleParameter;
 import io.github.mzmine.parameters.parametertypes.IntegerParameter;
@@ -77,6 +78,14 @@ public class ImageCorrelateGroupingParameters extends SimpleParameterSet {
   public static final PercentParameter MIN_R = new PercentParameter("Minimum similarity",
       "Minimum percentage for image correlation in one raw file.", 0.85, 0d, 1d);
 
+  public static final BooleanParameter FAST_MODE = new BooleanParameter(
+      "Fast co-localization",
+      "Filters each image once (median filter, percentile and hotspot thresholds are applied per "
+      + "image instead of per pair of images) and calculates all similarities as sparse matrix "
+      + "products. Much faster for thousands of images. Only for the PEARSON and COSINE SIM "
+      + "measures, other measures are always calculated pairwise. Results differ from the "
+      + "pairwise calculation as the filters are not applied per pair of images.", false);
+
 
   public static final OptionalParameter<StringParameter> SUFFIX = new OptionalParameter<>(
       new StringParameter("Suffix (or auto)", "Select suffix or deselect for auto suffix"), false);
@@ -84,7 +93,7 @@ public class ImageCorrelateGroupingParameters extends SimpleParameterSet {
   // Constructor
   public ImageCorrelateGroupingParameters() {
     super(new Parameter[]{FEATURE_LISTS, NOISE_LEVEL, MIN_NUMBER_OF_PIXELS, MEDIAN_FILTER_WINDOW,
-            QUANTILE_THRESHOLD, HOTSPOT_REMOVAL, MEASURE, MIN_R, SUFFIX},
+            QUANTILE_THRESHOLD, HOTSPOT_REMOVAL, MEASURE, MIN_R, FAST_MODE, SUFFIX},
         "https://mzmine.github.io/mzmine_documentation/module_docs/group_imagecorrelate/image-colocalization.html");
   }
 
@@ -38,6 +38,7 @@ import io.github.mzmine.datamodel.features.correlation.R2RMap;
 import io.github.mzmine.datamodel.features.correlation.R2RSimpleSimilarityList;
 import io.github.mzmine.datamodel.features.correlation.RowsRelationship;
 import io.github.mzmine.datamodel.features.correlation.RowsRelationship.Type;
+import io.github.mzmine.modules.dataprocessing.group_imagecorrelate.ImageColocalizationEngine.SparseImage;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
@@ -45,6 +46,8 @@ import io.github.mzmine.util.exceptions.MissingMassListException;
 import io.github.mzmine.util.maths.Combinatorics;
 import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
 import it.unimi.dsi.fastutil.Pair;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -82,6 +85,7 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
 
   private final SimilarityMeasure similarityMeasure;
   private final double minR;
+  private final boolean fastMode;
 
   public ImageCorrelateGroupingTask(final ParameterSet parameterSet,
       final ModularFeatureList featureList, @NotNull Instant moduleCallDate) {
@@ -115,6 +119,7 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
     }
     similarityMeasure = parameters.getValue(ImageCorrelateGroupingParameters.MEASURE);
     minR = parameters.getValue(ImageCorrelateGroupingParameters.MIN_R);
+    fastMode = parameters.getValue(ImageCorrelateGroupingParameters.FAST_MODE);
   }
 
   @Override
@@ -160,6 +165,10 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
    */
   public void checkAllFeatures(R2RMap<RowsRelationship> mapSimilarity, List<FeatureListRow> rows)
       throws MissingMassListException {
+    if (fastMode && ImageColocalizationEngine.supports(similarityMeasure)) {
+      checkAllFeaturesBatch(mapSimilarity, rows);
+      return;
+    }
     // prefilter rows: check feature height and sort data
     Map<Feature, FilteredRowData> mapFeatureData = new HashMap<>();
     List<FeatureListRow> filteredRows = new ArrayList<>();
@@ -201,6 +210,67 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
         "Image correlation: Performed %d pairwise comparisons of rows.".formatted(comparedPairs));
   }
 
+  /**
+   * Filters each image once and calculates all similarities with the
+   * {@link ImageColocalizationEngine}
+   *
+   * @param mapSimilarity map for all image similarity edges
+   * @param rows          match rows
+   */
+  private void checkAllFeaturesBatch(R2RMap<RowsRelationship> mapSimilarity,
+      List<FeatureListRow> rows) {
+    final int numRows = rows.size();
+    final Object2IntMap<FeatureListRow> rowIndices = new Object2IntOpenHashMap<>(numRows);
+    for (int i = 0; i < numRows; i++) {
+      rowIndices.put(rows.get(i), i);
+    }
+    final List<RawDataFile> files = featureList.getRawDataFiles();
+    final SparseImage[][] images = new SparseImage[files.size()][numRows];
+    final int[] numPixels = new int[files.size()];
+
+    final FeatureFullDataAccess data = (FeatureFullDataAccess) EfficientDataAccess.of(featureList,
+        FeatureDataType.INCLUDE_ZEROS);
+    while (data.hasNextFeature()) {
+      if (isCanceled()) {
+        return;
+      }
+      final Feature feature = data.nextFeature();
+      final int fileIndex = files.indexOf(feature.getRawDataFile());
+      final int rowIndex = rowIndices.getOrDefault(feature.getRow(), -1);
+      if (fileIndex < 0 || rowIndex < 0) {
+        continue;
+      }
+      numPixels[fileIndex] = Math.max(numPixels[fileIndex], data.getNumberOfValues());
+      images[fileIndex][rowIndex] = ImageColocalizationEngine.preprocess(
+          data.getIntensityValues(), data.getNumberOfValues(), noiseLevel, medianFilter,
+          quantileThreshold, hotspotRemovalThreshold, minimumNumberOfCorrelatedPixels);
+    }
+
+    final ImageColocalizationEngine engine = new ImageColocalizationEngine(numRows,
+        similarityMeasure, minimumNumberOfCorrelatedPixels, minR);
+    for (int f = 0; f < files.size(); f++) {
+      engine.addFile(images[f], numPixels[f]);
+    }
+
+    totalMaxPairs = (long) numRows * (numRows - 1) / 2;
+    logger.log(Level.INFO,
+        () -> MessageFormat.format("Checking image similarity on {0} rows", numRows));
+
+    final long comparedPairs = engine.compute((i, j, similarities) -> {
+      final FeatureListRow a = rows.get(i);
+      final FeatureListRow b = rows.get(j);
+      final R2RSimpleSimilarityList imageSimilarities = new R2RSimpleSimilarityList(a, b,
+          Type.MS1_FEATURE_CORR);
+      for (double similarity : similarities) {
+        imageSimilarities.addSimilarity(similarity);
+      }
+      mapSimilarity.add(a, b, imageSimilarities);
+    }, this::isCanceled, processedPairs);
+
+    logger.info(
+        "Image correlation: Performed %d pairwise comparisons of rows.".formatted(comparedPairs));
+  }
+
   private boolean prepareRows(
       @NotNull Map<Feature, ImageCorrelateGroupingTask.FilteredRowData> mapFeatureData,
       @NotNull FeatureListRow row, FeatureDataAccess featureDataAccess)
@@ -65,6 +65,8 @@ import io.github.mzmine.util.maths.Combinatorics;
 import io.github.mzmine.util.maths.similarity.Similarity;
 import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.ScanMZDiffConverter;
+import io.github.mzmine.util.scans.similarity.SpectralCosineKernel;
+import io.github.mzmine.util.scans.similarity.WeightedSpectrum;
 import io.github.mzmine.util.scans.similarity.Weights;
 import it.unimi.dsi.fastutil.Pair;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
@@ -104,6 +106,8 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
   private final double maxMzDelta;
   private final List<FeatureListRow> rows;
   private long totalMaxPairs = 0;
+  // start of the pairwise comparisons to report the throughput
+  private volatile long pairsStartNanos = 0;
   // this is always off for now. Could be reintroduced as separate similarity metric
   private final boolean checkNeutralLoss;
 
@@ -274,6 +278,45 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     return null;
   }
 
+  /**
+   * Allocation free version of
+   * {@link #createMS2SimModificationAware(MZTolerance, Weights, DataPoint[], DataPoint[], double,
+   * Function, double, double)} with {@link #SIZE_OVERLAP} on prepared spectra. Only creates a result
+   * if all thresholds are met.
+   *
+   * @param mzTol        the tolerance to match signals
+   * @param a            prepared spectrum a
+   * @param b            prepared spectrum b
+   * @param minMatch     minimum overlapping signals
+   * @param minCosine    minimum cosine similarity
+   * @param precursorMzA precursor mz of a, modified cosine is only used if both are > 0
+   * @param precursorMzB precursor mz of b, modified cosine is only used if both are > 0
+   * @return the spectral similarity if number of overlapping signals and cosine >= minimum, else
+   * null
+   */
+  @Nullable
+  public static SpectralSimilarity createMS2SimModificationAware(MZTolerance mzTol,
+      WeightedSpectrum a, WeightedSpectrum b, int minMatch, double minCosine, double precursorMzA,
+      double precursorMzB) {
+    // same order as in DataPoint based alignment: b is aligned against a
+    final SpectralCosineKernel kernel = SpectralCosineKernel.get();
+    final int overlap;
+    if (precursorMzA > 0 && precursorMzB > 0) {
+      overlap = kernel.alignModAware(mzTol, b, a, precursorMzB, precursorMzA);
+    } else {
+      overlap = kernel.align(mzTol, b, a);
+    }
+    if (overlap < minMatch) {
+      return null;
+    }
+    final double cosine = kernel.getCosine();
+    if (cosine < minCosine) {
+      return null;
+    }
+    return new SpectralSimilarity(cosine, overlap, b.size(), a.size(),
+        kernel.getExplainedIntensityFirst(), kernel.getExplainedIntensitySecond());
+  }
+
   /**
    * Make sure to use arrays sorted by intensity
    *
@@ -448,6 +491,7 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     totalMaxPairs = Combinatorics.uniquePairs(filteredRows);
     logger.log(Level.INFO, MessageFormat.format("Checking MS2 similarity on {0} rows", numRows));
 
+    pairsStartNanos = System.nanoTime();
     long comparedPairs = StreamUtils.processPairs(filteredRows, this::isCanceled, true, //
         (first, later) -> maxMzDelta < later.row.getAverageMZ() - first.row.getAverageMZ(), //
         pair -> {
@@ -481,24 +525,24 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
 //          return 1;
 //        }).sum();
 
-    logger.info("Spectral networking: Performed %d pairwise comparisons.".formatted(comparedPairs));
+    logger.info("Spectral networking: Performed %d pairwise comparisons (%.0f pairs/s).".formatted(
+        comparedPairs, getPairsPerSecond()));
   }
 
   private boolean checkSpectralPair(final FilteredRowData a, final FilteredRowData b,
       final R2RMap<RowsRelationship> mapSimilarity, final R2RMap<RowsRelationship> mapNeutralLoss) {
-    boolean result = checkR2RMs2Similarity(mapSimilarity, a.row(), b.row(), a.data(), b.data(),
-        Type.MS2_COSINE_SIM);
-
-    // check neutral loss similarity
-    if (checkNeutralLoss) {
-      // create mass diff array
-      DataPoint[] massDiffA = ScanMZDiffConverter.getAllMZDiff(a.data(), mzTolerance, -1,
-          maxDPForDiff);
-      DataPoint[] massDiffB = ScanMZDiffConverter.getAllMZDiff(b.data(), mzTolerance, -1,
-          maxDPForDiff);
-
-      checkR2RMs2Similarity(mapNeutralLoss, a.row(), b.row(), massDiffA, massDiffB,
-          Type.MS2_NEUTRAL_LOSS_SIM);
+    boolean result = checkR2RMs2Similarity(mapSimilarity, a.row(), b.row(), a.spectrum(),
+        b.spectrum());
+
+    // check neutral loss similarity on the mass difference spectra prepared once per row
+    if (checkNeutralLoss && a.neutralLosses() != null && b.neutralLosses() != null) {
+      SpectralSimilarity neutralLossSim = createMS2SimModificationAware(mzTolerance,
+          a.neutralLosses(), b.neutralLosses(), minMatch, minCosineSimilarity, -1, -1);
+      if (neutralLossSim != null) {
+        mapNeutralLoss.add(a.row(), b.row(),
+            new R2RSpectralSimilarity(a.row(), b.row(), Type.MS2_NEUTRAL_LOSS_SIM,
+                neutralLossSim));
+      }
     }
     return result;
   }
@@ -544,6 +588,7 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     logger.log(Level.INFO,
         () -> MessageFormat.format("Checking MS2 similarity on {0} rows", numRows));
 
+    pairsStartNanos = System.nanoTime();
     // try map multi for all pairs
     long comparedPairs = IntStream.range(0, numRows - 1).boxed()
         .<Pair<FeatureListRow, FeatureListRow>>mapMulti((i, consumer) -> {
@@ -571,8 +616,8 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
           return 1;
         }).sum();
 
-    logger.info(
-        "Spectral networking: Performed %d pairwise comparisons of rows.".formatted(comparedPairs));
+    logger.info("Spectral networking: Performed %d pairwise comparisons of rows (%.0f pairs/s).".formatted(
+        comparedPairs, getPairsPerSecond()));
   }
 
   private void checkR2RAllFeaturesMs2Similarity(Map<Feature, FilteredRowData> mapFeatureData,
@@ -583,33 +628,27 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     R2RSpectralSimilarityList neutralLossSim =
         checkNeutralLoss ? new R2RSpectralSimilarityList(a, b, Type.MS2_NEUTRAL_LOSS_SIM) : null;
 
-    DataPoint[] massDiffA = null;
-    DataPoint[] massDiffB = null;
-
     for (Feature fa : a.getFeatures()) {
-      DataPoint[] dpa = mapFeatureData.get(fa).data();
-      if (dpa != null) {
-        // create mass diff array
-        if (checkNeutralLoss) {
-          massDiffA = ScanMZDiffConverter.getAllMZDiff(dpa, mzTolerance, -1, maxDPForDiff);
-          Arrays.sort(massDiffA, DataPointSorter.DEFAULT_INTENSITY);
-        }
+      FilteredRowData dataA = mapFeatureData.get(fa);
+      if (dataA != null) {
         for (Feature fb : b.getFeatures()) {
-          DataPoint[] dpb = mapFeatureData.get(fb).data();
-          if (dpb != null) {
+          FilteredRowData dataB = mapFeatureData.get(fb);
+          if (dataB != null) {
             // align and check spectra
-            SpectralSimilarity spectralSim = createMS2SimModificationAware(mzTolerance, dpa, dpb,
-                minMatch, SIZE_OVERLAP, fa.getMZ(), fb.getMZ());
-            if (spectralSim != null && spectralSim.cosine() >= minCosineSimilarity) {
+            SpectralSimilarity spectralSim = createMS2SimModificationAware(mzTolerance,
+                dataA.spectrum(), dataB.spectrum(), minMatch, minCosineSimilarity, fa.getMZ(),
+                fb.getMZ());
+            if (spectralSim != null) {
               cosineSim.addSpectralSim(spectralSim);
             }
 
-            // alignment and sim of neutral losses
-            if (checkNeutralLoss) {
-              massDiffB = ScanMZDiffConverter.getAllMZDiff(dpb, mzTolerance, maxDPForDiff);
-              Arrays.sort(massDiffB, DataPointSorter.DEFAULT_INTENSITY);
-              SpectralSimilarity massDiffSim = createMS2Sim(mzTolerance, massDiffA, massDiffB,
-                  minMatch, DIFF_OVERLAP);
+            // alignment and sim of neutral losses. The first feature uses the prepared mass
+            // differences, the second the prepared mass differences limited by height
+            if (checkNeutralLoss && dataA.neutralLosses() != null
+                && dataB.minHeightNeutralLosses() != null) {
+              SpectralSimilarity massDiffSim = createMS2Sim(mzTolerance,
+                  dataA.neutralLosses().getDataPoints(),
+                  dataB.minHeightNeutralLosses().getDataPoints(), minMatch, DIFF_OVERLAP);
 
               if (massDiffSim != null && massDiffSim.cosine() >= minCosineSimilarity) {
                 neutralLossSim.addSpectralSim(massDiffSim);
@@ -646,7 +685,41 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     }
     // remove precursor signals
     DataPoint[] dps = signalFilter.applyFilterAndSortByIntensity(ms2, precursorMz, minDP);
-    return dps != null ? new FilteredRowData(row, dps) : null;
+    if (dps == null) {
+      return null;
+    }
+    final boolean allFeatureLosses = checkNeutralLoss && !onlyBestMS2Scan;
+    return new FilteredRowData(row, dps, WeightedSpectrum.of(dps, Weights.SQRT),
+        checkNeutralLoss ? createNeutralLossSpectrum(dps) : null,
+        allFeatureLosses ? createMinHeightNeutralLossSpectrum(dps) : null);
+  }
+
+  /**
+   * The mass difference (neutral loss) spectrum is created once for each spectrum and reused in all
+   * pairwise comparisons
+   *
+   * @param dps the filtered data points
+   * @return the mass differences sorted by intensity (number of occurrences)
+   */
+  @NotNull
+  private WeightedSpectrum createNeutralLossSpectrum(DataPoint[] dps) {
+    DataPoint[] massDiff = ScanMZDiffConverter.getAllMZDiff(dps, mzTolerance, -1, maxDPForDiff);
+    Arrays.sort(massDiff, DataPointSorter.DEFAULT_INTENSITY);
+    return WeightedSpectrum.of(massDiff, Weights.SQRT);
+  }
+
+  /**
+   * The mass difference spectrum of signals above the {@link #maxDPForDiff} height, used for the
+   * second feature when all features of two rows are compared. Created once for each spectrum.
+   *
+   * @param dps the filtered data points
+   * @return the mass differences sorted by intensity (number of occurrences)
+   */
+  @NotNull
+  private WeightedSpectrum createMinHeightNeutralLossSpectrum(DataPoint[] dps) {
+    DataPoint[] massDiff = ScanMZDiffConverter.getAllMZDiff(dps, mzTolerance, maxDPForDiff);
+    Arrays.sort(massDiff, DataPointSorter.DEFAULT_INTENSITY);
+    return WeightedSpectrum.of(massDiff, Weights.SQRT);
   }
 
 
@@ -677,6 +750,26 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     return result;
   }
 
+  /**
+   * Modified cosine similarity on prepared spectra
+   *
+   * @param mapSimilarity map to add new MS2 cosine similarity edges to
+   * @param a             row a
+   * @param b             row b
+   */
+  public boolean checkR2RMs2Similarity(R2RMap<RowsRelationship> mapSimilarity, FeatureListRow a,
+      FeatureListRow b, WeightedSpectrum spectrumA, WeightedSpectrum spectrumB) {
+    SpectralSimilarity spectralSim = createMS2SimModificationAware(mzTolerance, spectrumA,
+        spectrumB, minMatch, minCosineSimilarity, a.getAverageMZ(), b.getAverageMZ());
+
+    if (spectralSim != null) {
+      var r2r = new R2RSpectralSimilarity(a, b, Type.MS2_COSINE_SIM, spectralSim);
+      mapSimilarity.add(a, b, r2r);
+      return true;
+    }
+    return false;
+  }
+
   /**
    * @param mapSimilarity map to add new MS2 cosine similarity edges to
    * @param a             row a
@@ -707,13 +800,39 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
 
   @Override
   public String getTaskDescription() {
+    final double pairsPerSecond = getPairsPerSecond();
+    if (pairsPerSecond > 0) {
+      return "Check similarity of MSMS scans (mass lists) - %.0f pairs/s".formatted(pairsPerSecond);
+    }
     return "Check similarity of MSMS scans (mass lists)";
   }
 
+  /**
+   * @return the throughput of pairwise comparisons since they were started or 0
+   */
+  public double getPairsPerSecond() {
+    final long start = pairsStartNanos;
+    if (start == 0) {
+      return 0;
+    }
+    final double seconds = (System.nanoTime() - start) / 1E9;
+    return seconds > 0 ? processedPairs.get() / seconds : 0;
+  }
+
   /**
    * the filtered data of the best MS2 scan from row
+   *
+   * @param data                   filtered data points sorted by intensity
+   * @param spectrum               primitive weighted spectrum of data, prepared once for all
+   *                               comparisons
+   * @param neutralLosses          primitive mass difference spectrum of data or null if neutral
+   *                               losses are not checked, prepared once for all comparisons
+   * @param minHeightNeutralLosses mass difference spectrum of signals above the height limit, only
+   *                               prepared when all features of a row are compared
    */
-  private record FilteredRowData(FeatureListRow row, DataPoint[] data) {
+  private record FilteredRowData(FeatureListRow row, DataPoint[] data, WeightedSpectrum spectrum,
+                                 @Nullable WeightedSpectrum neutralLosses,
+                                 @Nullable WeightedSpectrum minHeightNeutralLosses) {
 
   }
 }
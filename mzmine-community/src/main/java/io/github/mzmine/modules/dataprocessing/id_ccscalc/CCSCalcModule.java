@@ -31,7 +31,7 @@ import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -78,7 +78,8 @@ public class CCSCalcModule implements MZmineProcessingModule {
   @Override
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
-    Task task = new CCSCalcTask(project, parameters, MemoryMapStorage.forFeatureList(), moduleCallDate);
+    Task task = new CCSCalcTask(project, parameters, TieredStorageManager.forFeatureList(),
+        moduleCallDate);
     tasks.add(task);
     return ExitCode.OK;
   }
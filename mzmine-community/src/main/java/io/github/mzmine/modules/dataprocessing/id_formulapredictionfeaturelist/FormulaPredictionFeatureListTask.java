@@ -43,7 +43,7 @@ import io.github.mzmine.modules.dataprocessing.id_formulaprediction.restrictions
 import io.github.mzmine.modules.dataprocessing.id_formulaprediction.restrictions.rdbe.RDBERestrictionParameters;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreCalculator;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreParameters;
-import io.github.mzmine.modules.tools.isotopeprediction.IsotopePatternCalculator;
+import io.github.mzmine.modules.tools.isotopeprediction.IsotopePatternCache;
 import io.github.mzmine.modules.tools.msmsscore.MSMSScore;
 import io.github.mzmine.modules.tools.msmsscore.MSMSScoreCalculator;
 import io.github.mzmine.modules.tools.msmsscore.MSMSScoreParameters;
@@ -56,6 +56,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.openscience.cdk.formula.MolecularFormulaGenerator;
@@ -85,10 +88,11 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
   private float sortPPMFactor;
   private float sortMSMSFactor;
   private float sortIsotopeFactor;
-  private MolecularFormulaGenerator generator;
+  // generators of rows in progress, canceled on task cancel
+  private final Set<MolecularFormulaGenerator> generators = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger finishedRows = new AtomicInteger(0);
   private String message;
-  private int totalRows, finishedRows;
-  private List<ResultFormula> resultingFormulas;
+  private int totalRows;
   private Range<Double> rdbeRange;
   private Boolean rdbeIsInteger;
   private Boolean checkHCRatio;
@@ -184,7 +188,7 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
     if (totalRows == 0) {
       return 0.0;
     }
-    return (double) finishedRows / (double) totalRows;
+    return (double) finishedRows.get() / (double) totalRows;
   }
 
   @Override
@@ -202,24 +206,50 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
     featureList.addRowType(DataTypes.get(
         io.github.mzmine.datamodel.features.types.annotations.formula.FormulaListType.class));
 
-    for (FeatureListRow row : featureList.getRows()) {
-
+    // rows are independent, each row uses its own formula generator
+    featureList.getRows().parallelStream().forEach(row -> {
+      if (isCanceled() || getStatus() == TaskStatus.ERROR) {
+        return;
+      }
       if (row.getPeakIdentities().size() > 0) {
-        continue;
+        finishedRows.incrementAndGet();
+        return;
       }
-      this.resultingFormulas = new ArrayList<>();
+      predictFormulas(row);
+      finishedRows.incrementAndGet();
+    });
 
-      double searchedMass = (row.getAverageMZ() - ionType.getAddedMass()) * charge;
+    if (isCanceled() || getStatus() == TaskStatus.ERROR) {
+      return;
+    }
+    IsotopePatternCache.logStats();
 
-      message = "Formula prediction for " + MZmineCore.getConfiguration().getMZFormat()
-          .format(searchedMass);
+    featureList.getAppliedMethods().add(
+        new SimpleFeatureListAppliedMethod(FormulaPredictionFeatureListModule.class, parameters,
+            getModuleCallDate()));
 
-      Range<Double> massRange = mzTolerance.getToleranceRange(searchedMass);
+    logger.finest("Finished formula search for all the features");
 
-      IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
-      generator = new MolecularFormulaGenerator(builder, massRange.lowerEndpoint(),
-          massRange.upperEndpoint(), elementCounts);
+    setStatus(TaskStatus.FINISHED);
+
+  }
+
+  private void predictFormulas(FeatureListRow row) {
+    final List<ResultFormula> resultingFormulas = new ArrayList<>();
+
+    double searchedMass = (row.getAverageMZ() - ionType.getAddedMass()) * charge;
 
+    message = "Formula prediction for " + MZmineCore.getConfiguration().getMZFormat()
+        .format(searchedMass);
+
+    Range<Double> massRange = mzTolerance.getToleranceRange(searchedMass);
+
+    IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+    final MolecularFormulaGenerator generator = new MolecularFormulaGenerator(builder,
+        massRange.lowerEndpoint(), massRange.upperEndpoint(), elementCounts);
+    generators.add(generator);
+
+    try {
       IMolecularFormula cdkFormula;
 
       // create a map to store ResultFormula and relative mass deviation
@@ -236,38 +266,21 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
           resultingFormulas.add(molf);
         }
       }
-
-      if (isCanceled()) {
-        return;
-      }
-
-
-      // Add the new formula entry top results
-      if (!resultingFormulas.isEmpty()) {
-        FormulaUtils.sortFormulaList(resultingFormulas, sortPPMFactor, sortIsotopeFactor,
-            sortMSMSFactor);
-        row.setFormulas(resultingFormulas.subList(0,
-            Math.min(resultingFormulas.size(), maxBestFormulasPerFeature)));
-      }
-
-      if (isCanceled()) {
-        return;
-      }
-      finishedRows++;
+    } finally {
+      generators.remove(generator);
     }
 
     if (isCanceled()) {
       return;
     }
 
-    featureList.getAppliedMethods().add(
-        new SimpleFeatureListAppliedMethod(FormulaPredictionFeatureListModule.class, parameters,
-            getModuleCallDate()));
-
-    logger.finest("Finished formula search for all the features");
-
-    setStatus(TaskStatus.FINISHED);
-
+    // Add the new formula entry top results
+    if (!resultingFormulas.isEmpty()) {
+      FormulaUtils.sortFormulaList(resultingFormulas, sortPPMFactor, sortIsotopeFactor,
+          sortMSMSFactor);
+      row.setFormulas(resultingFormulas.subList(0,
+          Math.min(resultingFormulas.size(), maxBestFormulasPerFeature)));
+    }
   }
 
   /**
@@ -303,7 +316,7 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
       final double detectedPatternHeight = detectedPattern.getBasePeakIntensity();
       final double minPredictedAbundance = isotopeNoiseLevel / detectedPatternHeight;
 
-      predictedIsotopePattern = IsotopePatternCalculator.calculateIsotopePattern(clonedFormula,
+      predictedIsotopePattern = IsotopePatternCache.getIsotopePattern(clonedFormula,
           minPredictedAbundance, charge, ionType.getPolarity());
 
       isotopeScore = IsotopePatternScoreCalculator.getSimilarityScore(detectedPattern,
@@ -356,11 +369,9 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
   public void cancel() {
     super.cancel();
 
-    // We need to cancel the formula generator, because searching for next
+    // We need to cancel the formula generators, because searching for next
     // candidate formula may take a looong time
-    if (generator != null) {
-      generator.cancel();
-    }
+    generators.forEach(MolecularFormulaGenerator::cancel);
 
   }
 }
@@ -47,7 +47,7 @@ import io.github.mzmine.modules.dataprocessing.id_formulaprediction.restrictions
 import io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.formula.createavgformulas.CreateAvgNetworkFormulasTask;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreCalculator;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreParameters;
-import io.github.mzmine.modules.tools.isotopeprediction.IsotopePatternCalculator;
+import io.github.mzmine.modules.tools.isotopeprediction.IsotopePatternCache;
 import io.github.mzmine.modules.tools.msmsscore.MSMSScore;
 import io.github.mzmine.modules.tools.msmsscore.MSMSScoreCalculator;
 import io.github.mzmine.modules.tools.msmsscore.MSMSScoreParameters;
@@ -60,7 +60,6 @@ import io.github.mzmine.taskcontrol.TaskStatus;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -97,7 +96,6 @@ public class FormulaPredictionIonNetworkTask extends AbstractTask {
   private final boolean sortResults;
   private final CreateAvgNetworkFormulasTask netFormulaMerger;
   private final OptionForValues handleHigherMz;
-  private final HashMap<IMolecularFormula, IsotopePattern> predictedPattern = new HashMap<>(1000);
   private MolecularFormulaGenerator generator;
   private String message;
   private int totalRows;
@@ -390,9 +388,8 @@ public class FormulaPredictionIonNetworkTask extends AbstractTask {
       final double detectedPatternHeight = detectedPattern.getBasePeakIntensity();
       final double minPredictedAbundance = isotopeNoiseLevel / detectedPatternHeight;
 
-      predictedIsotopePattern = predictedPattern.computeIfAbsent(cdkFormulaIon,
-          key -> IsotopePatternCalculator.calculateIsotopePattern(cdkFormulaIon,
-              minPredictedAbundance, charge, ionType.getPolarity()));
+      predictedIsotopePattern = IsotopePatternCache.getIsotopePattern(cdkFormulaIon,
+          minPredictedAbundance, charge, ionType.getPolarity());
 
       isotopeScore = IsotopePatternScoreCalculator.getSimilarityScore(detectedPattern,
           predictedIsotopePattern, isotopeMZTolerance, isotopeNoiseLevel);
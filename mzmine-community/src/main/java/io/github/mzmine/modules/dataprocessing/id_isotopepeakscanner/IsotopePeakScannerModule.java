@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.id_isotopepeakscanner;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -73,7 +74,7 @@ public class IsotopePeakScannerModule implements MZmineProcessingModule {
       @NotNull Instant moduleCallDate) {
     FeatureList peakLists[] = parameters.getParameter(IsotopePeakScannerParameters.PEAK_LISTS)
         .getValue().getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
     for (FeatureList peakList : peakLists) {
       Task newTask = new IsotopePeakScannerTask(project, peakList, parameters, storage, moduleCallDate);
       tasks.add(newTask);
@@ -44,11 +44,8 @@ import io.github.mzmine.parameters.parametertypes.AdvancedParametersParameter;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
-import io.github.mzmine.util.collections.BinarySearch;
-import io.github.mzmine.util.collections.BinarySearch.DefaultTo;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -183,34 +180,25 @@ public class LipidAnnotationTask extends AbstractTask {
     totalSteps = rows.size();
     Set<PolarityType> polarityTypes = getPolarityTypes();
 
-    // build lipid species database
-    List<LipidIon> lipidDatabase = LipidAnnotationUtils.buildLipidDatabase(selectedLipids,
+    // lipid species database is shared by all tasks with the same parameters
+    final LipidDatabaseIndex lipidDatabase = LipidDatabaseIndex.getOrBuild(selectedLipids,
         minChainLength, maxChainLength, minDoubleBonds, maxDoubleBonds, onlySearchForEvenChains,
         ionizationTypesToIgnore, polarityTypes);
-    List<LipidIon> sortedLipidDatabase = lipidDatabase.stream()
-        .sorted(Comparator.comparingDouble(LipidIon::mz)).toList();
 
     rows.parallelStream().forEach(row -> {
       Range<Double> mzTolRange = mzTolerance.getToleranceRange(row.getAverageMZ());
       double lowerEdge = mzTolRange.lowerEndpoint();
       double upperEdge = mzTolRange.upperEndpoint();
-      int index = BinarySearch.binarySearch(lowerEdge, DefaultTo.GREATER_EQUALS,
-          sortedLipidDatabase.size(), i -> sortedLipidDatabase.get(i).mz());
-      if (index >= 0) {
-        for (int i = index; i < sortedLipidDatabase.size(); i++) {
-          if (isCanceled()) {
-            return;
-          }
-
-          LipidAnnotationUtils.findPossibleLipid(sortedLipidDatabase.get(i), row, parameters,
-              mzTolerance, mzToleranceMS2, searchForMSMSFragments, minMsMsScore,
-              keepUnconfirmedAnnotations,
-              sortedLipidDatabase.get(i).lipidAnnotation().getLipidClass().getCoreClass());
-
-          if (upperEdge < sortedLipidDatabase.get(i).mz()) {
-            break;
-          }
+      for (int i = lipidDatabase.lowerBoundIndex(lowerEdge);
+          i < lipidDatabase.size() && lipidDatabase.getMz(i) <= upperEdge; i++) {
+        if (isCanceled()) {
+          return;
         }
+
+        LipidIon lipidIon = lipidDatabase.getLipidIon(i);
+        LipidAnnotationUtils.findPossibleLipid(lipidIon, row, parameters, mzTolerance,
+            mzToleranceMS2, searchForMSMSFragments, minMsMsScore, keepUnconfirmedAnnotations,
+            lipidIon.lipidAnnotation().getLipidClass().getCoreClass());
       }
       finishedSteps++;
     });
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_lipidid.annotation_modules;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.github.mzmine.datamodel.IonizationType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.identification.LipidFragmentationRule;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.identification.LipidFragmentationRuleType;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.identification.matched_levels.species_level.SpeciesLevelAnnotation;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.ILipidClass;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.LipidIon;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.lipidchain.LipidChainType;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.utils.LipidFactory;
+import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.io.SemverVersionReader;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lipid ions of the selected lipid classes in primitive arrays sorted by precursor m/z. Rows are
+ * matched by binary search on the m/z values. The lipid class index, number of carbons, double bond
+ * equivalents and ionization type are stored per ion. A newly built index keeps all lipid ions of
+ * the database it was built from. An index loaded from disk only stores the primitive arrays and
+ * creates each lipid ion once on first access.
+ * <p>
+ * Building the database for all chain combinations is expensive. Indices are therefore shared by
+ * all tasks with the same parameters: they are kept in memory and saved to the mzmine user
+ * directory, keyed by a hash of the mzmine version, the lipid class definitions and chain
+ * parameters. The mzmine version invalidates saved indices when the mass calculation changes.
+ * Running the lipid annotation on many feature lists builds the database only once. The m/z of head
+ * group fragment rules is precomputed, see {@link LipidFragmentationRule#getFragmentMz()}.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class LipidDatabaseIndex {
+
+  private static final Logger logger = Logger.getLogger(LipidDatabaseIndex.class.getName());
+
+  // increase when the file format or the database generation changes
+  private static final int VERSION = 1;
+  private static final String CACHE_DIR = "lipid_database_cache";
+  private static final LipidFactory LIPID_FACTORY = new LipidFactory();
+  private static final IonizationType[] IONIZATION_TYPES = IonizationType.values();
+
+  private static final Cache<String, LipidDatabaseIndex> cache = CacheBuilder.newBuilder()
+      .maximumSize(8).softValues().build();
+
+  private final ILipidClass[] lipidClasses;
+  // sorted by precursor m/z
+  private final double[] mzs;
+  private final short[] classIndices;
+  private final short[] carbons;
+  private final short[] dbes;
+  private final byte[] ionizations;
+  // all set after building, created on first access after loading
+  private final AtomicReferenceArray<LipidIon> lipidIons;
+
+  private LipidDatabaseIndex(ILipidClass[] lipidClasses, double[] mzs, short[] classIndices,
+      short[] carbons, short[] dbes, byte[] ionizations) {
+    this.lipidClasses = lipidClasses;
+    this.mzs = mzs;
+    this.classIndices = classIndices;
+    this.carbons = carbons;
+    this.dbes = dbes;
+    this.ionizations = ionizations;
+    lipidIons = new AtomicReferenceArray<>(mzs.length);
+    precomputeFragmentMz(lipidClasses);
+  }
+
+  /**
+   * Returns the cached index for these parameters. Loads it from disk or builds the database if
+   * it was not used before. Concurrent calls with the same parameters wait for the first to
+   * finish.
+   */
+  @NotNull
+  public static LipidDatabaseIndex getOrBuild(@NotNull ILipidClass[] selectedLipids,
+      int minChainLength, int maxChainLength, int minDoubleBonds, int maxDoubleBonds,
+      boolean onlySearchForEvenChains, @Nullable IonizationType[] ionizationTypesToIgnore,
+      @NotNull Set<PolarityType> polarityTypes) {
+    final String key = createKey(selectedLipids, minChainLength, maxChainLength, minDoubleBonds,
+        maxDoubleBonds, onlySearchForEvenChains, ionizationTypesToIgnore, polarityTypes);
+    try {
+      return cache.get(key, () -> {
+        final File file = getCacheFile(key);
+        LipidDatabaseIndex index = file != null ? load(file, key, selectedLipids) : null;
+        if (index == null) {
+          index = build(selectedLipids, minChainLength, maxChainLength, minDoubleBonds,
+              maxDoubleBonds, onlySearchForEvenChains, ionizationTypesToIgnore, polarityTypes);
+          if (file != null) {
+            index.save(file, key);
+          }
+        }
+        return index;
+      });
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Cannot build lipid database " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Builds the same lipid ions as
+   * {@link LipidAnnotationUtils#buildLipidDatabase(ILipidClass[], int, int, int, int, boolean,
+   * IonizationType[], Set)} in stable m/z order.
+   */
+  @NotNull
+  public static LipidDatabaseIndex build(@NotNull ILipidClass[] selectedLipids,
+      int minChainLength, int maxChainLength, int minDoubleBonds, int maxDoubleBonds,
+      boolean onlySearchForEvenChains, @Nullable IonizationType[] ionizationTypesToIgnore,
+      @NotNull Set<PolarityType> polarityTypes) {
+    final List<LipidIon> database = LipidAnnotationUtils.buildLipidDatabase(selectedLipids,
+        minChainLength, maxChainLength, minDoubleBonds, maxDoubleBonds, onlySearchForEvenChains,
+        ionizationTypesToIgnore, polarityTypes);
+
+    final Map<ILipidClass, Integer> classIndexMap = new IdentityHashMap<>();
+    for (int i = 0; i < selectedLipids.length; i++) {
+      classIndexMap.putIfAbsent(selectedLipids[i], i);
+    }
+
+    final int n = database.size();
+    final int[] order = new int[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    // stable sort keeps the build order for equal m/z
+    IntArrays.mergeSort(order,
+        (a, b) -> Double.compare(database.get(a).mz(), database.get(b).mz()));
+
+    final double[] mzs = new double[n];
+    final short[] classIndices = new short[n];
+    final short[] carbons = new short[n];
+    final short[] dbes = new short[n];
+    final byte[] ionizations = new byte[n];
+    final LipidIon[] ions = new LipidIon[n];
+    for (int i = 0; i < n; i++) {
+      final LipidIon ion = database.get(order[i]);
+      final SpeciesLevelAnnotation lipid = (SpeciesLevelAnnotation) ion.lipidAnnotation();
+      ions[i] = ion;
+      mzs[i] = ion.mz();
+      classIndices[i] = classIndexMap.get(lipid.getLipidClass()).shortValue();
+      carbons[i] = (short) lipid.getNumberOfCarbons();
+      dbes[i] = (short) lipid.getNumberOfDBEs();
+      ionizations[i] = (byte) ion.ionizationType().ordinal();
+    }
+
+    final LipidDatabaseIndex index = new LipidDatabaseIndex(selectedLipids, mzs, classIndices,
+        carbons, dbes, ionizations);
+    for (int i = 0; i < n; i++) {
+      index.lipidIons.set(i, ions[i]);
+    }
+    logger.fine(() -> "Built lipid database with %d ions".formatted(n));
+    return index;
+  }
+
+  /**
+   * All lipid ions are compared by their precursor m/z. Fragment rules of head groups are
+   * independent of the lipid species.
+   */
+  private static void precomputeFragmentMz(ILipidClass[] lipidClasses) {
+    for (ILipidClass lipidClass : lipidClasses) {
+      final LipidFragmentationRule[] rules = lipidClass.getFragmentationRules();
+      if (rules == null) {
+        continue;
+      }
+      for (LipidFragmentationRule rule : rules) {
+        if (rule.getLipidFragmentationRuleType() == LipidFragmentationRuleType.HEADGROUP_FRAGMENT
+            && rule.getMolecularFormula() != null && !rule.getMolecularFormula().isBlank()) {
+          try {
+            rule.getFragmentMz();
+          } catch (Exception e) {
+            // reported again when the rule is used for matching
+            logger.fine(() -> "Cannot calculate fragment m/z of rule " + rule);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The key contains the full definition of all lipid classes so that changed custom classes or
+   * fragmentation rules create a new database.
+   */
+  @NotNull
+  static String createKey(@NotNull ILipidClass[] selectedLipids, int minChainLength,
+      int maxChainLength, int minDoubleBonds, int maxDoubleBonds, boolean onlySearchForEvenChains,
+      @Nullable IonizationType[] ionizationTypesToIgnore,
+      @NotNull Set<PolarityType> polarityTypes) {
+    final StringBuilder key = new StringBuilder();
+    key.append("v").append(VERSION).append(";mzmine=")
+        .append(SemverVersionReader.getMZmineVersion()).append(";chains=").append(minChainLength)
+        .append("-").append(maxChainLength).append(";dbes=").append(minDoubleBonds).append("-")
+        .append(maxDoubleBonds).append(";even=").append(onlySearchForEvenChains);
+    key.append(";ignore=");
+    if (ionizationTypesToIgnore != null) {
+      key.append(Arrays.stream(ionizationTypesToIgnore).map(Enum::name).sorted().toList());
+    }
+    key.append(";polarities=")
+        .append(polarityTypes.stream().map(Enum::name).sorted().toList());
+    for (ILipidClass lipidClass : selectedLipids) {
+      key.append(";class=").append(lipidClass.getName()).append("|").append(lipidClass.getAbbr())
+          .append("|").append(lipidClass.getCoreClass()).append("|")
+          .append(lipidClass.getMainClass()).append("|").append(lipidClass.getBackBoneFormula())
+          .append("|").append(Arrays.stream(lipidClass.getChainTypes()).map(LipidChainType::name)
+              .toList());
+      final LipidFragmentationRule[] rules = lipidClass.getFragmentationRules();
+      if (rules != null) {
+        for (LipidFragmentationRule rule : rules) {
+          key.append("|").append(rule.getPolarityType()).append(",")
+              .append(rule.getIonizationType()).append(",")
+              .append(rule.getLipidFragmentationRuleType()).append(",")
+              .append(rule.getLipidFragmentInformationLevelType()).append(",")
+              .append(rule.getMolecularFormula()).append(",")
+              .append(rule.getLipidFragmentationRuleRating());
+        }
+      }
+    }
+    return key.toString();
+  }
+
+  @Nullable
+  private static File getCacheFile(String key) {
+    if (FileAndPathUtil.getMzmineDir() == null) {
+      return null;
+    }
+    final String hash = Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+    return new File(FileAndPathUtil.resolveInMzmineDir(CACHE_DIR),
+        getVersionFilePrefix() + hash + ".bin");
+  }
+
+  /**
+   * @return file prefix with the mzmine version, files of other versions are never used again
+   */
+  @NotNull
+  private static String getVersionFilePrefix() {
+    return "lipids_" + SemverVersionReader.getMZmineVersion().toString()
+        .replaceAll("[^A-Za-z0-9.-]", "-") + "_";
+  }
+
+  /**
+   * Deletes the saved indices of other mzmine versions
+   */
+  private static void deleteOutdatedCacheFiles(@NotNull File directory) {
+    final String prefix = getVersionFilePrefix();
+    final File[] outdated = directory.listFiles(
+        (_, name) -> name.startsWith("lipids_") && name.endsWith(".bin") && !name.startsWith(
+            prefix));
+    if (outdated == null) {
+      return;
+    }
+    for (File file : outdated) {
+      if (!file.delete()) {
+        logger.fine(() -> "Cannot delete outdated lipid database " + file);
+      }
+    }
+  }
+
+  /**
+   * @return the index or null if the file does not exist or was created for other parameters
+   */
+  @Nullable
+  static LipidDatabaseIndex load(@NotNull File file, @NotNull String key,
+      @NotNull ILipidClass[] selectedLipids) {
+    if (!file.exists()) {
+      return null;
+    }
+    try (var in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+      if (in.readInt() != VERSION) {
+        return null;
+      }
+      final byte[] storedKey = new byte[in.readInt()];
+      in.readFully(storedKey);
+      if (!key.equals(new String(storedKey, StandardCharsets.UTF_8))) {
+        return null;
+      }
+      // ionization types are stored by name
+      final int numIonizations = in.readInt();
+      final byte[] ionizationMap = new byte[numIonizations];
+      for (int i = 0; i < numIonizations; i++) {
+        ionizationMap[i] = (byte) IonizationType.valueOf(in.readUTF()).ordinal();
+      }
+
+      final int n = in.readInt();
+      final double[] mzs = new double[n];
+      final short[] classIndices = new short[n];
+      final short[] carbons = new short[n];
+      final short[] dbes = new short[n];
+      final byte[] ionizations = new byte[n];
+      for (int i = 0; i < n; i++) {
+        mzs[i] = in.readDouble();
+        classIndices[i] = in.readShort();
+        carbons[i] = in.readShort();
+        dbes[i] = in.readShort();
+        ionizations[i] = ionizationMap[in.readByte()];
+      }
+      logger.fine(() -> "Loaded lipid database with %d ions from %s".formatted(n, file));
+      return new LipidDatabaseIndex(selectedLipids, mzs, classIndices, carbons, dbes,
+          ionizations);
+    } catch (IOException | IllegalArgumentException e) {
+      logger.log(Level.WARNING, "Cannot load lipid database from " + file + ". Rebuilding.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes to a temporary file first so that concurrent mzmine instances never read incomplete
+   * files.
+   */
+  void save(@NotNull File file, @NotNull String key) {
+    try {
+      Files.createDirectories(file.getParentFile().toPath());
+      final Path tmp = Files.createTempFile(file.getParentFile().toPath(), "lipids_", ".tmp");
+      try (var out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(VERSION);
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeInt(IONIZATION_TYPES.length);
+        for (IonizationType ionization : IONIZATION_TYPES) {
+          out.writeUTF(ionization.name());
+        }
+        out.writeInt(mzs.length);
+        for (int i = 0; i < mzs.length; i++) {
+          out.writeDouble(mzs[i]);
+          out.writeShort(classIndices[i]);
+          out.writeShort(carbons[i]);
+          out.writeShort(dbes[i]);
+          out.writeByte(ionizations[i]);
+        }
+      }
+      Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      deleteOutdatedCacheFiles(file.getParentFile());
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot save lipid database to " + file, e);
+    }
+  }
+
+  public int size() {
+    return mzs.length;
+  }
+
+  public double getMz(int index) {
+    return mzs[index];
+  }
+
+  /**
+   * @return the first index with m/z >= lowerMz, may be {@link #size()}
+   */
+  public int lowerBoundIndex(double lowerMz) {
+    int low = 0;
+    int high = mzs.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (mzs[mid] < lowerMz) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Creates the lipid annotation on first access. All callers receive the same instance.
+   */
+  @NotNull
+  public LipidIon getLipidIon(int index) {
+    final LipidIon ion = lipidIons.get(index);
+    if (ion != null) {
+      return ion;
+    }
+    final SpeciesLevelAnnotation lipid = LIPID_FACTORY.buildSpeciesLevelLipid(
+        lipidClasses[classIndices[index]], carbons[index], dbes[index], 0);
+    if (lipid == null) {
+      throw new IllegalStateException(
+          "Cannot recreate lipid of class " + lipidClasses[classIndices[index]].getName());
+    }
+    final LipidIon created = new LipidIon(lipid, IONIZATION_TYPES[ionizations[index]],
+        mzs[index]);
+    return lipidIons.compareAndSet(index, null, created) ? created : lipidIons.get(index);
+  }
+}
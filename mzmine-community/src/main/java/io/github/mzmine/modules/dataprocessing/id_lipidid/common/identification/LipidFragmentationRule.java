@@ -30,6 +30,7 @@ import io.github.mzmine.datamodel.PolarityType;
 import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.LipidAnnotationLevel;
 import io.github.mzmine.modules.dataprocessing.id_lipidid.utils.LipidParsingUtils;
 import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
+import io.github.mzmine.util.FormulaUtils;
 import io.github.mzmine.util.ParsingUtils;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -51,6 +52,8 @@ public class LipidFragmentationRule {
   private LipidAnnotationLevel lipidFragmentInformationLevelType;
   private String molecularFormula;
   private LipidFragmentationRuleRating lipidFragmentationRuleRating;
+  // m/z of the fragment ion formula, calculated once
+  private volatile double fragmentMz = Double.NaN;
 
 
   public LipidFragmentationRule(PolarityType polarityType, IonizationType ionizationType) {
@@ -120,6 +123,22 @@ public class LipidFragmentationRule {
     return lipidFragmentationRuleRating;
   }
 
+  /**
+   * Only for rules with a molecular formula of the fragment ion, like
+   * {@link LipidFragmentationRuleType#HEADGROUP_FRAGMENT}. Calculated once and reused for all
+   * lipids and scans.
+   *
+   * @return the m/z of the molecular formula
+   */
+  public double getFragmentMz() {
+    double mz = fragmentMz;
+    if (Double.isNaN(mz)) {
+      mz = FormulaUtils.calculateMzRatio(molecularFormula);
+      fragmentMz = mz;
+    }
+    return mz;
+  }
+
   @Override
   public String toString() {
     if (lipidFragmentationRuleType != null) {
@@ -181,7 +181,8 @@ public class LipidFragmentFactory implements ILipidFragmentFactory {
   private List<LipidFragment> checkForHeadgroupFragment(LipidFragmentationRule rule,
       ILipidAnnotation lipidAnnotation, Scan msMsScan) {
     String fragmentFormula = rule.getMolecularFormula();
-    return findLipidFragmentFromIonFormula(rule, lipidAnnotation, msMsScan, fragmentFormula);
+    return findLipidFragmentFromIonFormula(rule, lipidAnnotation, msMsScan, fragmentFormula,
+        rule.getFragmentMz());
   }
 
   private List<LipidFragment> checkForHeadgroupFragmentNL(LipidFragmentationRule rule,
@@ -236,8 +237,7 @@ public class LipidFragmentFactory implements ILipidFragmentFactory {
 
   @NotNull
   private List<LipidFragment> findLipidFragmentFromIonFormula(LipidFragmentationRule rule,
-      ILipidAnnotation lipidAnnotation, Scan msMsScan, String ionFormula) {
-    Double mzExact = FormulaUtils.calculateMzRatio(ionFormula);
+      ILipidAnnotation lipidAnnotation, Scan msMsScan, String ionFormula, double mzExact) {
     BestDataPoint bestDataPoint = getBestDataPoint(mzExact);
     if (bestDataPoint.fragmentMatched()) {
       return List.of(new LipidFragment(rule.getLipidFragmentationRuleType(),
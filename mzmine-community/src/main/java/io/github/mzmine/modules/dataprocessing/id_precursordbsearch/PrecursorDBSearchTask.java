@@ -37,6 +37,7 @@ import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.spectraldb.entry.DBEntryField;
 import io.github.mzmine.util.spectraldb.entry.PrecursorDBFeatureIdentity;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryIndex;
 import io.github.mzmine.util.spectraldb.parser.AutoLibraryParser;
 import io.github.mzmine.util.spectraldb.parser.LibraryEntryProcessor;
 import io.github.mzmine.util.spectraldb.parser.UnsupportedFormatException;
@@ -174,11 +175,14 @@ class PrecursorDBSearchTask extends AbstractTask {
 
           @Override
           public void run() {
+            // sorted by precursor m/z to only check entries within tolerance
+            final SpectralLibraryIndex index = SpectralLibraryIndex.create(list);
             for (FeatureListRow row : peakList.getRows()) {
               if (this.isCanceled()) {
                 break;
               }
-              for (SpectralLibraryEntry db : list) {
+              for (SpectralLibraryEntry db : index.getCandidates(row.getAverageMZ(), mzTol,
+                  null)) {
                 if (this.isCanceled()) {
                   break;
                 }
@@ -53,6 +53,7 @@ import io.github.mzmine.util.scans.FragmentScanSelection;
 import io.github.mzmine.util.scans.FragmentScanSelection.IncludeInputSpectra;
 import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
+import io.github.mzmine.util.scans.similarity.PreparedQuery;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunction;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunctions;
@@ -60,11 +61,15 @@ import io.github.mzmine.util.spectraldb.entry.DBEntryField;
 import io.github.mzmine.util.spectraldb.entry.SpectralDBAnnotation;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryIndex;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -293,34 +298,33 @@ public class RowsSpectralMatchTask extends AbstractTask {
   @Override
   public void run() {
 
-    // combine libraries
-    List<SpectralLibraryEntry> entries = new ArrayList<>();
-    for (var lib : libraries) {
-      entries.addAll(lib.getEntries());
-    }
+    // precursor m/z index is built once per library and reused
+    final List<SpectralLibraryIndex> indexes = libraries.stream().map(SpectralLibrary::getIndex)
+        .toList();
+    final int numEntries = indexes.stream().mapToInt(SpectralLibraryIndex::size).sum();
 
     // run on spectra
     if (scan != null) {
       logger.info(
-          () -> String.format("Comparing %d library spectra to scan: %s", entries.size(), scan));
+          () -> String.format("Comparing %d library spectra to scan: %s", numEntries, scan));
 
-      matchScan(entries, scan);
+      matchScan(indexes, scan);
 
       logger.info(
           () -> String.format("library matches=%d (Errors:%d); library entries=%d; for scan: %s",
-              getCount(), getErrorCount(), entries.size(), scan));
+              getCount(), getErrorCount(), numEntries, scan));
     }
 
     // run in parallel
     if (rows != null) {
       logger.info(() -> String.format("Comparing %d library spectra to %d feature list rows",
-          entries.size(), totalRows));
+          numEntries, totalRows));
       // cannot use parallel.forEach with side effects - this thread will continue without waiting for
       // stream to finish
       var totalMatches = rows.stream().filter(FeatureListRow::hasMs2Fragmentation).parallel()
           .mapToInt(row -> {
             if (!isCanceled()) {
-              int matches = matchRowToLibraries(entries, row);
+              int matches = matchRowToLibraries(indexes, row);
               finishedRows.incrementAndGet();
               return matches;
             }
@@ -328,27 +332,56 @@ public class RowsSpectralMatchTask extends AbstractTask {
           }).sum();
       logger.info("Total spectral library matches " + totalMatches);
       logger.info(() -> String.format("library matches=%d (Errors:%d); rows=%d; library entries=%d",
-          getCount(), getErrorCount(), totalRows, entries.size()));
+          getCount(), getErrorCount(), totalRows, numEntries));
+    }
+  }
+
+  /**
+   * Collects all library entries that may match the precursor m/z and polarity. Without precursor
+   * filter (MS1 matching) all entries of matching polarity are returned. The exact precursor
+   * tolerance check is still applied in {@link #matchSpectrum}.
+   *
+   * @param indexes     one index per library
+   * @param precursorMz query precursor m/z
+   * @param polarities  polarities of the query spectra, null to skip polarity filter
+   * @return candidates in library order
+   */
+  private List<SpectralLibraryEntry> getCandidates(List<SpectralLibraryIndex> indexes,
+      double precursorMz, @Nullable Collection<PolarityType> polarities) {
+    if (msLevelFilter.isMs1Only() || mzTolerancePrecursor == null) {
+      List<SpectralLibraryEntry> entries = new ArrayList<>();
+      for (var index : indexes) {
+        entries.addAll(index.getEntries());
+      }
+      return entries;
+    }
+
+    List<SpectralLibraryEntry> entries = new ArrayList<>();
+    for (var index : indexes) {
+      entries.addAll(index.getCandidates(precursorMz, mzTolerancePrecursor, polarities));
     }
+    return entries;
   }
 
   /**
    * Match row against all entries, add matches, sort them by score
    *
-   * @param entries combined library entries
+   * @param indexes library indexes
    * @param scan    target scan
    */
-  public void matchScan(List<SpectralLibraryEntry> entries, Scan scan) {
+  public void matchScan(List<SpectralLibraryIndex> indexes, Scan scan) {
     try {
       // get mass list and perform deisotoping if active
       DataPoint[] masses = getDataPoints(scan, scan.getPrecursorMz());
+      // prepared once for all library entries
+      final PreparedQuery query = simFunction.prepareQuery(masses);
 
       // get a ccs for the precursor of this scan
       final Float precursorCCS = getPrecursorCCSFromMsMs(scan);
 
-      for (var entry : entries) {
+      for (var entry : getCandidates(indexes, scanPrecursorMZ, null)) {
         float rt = scan.getRetentionTime();
-        final SpectralSimilarity sim = matchSpectrum(rt, scanPrecursorMZ, precursorCCS, masses,
+        final SpectralSimilarity sim = matchSpectrum(rt, scanPrecursorMZ, precursorCCS, query,
             entry);
         if (sim != null) {
           Float ccsError = PercentTolerance.getPercentError(entry.getOrElse(DBEntryField.CCS, null),
@@ -401,10 +434,10 @@ public class RowsSpectralMatchTask extends AbstractTask {
   /**
    * Match row against all entries, add matches, sort them by score
    *
-   * @param entries combined library entries
+   * @param indexes library indexes
    * @param row     target row
    */
-  public int matchRowToLibraries(List<SpectralLibraryEntry> entries, FeatureListRow row) {
+  public int matchRowToLibraries(List<SpectralLibraryIndex> indexes, FeatureListRow row) {
     try {
       // All MS2 or only best MS2 scan
       // best MS1 scan
@@ -414,17 +447,20 @@ public class RowsSpectralMatchTask extends AbstractTask {
         return 0;
       }
 
-      List<DataPoint[]> rowMassLists = new ArrayList<>();
+      // queries are prepared once for all library entries
+      List<PreparedQuery> rowQueries = new ArrayList<>();
       for (Scan scan : scans) {
         // get mass list and perform deisotoping if active
         DataPoint[] rowMassList = getDataPoints(scan, row.getAverageMZ());
-        rowMassLists.add(rowMassList);
+        rowQueries.add(simFunction.prepareQuery(rowMassList));
       }
 
       final Float rowCCS = row.getAverageCCS();
+      final Set<PolarityType> polarities = scans.stream().map(Scan::getPolarity)
+          .collect(Collectors.toCollection(HashSet::new));
       List<SpectralDBAnnotation> ids = null;
-      // match against all library entries
-      for (SpectralLibraryEntry ident : entries) {
+      // match against all library entries within precursor tolerance
+      for (SpectralLibraryEntry ident : getCandidates(indexes, row.getAverageMZ(), polarities)) {
 
         final String entryPolarity = ident.getOrElse(DBEntryField.POLARITY, null);
 
@@ -439,7 +475,7 @@ public class RowsSpectralMatchTask extends AbstractTask {
           }
 
           SpectralSimilarity sim = matchSpectrum(row.getAverageRT(), row.getAverageMZ(), rowCCS,
-              rowMassLists.get(i), ident);
+              rowQueries.get(i), ident);
           if (sim != null && (!needsIsotopePattern || checkForIsotopePattern(sim,
               mzToleranceSpectra, minMatchedIsoSignals)) && (best == null
                                                              || best.getSimilarity().getScore()
@@ -487,12 +523,12 @@ public class RowsSpectralMatchTask extends AbstractTask {
    *
    * @param rowRT       retention time of query row
    * @param rowMZ       m/z of query row
-   * @param rowMassList mass list (data points) for row
+   * @param rowQuery    mass list (data points) for row, prepared by the similarity function
    * @param ident       library entry
    * @return spectral similarity or null if no match
    */
   private SpectralSimilarity matchSpectrum(Float rowRT, double rowMZ, Float rowCCS,
-      DataPoint[] rowMassList, SpectralLibraryEntry ident) {
+      PreparedQuery rowQuery, SpectralLibraryEntry ident) {
     // retention time
     // MS level 1 or check precursorMZ
     if (checkRT(rowRT, ident) && (msLevelFilter.isMs1Only() || checkPrecursorMZ(rowMZ, ident))
@@ -505,12 +541,13 @@ public class RowsSpectralMatchTask extends AbstractTask {
       // crop the spectra to their overlapping mz range
       // helpful when comparing spectra, acquired with different
       // fragmentation energy
-      DataPoint[] query = rowMassList;
+      PreparedQuery query = rowQuery;
       if (cropSpectraToOverlap) {
-        DataPoint[][] cropped = ScanAlignment.cropToOverlap(mzToleranceSpectra, library, query,
-            ident.getPrecursorMZ(), rowMZ);
+        DataPoint[][] cropped = ScanAlignment.cropToOverlap(mzToleranceSpectra, library,
+            rowQuery.dataPoints(), ident.getPrecursorMZ(), rowMZ);
         library = cropped[0];
-        query = cropped[1];
+        // the cropped query differs for each library entry
+        query = simFunction.prepareQuery(cropped[1]);
       }
 
       // remove precursor signals
@@ -554,7 +591,7 @@ public class RowsSpectralMatchTask extends AbstractTask {
    *
    * @return positive match with similarity or null if criteria was not met
    */
-  private SpectralSimilarity createSimilarity(DataPoint[] library, DataPoint[] query) {
+  private SpectralSimilarity createSimilarity(DataPoint[] library, PreparedQuery query) {
     return simFunction.getSimilarity(mzToleranceSpectra, minMatch, library, query);
   }
 
@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.norm_linear;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -62,7 +63,7 @@ public class LinearNormalizerModule implements MZmineProcessingModule {
 
     FeatureList featureLists[] = parameters.getParameter(LinearNormalizerParameters.featureLists).getValue()
         .getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (FeatureList featureList : featureLists) {
       Task newTask = new LinearNormalizerTask(project, featureList, parameters, storage, moduleCallDate);
@@ -32,7 +32,7 @@ import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -64,7 +64,7 @@ public class RTCorrectionModule implements MZmineProcessingModule {
       MZmineCore.getDesktop().displayErrorMessage(msg);
     } else {
       RTCorrectionTask newTask = new RTCorrectionTask(project, parameters,
-          MemoryMapStorage.forFeatureList(), moduleCallDate);
+          TieredStorageManager.forFeatureList(), moduleCallDate);
       tasks.add(newTask);
     }
     return ExitCode.OK;
@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.norm_standardcompound;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -65,7 +66,7 @@ public class StandardCompoundNormalizerModule implements MZmineProcessingModule
 
     FeatureList featureLists[] = parameters.getParameter(StandardCompoundNormalizerParameters.featureList)
         .getValue().getMatchingFeatureLists();
-    final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+    final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
     for (FeatureList featureList : featureLists) {
       Task newTask = new StandardCompoundNormalizerTask(project, featureList, parameters, storage, moduleCallDate);
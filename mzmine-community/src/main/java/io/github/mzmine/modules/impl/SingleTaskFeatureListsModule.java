@@ -35,6 +35,7 @@ import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsParamete
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -79,7 +80,7 @@ public abstract class SingleTaskFeatureListsModule extends AbstractProcessingMod
     try {
       var featureLists = ParameterUtils.getMatchingFeatureListsFromParameter(parameters);
 
-      MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+      MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
       // create single task for all feature lists
       Task newTask = createTask(project, parameters, moduleCallDate, storage, featureLists);
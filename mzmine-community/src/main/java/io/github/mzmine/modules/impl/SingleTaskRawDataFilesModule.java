@@ -35,6 +35,7 @@ import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParamete
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -79,7 +80,7 @@ public abstract class SingleTaskRawDataFilesModule extends AbstractProcessingMod
     try {
       var dataFiles = ParameterUtils.getMatchingRawDataFilesFromParameter(parameters);
 
-      MemoryMapStorage storage = MemoryMapStorage.forMassList();
+      MemoryMapStorage storage = TieredStorageManager.forMassList();
 
       // create single task for all RawDataFiles
       Task newTask = createTask(project, parameters, moduleCallDate, storage, dataFiles);
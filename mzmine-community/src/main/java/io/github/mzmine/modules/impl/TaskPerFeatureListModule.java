@@ -35,6 +35,7 @@ import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsParamete
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -85,7 +86,8 @@ public abstract class TaskPerFeatureListModule extends AbstractProcessingModule
     try {
       var featureLists = ParameterUtils.getMatchingFeatureListsFromParameter(parameters);
 
-      MemoryMapStorage storage = requiresMemoryMapping ? MemoryMapStorage.forFeatureList() : null;
+      MemoryMapStorage storage =
+          requiresMemoryMapping ? TieredStorageManager.forFeatureList() : null;
 
       // create and start one task for each feature list
       for (final FeatureList featureList : featureLists) {
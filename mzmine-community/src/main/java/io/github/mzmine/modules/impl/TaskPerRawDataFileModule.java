@@ -35,6 +35,7 @@ import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParamete
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.function.Supplier;
@@ -89,7 +90,7 @@ public abstract class TaskPerRawDataFileModule extends AbstractProcessingModule
       var rawFiles = ParameterUtils.getMatchingRawDataFilesFromParameter(parameters);
 
       // raw data processing modules memory map to mass list storage
-      MemoryMapStorage storage = requiresMemoryMapping ? MemoryMapStorage.forMassList() : null;
+      MemoryMapStorage storage = requiresMemoryMapping ? TieredStorageManager.forMassList() : null;
 
       // create and start one task for each RawDataFile
       for (final var raw : rawFiles) {
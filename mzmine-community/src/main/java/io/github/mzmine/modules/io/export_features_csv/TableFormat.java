@@ -34,8 +34,8 @@ public enum TableFormat {
    */
   WIDE,
   /**
-   * AN export format where each type is a new row in the table: Columns are:
-   * feature_id,sample,type,value
+   * A long export format with one table row per feature (row and sample). Row types are repeated
+   * for each feature and the sample is defined in a separate column
    */
   LONG;
 
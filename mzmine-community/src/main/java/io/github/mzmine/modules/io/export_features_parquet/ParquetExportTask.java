@@ -0,0 +1,522 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.export_features_parquet;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularDataModel;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.LinkedGraphicalType;
+import io.github.mzmine.datamodel.features.types.modifiers.NoTextColumn;
+import io.github.mzmine.datamodel.features.types.modifiers.NullColumnType;
+import io.github.mzmine.datamodel.features.types.modifiers.SubColumnsFactory;
+import io.github.mzmine.modules.io.export_features_csv.CSVExportModularTask;
+import io.github.mzmine.modules.io.export_features_csv.TableFormat;
+import io.github.mzmine.modules.io.export_features_gnps.fbmn.FeatureListRowsFilter;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.ProcessedItemsCounter;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.FeatureListRowSorter;
+import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.io.parquet.EncodedRowGroup;
+import io.github.mzmine.util.io.parquet.ParquetColumn;
+import io.github.mzmine.util.io.parquet.ParquetFileWriter;
+import io.github.mzmine.util.io.parquet.ParquetType;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Exports feature lists to Apache Parquet files. In contrast to the CSV export, each column keeps
+ * the value type of its {@link DataType} (numbers, booleans) and missing values are written as
+ * null. Strings are formatted like in the CSV export. Row groups are encoded and compressed in
+ * parallel and written in row order. Row groups are sized by the encoded bytes of the previous
+ * groups, with at least {@link #MIN_ROWS_PER_GROUP} rows. Canceled or failed exports delete the
+ * incomplete file.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class ParquetExportTask extends AbstractTask implements ProcessedItemsCounter {
+
+  private static final Logger logger = Logger.getLogger(ParquetExportTask.class.getName());
+  // target size of the encoded row groups before compression. Larger groups compress better and
+  // keep the footer small, smaller groups are encoded in parallel with less memory
+  private static final long ROW_GROUP_BYTES = 32L << 20;
+  // feature list rows per group until the encoded size of a row is known, and the lower limit
+  private static final int MIN_ROWS_PER_GROUP = 10_000;
+  private final String headerSeparator = ":";
+  private final ModularFeatureList[] featureLists;
+  // parameter values
+  private final File fileName;
+  private final TableFormat tableFormat;
+  private final FeatureListRowsFilter rowFilter;
+  private final boolean removeEmptyCols;
+  private final ParameterSet parameters;
+  // track number of exported items
+  private final AtomicInteger exportedRows = new AtomicInteger(0);
+  private int processedRows = 0, totalRows = 0;
+
+  public ParquetExportTask(ParameterSet parameters, @NotNull Instant moduleCallDate) {
+    super(null, moduleCallDate); // no new data stored -> null
+    this.featureLists = parameters.getParameter(ParquetExportParameters.featureLists).getValue()
+        .getMatchingFeatureLists();
+    fileName = parameters.getValue(ParquetExportParameters.filename);
+    tableFormat = parameters.getValue(ParquetExportParameters.tableFormat);
+    rowFilter = parameters.getValue(ParquetExportParameters.filter);
+    removeEmptyCols = parameters.getValue(ParquetExportParameters.omitEmptyColumns);
+    this.parameters = parameters;
+  }
+
+  @Override
+  public int getProcessedItems() {
+    return exportedRows.get();
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    if (totalRows == 0) {
+      return 0;
+    }
+    return (double) processedRows / (double) totalRows;
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Exporting feature list(s) " + Arrays.toString(featureLists) + " to Parquet file(s)";
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+
+    // Shall export several files?
+    String plNamePattern = "{}";
+    boolean substitute = fileName.getPath().contains(plNamePattern);
+
+    if (!substitute && featureLists.length > 1) {
+      setErrorMessage("""
+          Cannot export multiple feature lists to the same Parquet file. Please use "{}" pattern in filename.\
+          This will be replaced with the feature list name to generate one file per feature list.
+          """);
+      setStatus(TaskStatus.ERROR);
+      return;
+    }
+
+    // Total number of rows
+    for (ModularFeatureList featureList : featureLists) {
+      totalRows += featureList.getNumberOfRows();
+    }
+
+    // Process feature lists
+    for (ModularFeatureList featureList : featureLists) {
+      // Cancel?
+      if (isCanceled()) {
+        return;
+      }
+      // check concurrent modification during export
+      final int numRows = featureList.getNumberOfRows();
+      final long numFeatures = featureList.streamFeatures().count();
+
+      // Filename
+      File curFile = fileName;
+      if (substitute) {
+        // Cleanup from illegal filename characters
+        String cleanPlName = featureList.getName().replaceAll("[^a-zA-Z0-9.-]", "_");
+        // Substitute
+        String newFilename = fileName.getPath()
+            .replaceAll(Pattern.quote(plNamePattern), cleanPlName);
+        curFile = new File(newFilename);
+      }
+      curFile = FileAndPathUtil.getRealFilePath(curFile, "parquet");
+
+      try {
+        exportFeatureList(featureList, curFile);
+      } catch (IOException | UncheckedIOException e) {
+        setStatus(TaskStatus.ERROR);
+        setErrorMessage("Could not write file " + curFile + ". " + e.getMessage());
+        logger.log(Level.WARNING, String.format(
+            "Error writing Parquet file: %s for feature list: %s. Message: %s",
+            curFile.getAbsolutePath(), featureList.getName(), e.getMessage()), e);
+        return;
+      }
+      if (isCanceled()) {
+        return;
+      }
+
+      checkConcurrentModification(featureList, numRows, numFeatures);
+
+      featureList.getAppliedMethods().add(
+          new SimpleFeatureListAppliedMethod(ParquetExportModule.class, parameters,
+              getModuleCallDate()));
+
+      // If feature list substitution pattern wasn't found,
+      // treat one feature list only
+      if (!substitute) {
+        break;
+      }
+    }
+
+    if (getStatus() == TaskStatus.PROCESSING) {
+      setStatus(TaskStatus.FINISHED);
+    }
+  }
+
+  private void exportFeatureList(ModularFeatureList flist, File file) throws IOException {
+    final List<FeatureListRow> rows = flist.getRows().stream().filter(rowFilter::accept)
+        .sorted(FeatureListRowSorter.DEFAULT_ID).toList();
+    final List<RawDataFile> rawDataFiles = flist.getRawDataFiles();
+    // non-exported rows count as processed
+    processedRows += flist.getNumberOfRows() - rows.size();
+
+    final List<TypeColumn> rowColumns = createColumns(flist.getRowTypes(), rows, false);
+    final List<TypeColumn> featureColumns = createColumns(flist.getFeatureTypes(), rows, true);
+
+    final List<ParquetColumn> columns = new ArrayList<>();
+    rowColumns.forEach(col -> columns.add(new ParquetColumn(col.id(), col.parquetType())));
+
+    final String prefix = CSVExportModularTask.DATAFILE_PREFIX;
+    final Function<List<FeatureListRow>, EncodedRowGroup> encoder;
+    if (tableFormat == TableFormat.LONG) {
+      columns.add(new ParquetColumn(prefix, ParquetType.STRING));
+      featureColumns.forEach(col -> columns.add(
+          new ParquetColumn(prefix + headerSeparator + col.id(), col.parquetType())));
+      encoder = group -> encodeLong(columns, group, rawDataFiles, rowColumns, featureColumns);
+    } else {
+      for (RawDataFile raw : rawDataFiles) {
+        featureColumns.forEach(col -> columns.add(new ParquetColumn(
+            prefix + headerSeparator + raw.getName() + headerSeparator + col.id(),
+            col.parquetType())));
+      }
+      encoder = group -> encodeWide(columns, group, rawDataFiles, rowColumns, featureColumns);
+    }
+
+    // the footer is only written for complete exports, otherwise the file is deleted
+    final ParquetFileWriter writer = new ParquetFileWriter(file.toPath(), columns);
+    try {
+      writeRowGroups(writer, rows, encoder);
+    } catch (IOException | RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+    if (isCanceled()) {
+      writer.abort();
+      return;
+    }
+    writer.close();
+  }
+
+  /**
+   * Encodes row groups in parallel and writes them in order. The number of groups in memory is
+   * limited. Returns early if the task is canceled.
+   */
+  private void writeRowGroups(ParquetFileWriter writer, List<FeatureListRow> rows,
+      Function<List<FeatureListRow>, EncodedRowGroup> encoder) throws IOException {
+    final int maxInFlight = ForkJoinPool.getCommonPoolParallelism() * 2;
+    final Deque<CompletableFuture<EncodedRowGroup>> pending = new ArrayDeque<>();
+    final Deque<Integer> pendingRows = new ArrayDeque<>();
+    // encoded bytes and feature list rows of all written groups
+    long writtenBytes = 0;
+    long writtenRows = 0;
+    int start = 0;
+    try {
+      while (start < rows.size() || !pending.isEmpty()) {
+        if (isCanceled()) {
+          return;
+        }
+        if (start < rows.size() && pending.size() < maxInFlight) {
+          final int rowsPerGroup = rowsPerGroup(writtenBytes, writtenRows);
+          final List<FeatureListRow> group = rows.subList(start,
+              Math.min(rows.size(), start + rowsPerGroup));
+          pending.add(CompletableFuture.supplyAsync(() -> encoder.apply(group)));
+          pendingRows.add(group.size());
+          start += group.size();
+          continue;
+        }
+
+        // write groups in row order
+        final EncodedRowGroup encoded = join(pending.removeFirst());
+        writer.writeRowGroup(encoded);
+        final int groupRows = pendingRows.removeFirst();
+        writtenBytes += encoded.uncompressedSize();
+        writtenRows += groupRows;
+        exportedRows.addAndGet(groupRows);
+        processedRows += groupRows;
+      }
+    } finally {
+      pending.forEach(group -> group.cancel(false));
+    }
+  }
+
+  private static EncodedRowGroup join(CompletableFuture<EncodedRowGroup> group)
+      throws IOException {
+    try {
+      return group.join();
+    } catch (RuntimeException ex) {
+      if (ex.getCause() instanceof UncheckedIOException io) {
+        throw io.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * @param writtenBytes encoded bytes of the written row groups before compression
+   * @param writtenRows  feature list rows in the written row groups
+   * @return number of feature list rows to reach {@link #ROW_GROUP_BYTES} but at least
+   * {@link #MIN_ROWS_PER_GROUP}
+   */
+  private static int rowsPerGroup(long writtenBytes, long writtenRows) {
+    if (writtenRows == 0 || writtenBytes == 0) {
+      return MIN_ROWS_PER_GROUP;
+    }
+    final double bytesPerRow = (double) writtenBytes / writtenRows;
+    return (int) Math.max(MIN_ROWS_PER_GROUP,
+        Math.min(Integer.MAX_VALUE, ROW_GROUP_BYTES / bytesPerRow));
+  }
+
+  /**
+   * One table row per feature list row with all feature columns for each raw data file
+   */
+  private static EncodedRowGroup encodeWide(List<ParquetColumn> columns,
+      List<FeatureListRow> rows, List<RawDataFile> rawDataFiles, List<TypeColumn> rowColumns,
+      List<TypeColumn> featureColumns) {
+    final Object[][] values = new Object[columns.size()][rows.size()];
+    for (int r = 0; r < rows.size(); r++) {
+      final FeatureListRow row = rows.get(r);
+      int c = 0;
+      for (TypeColumn col : rowColumns) {
+        values[c++][r] = col.extract(row);
+      }
+      for (RawDataFile raw : rawDataFiles) {
+        final ModularFeature feature = (ModularFeature) row.getFeature(raw);
+        for (TypeColumn col : featureColumns) {
+          values[c++][r] = col.extract(feature);
+        }
+      }
+    }
+    return ParquetFileWriter.encodeRowGroup(columns, values, rows.size());
+  }
+
+  /**
+   * One table row per detected feature with the row values repeated and the raw data file name
+   */
+  private static EncodedRowGroup encodeLong(List<ParquetColumn> columns,
+      List<FeatureListRow> rows, List<RawDataFile> rawDataFiles, List<TypeColumn> rowColumns,
+      List<TypeColumn> featureColumns) {
+    int numRecords = 0;
+    for (FeatureListRow row : rows) {
+      for (RawDataFile raw : rawDataFiles) {
+        if (row.getFeature(raw) != null) {
+          numRecords++;
+        }
+      }
+    }
+
+    final Object[][] values = new Object[columns.size()][numRecords];
+    int r = 0;
+    for (FeatureListRow row : rows) {
+      // row values are the same for all features of this row
+      final Object[] rowValues = rowColumns.stream().map(col -> col.extract(row)).toArray();
+      for (RawDataFile raw : rawDataFiles) {
+        final ModularFeature feature = (ModularFeature) row.getFeature(raw);
+        if (feature == null) {
+          continue;
+        }
+        int c = 0;
+        for (Object rowValue : rowValues) {
+          values[c++][r] = rowValue;
+        }
+        values[c++][r] = raw.getName();
+        for (TypeColumn col : featureColumns) {
+          values[c++][r] = col.extract(feature);
+        }
+        r++;
+      }
+    }
+    return ParquetFileWriter.encodeRowGroup(columns, values, numRecords);
+  }
+
+  /**
+   * Columns for each type and sub type that are exported
+   *
+   * @param featureType defines if row or feature types (true)
+   */
+  @SuppressWarnings("rawtypes")
+  private List<TypeColumn> createColumns(Collection<DataType> types, List<FeatureListRow> rows,
+      boolean featureType) {
+    final List<TypeColumn> columns = new ArrayList<>();
+    for (DataType type : types) {
+      if (!filterType(type)) {
+        continue;
+      }
+      if (type instanceof SubColumnsFactory subFactory) {
+        int subCols = subFactory.getNumberOfSubColumns();
+        for (int s = 0; s < subCols; s++) {
+          DataType<?> subType = subFactory.getType(s);
+          if (!filterType(subType)) {
+            continue;
+          }
+          addIfContainsData(columns, new TypeColumn(
+              type.getUniqueID() + headerSeparator + subFactory.getUniqueID(s), type, s,
+              ParquetType.forValueClass(subType.getValueClass())), rows, featureType);
+        }
+      } else {
+        addIfContainsData(columns, new TypeColumn(type.getUniqueID(), type, -1,
+            ParquetType.forValueClass(type.getValueClass())), rows, featureType);
+      }
+    }
+    return columns;
+  }
+
+  private void addIfContainsData(List<TypeColumn> columns, TypeColumn column,
+      List<FeatureListRow> rows, boolean featureType) {
+    if (!removeEmptyCols || getDataStream(rows, featureType)
+        .anyMatch(data -> column.extract(data) != null)) {
+      columns.add(column);
+    }
+  }
+
+  /**
+   * Data stream for rows or all features
+   */
+  private static Stream<? extends ModularDataModel> getDataStream(List<FeatureListRow> rows,
+      boolean featureType) {
+    if (featureType) {
+      return rows.stream().flatMap(row -> row.getFeatures().stream());
+    }
+    return rows.stream();
+  }
+
+  /**
+   * @return true if type should be exported
+   */
+  private boolean filterType(DataType<?> type) {
+    return !(type instanceof NoTextColumn || type instanceof NullColumnType
+             || type instanceof LinkedGraphicalType);
+  }
+
+  private void checkConcurrentModification(FeatureList featureList, int numRows,
+      long numFeatures) {
+    final int numRowsEnd = featureList.getNumberOfRows();
+    final long numFeaturesEnd = featureList.streamFeatures().count();
+
+    if (numRows != numRowsEnd) {
+      throw new ConcurrentModificationException(String.format(
+          "Detected modification to number of ROWS during featurelist (%s) Parquet export old=%d new=%d",
+          featureList.getName(), numRows, numRowsEnd));
+    }
+    if (numFeatures != numFeaturesEnd) {
+      throw new ConcurrentModificationException(String.format(
+          "Detected modification to number of FEATURES during featurelist (%s) Parquet export old=%d new=%d",
+          featureList.getName(), numFeatures, numFeaturesEnd));
+    }
+  }
+
+  /**
+   * A Parquet column for a data type or one of its sub columns
+   *
+   * @param id          column id
+   * @param type        the data type
+   * @param sub         the sub column index or -1 for the main value
+   * @param parquetType the column type. Values of other types are formatted as strings
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private record TypeColumn(String id, DataType type, int sub, ParquetType parquetType) {
+
+    /**
+     * @return the typed value, the formatted export string, or null if there is no value
+     */
+    @Nullable
+    Object extract(@Nullable ModularDataModel data) {
+      final Object value = data == null ? null : data.get(type);
+      if (value == null) {
+        return null;
+      }
+      try {
+        if (sub >= 0) {
+          final SubColumnsFactory subFactory = (SubColumnsFactory) type;
+          if (parquetType == ParquetType.STRING) {
+            return emptyToNull(subFactory.getFormattedSubColExportValue(sub, value));
+          }
+          return typedValue(subFactory.getSubColValue(sub, value));
+        }
+        if (parquetType == ParquetType.STRING) {
+          return emptyToNull(type.getFormattedExportString(value));
+        }
+        return typedValue(value);
+      } catch (Exception e) {
+        logger.log(Level.FINEST,
+            "Cannot format value of type " + type.getClass().getName() + " value: " + value, e);
+        return null;
+      }
+    }
+
+    @Nullable
+    private Object typedValue(@Nullable Object value) {
+      if (parquetType.accepts(value)) {
+        return value;
+      }
+      // widen other numbers
+      if (value instanceof Number number) {
+        return switch (parquetType) {
+          case DOUBLE -> number.doubleValue();
+          case INT64 -> value instanceof Integer || value instanceof Short || value instanceof Byte
+              ? number.longValue() : null;
+          default -> null;
+        };
+      }
+      return null;
+    }
+
+    @Nullable
+    private static String emptyToNull(@Nullable String value) {
+      return value == null || value.isBlank() ? null : value;
+    }
+  }
+}
@@ -31,7 +31,7 @@ import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
@@ -53,7 +53,8 @@ public class CsvImportModule implements MZmineProcessingModule {
   public @NotNull
   ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
-    CsvImportTask task = new CsvImportTask(project, parameters, MemoryMapStorage.forFeatureList(), moduleCallDate);
+    CsvImportTask task = new CsvImportTask(project, parameters,
+        TieredStorageManager.forFeatureList(), moduleCallDate);
     tasks.add(task);
     return ExitCode.OK;
   }
@@ -59,6 +59,7 @@ import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RawDataFileUtils;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -265,7 +266,7 @@ public class MzTabmImportTask extends AbstractTask {
     }
 
     // one storage for all files imported in the same task as they are typically analyzed together
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     // Find a matching RawDataFile for each msRun object
     for (MsRun singleRun : msrun) {
@@ -63,6 +63,7 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RawDataFileType;
 import io.github.mzmine.util.RawDataFileTypeDetector;
 import io.github.mzmine.util.collections.CollectionUtils;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
 import java.io.File;
 import java.io.IOException;
@@ -268,7 +269,7 @@ public class AllSpectralDataImportModule implements MZmineProcessingModule {
     }
 
     // one storage for all files imported in the same task as they are typically analyzed together
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     final List<RawDataFileType> fileTypes = Arrays.stream(fileNames).<RawDataFileType>mapMulti(
         (filename, consumer) -> consumer.accept(
@@ -464,7 +465,7 @@ public class AllSpectralDataImportModule implements MZmineProcessingModule {
 
   public MemoryMapStorage getMassListStorage() {
     if (storageMassLists == null) {
-      this.storageMassLists = MemoryMapStorage.forMassList();
+      this.storageMassLists = TieredStorageManager.forMassList();
     }
     return storageMassLists;
   }
@@ -33,6 +33,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.time.Instant;
 import java.util.Collection;
@@ -50,7 +51,7 @@ public class BafImportModule extends AbstractProcessingModule {
       @NotNull ParameterSet parameters, @NotNull Collection<Task> tasks,
       @NotNull Instant moduleCallDate) {
 
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
     for (File file : parameters.getValue(BafImportParameters.files)) {
       tasks.add(new BafImportTask(storage, moduleCallDate, file, BafImportModule.class, parameters,
           project, ScanImportProcessorConfig.createDefault()));
@@ -36,6 +36,7 @@ import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RawDataFileUtils;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
@@ -110,7 +111,7 @@ public class TDFImportModule implements MZmineProcessingModule {
 
       try {
         // IMS files are big, reserve a single storage for each file
-        final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+        final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
         IMSRawDataFile newMZmineFile = MZmineCore.createNewIMSFile(newName,
             fileNames[i].getAbsolutePath(), storage);
@@ -37,6 +37,7 @@ import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RawDataFileUtils;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.time.Instant;
 import java.util.Arrays;
@@ -73,7 +74,7 @@ public class TSFImportModule implements MZmineProcessingModule {
   public ExitCode runModule(@NotNull MZmineProject project, @NotNull ParameterSet parameters,
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
     File fileNames[] = parameters.getParameter(TDFImportParameters.fileNames).getValue();
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     if (Arrays.asList(fileNames).contains(null)) {
       logger.warning("List of filenames contains null");
@@ -38,6 +38,7 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RawDataFileType;
 import io.github.mzmine.util.RawDataFileTypeDetector;
 import io.github.mzmine.util.RawDataFileUtils;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
@@ -94,7 +95,7 @@ public class IcpMsCVSImportModule implements MZmineProcessingModule {
     String commonPrefix = RawDataFileUtils.askToRemoveCommonPrefix(fileNames);
 
     // one storage for all files imported in the same task as they are typically analyzed together
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     for (int i = 0; i < fileNames.length; i++) {
 
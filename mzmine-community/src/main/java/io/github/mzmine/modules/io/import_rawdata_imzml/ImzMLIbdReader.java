@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads the binary data of imzML spectra directly from the memory mapped .ibd file. The offsets,
+ * lengths and data types of the m/z and intensity arrays are read once from the imzML with a
+ * streaming XML parser. Reading is thread safe, so spectra can be decoded in parallel.
+ * <p>
+ * Arrays are mapped in segments of 1 GB that overlap by 64 MB, larger arrays crossing a segment
+ * border are read from the file channel instead.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class ImzMLIbdReader implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(ImzMLIbdReader.class.getName());
+
+  private static final long SEGMENT_SIZE = 1L << 30;
+  private static final long SEGMENT_OVERLAP = 1L << 26;
+
+  // cv accessions
+  private static final String MZ_ARRAY = "MS:1000514";
+  private static final String INTENSITY_ARRAY = "MS:1000515";
+  private static final String FLOAT_32 = "MS:1000521";
+  private static final String FLOAT_64 = "MS:1000523";
+  private static final String INT_32 = "MS:1000519";
+  private static final String INT_64 = "MS:1000522";
+  private static final String NO_COMPRESSION = "MS:1000576";
+  private static final String EXTERNAL_OFFSET = "IMS:1000102";
+  private static final String EXTERNAL_ARRAY_LENGTH = "IMS:1000103";
+
+  private final FileChannel channel;
+  private final long size;
+  private final MappedByteBuffer[] segments;
+  private final List<SpectrumLocation> locations;
+
+  private ImzMLIbdReader(@NotNull File ibdFile, @NotNull List<SpectrumLocation> locations)
+      throws IOException {
+    this.locations = locations;
+    channel = FileChannel.open(ibdFile.toPath(), StandardOpenOption.READ);
+    try {
+      size = channel.size();
+      segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+      for (int s = 0; s < segments.length; s++) {
+        final long start = s * SEGMENT_SIZE;
+        segments[s] = channel.map(MapMode.READ_ONLY, start,
+            Math.min(size - start, SEGMENT_SIZE + SEGMENT_OVERLAP));
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the .ibd file next to the imzML file
+   *
+   * @param imzMLFile        the imzML file
+   * @param expectedSpectra  number of spectra found by the imzML parser
+   * @return the reader or null if the .ibd file is missing or the spectra do not match
+   */
+  @Nullable
+  public static ImzMLIbdReader open(@NotNull File imzMLFile, int expectedSpectra) {
+    final File ibdFile = findIbdFile(imzMLFile);
+    if (ibdFile == null) {
+      logger.warning("No .ibd file found for " + imzMLFile);
+      return null;
+    }
+    try {
+      final List<SpectrumLocation> locations = readSpectrumLocations(imzMLFile);
+      if (locations.size() != expectedSpectra) {
+        logger.warning("Found %d spectra in %s but expected %d".formatted(locations.size(),
+            imzMLFile.getName(), expectedSpectra));
+        return null;
+      }
+      return new ImzMLIbdReader(ibdFile, locations);
+    } catch (IOException | XMLStreamException e) {
+      logger.warning("Cannot memory map .ibd file of %s: %s".formatted(imzMLFile.getName(),
+          e.getMessage()));
+      return null;
+    }
+  }
+
+  /**
+   * @return the .ibd file with the same name as the imzML file or null
+   */
+  @Nullable
+  public static File findIbdFile(@NotNull File imzMLFile) {
+    final String name = imzMLFile.getName();
+    final int dot = name.lastIndexOf('.');
+    final String base = dot < 0 ? name : name.substring(0, dot);
+    for (String extension : new String[]{".ibd", ".IBD", ".Ibd"}) {
+      final File ibd = new File(imzMLFile.getParentFile(), base + extension);
+      if (ibd.isFile()) {
+        return ibd;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Streams through the imzML and collects the data locations of all spectra in document order.
+   * Referenceable param groups are resolved.
+   *
+   * @return one entry per spectrum, the entry is null if the data cannot be read directly (e.g.,
+   * compressed or unsupported data types)
+   */
+  @NotNull
+  public static List<SpectrumLocation> readSpectrumLocations(@NotNull File imzMLFile)
+      throws IOException, XMLStreamException {
+    final Map<String, List<String[]>> paramGroups = new HashMap<>();
+    final List<SpectrumLocation> locations = new ArrayList<>();
+
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    try (InputStream in = new BufferedInputStream(new FileInputStream(imzMLFile), 1 << 16)) {
+      final XMLStreamReader reader = factory.createXMLStreamReader(in);
+      List<String[]> currentGroup = null;
+      boolean inSpectrum = false;
+      ArrayLocationBuilder array = null;
+      ArrayLocation mzs = null;
+      ArrayLocation intensities = null;
+
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          switch (reader.getLocalName()) {
+            case "referenceableParamGroup" -> {
+              currentGroup = new ArrayList<>();
+              paramGroups.put(reader.getAttributeValue(null, "id"), currentGroup);
+            }
+            case "spectrum" -> {
+              inSpectrum = true;
+              mzs = null;
+              intensities = null;
+            }
+            case "binaryDataArray" -> array = inSpectrum ? new ArrayLocationBuilder() : null;
+            case "referenceableParamGroupRef" -> {
+              final List<String[]> group = paramGroups.get(reader.getAttributeValue(null, "ref"));
+              if (array != null && group != null) {
+                for (String[] param : group) {
+                  array.addParam(param[0], param[1]);
+                }
+              }
+            }
+            case "cvParam" -> {
+              final String accession = reader.getAttributeValue(null, "accession");
+              final String value = reader.getAttributeValue(null, "value");
+              if (array != null) {
+                array.addParam(accession, value);
+              } else if (currentGroup != null) {
+                currentGroup.add(new String[]{accession, value});
+              }
+            }
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          switch (reader.getLocalName()) {
+            case "referenceableParamGroup" -> currentGroup = null;
+            case "binaryDataArray" -> {
+              if (array != null) {
+                if (array.mzArray) {
+                  mzs = array.build();
+                } else if (array.intensityArray) {
+                  intensities = array.build();
+                }
+              }
+              array = null;
+            }
+            case "spectrum" -> {
+              inSpectrum = false;
+              locations.add(
+                  mzs == null || intensities == null || mzs.length() != intensities.length() ? null
+                      : new SpectrumLocation(mzs, intensities));
+            }
+          }
+        }
+      }
+      reader.close();
+    }
+    return locations;
+  }
+
+  public int getNumberOfSpectra() {
+    return locations.size();
+  }
+
+  /**
+   * @param spectrumIndex index of the spectrum in the imzML
+   * @return true if the data of this spectrum can be read from the .ibd file
+   */
+  public boolean hasData(int spectrumIndex) {
+    return locations.get(spectrumIndex) != null;
+  }
+
+  /**
+   * Decodes the m/z and intensity values of a spectrum. Thread safe.
+   *
+   * @param spectrumIndex index of the spectrum in the imzML, check {@link #hasData(int)} first
+   * @return the spectral data
+   */
+  @NotNull
+  public SimpleSpectralArrays readSpectrum(int spectrumIndex) throws IOException {
+    final SpectrumLocation location = locations.get(spectrumIndex);
+    if (location == null) {
+      throw new IOException("No data location for spectrum " + spectrumIndex);
+    }
+    return new SimpleSpectralArrays(readValues(location.mzs()), readValues(location.intensities()));
+  }
+
+  private double[] readValues(ArrayLocation array) throws IOException {
+    final int n = array.length();
+    final ByteBuffer buffer = slice(array.offset(), (long) n * array.type().bytes);
+    final double[] values = new double[n];
+    switch (array.type()) {
+      case FLOAT_64 -> buffer.asDoubleBuffer().get(values);
+      case FLOAT_32 -> {
+        final FloatBuffer floats = buffer.asFloatBuffer();
+        for (int i = 0; i < n; i++) {
+          values[i] = floats.get(i);
+        }
+      }
+      case INT_32 -> {
+        final IntBuffer ints = buffer.asIntBuffer();
+        for (int i = 0; i < n; i++) {
+          values[i] = ints.get(i);
+        }
+      }
+      case INT_64 -> {
+        final LongBuffer longs = buffer.asLongBuffer();
+        for (int i = 0; i < n; i++) {
+          values[i] = longs.get(i);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return a little endian view of the bytes, from the mapped segments if possible
+   */
+  private ByteBuffer slice(long offset, long bytes) throws IOException {
+    if (offset < 0 || bytes > Integer.MAX_VALUE || offset + bytes > size) {
+      throw new EOFException(
+          "Array at offset %d with %d bytes exceeds the .ibd file size %d".formatted(offset, bytes,
+              size));
+    }
+    if (bytes == 0) {
+      return ByteBuffer.allocate(0);
+    }
+    final int segment = (int) (offset / SEGMENT_SIZE);
+    final long relative = offset - segment * SEGMENT_SIZE;
+    if (relative + bytes <= segments[segment].capacity()) {
+      // slice does not change the shared buffer, safe for concurrent reads
+      return segments[segment].slice((int) relative, (int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    final ByteBuffer buffer = ByteBuffer.allocate((int) bytes);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of .ibd file at " + (offset + buffer.position()));
+      }
+    }
+    return buffer.flip().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Closes the file channel. Mapped segments stay valid until they are garbage collected.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  enum ArrayDataType {
+    FLOAT_32(4), FLOAT_64(8), INT_32(4), INT_64(8);
+
+    private final int bytes;
+
+    ArrayDataType(int bytes) {
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Location of an uncompressed array in the .ibd file
+   *
+   * @param offset byte offset in the .ibd file
+   * @param length number of values
+   */
+  record ArrayLocation(long offset, int length, @NotNull ArrayDataType type) {
+
+  }
+
+  record SpectrumLocation(@NotNull ArrayLocation mzs, @NotNull ArrayLocation intensities) {
+
+  }
+
+  private static class ArrayLocationBuilder {
+
+    private boolean mzArray;
+    private boolean intensityArray;
+    private boolean uncompressed;
+    private ArrayDataType type;
+    private long offset = -1;
+    private long length = -1;
+
+    private void addParam(@Nullable String accession, @Nullable String value) {
+      if (accession == null) {
+        return;
+      }
+      switch (accession) {
+        case MZ_ARRAY -> mzArray = true;
+        case INTENSITY_ARRAY -> intensityArray = true;
+        case NO_COMPRESSION -> uncompressed = true;
+        case FLOAT_32 -> type = ArrayDataType.FLOAT_32;
+        case FLOAT_64 -> type = ArrayDataType.FLOAT_64;
+        case INT_32 -> type = ArrayDataType.INT_32;
+        case INT_64 -> type = ArrayDataType.INT_64;
+        case EXTERNAL_OFFSET -> offset = parseLong(value);
+        case EXTERNAL_ARRAY_LENGTH -> length = parseLong(value);
+        default -> {
+        }
+      }
+    }
+
+    private static long parseLong(@Nullable String value) {
+      try {
+        return value == null ? -1 : Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+
+    /**
+     * @return the location or null if the array is compressed or incomplete
+     */
+    @Nullable
+    private ArrayLocation build() {
+      if (!uncompressed || type == null || offset < 0 || length < 0
+          || length > Integer.MAX_VALUE) {
+        return null;
+      }
+      return new ArrayLocation(offset, (int) length, type);
+    }
+  }
+}
@@ -39,6 +39,7 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RawDataFileType;
 import io.github.mzmine.util.RawDataFileTypeDetector;
 import io.github.mzmine.util.RawDataFileUtils;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
@@ -85,6 +86,7 @@ public class ImzMLImportModule implements MZmineProcessingModule {
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
 
     File fileNames[] = parameters.getParameter(ImzMLImportParameters.fileNames).getValue();
+    final boolean buildImageIndex = parameters.getValue(ImzMLImportParameters.buildImageIndex);
 
     if (Arrays.asList(fileNames).contains(null)) {
       logger.warning("List of filenames contains null");
@@ -95,7 +97,7 @@ public class ImzMLImportModule implements MZmineProcessingModule {
     String commonPrefix = RawDataFileUtils.askToRemoveCommonPrefix(fileNames);
 
     // one storage for all files in the same module call
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
 
     for (int i = 0; i < fileNames.length; i++) {
 
@@ -122,7 +124,7 @@ public class ImzMLImportModule implements MZmineProcessingModule {
             .createNewImagingFile(newName, fileNames[i].getAbsolutePath(), storage);
         Task newTask = new ImzMLImportTask(project, fileNames[i],
             ScanImportProcessorConfig.createDefault(), newMZmineFile,
-            ImzMLImportModule.class, parameters, moduleCallDate);
+            ImzMLImportModule.class, parameters, moduleCallDate, buildImageIndex);
         tasks.add(newTask);
 
       } catch (IOException e) {
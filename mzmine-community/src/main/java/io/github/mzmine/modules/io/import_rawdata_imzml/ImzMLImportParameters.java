@@ -29,6 +29,7 @@ import java.io.File;
 import java.util.List;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.impl.SimpleParameterSet;
+import io.github.mzmine.parameters.parametertypes.BooleanParameter;
 import io.github.mzmine.parameters.parametertypes.filenames.FileNamesParameter;
 import io.github.mzmine.util.ExitCode;
 import javafx.stage.FileChooser;
@@ -44,8 +45,13 @@ public class ImzMLImportParameters extends SimpleParameterSet {
   public static final FileNamesParameter fileNames =
       new FileNamesParameter("File names", "", extensions);
 
+  public static final BooleanParameter buildImageIndex = new BooleanParameter(
+      "Build m/z image index",
+      "Indexes all signals of all pixels by m/z after import. Ion images are then extracted from "
+          + "the index without reading every spectrum. Requires additional memory.", false);
+
   public ImzMLImportParameters() {
-    super(new Parameter[] {fileNames});
+    super(new Parameter[] {fileNames, buildImageIndex});
   }
 
   @Override
@@ -69,7 +75,8 @@ public class ImzMLImportParameters extends SimpleParameterSet {
     }
     getParameter(fileNames).setValue(selectedFiles.toArray(new File[0]));
 
-    return ExitCode.OK;
+    // confirm files and set the remaining options
+    return super.showSetupDialog(valueCheckRequired);
 
   }
 
@@ -42,6 +42,8 @@ import io.github.mzmine.datamodel.ImagingRawDataFile;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.MassSpectrumType;
 import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.MzBinnedXicIndex;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.impl.SimpleImagingScan;
 import io.github.mzmine.datamodel.impl.SimpleScan;
@@ -57,18 +59,26 @@ import io.github.mzmine.util.exceptions.ExceptionUtils;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * This class reads mzML 1.0 and 1.1.0 files (http://www.psidev.info/index.php?q=node/257) using the
- * jmzml library (http://code.google.com/p/jmzml/).
+ * This class reads imzML files. The metadata is parsed with the jimzmlparser library, the spectral
+ * data is read from the memory mapped .ibd file by {@link ImzMLIbdReader} and decoded and processed
+ * in parallel. Optionally builds a {@link MzBinnedXicIndex} to extract ion images quickly.
  */
 public class ImzMLImportTask extends AbstractTask {
 
@@ -80,6 +90,7 @@ public class ImzMLImportTask extends AbstractTask {
   private ImagingRawDataFile newMZmineFile;
   private final ParameterSet parameters;
   private final Class<? extends MZmineModule> module;
+  private final boolean buildImageIndex;
   private int totalScans = 0, parsedScans;
 
   private int lastScanNumber = 0;
@@ -96,10 +107,28 @@ public class ImzMLImportTask extends AbstractTask {
   private static final int PARENT_STACK_SIZE = 20;
   private LinkedList<SimpleScan> parentStack = new LinkedList<>();
 
+  // spectra decoded and processed on worker threads, finished in order
+  private final Deque<PendingSpectrum> pending = new ArrayDeque<>();
+  private final int maxPendingSpectra = Math.max(4,
+      ForkJoinPool.getCommonPoolParallelism() * 4);
+
   public ImzMLImportTask(MZmineProject project, File fileToOpen,
       final @NotNull ScanImportProcessorConfig scanProcessorConfig,
       ImagingRawDataFile newMZmineFile, @NotNull final Class<? extends MZmineModule> module,
       @NotNull final ParameterSet parameters, @NotNull Instant moduleCallDate) {
+    this(project, fileToOpen, scanProcessorConfig, newMZmineFile, module, parameters,
+        moduleCallDate, false);
+  }
+
+  /**
+   * @param buildImageIndex build an m/z index of all pixels after import to speed up the extraction
+   *                        of ion images
+   */
+  public ImzMLImportTask(MZmineProject project, File fileToOpen,
+      final @NotNull ScanImportProcessorConfig scanProcessorConfig,
+      ImagingRawDataFile newMZmineFile, @NotNull final Class<? extends MZmineModule> module,
+      @NotNull final ParameterSet parameters, @NotNull Instant moduleCallDate,
+      boolean buildImageIndex) {
     super(null, moduleCallDate); // storage in raw data file
     this.project = project;
     this.file = fileToOpen;
@@ -107,6 +136,7 @@ public class ImzMLImportTask extends AbstractTask {
     this.newMZmineFile = newMZmineFile;
     this.parameters = parameters;
     this.module = module;
+    this.buildImageIndex = buildImageIndex;
   }
 
   @Override
@@ -129,76 +159,68 @@ public class ImzMLImportTask extends AbstractTask {
 
       SpectrumList spectra = imzml.getRun().getSpectrumList();
       totalScans = spectra.size();
-      for (int i = 0; i < totalScans; i++) {
-
-        if (isCanceled()) {
-          return;
-        }
-
-        Spectrum spectrum = spectra.get(i);
-
-        // Ignore scans that are not MS, e.g. UV
-        if (!isMsSpectrum(spectrum)) {
-          parsedScans++;
-          continue;
-        }
-
-        String scanId = spectrum.getID();
-        int scanNumber = convertScanIdToScanNumber(scanId);
-
-        // Extract scan data
-        int msLevel = extractMSLevel(spectrum);
-        float retentionTime = extractRetentionTime(spectrum);
-        PolarityType polarity = extractPolarity(spectrum);
-        int parentScan = extractParentScanNumber(spectrum);
-        double precursorMz = extractPrecursorMz(spectrum);
-        int precursorCharge = extractPrecursorCharge(spectrum);
-        String scanDefinition = extractScanDefinition(spectrum);
-        // imaging
-        Coordinates coord = extractCoordinates(spectrum);
-
-        // TODO find out if spectrum type is encoded in imzml file
-        var metadataScan = new SimpleBuildingScan(scanNumber, msLevel, polarity,
-            MassSpectrumType.CENTROIDED, retentionTime, precursorMz, precursorCharge);
-        if (!scanProcessorConfig.scanFilter().matches(metadataScan)) {
-          // skip parsing of data and skip this scan completely
-          parsedScans++;
-          continue;
-        }
+      // null if the .ibd cannot be mapped, then data is read by the imzML parser
+      try (ImzMLIbdReader ibd = ImzMLIbdReader.open(file, totalScans)) {
+        for (int i = 0; i < totalScans; i++) {
 
-        double[] mzValues = extractMzValues(spectrum);
-        double[] intensityValues = extractIntensityValues(spectrum);
-        // Auto-detect whether this scan is centroided
-        SimpleSpectralArrays data = new SimpleSpectralArrays(mzValues, intensityValues);
-        MassSpectrumType spectrumType = ScanUtils.detectSpectrumType(mzValues, intensityValues);
+          if (isCanceled()) {
+            pending.forEach(p -> p.data().cancel(false));
+            return;
+          }
 
-        data = scanProcessorConfig.processor().processScan(metadataScan, data);
+          Spectrum spectrum = spectra.get(i);
 
-        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
-          spectrumType = MassSpectrumType.CENTROIDED;
-        }
+          // Ignore scans that are not MS, e.g. UV
+          if (!isMsSpectrum(spectrum)) {
+            parsedScans++;
+            continue;
+          }
 
-        SimpleImagingScan scan = new SimpleImagingScan(newMZmineFile, scanNumber, msLevel,
-            retentionTime, precursorMz, precursorCharge, data.mzs(), data.intensities(),
-            spectrumType, polarity, scanDefinition, null, coord);
+          String scanId = spectrum.getID();
+          int scanNumber = convertScanIdToScanNumber(scanId);
+
+          // Extract scan data
+          int msLevel = extractMSLevel(spectrum);
+          float retentionTime = extractRetentionTime(spectrum);
+          PolarityType polarity = extractPolarity(spectrum);
+          int parentScan = extractParentScanNumber(spectrum);
+          double precursorMz = extractPrecursorMz(spectrum);
+          int precursorCharge = extractPrecursorCharge(spectrum);
+          String scanDefinition = extractScanDefinition(spectrum);
+          // imaging
+          Coordinates coord = extractCoordinates(spectrum);
+
+          // TODO find out if spectrum type is encoded in imzml file
+          var metadataScan = new SimpleBuildingScan(scanNumber, msLevel, polarity,
+              MassSpectrumType.CENTROIDED, retentionTime, precursorMz, precursorCharge);
+          if (!scanProcessorConfig.scanFilter().matches(metadataScan)) {
+            // skip parsing of data and skip this scan completely
+            parsedScans++;
+            continue;
+          }
 
-        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
-          scan.addMassList(new ScanPointerMassList(scan));
+          // decode from the mapped .ibd and process on worker threads, the imzML parser is not
+          // thread safe so its data is read here
+          final int spectrumIndex = i;
+          final SimpleSpectralArrays parsedData =
+              ibd != null && ibd.hasData(spectrumIndex) ? null
+                  : new SimpleSpectralArrays(extractMzValues(spectrum),
+                      extractIntensityValues(spectrum));
+          final CompletableFuture<ProcessedSpectrum> data = CompletableFuture.supplyAsync(
+              () -> loadProcessData(ibd, spectrumIndex, parsedData, metadataScan));
+          pending.addLast(
+              new PendingSpectrum(scanNumber, msLevel, retentionTime, precursorMz, precursorCharge,
+                  polarity, scanDefinition, coord, data));
+
+          // finish decoded spectra at the head to keep the order and bound the memory
+          while (!pending.isEmpty() && (pending.size() >= maxPendingSpectra
+              || pending.peekFirst().data().isDone())) {
+            finishNext();
+          }
         }
-
-        /*
-         * Verify the size of parentStack. The actual size of the window to cover possible
-         * candidates is defined by limitSize.
-         */
-        if (parentStack.size() > PARENT_STACK_SIZE) {
-          io.github.mzmine.datamodel.Scan firstScan = parentStack.removeLast();
-          newMZmineFile.addScan(firstScan);
+        while (!pending.isEmpty()) {
+          finishNext();
         }
-
-        parentStack.addFirst(scan);
-
-        parsedScans++;
-
       }
 
       while (!parentStack.isEmpty()) {
@@ -206,6 +228,11 @@ public class ImzMLImportTask extends AbstractTask {
         newMZmineFile.addScan(scan);
       }
 
+      if (buildImageIndex) {
+        MzBinnedXicIndex.getOrBuild(newMZmineFile, ScanDataType.RAW,
+            newMZmineFile.getMemoryMapStorage());
+      }
+
       // set settings of image
       newMZmineFile.setImagingParam(new ImagingParameters(imzml));
       newMZmineFile.getAppliedMethods()
@@ -213,6 +240,8 @@ public class ImzMLImportTask extends AbstractTask {
       project.addFile(newMZmineFile);
 
     } catch (Throwable e) {
+      pending.forEach(p -> p.data().cancel(false));
+      pending.clear();
       setStatus(TaskStatus.ERROR);
       setErrorMessage("Error parsing mzML: " + ExceptionUtils.exceptionToString(e));
       e.printStackTrace();
@@ -230,6 +259,75 @@ public class ImzMLImportTask extends AbstractTask {
 
   }
 
+  /**
+   * Reads the data from the memory mapped .ibd file (if not already parsed) and processes it.
+   * Called on worker threads.
+   *
+   * @param parsedData data read by the imzML parser or null to read from the .ibd file
+   */
+  private ProcessedSpectrum loadProcessData(@Nullable ImzMLIbdReader ibd, int spectrumIndex,
+      @Nullable SimpleSpectralArrays parsedData, @NotNull SimpleBuildingScan metadataScan) {
+    SimpleSpectralArrays data = parsedData;
+    if (data == null) {
+      try {
+        data = ibd.readSpectrum(spectrumIndex);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    // Auto-detect whether this scan is centroided
+    MassSpectrumType spectrumType = ScanUtils.detectSpectrumType(data.mzs(), data.intensities());
+
+    data = scanProcessorConfig.processor().processScan(metadataScan, data);
+
+    if (scanProcessorConfig.isMassDetectActive(metadataScan.getMSLevel())) {
+      spectrumType = MassSpectrumType.CENTROIDED;
+    }
+    return new ProcessedSpectrum(data, spectrumType);
+  }
+
+  /**
+   * Creates the scan of the next pending spectrum on this thread. Finishing the spectra in input
+   * order keeps the scan order of the file and of the stored data, and the parent stack and scan
+   * counter are only used by this thread. Waiting for the head also bounds the number of decoded
+   * spectra held in memory to {@link #maxPendingSpectra}.
+   */
+  private void finishNext() {
+    final PendingSpectrum next = pending.pollFirst();
+    final ProcessedSpectrum processed;
+    try {
+      processed = next.data().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw e;
+    }
+    final SimpleSpectralArrays data = processed.data();
+
+    SimpleImagingScan scan = new SimpleImagingScan(newMZmineFile, next.scanNumber(),
+        next.msLevel(), next.retentionTime(), next.precursorMz(), next.precursorCharge(),
+        data.mzs(), data.intensities(), processed.spectrumType(), next.polarity(),
+        next.scanDefinition(), null, next.coord());
+
+    if (scanProcessorConfig.isMassDetectActive(next.msLevel())) {
+      scan.addMassList(new ScanPointerMassList(scan));
+    }
+
+    /*
+     * Verify the size of parentStack. The actual size of the window to cover possible
+     * candidates is defined by limitSize.
+     */
+    if (parentStack.size() > PARENT_STACK_SIZE) {
+      io.github.mzmine.datamodel.Scan firstScan = parentStack.removeLast();
+      newMZmineFile.addScan(firstScan);
+    }
+
+    parentStack.addFirst(scan);
+
+    parsedScans++;
+  }
+
   private int convertScanIdToScanNumber(String scanId) {
 
     if (scanIdTable.containsKey(scanId)) {
@@ -465,4 +563,16 @@ public class ImzMLImportTask extends AbstractTask {
     return cvParams == null;
   }
 
+  private record ProcessedSpectrum(@NotNull SimpleSpectralArrays data,
+                                   @NotNull MassSpectrumType spectrumType) {
+
+  }
+
+  private record PendingSpectrum(int scanNumber, int msLevel, float retentionTime,
+                                 double precursorMz, int precursorCharge,
+                                 PolarityType polarity, String scanDefinition,
+                                 Coordinates coord,
+                                 CompletableFuture<ProcessedSpectrum> data) {
+
+  }
 }
@@ -579,6 +579,7 @@ public class MSDKmzMLImportTask extends AbstractTask {
         do {
           // check if parsing has been cancelled?
           if (isCanceled()) {
+            parser.cancel();
             return null;
           }
 
@@ -39,6 +39,7 @@ import io.github.mzmine.datamodel.impl.masslist.StoredMobilityScanMassList;
 import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
 import io.github.mzmine.project.impl.IMSRawDataFileImpl;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.nio.DoubleBuffer;
 import java.util.List;
 import java.util.function.Function;
@@ -88,8 +89,10 @@ public class BuildingMobilityScanStorage {
     storageOffsets = new int[mobilityScans.size()];
     int numDp = fillDataOffsetsGetTotalDataPoints(mobilityScans);
 
-    mzValues = memoryMap(storage, numDp, mobilityScans, SimpleSpectralArrays::mzs);
-    intensityValues = memoryMap(storage, numDp, mobilityScans, SimpleSpectralArrays::intensities);
+    final MemoryMapStorage mobilityStorage = TieredStorageManager.forMobilityScansOf(storage);
+    mzValues = memoryMap(mobilityStorage, numDp, mobilityScans, SimpleSpectralArrays::mzs);
+    intensityValues = memoryMap(mobilityStorage, numDp, mobilityScans,
+        SimpleSpectralArrays::intensities);
 
     this.basePeakIndices = findBasePeakIndices(mobilityScans, storageOffsets);
 
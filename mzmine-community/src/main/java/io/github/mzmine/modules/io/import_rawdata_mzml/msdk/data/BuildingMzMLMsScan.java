@@ -599,11 +599,23 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
    */
   public boolean loadProcessMemMapMzData(final MemoryMapStorage storage,
       final @NotNull ScanImportProcessorConfig config) {
+    return memoryMapMzData(storage, loadProcessMzData(config));
+  }
+
+  /**
+   * Decodes and processes the data points. Does not access the storage so this can be called on
+   * any thread, but only once per scan. Finish with {@link #memoryMapMzData(MemoryMapStorage,
+   * SimpleSpectralArrays)}.
+   *
+   * @return the processed data or null if no data was loaded
+   */
+  @Nullable
+  public SimpleSpectralArrays loadProcessMzData(final @NotNull ScanImportProcessorConfig config) {
     try {
       SimpleSpectralArrays specData = loadMzData();
       if (specData == null) {
         // may be null for UV spectra
-        return false;
+        return null;
       }
 
       // process and filter - needs metadata so wrap
@@ -613,21 +625,34 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
         // after mass detection we have a centroid scan
         spectrumType = MassSpectrumType.CENTROIDED;
       }
-
-      if (getMobility() != null) {
-        // cannot memory map mobility scan data as we need to do this later all mobility scans at once
-        mobilityScanSimpleSpectralData = specData;
-      } else {
-        // memory map regular scan data but not mobility scans
-        this.mzValues = StorageUtils.storeValuesToDoubleBuffer(storage, specData.mzs());
-        this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage,
-            specData.intensities());
-      }
-
+      return specData;
     } catch (MSDKException | IOException e) {
       logger.warning("Could not load data of scan #%d".formatted(getScanNumber()));
+      return null;
+    }
+  }
+
+  /**
+   * Memory map the data of regular scans. Mobility scan data is kept until the whole frame is
+   * mapped.
+   *
+   * @param specData the result of {@link #loadProcessMzData(ScanImportProcessorConfig)}
+   * @return false if no data was loaded
+   */
+  public boolean memoryMapMzData(final MemoryMapStorage storage,
+      final @Nullable SimpleSpectralArrays specData) {
+    if (specData == null) {
       return false;
     }
+    if (getMobility() != null) {
+      // cannot memory map mobility scan data as we need to do this later all mobility scans at once
+      mobilityScanSimpleSpectralData = specData;
+    } else {
+      // memory map regular scan data but not mobility scans
+      this.mzValues = StorageUtils.storeValuesToDoubleBuffer(storage, specData.mzs());
+      this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage,
+          specData.intensities());
+    }
     return true;
   }
 
@@ -695,20 +720,37 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
    */
   public boolean loadProcessMemMapUvData(final MemoryMapStorage storage,
       final @NotNull ScanImportProcessorConfig config) {
-    try {
-      SimpleSpectralArrays specData = loadUVData();
-      if (specData == null) {
-        return false;
-      }
-
-      this.wavelengthValues = StorageUtils.storeValuesToDoubleBuffer(storage, specData.mzs());
-      this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage,
-          specData.intensities());
+    return memoryMapUvData(storage, loadProcessUvData());
+  }
 
+  /**
+   * Decodes the UV data. Does not access the storage so this can be called on any thread, but only
+   * once per scan. Finish with {@link #memoryMapUvData(MemoryMapStorage, SimpleSpectralArrays)}.
+   *
+   * @return wavelengths as mz and intensities or null if no data was loaded
+   */
+  @Nullable
+  public SimpleSpectralArrays loadProcessUvData() {
+    try {
+      return loadUVData();
     } catch (MSDKException | IOException e) {
       logger.warning("Could not load data of scan #%d".formatted(getScanNumber()));
+      return null;
+    }
+  }
+
+  /**
+   * @param specData the result of {@link #loadProcessUvData()}
+   * @return false if no data was loaded
+   */
+  public boolean memoryMapUvData(final MemoryMapStorage storage,
+      final @Nullable SimpleSpectralArrays specData) {
+    if (specData == null) {
       return false;
     }
+    this.wavelengthValues = StorageUtils.storeValuesToDoubleBuffer(storage, specData.mzs());
+    this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage,
+        specData.intensities());
     return true;
   }
 
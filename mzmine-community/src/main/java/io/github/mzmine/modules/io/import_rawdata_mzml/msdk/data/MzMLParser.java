@@ -64,6 +64,8 @@ public class MzMLParser {
   private final File mzMLFile;
 
   private final MzMLRawDataFile newRawFile;
+  // decodes and processes binary data in parallel
+  private final MzMLScanDecodingPipeline decodingPipeline;
   private final Pattern scanNumberPattern = Pattern.compile("scan=([0-9]+)");
   private final Pattern agilentScanNumberPattern = Pattern.compile("scan[iI]d=([0-9]+)");
   private final Map<String, MzMLCompressionType> compressionTypeMap = Arrays.stream(
@@ -84,6 +86,8 @@ public class MzMLParser {
         vars.mobilityScanData);
     this.storage = storage;
     this.scanProcessorConfig = scanProcessorConfig;
+    this.decodingPipeline = new MzMLScanDecodingPipeline(storage, scanProcessorConfig,
+        scan -> vars.addSpectrumToList(storage, scan));
   }
 
   /**
@@ -505,6 +509,7 @@ public class MzMLParser {
     }
     if (closingTagName.contentEquals(MzMLTags.TAG_SPECTRUM_LIST)) {
       // finished the last scan
+      decodingPipeline.finishAll();
       vars.memoryMapAndClearFrameMobilityScanData(storage);
     } else if (tracker.inside(MzMLTags.TAG_CHROMATOGRAM_LIST)) {
       if (closingTagName.contentEquals(MzMLTags.TAG_CHROMATOGRAM)) {
@@ -518,25 +523,28 @@ public class MzMLParser {
 
   /**
    * Called when spectrum end is read. Check if spectrum is filtered - skip this scan if not in
-   * filter. Then process data points and memory map resulting data to disk to save RAM.
+   * filter. Then the data points are decoded and processed in parallel and the resulting data is
+   * memory mapped to disk to save RAM. Scans are added in order.
    */
   private void filterProcessFinalizeScan() {
     var spectrum = vars.spectrum;
+    vars.spectrum = null;
 //    logger.info(STR."Finalizing scan \{spectrum.getScanNumber()}");
     if (spectrum.isUVSpectrum()) {
-      if (spectrum.loadProcessMemMapUvData(storage, scanProcessorConfig)) {
-        vars.addSpectrumToList(storage, spectrum);
-      }
-      vars.spectrum = null;
+      decodingPipeline.submit(spectrum, true);
       return;
     }
 
     if (scanProcessorConfig.scanFilter().matches(spectrum)) {
-      if (spectrum.loadProcessMemMapMzData(storage, scanProcessorConfig)) {
-        vars.addSpectrumToList(storage, spectrum);
-      }
+      decodingPipeline.submit(spectrum, false);
     }
-    vars.spectrum = null;
+  }
+
+  /**
+   * Stops decoding of pending scans, e.g., when the import was canceled
+   */
+  public void cancel() {
+    decodingPipeline.cancel();
   }
 
   /**
@@ -662,6 +670,8 @@ public class MzMLParser {
    * @return a {@link MzMLRawDataFile MzMLRawDataFile} containing the parsed data
    */
   public MzMLRawDataFile getMzMLRawFile() {
+    // usually already finished at the end of the spectrum list
+    decodingPipeline.finishAll();
     final List<BuildingMzMLMsScan> msSpectra = vars.spectrumList.stream()
         .filter(BuildingMzMLMsScan::isMassSpectrum).toList();
     newRawFile.setMsScans(msSpectra);
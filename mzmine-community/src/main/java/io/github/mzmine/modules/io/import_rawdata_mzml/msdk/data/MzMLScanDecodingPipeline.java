@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data;
+
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.ScanImportProcessorConfig;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decodes (base64, zlib, numpress) and processes (mass detection, cropping) the binary data of
+ * spectra in parallel while the XML parser continues to read. The XML thread submits each finished
+ * spectrum, workers of the common {@link ForkJoinPool} decode and process the data, and finished
+ * spectra are memory mapped and passed to the consumer on the XML thread in the order of
+ * submission. The number of spectra in flight is bounded to limit the memory of undecoded binary
+ * data.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+class MzMLScanDecodingPipeline {
+
+  private final MemoryMapStorage storage;
+  private final @NotNull ScanImportProcessorConfig config;
+  private final Consumer<BuildingMzMLMsScan> finishedScanConsumer;
+  private final int maxPendingScans;
+  private final Deque<PendingScan> pending = new ArrayDeque<>();
+
+  /**
+   * @param storage              memory map storage, only accessed on the submitting thread
+   * @param config               processing of the scans
+   * @param finishedScanConsumer receives scans with data in submission order on the submitting
+   *                             thread
+   */
+  MzMLScanDecodingPipeline(@Nullable MemoryMapStorage storage,
+      @NotNull ScanImportProcessorConfig config,
+      @NotNull Consumer<BuildingMzMLMsScan> finishedScanConsumer) {
+    this.storage = storage;
+    this.config = config;
+    this.finishedScanConsumer = finishedScanConsumer;
+    maxPendingScans = Math.max(4, ForkJoinPool.getCommonPoolParallelism() * 4);
+  }
+
+  /**
+   * Submit a spectrum for decoding. Blocks if too many spectra are pending.
+   *
+   * @param uvSpectrum true for UV spectra, false for mass spectra
+   */
+  void submit(@NotNull BuildingMzMLMsScan scan, boolean uvSpectrum) {
+    final CompletableFuture<SimpleSpectralArrays> data = CompletableFuture.supplyAsync(
+        () -> uvSpectrum ? scan.loadProcessUvData() : scan.loadProcessMzData(config));
+    pending.addLast(new PendingScan(scan, uvSpectrum, data));
+
+    // finish all decoded scans at the head to keep order and free memory early
+    while (!pending.isEmpty() && (pending.size() >= maxPendingScans || pending.peekFirst().data()
+        .isDone())) {
+      finishNext();
+    }
+  }
+
+  /**
+   * Waits for all pending spectra and passes them to the consumer
+   */
+  void finishAll() {
+    while (!pending.isEmpty()) {
+      finishNext();
+    }
+  }
+
+  /**
+   * Cancels all pending spectra without passing them to the consumer
+   */
+  void cancel() {
+    pending.forEach(p -> p.data().cancel(false));
+    pending.clear();
+  }
+
+  private void finishNext() {
+    final PendingScan next = pending.pollFirst();
+    final SimpleSpectralArrays data;
+    try {
+      data = next.data().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw e;
+    }
+
+    final BuildingMzMLMsScan scan = next.scan();
+    final boolean hasData = next.uvSpectrum() ? scan.memoryMapUvData(storage, data)
+        : scan.memoryMapMzData(storage, data);
+    if (hasData) {
+      finishedScanConsumer.accept(scan);
+    }
+  }
+
+  private record PendingScan(BuildingMzMLMsScan scan, boolean uvSpectrum,
+                             CompletableFuture<SimpleSpectralArrays> data) {
+
+  }
+}
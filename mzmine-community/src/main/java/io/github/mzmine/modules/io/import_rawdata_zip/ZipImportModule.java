@@ -34,6 +34,7 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.time.Instant;
 import java.util.Arrays;
@@ -77,7 +78,7 @@ public class ZipImportModule implements MZmineProcessingModule {
       @NotNull Collection<Task> tasks, @NotNull Instant moduleCallDate) {
 
     // one storage per module call
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
     File fileNames[] = parameters.getParameter(ZipImportParameters.fileNames).getValue();
 
     if (Arrays.asList(fileNames).contains(null)) {
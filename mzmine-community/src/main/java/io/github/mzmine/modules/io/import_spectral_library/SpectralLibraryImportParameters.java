@@ -35,7 +35,7 @@ public class SpectralLibraryImportParameters extends SimpleParameterSet {
   public static final FileNamesParameter dataBaseFiles = new FileNamesParameter(
       "Spectral library files", """
       Name of file that contains information for peak identification
-      (GNPS json, MONA json, NIST msp, mgf, JCAMP-DX jdx)""", ExtensionFilters.ALL_LIBRARY);
+      (GNPS json, MONA json, NIST msp, mgf, JCAMP-DX jdx, compiled mzlib)""", ExtensionFilters.ALL_LIBRARY);
 
   public SpectralLibraryImportParameters() {
     super(dataBaseFiles);
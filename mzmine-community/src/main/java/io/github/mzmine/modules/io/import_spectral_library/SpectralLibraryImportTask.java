@@ -26,12 +26,17 @@
 package io.github.mzmine.modules.io.import_spectral_library;
 
 import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.gui.preferences.MZminePreferences;
+import io.github.mzmine.main.ConfigService;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
-import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.memory.TieredStorageManager;
+import io.github.mzmine.util.spectraldb.entry.CompiledSpectralLibrary;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
 import io.github.mzmine.util.spectraldb.parser.AutoLibraryParser;
+import io.github.mzmine.util.spectraldb.parser.CompiledLibraryParser;
+import io.github.mzmine.util.spectraldb.parser.SpectralDBParser;
 import io.github.mzmine.util.spectraldb.parser.UnsupportedFormatException;
 import java.io.File;
 import java.io.IOException;
@@ -47,11 +52,11 @@ public class SpectralLibraryImportTask extends AbstractTask {
 
   private final MZmineProject project;
   private final File dataBaseFile;
-  private AutoLibraryParser parser;
+  private SpectralDBParser parser;
 
   public SpectralLibraryImportTask(MZmineProject project, File dataBaseFile,
       @NotNull Instant moduleCallDate) {
-    super(MemoryMapStorage.forMassList(), moduleCallDate);
+    super(TieredStorageManager.forMassList(), moduleCallDate);
     this.project = project;
     this.dataBaseFile = dataBaseFile;
   }
@@ -97,17 +102,54 @@ public class SpectralLibraryImportTask extends AbstractTask {
   }
 
   /**
-   * Load all library entries from data base file
+   * Load all library entries from data base file. If enabled in the preferences, text libraries
+   * are compiled into a {@link CompiledSpectralLibrary} in the mzmine directory on first import,
+   * which is opened instead of parsing the file again on the next import.
    *
    * @param dataBaseFile the target database file
    */
   private SpectralLibrary parseFile(File dataBaseFile)
       throws UnsupportedFormatException, IOException {
+    final boolean isCompiled = dataBaseFile.getName().toLowerCase()
+        .endsWith("." + CompiledSpectralLibrary.FILE_EXTENSION);
+    final boolean useCache = !isCompiled && ConfigService.getPreferences()
+        .getValue(MZminePreferences.compileSpectralLibraries);
+    final File compiledFile = useCache ? CompiledLibraryParser.getCacheFile(dataBaseFile) : null;
+    if (compiledFile != null && compiledFile.isFile()) {
+      final SpectralLibrary library = new SpectralLibrary(TieredStorageManager.forMassList(),
+          dataBaseFile);
+      parser = new CompiledLibraryParser(1000,
+          (list, alreadyProcessed) -> library.addEntries(list));
+      try {
+        if (parser.parse(this, compiledFile, library)) {
+          return library;
+        }
+      } catch (IOException e) {
+        logger.log(Level.WARNING,
+            "Cannot open compiled library %s, parsing %s instead".formatted(compiledFile,
+                dataBaseFile), e);
+      }
+      if (isCanceled()) {
+        return library;
+      }
+    }
+
     //
-    SpectralLibrary library = new SpectralLibrary(MemoryMapStorage.forMassList(), dataBaseFile);
+    SpectralLibrary library = new SpectralLibrary(TieredStorageManager.forMassList(), dataBaseFile);
     parser = new AutoLibraryParser(1000, (list, alreadyProcessed) -> library.addEntries(list));
     // return tasks
-    parser.parse(this, dataBaseFile, library);
+    final boolean complete = parser.parse(this, dataBaseFile, library);
+
+    // never cache partial libraries (format mismatch or canceled)
+    if (complete && compiledFile != null && !isCanceled() && library.size() > 0) {
+      try {
+        CompiledSpectralLibrary.write(library.getEntries(), compiledFile);
+        logger.fine(() -> "Compiled library %s to %s".formatted(dataBaseFile, compiledFile));
+        CompiledLibraryParser.deleteOutdatedCacheFiles(dataBaseFile, compiledFile);
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Cannot compile library to " + compiledFile, e);
+      }
+    }
     return library;
   }
 
@@ -26,11 +26,14 @@
 package io.github.mzmine.modules.io.projectload;
 
 import com.google.common.io.CountingInputStream;
+import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.javafx.dialogs.DialogLoggerUtil;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.io.projectload.version_3_0.FeatureListLoadTask;
+import io.github.mzmine.modules.io.projectload.version_3_0.RawDataFileOpenHandler_3_0;
 import io.github.mzmine.modules.io.projectsave.ProjectSavingTask;
 import io.github.mzmine.modules.io.projectsave.RawDataFileSaveHandler;
+import io.github.mzmine.modules.io.projectsave.RawDataFileSnapshot;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.project.ProjectManager;
 import io.github.mzmine.project.ProjectService;
@@ -39,20 +42,25 @@ import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskPriority;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.GUIUtils;
-import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.StreamCopy;
+import io.github.mzmine.util.ZipUtils;
 import io.github.mzmine.util.exceptions.ExceptionUtils;
 import io.github.mzmine.util.files.FileAndPathUtil;
 import io.github.mzmine.util.io.SemverVersionReader;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -163,6 +171,9 @@ public class ProjectOpeningTask extends AbstractTask {
       final Pattern peakListPattern = Pattern.compile("Peak list #([\\d]+) (.*)\\.xml$");
       boolean versionInformationLoaded = false;
 
+      // binary snapshots replace the raw data import batch
+      final boolean loadedFromSnapshots = loadRawDataSnapshots(zipFile);
+
       // Iterate over the entries and read them
       entries = zipFile.entries();
 
@@ -184,7 +195,8 @@ public class ProjectOpeningTask extends AbstractTask {
           loadConfiguration(cis);
         } else if (entryName.equals(ProjectSavingTask.PARAMETERS_FILENAME)) {
           loadUserParameters(cis);
-        } else if (entryName.equals(RawDataFileSaveHandler.RAW_DATA_IMPORT_BATCH_FILENAME)) {
+        } else if (entryName.equals(RawDataFileSaveHandler.RAW_DATA_IMPORT_BATCH_FILENAME)
+                   && !loadedFromSnapshots) {
           loadRawDataFiles(cis, zipFile);
         } else if (entryName.equals(ProjectSavingTask.STANDALONE_FILENAME)) {
           newProject.setStandalone(true);
@@ -356,7 +368,7 @@ public class ProjectOpeningTask extends AbstractTask {
 
   private void loadFeatureList(ZipFile zipFile) {
 
-    FeatureListLoadTask task = new FeatureListLoadTask(MemoryMapStorage.forFeatureList(),
+    FeatureListLoadTask task = new FeatureListLoadTask(TieredStorageManager.forFeatureList(),
         newProject, zipFile);
     MZmineCore.getTaskController().addTask(task);
     currentLoadedObjectName = "Feature lists";
@@ -385,6 +397,70 @@ public class ProjectOpeningTask extends AbstractTask {
 
   }
 
+  /**
+   * Reads all raw data files from their {@link RawDataFileSnapshot} in parallel. Raw data files of
+   * standalone projects are unpacked to a temporary folder as for the import batch.
+   *
+   * @return true if all files were loaded. false if there are no snapshots or if loading failed,
+   * then the import batch is used
+   */
+  private boolean loadRawDataSnapshots(ZipFile zipFile) {
+    final List<ZipEntry> snapshots = zipFile.stream()
+        .filter(e -> RawDataFileSnapshot.getIndexOfZipEntry(e.getName()) >= 0)
+        .sorted(Comparator.comparingInt(e -> RawDataFileSnapshot.getIndexOfZipEntry(e.getName())))
+        .toList();
+    for (int i = 0; i < snapshots.size(); i++) {
+      if (RawDataFileSnapshot.getIndexOfZipEntry(snapshots.get(i).getName()) != i) {
+        logger.warning("Raw data snapshots are incomplete, importing raw data files instead");
+        return false;
+      }
+    }
+    if (snapshots.isEmpty()) {
+      return false;
+    }
+
+    currentLoadedObjectName = "MS data file snapshots";
+    logger.info("Loading %d raw data files from snapshots".formatted(snapshots.size()));
+    final long start = System.nanoTime();
+    try {
+      final boolean standalone = zipFile.getEntry(ProjectSavingTask.STANDALONE_FILENAME) != null;
+      final File tempDir = standalone ? FileAndPathUtil.createTempDirectory(
+          RawDataFileOpenHandler_3_0.TEMP_RAW_DATA_FOLDER).toFile() : null;
+
+      final List<RawDataFile> files = snapshots.stream().parallel().map(entry -> {
+        try (InputStream is = zipFile.getInputStream(entry)) {
+          return (RawDataFile) RawDataFileSnapshot.read(is, TieredStorageManager.forRawDataFile(),
+              path -> tempDir == null ? path : unzipRawDataFile(zipFile, path, tempDir));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }).toList();
+
+      files.forEach(newProject::addFile);
+      logger.info("Loaded %d raw data files from snapshots in %.1f s".formatted(files.size(),
+          (System.nanoTime() - start) / 1E9));
+      return true;
+    } catch (Exception e) {
+      logger.log(Level.WARNING,
+          "Cannot load raw data snapshots, importing raw data files instead. " + e.getMessage(), e);
+      return false;
+    }
+  }
+
+  /**
+   * @return the path of the unpacked file or the original path if the file is not in the project
+   */
+  private static String unzipRawDataFile(ZipFile zipFile, String path, File tempDir) {
+    final String zipPath = RawDataFileSaveHandler.getZipPath(new File(path));
+    try {
+      ZipUtils.unzipDirectory(zipPath, zipFile, tempDir);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    final File unzipped = new File(tempDir, zipPath);
+    return unzipped.exists() ? unzipped.getAbsolutePath() : path;
+  }
+
   private boolean loadRawDataFiles(InputStream is, ZipFile zipFile) {
     currentLoadedObjectName = ("MS data files");
     rawDataFileOpenHandler.setBatchFileStream(is);
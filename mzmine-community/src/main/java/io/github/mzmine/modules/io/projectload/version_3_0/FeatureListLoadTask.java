@@ -29,6 +29,7 @@ import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.features.FeatureList.FeatureListAppliedMethod;
+import io.github.mzmine.datamodel.features.ModularDataModel;
 import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
@@ -38,6 +39,9 @@ import io.github.mzmine.datamodel.features.types.DataTypes;
 import io.github.mzmine.datamodel.features.types.numbers.IDType;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.io.projectload.CachedIMSRawDataFile;
+import io.github.mzmine.modules.io.projectsave.FeatureListBinaryFormat;
+import io.github.mzmine.modules.io.projectsave.FeatureListBinaryFormat.Column;
+import io.github.mzmine.modules.io.projectsave.FeatureListBinaryFormat.Rows;
 import io.github.mzmine.modules.io.projectsave.FeatureListSaveTask;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
@@ -45,6 +49,12 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.ParsingUtils;
 import io.github.mzmine.util.ZipUtils;
 import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.memory.TieredStorageManager;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -53,12 +63,14 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import java.util.zip.ZipFile;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -91,7 +103,7 @@ public class FeatureListLoadTask extends AbstractTask {
   private final MZmineProject project;
   private final AtomicInteger rowCounter = new AtomicInteger(0);
   private int totalRows = 1;
-  private int processedRows = 0;
+  private final AtomicInteger processedRows = new AtomicInteger(0);
   private String currentFlist = "";
   private int numFlists = 1;
   private int processedFlists;
@@ -133,13 +145,13 @@ public class FeatureListLoadTask extends AbstractTask {
   @Override
   public String getTaskDescription() {
     return "Importing feature list " + currentFlist + (processedFlists + 1) + "/" + numFlists
-           + ". Parsing row " + processedRows + "/" + totalRows;
+           + ". Parsing row " + processedRows.get() + "/" + totalRows;
   }
 
   @Override
   public double getFinishedPercentage() {
     return (double) processedFlists / numFlists // overall progress finished flists
-           + (double) processedRows / totalRows / numFlists; // current flist progress
+           + (double) processedRows.get() / totalRows / numFlists; // current flist progress
   }
 
   @Override
@@ -152,17 +164,20 @@ public class FeatureListLoadTask extends AbstractTask {
       ZipUtils.unzipDirectory(FeatureListSaveTask.FLIST_FOLDER, zip, tempDirectory.toFile());
       logger.info(() -> "Unzipping feature lists done.");
 
-      File[] files = new File(tempDirectory.toFile(), FeatureListSaveTask.FLIST_FOLDER)
-          .listFiles((dir, name) -> fileNamePattern.matcher(name).matches());
-      if (files == null) {
+      final File flistFolder = new File(tempDirectory.toFile(), FeatureListSaveTask.FLIST_FOLDER);
+      File[] files = flistFolder.listFiles(
+          (dir, name) -> fileNamePattern.matcher(name).matches());
+      File[] binaryFiles = flistFolder.listFiles(
+          (dir, name) -> name.endsWith(FeatureListBinaryFormat.ROWS_FILE_SUFFIX));
+      if (files == null || binaryFiles == null) {
         logger.info("Did not find feature lists to load.");
         setStatus(TaskStatus.FINISHED);
         return;
       }
 
-      numFlists = files.length;
+      numFlists = files.length + binaryFiles.length;
 
-      final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+      final MemoryMapStorage storage = TieredStorageManager.forFeatureList();
 
       // enable caching of mobility scans during project import.
       project.setProjectLoadImsImportCaching(true);
@@ -192,6 +207,8 @@ public class FeatureListLoadTask extends AbstractTask {
         project.addFeatureList(flist);
         processedFlists++;
       }
+
+      loadBinaryFeatureLists(storage, binaryFiles);
     } catch (Exception e) {
       e.printStackTrace();
       logger.log(Level.SEVERE, e.getMessage(), e);
@@ -206,10 +223,302 @@ public class FeatureListLoadTask extends AbstractTask {
     setStatus(TaskStatus.FINISHED);
   }
 
+  /**
+   * Loads feature lists saved in the {@link FeatureListBinaryFormat}. Feature lists and the chunks
+   * of each list are decoded in parallel. The values are set to rows and features afterwards in
+   * the order of the rows.
+   */
+  private void loadBinaryFeatureLists(MemoryMapStorage storage, File[] rowsFiles) {
+    if (rowsFiles.length == 0) {
+      return;
+    }
+    // progress of binary feature lists is tracked per feature list
+    currentFlist = "";
+    processedRows.set(0);
+    totalRows = rowsFiles.length;
+
+    final ModularFeatureList[] flists = new ModularFeatureList[rowsFiles.length];
+    IntStream.range(0, rowsFiles.length).parallel().forEach(i -> {
+      if (isCanceled()) {
+        return;
+      }
+      try {
+        flists[i] = loadBinaryFeatureList(storage, rowsFiles[i]);
+      } catch (IOException | XMLStreamException e) {
+        throw new RuntimeException(
+            "Cannot load feature list from file " + rowsFiles[i].getAbsolutePath(), e);
+      }
+      processedRows.incrementAndGet();
+    });
+
+    for (ModularFeatureList flist : flists) {
+      if (flist == null) {
+        continue;
+      }
+      // disable buffering after the import (replace references to CachedIMSRawDataFiles with IMSRawDataFiles
+      flist.replaceCachedFilesAndScans();
+      project.addFeatureList(flist);
+      processedFlists++;
+    }
+  }
+
+  @Nullable
+  private ModularFeatureList loadBinaryFeatureList(MemoryMapStorage storage, File rowsFile)
+      throws IOException, XMLStreamException {
+    final File metadataFile = FeatureListBinaryFormat.getMetadataFile(rowsFile);
+    final ModularFeatureList flist = readMetadataCreateFeatureList(metadataFile, storage);
+    if (flist == null) {
+      logger.severe(() -> "Cannot load feature list from files " + rowsFile.getAbsolutePath() + " and "
+                          + metadataFile.getAbsolutePath());
+      return null;
+    }
+
+    final Rows rows;
+    try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(rowsFile)))) {
+      rows = FeatureListBinaryFormat.readRows(in);
+    }
+    if (!flist.getName().equals(rows.name()) || !flist.getDateCreated()
+        .equals(rows.dateCreated())) {
+      throw new IllegalArgumentException(
+          "Feature list names do not match. " + flist.getName() + " != " + rows.name());
+    }
+
+    // create all rows and features first, so rows can reference each other by their id
+    final int[] ids = rows.ids();
+    final ModularFeatureListRow[] flistRows = new ModularFeatureListRow[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      flistRows[i] = new ModularFeatureListRow(flist, ids[i]);
+      flist.addRow(flistRows[i]);
+    }
+
+    final List<String> fileNames = rows.fileNames();
+    final RawDataFile[] files = new RawDataFile[fileNames.size()];
+    final ModularFeature[][] features = new ModularFeature[fileNames.size()][];
+    for (int f = 0; f < files.length; f++) {
+      final String fileName = fileNames.get(f);
+      files[f] = project.getCurrentRawDataFiles().stream()
+          .filter(file -> file.getName().equals(fileName)).findFirst().orElse(null);
+      if (files[f] == null) {
+        logger.warning(() -> "Cannot load features of feature list " + flist.getName()
+                             + " for file " + fileName + ". File does not exist in project.");
+        continue;
+      }
+      // create feature with original file, but use buffered file for data type loading.
+      final RawDataFile originalFile =
+          files[f] instanceof CachedIMSRawDataFile c ? c.getOriginalFile() : files[f];
+      features[f] = new ModularFeature[ids.length];
+      final BitSet present = rows.featurePresent()[f];
+      for (int i = present.nextSetBit(0); i >= 0 && i < ids.length;
+          i = present.nextSetBit(i + 1)) {
+        features[f][i] = new ModularFeature(flist, originalFile, null, null);
+      }
+    }
+
+    final ChunkValues[] chunks = new ChunkValues[rows.numChunks()];
+    IntStream.range(0, chunks.length).parallel().forEach(c -> {
+      try {
+        chunks[c] = readChunk(FeatureListBinaryFormat.getChunkFile(rowsFile, c), rows, flist,
+            flistRows, files, features);
+      } catch (IOException | XMLStreamException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    // set values in the order of the rows
+    for (ChunkValues chunk : chunks) {
+      for (int local = 0; local < chunk.rows.length; local++) {
+        final int index = chunk.firstRow + local;
+        final ModularFeatureListRow row = flistRows[index];
+        setValues(row, chunk.rows[local]);
+        for (int f = 0; f < files.length; f++) {
+          final ModularFeature feature = features[f] == null ? null : features[f][index];
+          if (feature == null) {
+            continue;
+          }
+          setValues(feature, chunk.features[f][local]);
+          row.addFeature(feature.getRawDataFile(), feature);
+        }
+      }
+    }
+    return flist;
+  }
+
+  private ChunkValues readChunk(File chunkFile, Rows rows, ModularFeatureList flist,
+      ModularFeatureListRow[] flistRows, RawDataFile[] files, ModularFeature[][] features)
+      throws IOException, XMLStreamException {
+    try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(chunkFile)))) {
+      final int[] header = FeatureListBinaryFormat.readChunkHeader(in);
+      final ChunkValues values = new ChunkValues(header[0], header[1], files.length);
+
+      for (Column column : FeatureListBinaryFormat.readColumns(in, values.rows.length)) {
+        addColumn(column, values.rows, null);
+      }
+      for (int f = 0; f < files.length; f++) {
+        // column values are in the order of the present features of this chunk
+        final BitSet present = rows.featurePresent()[f];
+        final IntList localRows = new IntArrayList();
+        for (int i = present.nextSetBit(values.firstRow);
+            i >= 0 && i < values.firstRow + values.rows.length; i = present.nextSetBit(i + 1)) {
+          localRows.add(i - values.firstRow);
+        }
+        for (Column column : FeatureListBinaryFormat.readColumns(in, localRows.size())) {
+          if (features[f] != null) {
+            addColumn(column, values.features[f], localRows);
+          }
+        }
+      }
+
+      final byte[] xml = in.readNBytes(in.readInt());
+      parseChunkXml(xml, values, flist, flistRows, files, features);
+      return values;
+    }
+  }
+
+  /**
+   * @param localRows maps the column index to the row in the chunk or null if equal
+   */
+  private static void addColumn(Column column, List<TypeValue>[] values,
+      @Nullable IntList localRows) {
+    if (column.type() == null) {
+      logger.info(() -> "No data type for id " + column.id());
+      return;
+    }
+    final Object[] columnValues = column.values();
+    for (int i = 0; i < columnValues.length; i++) {
+      if (columnValues[i] != null) {
+        values[localRows == null ? i : localRows.getInt(i)].add(
+            new TypeValue(column.type(), columnValues[i]));
+      }
+    }
+  }
+
+  private void parseChunkXml(byte[] xml, ChunkValues values, ModularFeatureList flist,
+      ModularFeatureListRow[] flistRows, RawDataFile[] files, ModularFeature[][] features)
+      throws XMLStreamException {
+    final XMLInputFactory xif = XMLInputFactory.newInstance();
+    final XMLStreamReader reader = xif.createXMLStreamReader(new ByteArrayInputStream(xml));
+
+    int local = -1;
+    while (reader.hasNext()) {
+      if (reader.next() != XMLEvent.START_ELEMENT || !CONST.XML_ROW_ELEMENT.equals(
+          reader.getLocalName())) {
+        continue;
+      }
+      local++;
+      final int index = values.firstRow + local;
+      final ModularFeatureListRow row = flistRows[index];
+      final int id = Integer.parseInt(reader.getAttributeValue(null, idTypeUniqueID));
+      if (id != row.getID()) {
+        throw new IllegalStateException("Row ids do not match.");
+      }
+
+      while (!(reader.getEventType() == XMLEvent.END_ELEMENT && reader.getLocalName()
+          .equals(CONST.XML_ROW_ELEMENT)) && reader.hasNext()) {
+        if (reader.next() != XMLEvent.START_ELEMENT) {
+          continue;
+        }
+        if (reader.getLocalName().equals(CONST.XML_FEATURE_ELEMENT)) {
+          final String fileName = reader.getAttributeValue(null, CONST.XML_RAW_FILE_ELEMENT);
+          final int f = flistFileIndex(files, fileName);
+          final ModularFeature feature =
+              f < 0 || features[f] == null ? null : features[f][index];
+          if (feature == null) {
+            skipElement(reader, CONST.XML_FEATURE_ELEMENT);
+            continue;
+          }
+          parseChunkFeature(reader, flist, row, feature, files[f], values.features[f][local]);
+        } else if (reader.getLocalName().equals(CONST.XML_DATA_TYPE_ELEMENT)) {
+          DataType type = DataTypes.getTypeForId(
+              reader.getAttributeValue(null, CONST.XML_DATA_TYPE_ID_ATTR));
+          Object value = parseDataType(reader, type, project, flist, row, null, null);
+          if (type != null && value != null) {
+            values.rows[local].add(new TypeValue(type, value));
+          }
+        }
+      }
+    }
+  }
+
+  private void parseChunkFeature(XMLStreamReader reader, ModularFeatureList flist,
+      ModularFeatureListRow row, ModularFeature feature, RawDataFile file,
+      List<TypeValue> values) throws XMLStreamException {
+    while (!(reader.getEventType() == XMLEvent.END_ELEMENT && reader.getLocalName()
+        .equals(CONST.XML_FEATURE_ELEMENT)) && reader.hasNext()) {
+      if (reader.next() != XMLEvent.START_ELEMENT) {
+        continue;
+      }
+      if (reader.getLocalName().equals(CONST.XML_DATA_TYPE_ELEMENT)) {
+        // the data types are responsible for loading their values
+        DataType type = DataTypes.getTypeForId(
+            reader.getAttributeValue(null, CONST.XML_DATA_TYPE_ID_ATTR));
+        Object value = parseDataType(reader, type, project, flist, row, feature, file);
+        if (type != null && value != null) {
+          values.add(new TypeValue(type, value));
+        }
+      }
+    }
+  }
+
+  private static int flistFileIndex(RawDataFile[] files, String fileName) {
+    for (int f = 0; f < files.length; f++) {
+      if (files[f] != null && files[f].getName().equals(fileName)) {
+        return f;
+      }
+    }
+    return -1;
+  }
+
+  private static void skipElement(XMLStreamReader reader, String element)
+      throws XMLStreamException {
+    while (!(reader.getEventType() == XMLEvent.END_ELEMENT && reader.getLocalName()
+        .equals(element)) && reader.hasNext()) {
+      reader.next();
+    }
+  }
+
+  private static void setValues(ModularDataModel model, List<TypeValue> values) {
+    for (TypeValue typeValue : values) {
+      try {
+        model.set(typeValue.type(), typeValue.value());
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, () -> String.format(
+            "DataType %s and value %s were not set. Maybe incompatible during loading?",
+            typeValue.type(), typeValue.value()));
+      }
+    }
+  }
+
+  private record TypeValue(DataType type, Object value) {
+
+  }
+
+  /**
+   * Values of one chunk by row in the chunk, features by file and row in the chunk
+   */
+  private static class ChunkValues {
+
+    private final int firstRow;
+    private final List<TypeValue>[] rows;
+    private final List<TypeValue>[][] features;
+
+    @SuppressWarnings("unchecked")
+    private ChunkValues(int firstRow, int numRows, int numFiles) {
+      this.firstRow = firstRow;
+      rows = new List[numRows];
+      features = new List[numFiles][numRows];
+      for (int i = 0; i < numRows; i++) {
+        rows[i] = new ArrayList<>();
+        for (int f = 0; f < numFiles; f++) {
+          features[f][i] = new ArrayList<>();
+        }
+      }
+    }
+  }
+
   private void parseFeatureList(MemoryMapStorage storage, MZmineProject project,
       ModularFeatureList flist, File flistFile) {
     currentFlist = flist.getName();
-    processedRows = 0;
+    processedRows.set(0);
     totalRows = flist.getNumberOfRows();
 
     try (InputStream fis = new FileInputStream(flistFile)) {
@@ -234,7 +543,7 @@ public class FeatureListLoadTask extends AbstractTask {
             }
           } else if (CONST.XML_ROW_ELEMENT.equals(localName)) {
             parseRow(reader, storage, project, flist);
-            processedRows++;
+            processedRows.incrementAndGet();
           }
         }
       }
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.projectsave;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.DataTypeColumns;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularDataModel;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Versioned binary encoding of feature lists in projects, used instead of the
+ * {@link FeatureListSaveTask#DATA_FILE_SUFFIX} xml file. The rows entry holds the row ids and the
+ * raw data files with a feature in each row. Rows are split into chunks that are saved as separate
+ * zip entries, so they can be encoded and decoded in parallel.
+ * <p>
+ * Chunk layout (big endian): header, first row and number of rows, the row values of primitive
+ * number types ({@link DataTypeColumns#canStore(DataType, Object)}) as columns, the same columns
+ * for the features of each raw data file, and a compact xml block with all other values. The xml
+ * block uses the xml codec of each {@link DataType} so that all types remain supported.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class FeatureListBinaryFormat {
+
+  public static final String ROWS_FILE_SUFFIX = "_rows.bin";
+  private static final String CHUNK_FILE_INFIX = "_chunk_";
+  private static final String CHUNK_FILE_SUFFIX = ".bin";
+  public static final int ROWS_PER_CHUNK = 2000;
+
+  private static final int MAGIC = 0x4D5A464C; // MZFL
+  private static final int VERSION = 1;
+
+  private static final byte FLOAT = 'F';
+  private static final byte DOUBLE = 'D';
+  private static final byte INTEGER = 'I';
+
+  private FeatureListBinaryFormat() {
+  }
+
+  public static String getRowsFileName(String flistName) {
+    return FeatureListSaveTask.FLIST_FOLDER + CONST.XML_FEATURE_LIST_ELEMENT + "_" + flistName
+           + ROWS_FILE_SUFFIX;
+  }
+
+  public static String getChunkFileName(String flistName, int chunk) {
+    return FeatureListSaveTask.FLIST_FOLDER + CONST.XML_FEATURE_LIST_ELEMENT + "_" + flistName
+           + CHUNK_FILE_INFIX + chunk + CHUNK_FILE_SUFFIX;
+  }
+
+  /**
+   * @param rowsFile the unzipped rows file
+   * @return the unzipped chunk file in the same directory
+   */
+  public static File getChunkFile(File rowsFile, int chunk) {
+    final String name = rowsFile.getName();
+    return new File(rowsFile.getParentFile(),
+        name.substring(0, name.length() - ROWS_FILE_SUFFIX.length()) + CHUNK_FILE_INFIX + chunk
+        + CHUNK_FILE_SUFFIX);
+  }
+
+  /**
+   * @param rowsFile the unzipped rows file
+   * @return the unzipped metadata file in the same directory
+   */
+  public static File getMetadataFile(File rowsFile) {
+    final String name = rowsFile.getName();
+    return new File(rowsFile.getParentFile(),
+        name.substring(0, name.length() - ROWS_FILE_SUFFIX.length())
+        + FeatureListSaveTask.METADATA_FILE_SUFFIX);
+  }
+
+  /**
+   * Same filter as the xml format: features without raw data file or with unknown status are not
+   * saved.
+   */
+  public static boolean isSavedFeature(@Nullable ModularFeature feature) {
+    return feature != null && feature.getRawDataFile() != null
+           && feature.getFeatureStatus() != FeatureStatus.UNKNOWN;
+  }
+
+  /**
+   * @return true if the value is saved in a binary column and not in the xml block of a chunk
+   */
+  public static boolean isColumnValue(@NotNull DataType<?> type, @Nullable Object value) {
+    return DataTypeColumns.isColumnType(type) && DataTypeColumns.canStore(type, value);
+  }
+
+  /**
+   * Writes the rows entry
+   *
+   * @param rows  all rows in the order of the feature list
+   * @param files the raw data files of the feature list
+   */
+  public static void writeRows(@NotNull DataOutputStream out, @NotNull ModularFeatureList flist,
+      @NotNull List<FeatureListRow> rows, @NotNull List<RawDataFile> files, int rowsPerChunk)
+      throws IOException {
+    writeHeader(out);
+    out.writeUTF(flist.getName());
+    out.writeUTF(flist.getDateCreated());
+    out.writeInt(rowsPerChunk);
+    out.writeInt(rows.size());
+    for (FeatureListRow row : rows) {
+      out.writeInt(row.getID());
+    }
+    out.writeInt(files.size());
+    for (RawDataFile file : files) {
+      out.writeUTF(file.getName());
+      final BitSet present = new BitSet(rows.size());
+      for (int i = 0; i < rows.size(); i++) {
+        if (isSavedFeature((ModularFeature) rows.get(i).getFeature(file))) {
+          present.set(i);
+        }
+      }
+      writeBitSet(out, present);
+    }
+  }
+
+  @NotNull
+  public static Rows readRows(@NotNull DataInputStream in) throws IOException {
+    checkHeader(in);
+    final String name = in.readUTF();
+    final String dateCreated = in.readUTF();
+    final int rowsPerChunk = in.readInt();
+    final int[] ids = new int[in.readInt()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = in.readInt();
+    }
+    final int numFiles = in.readInt();
+    final List<String> fileNames = new ArrayList<>(numFiles);
+    final BitSet[] featurePresent = new BitSet[numFiles];
+    for (int f = 0; f < numFiles; f++) {
+      fileNames.add(in.readUTF());
+      featurePresent[f] = readBitSet(in);
+    }
+    return new Rows(name, dateCreated, rowsPerChunk, ids, fileNames, featurePresent);
+  }
+
+  public static void writeChunkHeader(@NotNull DataOutputStream out, int firstRow, int numRows)
+      throws IOException {
+    writeHeader(out);
+    out.writeInt(firstRow);
+    out.writeInt(numRows);
+  }
+
+  /**
+   * @return the first row and the number of rows in this chunk
+   */
+  public static int[] readChunkHeader(@NotNull DataInputStream in) throws IOException {
+    checkHeader(in);
+    return new int[]{in.readInt(), in.readInt()};
+  }
+
+  /**
+   * Writes all values of the models that match {@link #isColumnValue(DataType, Object)} as one
+   * column per type.
+   */
+  public static void writeColumns(@NotNull DataOutputStream out,
+      @NotNull List<? extends ModularDataModel> models) throws IOException {
+    final Map<DataType, Byte> kinds = new LinkedHashMap<>();
+    for (ModularDataModel model : models) {
+      for (Entry<DataType, Object> entry : model.getMap().entrySet()) {
+        final Object value = entry.getValue();
+        if (isColumnValue(entry.getKey(), value)) {
+          kinds.putIfAbsent(entry.getKey(),
+              value instanceof Float ? FLOAT : value instanceof Double ? DOUBLE : INTEGER);
+        }
+      }
+    }
+
+    out.writeInt(kinds.size());
+    for (Entry<DataType, Byte> column : kinds.entrySet()) {
+      final DataType type = column.getKey();
+      out.writeUTF(type.getUniqueID());
+      out.writeByte(column.getValue());
+
+      final BitSet present = new BitSet(models.size());
+      for (int i = 0; i < models.size(); i++) {
+        if (isColumnValue(type, models.get(i).get(type))) {
+          present.set(i);
+        }
+      }
+      writeBitSet(out, present);
+
+      for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+        final Object value = models.get(i).get(type);
+        switch (column.getValue()) {
+          case FLOAT -> out.writeFloat((Float) value);
+          case DOUBLE -> out.writeDouble((Double) value);
+          default -> out.writeInt((Integer) value);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param size number of models that were written by {@link #writeColumns(DataOutputStream, List)}
+   * @return the columns. The type is null if it is unknown in this version.
+   */
+  @NotNull
+  public static List<Column> readColumns(@NotNull DataInputStream in, int size)
+      throws IOException {
+    final int numColumns = in.readInt();
+    final List<Column> columns = new ArrayList<>(numColumns);
+    for (int c = 0; c < numColumns; c++) {
+      final String id = in.readUTF();
+      final byte kind = in.readByte();
+      final BitSet present = readBitSet(in);
+      final Object[] values = new Object[size];
+      for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+        values[i] = switch (kind) {
+          case FLOAT -> in.readFloat();
+          case DOUBLE -> in.readDouble();
+          case INTEGER -> in.readInt();
+          default -> throw new IOException("Unknown column type " + kind);
+        };
+      }
+      columns.add(new Column(id, DataTypes.getTypeForId(id), values));
+    }
+    return columns;
+  }
+
+  private static void writeHeader(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+  }
+
+  private static void checkHeader(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a binary feature list file");
+    }
+    final int version = in.readInt();
+    if (version > VERSION) {
+      throw new IOException(
+          "Binary feature list version " + version + " is not supported. Update MZmine.");
+    }
+  }
+
+  private static void writeBitSet(DataOutputStream out, BitSet bits) throws IOException {
+    final long[] words = bits.toLongArray();
+    out.writeInt(words.length);
+    for (long word : words) {
+      out.writeLong(word);
+    }
+  }
+
+  private static BitSet readBitSet(DataInputStream in) throws IOException {
+    final long[] words = new long[in.readInt()];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = in.readLong();
+    }
+    return BitSet.valueOf(words);
+  }
+
+  /**
+   * Content of the rows entry
+   *
+   * @param rowsPerChunk   rows per chunk entry
+   * @param ids            row ids in the order of the feature list
+   * @param fileNames      raw data files in the order of the feature list
+   * @param featurePresent for each file: the row indices with a feature of this file
+   */
+  public record Rows(@NotNull String name, @NotNull String dateCreated, int rowsPerChunk,
+                     int[] ids, @NotNull List<String> fileNames, BitSet[] featurePresent) {
+
+    public int numChunks() {
+      return (ids.length + rowsPerChunk - 1) / rowsPerChunk;
+    }
+  }
+
+  /**
+   * @param id     unique id of the type
+   * @param type   the type or null if unknown
+   * @param values one value per model or null
+   */
+  public record Column(@NotNull String id, @Nullable DataType type, Object[] values) {
+
+  }
+}
@@ -44,6 +44,8 @@ import io.github.mzmine.util.ParsingUtils;
 import io.github.mzmine.util.StreamCopy;
 import io.github.mzmine.util.XMLUtils;
 import io.github.mzmine.util.files.FileAndPathUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -53,8 +55,10 @@ import java.io.OutputStream;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import javax.xml.parsers.DocumentBuilder;
@@ -79,14 +83,25 @@ public class FeatureListSaveTask extends AbstractTask {
 
   private final ModularFeatureList flist;
   private final ZipOutputStream zos;
+  private final boolean binary;
   private final int rows;
   private final StreamCopy copy;
-  private int processedRows = 0;
+  private final AtomicInteger processedRows = new AtomicInteger(0);
 
   public FeatureListSaveTask(ModularFeatureList flist, ZipOutputStream zos) {
+    this(flist, zos, false);
+  }
+
+  /**
+   * @param zos    the project zip. Other tasks may write to the same stream in parallel, all
+   *               entries are written while holding the lock of the stream.
+   * @param binary save the rows in the {@link FeatureListBinaryFormat} instead of xml
+   */
+  public FeatureListSaveTask(ModularFeatureList flist, ZipOutputStream zos, boolean binary) {
     super(null, Instant.now());
     this.flist = flist;
     this.zos = zos;
+    this.binary = binary;
     rows = flist.getNumberOfRows();
     copy = new StreamCopy();
   }
@@ -106,14 +121,14 @@ public class FeatureListSaveTask extends AbstractTask {
 
   @Override
   public double getFinishedPercentage() {
-    return (((double) processedRows / rows) + copy.getProgress()) / 2;
+    return (((double) processedRows.get() / rows) + copy.getProgress()) / 2;
   }
 
   @Override
   public void run() {
     setStatus(TaskStatus.PROCESSING);
 
-    if (!saveFeatureData()) {
+    if (!(binary ? saveFeatureDataBinary() : saveFeatureData())) {
       return;
     }
 
@@ -143,10 +158,11 @@ public class FeatureListSaveTask extends AbstractTask {
       appendMetadata(document, root, flist);
 
       XMLUtils.saveToFile(tempFile, document);
-      zos.putNextEntry(new ZipEntry(getMetadataFileName(flist.getName())));
-
       try (InputStream is = new FileInputStream(tempFile)) {
-        copy.copy(is, zos);
+        synchronized (zos) {
+          zos.putNextEntry(new ZipEntry(getMetadataFileName(flist.getName())));
+          copy.copy(is, zos);
+        }
       }
 
       tempFile.delete();
@@ -235,9 +251,9 @@ public class FeatureListSaveTask extends AbstractTask {
         }
 
         ModularFeatureListRow row = (ModularFeatureListRow) r;
-        writeRow(writer, row);
+        writeRow(writer, row, false);
 
-        processedRows++;
+        processedRows.incrementAndGet();
       }
       writer.writeEndElement();
       writer.writeEndDocument();
@@ -255,8 +271,10 @@ public class FeatureListSaveTask extends AbstractTask {
     }
 
     try (FileInputStream is = new FileInputStream(tempFile)) {
-      zos.putNextEntry(new ZipEntry(getDataFileName(flist.getName())));
-      copy.copy(is, zos);
+      synchronized (zos) {
+        zos.putNextEntry(new ZipEntry(getDataFileName(flist.getName())));
+        copy.copy(is, zos);
+      }
     } catch (IOException e) {
       logger.log(Level.SEVERE, e.getMessage(), e);
       setStatus(TaskStatus.ERROR);
@@ -267,8 +285,94 @@ public class FeatureListSaveTask extends AbstractTask {
     return true;
   }
 
-  private void writeRow(XMLStreamWriter writer, ModularFeatureListRow row)
-      throws XMLStreamException {
+  /**
+   * Saves the rows in the {@link FeatureListBinaryFormat}. Chunks of rows are encoded in parallel
+   * and each chunk is written to its own zip entry.
+   */
+  private boolean saveFeatureDataBinary() {
+    final List<FeatureListRow> rowList = List.copyOf(flist.getRows());
+    final List<RawDataFile> files = List.copyOf(flist.getRawDataFiles());
+    final int rowsPerChunk = FeatureListBinaryFormat.ROWS_PER_CHUNK;
+    final int numChunks = (rowList.size() + rowsPerChunk - 1) / rowsPerChunk;
+
+    try {
+      final ByteArrayOutputStream rowsBytes = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(rowsBytes);
+      FeatureListBinaryFormat.writeRows(out, flist, rowList, files, rowsPerChunk);
+      out.flush();
+      writeEntry(FeatureListBinaryFormat.getRowsFileName(flist.getName()),
+          rowsBytes.toByteArray());
+
+      IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+        if (isCanceled()) {
+          return;
+        }
+        final int start = chunk * rowsPerChunk;
+        final int end = Math.min(start + rowsPerChunk, rowList.size());
+        try {
+          final byte[] data = encodeChunk(rowList.subList(start, end), files, start);
+          writeEntry(FeatureListBinaryFormat.getChunkFileName(flist.getName(), chunk), data);
+        } catch (IOException | XMLStreamException e) {
+          throw new RuntimeException(e);
+        }
+        processedRows.addAndGet(end - start);
+      });
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.SEVERE, e.getMessage(), e);
+      setStatus(TaskStatus.ERROR);
+      return false;
+    }
+    return !isCanceled();
+  }
+
+  private byte[] encodeChunk(List<FeatureListRow> chunkRows, List<RawDataFile> files,
+      int firstRow) throws IOException, XMLStreamException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    FeatureListBinaryFormat.writeChunkHeader(out, firstRow, chunkRows.size());
+
+    final List<ModularFeatureListRow> modularRows = chunkRows.stream()
+        .map(ModularFeatureListRow.class::cast).toList();
+    FeatureListBinaryFormat.writeColumns(out, modularRows);
+    for (RawDataFile file : files) {
+      final List<ModularFeature> features = modularRows.stream().map(row -> row.getFeature(file))
+          .filter(FeatureListBinaryFormat::isSavedFeature).toList();
+      FeatureListBinaryFormat.writeColumns(out, features);
+    }
+
+    // all other values use the xml codec of the data type
+    final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+    final XMLStreamWriter writer = XMLOutputFactory.newInstance()
+        .createXMLStreamWriter(xml, "UTF-8");
+    writer.writeStartDocument("UTF-8", "1.0");
+    writer.writeStartElement(CONST.XML_FEATURE_LIST_ELEMENT);
+    for (ModularFeatureListRow row : modularRows) {
+      writeRow(writer, row, true);
+    }
+    writer.writeEndElement();
+    writer.writeEndDocument();
+    writer.close();
+
+    out.writeInt(xml.size());
+    xml.writeTo(out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private void writeEntry(String name, byte[] data) throws IOException {
+    synchronized (zos) {
+      zos.putNextEntry(new ZipEntry(name));
+      zos.write(data);
+      zos.closeEntry();
+    }
+  }
+
+  /**
+   * @param skipColumnValues skip values that are saved as binary columns, see
+   *                         {@link FeatureListBinaryFormat#isColumnValue(DataType, Object)}
+   */
+  private void writeRow(XMLStreamWriter writer, ModularFeatureListRow row,
+      boolean skipColumnValues) throws XMLStreamException {
 
     writer.writeStartElement(CONST.XML_ROW_ELEMENT);
     writer.writeAttribute(idType.getUniqueID(), String.valueOf(row.getID()));
@@ -279,11 +383,14 @@ public class FeatureListSaveTask extends AbstractTask {
       if (dataType instanceof FeaturesType) {
         continue;
       }
+      if (skipColumnValues && FeatureListBinaryFormat.isColumnValue(dataType, value)) {
+        continue;
+      }
       writeDataType(writer, dataType, value, flist, row, null, null);
     }
 
     for (ModularFeature feature : row.getFeatures()) {
-      writeFeature(writer, row, feature);
+      writeFeature(writer, row, feature, skipColumnValues);
     }
 
     writer.writeEndElement();
@@ -308,7 +415,7 @@ public class FeatureListSaveTask extends AbstractTask {
   }
 
   private void writeFeature(XMLStreamWriter writer, ModularFeatureListRow row,
-      ModularFeature feature) throws XMLStreamException {
+      ModularFeature feature, boolean skipColumnValues) throws XMLStreamException {
     final RawDataFile rawDataFile = feature.getRawDataFile();
     if (rawDataFile == null || feature.getFeatureStatus() == FeatureStatus.UNKNOWN) {
       return;
@@ -318,6 +425,10 @@ public class FeatureListSaveTask extends AbstractTask {
     writer.writeAttribute(CONST.XML_RAW_FILE_ELEMENT, rawDataFile.getName());
 
     for (Entry<DataType, Object> entry : feature.getMap().entrySet()) {
+      if (skipColumnValues && FeatureListBinaryFormat.isColumnValue(entry.getKey(),
+          entry.getValue())) {
+        continue;
+      }
       writeDataType(writer, entry.getKey(), entry.getValue(), flist, row, feature, rawDataFile);
     }
 
@@ -34,6 +34,7 @@ import io.github.mzmine.javafx.components.factories.FxTextFlows;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.dialogs.ParameterSetupDialog;
 import io.github.mzmine.parameters.impl.SimpleParameterSet;
+import io.github.mzmine.parameters.parametertypes.BooleanParameter;
 import io.github.mzmine.parameters.parametertypes.ComboParameter;
 import io.github.mzmine.parameters.parametertypes.filenames.FileNameSuffixExportParameter;
 import io.github.mzmine.project.ProjectService;
@@ -63,12 +64,21 @@ public class ProjectSaveAsParameters extends SimpleParameterSet {
       + "files should not be moved or renamed). Standalone copies the raw data files into the project, "
       + "creating a large but flexible project that can be shared.", ProjectSaveOption.values(),
       ProjectSaveOption.REFERENCING);
+  public static final BooleanParameter scanSnapshot = new BooleanParameter("Save scan snapshot",
+      "Saves all scans and mass lists in a binary format. Opening the project then reads the "
+      + "snapshot instead of importing and processing the raw data files again. Larger project "
+      + "file. Not supported for ion mobility and imaging data.", false);
+  public static final BooleanParameter binaryFeatureLists = new BooleanParameter(
+      "Binary feature lists",
+      "Saves feature lists in a compact binary format that is written and read in parallel. "
+      + "Otherwise, feature lists are saved as xml. Projects with binary feature lists can only "
+      + "be opened by this or newer versions of mzmine.", false);
   public static final FileNameSuffixExportParameter projectFile = new FileNameSuffixExportParameter(
       "Project file", "File name of project to be saved", extensions, null);
   private static final Logger logger = Logger.getLogger(ProjectSaveAsParameters.class.getName());
 
   public ProjectSaveAsParameters() {
-    super(new Parameter[]{projectFile, option});
+    super(new Parameter[]{projectFile, option, scanSnapshot, binaryFeatureLists});
   }
 
   @Override
@@ -34,6 +34,7 @@ import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.project.impl.MZmineProjectImpl;
 import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.StreamCopy;
 import io.github.mzmine.util.exceptions.ExceptionUtils;
@@ -44,10 +45,11 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
@@ -65,6 +67,8 @@ public class ProjectSavingTask extends AbstractTask {
   public static final String PARAMETERS_FILENAME = "User parameters.xml";
   private static final Logger logger = Logger.getLogger(ProjectSavingTask.class.getName());
   private final ProjectSaveOption projectType;
+  private final boolean saveScanSnapshot;
+  private final boolean binaryFeatureLists;
 
   private final File saveFile;
   private final MZmineProjectImpl savedProject;
@@ -73,6 +77,7 @@ public class ProjectSavingTask extends AbstractTask {
   // This hashtable maps raw data files to their ID within the saved project
   private final Hashtable<RawDataFile, String> dataFilesIDMap;
   private RawDataFileSaveHandler rawDataFileSaveHandler;
+  private volatile List<FeatureListSaveTask> featureListSaveTasks;
   private UserParameterSaveHandler userParameterSaveHandler;
   private int currentStage;
   private String currentSavedObjectName;
@@ -83,6 +88,8 @@ public class ProjectSavingTask extends AbstractTask {
     this.savedProject = (MZmineProjectImpl) project;
     this.saveFile = parameters.getValue(ProjectSaveAsParameters.projectFile);
     this.projectType = parameters.getValue(ProjectSaveAsParameters.option);
+    this.saveScanSnapshot = parameters.getValue(ProjectSaveAsParameters.scanSnapshot);
+    this.binaryFeatureLists = parameters.getValue(ProjectSaveAsParameters.binaryFeatureLists);
     dataFilesIDMap = new Hashtable<>();
     this.totalSaveItems = project.getDataFiles().length + project.getCurrentFeatureLists().size();
   }
@@ -134,6 +141,11 @@ public class ProjectSavingTask extends AbstractTask {
       rawDataFileSaveHandler.cancel();
     }
 
+    final List<FeatureListSaveTask> saveTasks = featureListSaveTasks;
+    if (saveTasks != null) {
+      saveTasks.forEach(FeatureListSaveTask::cancel);
+    }
+
     if (userParameterSaveHandler != null) {
       userParameterSaveHandler.cancel();
     }
@@ -318,36 +330,35 @@ public class ProjectSavingTask extends AbstractTask {
   private void saveRawDataFiles(ZipOutputStream zipStream)
       throws IOException, ParserConfigurationException {
 
-    AtomicBoolean finished = new AtomicBoolean(false);
+    final CompletableFuture<Void> finished = new CompletableFuture<>();
     rawDataFileSaveHandler = new RawDataFileSaveHandler(savedProject, zipStream,
-        Objects.requireNonNullElse(savedProject.isStandalone(), true), getModuleCallDate());
+        Objects.requireNonNullElse(savedProject.isStandalone(), true), saveScanSnapshot,
+        getModuleCallDate());
     rawDataFileSaveHandler.addTaskStatusListener((task, newStatus, oldStatus) -> {
       switch (newStatus) {
         case WAITING, PROCESSING -> {
         }
         case FINISHED -> {
-          finished.set(true);
+          finished.complete(null);
         }
         case CANCELED -> {
-          finished.set(true);
           setStatus(TaskStatus.CANCELED);
+          finished.complete(null);
         }
         case ERROR -> {
-          finished.set(true);
           setErrorMessage("Error while saving raw data files.");
           setStatus(TaskStatus.ERROR);
+          finished.complete(null);
         }
       }
     });
     MZmineCore.getTaskController().addTask(rawDataFileSaveHandler);
-
-    while (!finished.get() && !isCanceled()) {
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        logger.log(Level.SEVERE, e.getMessage(), e);
-      }
+    // canceled before the handler was set? cancel() propagates afterwards
+    if (isCanceled()) {
+      rawDataFileSaveHandler.cancel();
     }
+
+    finished.join();
   }
 
   /**
@@ -359,35 +370,35 @@ public class ProjectSavingTask extends AbstractTask {
   private void savePeakLists(ZipOutputStream zipStream)
       throws IOException, TransformerConfigurationException, SAXException {
 
+    // all feature lists are saved in parallel, the tasks synchronize on the zip stream
     final List<FeatureList> currentFeatureLists = savedProject.getCurrentFeatureLists();
+    final List<FeatureListSaveTask> saveTasks = new ArrayList<>();
+    final List<CompletableFuture<Void>> finished = new ArrayList<>();
     for (FeatureList featureList : currentFeatureLists) {
       FeatureListSaveTask saveTask = new FeatureListSaveTask((ModularFeatureList) featureList,
-          zipStream);
+          zipStream, binaryFeatureLists);
 
-      AtomicBoolean finished = new AtomicBoolean(false);
+      final CompletableFuture<Void> taskFinished = new CompletableFuture<>();
       saveTask.addTaskStatusListener((task, newStatus, oldStatus) -> {
         switch (newStatus) {
           case WAITING, PROCESSING -> {
           }
           case FINISHED, ERROR, CANCELED -> {
-            finished.set(true);
+            taskFinished.complete(null);
           }
         }
       });
-      MZmineCore.getTaskController().addTask(saveTask);
-
-      while (!finished.get()) {
-        try {
-          Thread.sleep(50);
-        } catch (InterruptedException e) {
-          logger.log(Level.SEVERE, e.getMessage(), e);
-        }
-      }
-
-      if (isCanceled()) {
-        break;
-      }
+      saveTasks.add(saveTask);
+      finished.add(taskFinished);
+    }
+    // cancel() cancels all save tasks
+    featureListSaveTasks = saveTasks;
+    MZmineCore.getTaskController().addTasks(saveTasks.toArray(Task[]::new));
+    if (isCanceled()) {
+      saveTasks.forEach(FeatureListSaveTask::cancel);
     }
+
+    CompletableFuture.allOf(finished.toArray(CompletableFuture[]::new)).join();
   }
 
   /**
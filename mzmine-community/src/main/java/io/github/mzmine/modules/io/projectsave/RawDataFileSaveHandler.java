@@ -86,6 +86,7 @@ public class RawDataFileSaveHandler extends AbstractTask {
   private final ZipOutputStream zipStream;
   private final List<RawDataFile> files;
   private final boolean saveFilesInProject;
+  private final boolean saveScanSnapshot;
   private final String prefix = "Saving raw data files: ";
   private final int numSteps;
   private final double stepProgress;
@@ -94,13 +95,29 @@ public class RawDataFileSaveHandler extends AbstractTask {
 
   public RawDataFileSaveHandler(MZmineProject project, ZipOutputStream zipOutputStream,
       boolean saveFilesInProject, @NotNull Instant moduleCallDate) {
+    this(project, zipOutputStream, saveFilesInProject, false, moduleCallDate);
+  }
+
+  /**
+   * @param saveScanSnapshot save a {@link RawDataFileSnapshot} of each file so that opening the
+   *                         project does not replay the import batch. Only used if all files are
+   *                         supported.
+   */
+  public RawDataFileSaveHandler(MZmineProject project, ZipOutputStream zipOutputStream,
+      boolean saveFilesInProject, boolean saveScanSnapshot, @NotNull Instant moduleCallDate) {
     super(null, moduleCallDate);
     this.project = project;
     this.zipStream = zipOutputStream;
     this.saveFilesInProject = saveFilesInProject;
     files = List.of(project.getDataFiles());
+    this.saveScanSnapshot = saveScanSnapshot && !files.isEmpty() && files.stream()
+        .allMatch(RawDataFileSnapshot::isSupported);
+    if (saveScanSnapshot && !this.saveScanSnapshot) {
+      logger.info(
+          "Scan snapshot is only supported for projects without ion mobility or imaging files. Saving the import batch only.");
+    }
     numSteps = 1 /*dissect + merge */ + (saveFilesInProject ? files.size() : 0) /*save files*/
-        + 1 /*save batch file*/;
+        + (this.saveScanSnapshot ? files.size() : 0) /*snapshots*/ + 1 /*save batch file*/;
     stepProgress = 1 / (double) numSteps;
   }
 
@@ -149,6 +166,9 @@ public class RawDataFileSaveHandler extends AbstractTask {
       replaceRawFilePaths(cleanedBatchQueues);
       copyRawDataFilesToZip();
     }
+    if (saveScanSnapshot) {
+      saveScanSnapshots();
+    }
 
     zipStream.putNextEntry(new ZipEntry(RAW_DATA_IMPORT_BATCH_FILENAME));
 
@@ -231,6 +251,24 @@ public class RawDataFileSaveHandler extends AbstractTask {
     }
   }
 
+  /**
+   * Writes a {@link RawDataFileSnapshot} of each file. The import batch is still saved for
+   * compatibility.
+   */
+  private void saveScanSnapshots() throws IOException {
+    for (int i = 0; i < files.size(); i++) {
+      if (isCanceled()) {
+        return;
+      }
+      final RawDataFile file = files.get(i);
+      description = prefix + "Saving scan snapshot of " + file.getName();
+      zipStream.putNextEntry(new ZipEntry(RawDataFileSnapshot.getZipEntryName(i)));
+      RawDataFileSnapshot.write(file, zipStream);
+      zipStream.closeEntry();
+      progress += stepProgress;
+    }
+  }
+
   private void copyToZip(File actualFile, String zipPath) throws IOException {
     zipStream.putNextEntry(new ZipEntry(zipPath));
     FileInputStream inputStream = new FileInputStream(actualFile);
@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.projectsave;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassList;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.features.FeatureList.FeatureListAppliedMethod;
+import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.datamodel.msms.MsMsInfo;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import javafx.scene.paint.Color;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Binary snapshot of a {@link RawDataFileImpl} with all scans and mass lists. Saved into the
+ * project so that opening a project does not need to re-import and re-process the raw data.
+ * <p>
+ * Layout (big endian): header with file name, path, color, start time stamp and applied methods,
+ * then one column per scan property (scan number, MS level, retention time, ...), then the m/z and
+ * intensity values of each scan followed by its mass list. Values are streamed in blocks, so
+ * reading and writing is bound by disk bandwidth.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class RawDataFileSnapshot {
+
+  public static final String SNAPSHOT_FOLDER = "msdatasnapshots/";
+  public static final String SNAPSHOT_SUFFIX = ".mzsnapshot";
+  private static final int MAGIC = 0x4d5a534e; // MZSN
+  private static final int VERSION = 1;
+  private static final int BLOCK_BYTES = 1 << 16;
+  private static final String APPLIED_METHODS_ELEMENT = "appliedmethods";
+  private static final String APPLIED_METHOD_ELEMENT = "appliedmethod";
+
+  private RawDataFileSnapshot() {
+  }
+
+  /**
+   * @param index index of the file in the project
+   * @return the zip entry name of the snapshot
+   */
+  public static String getZipEntryName(int index) {
+    return SNAPSHOT_FOLDER + index + SNAPSHOT_SUFFIX;
+  }
+
+  /**
+   * @return the index of the file in the project or -1 if this is no snapshot entry
+   */
+  public static int getIndexOfZipEntry(@NotNull String entryName) {
+    if (!entryName.startsWith(SNAPSHOT_FOLDER) || !entryName.endsWith(SNAPSHOT_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(entryName.substring(SNAPSHOT_FOLDER.length(),
+          entryName.length() - SNAPSHOT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Only plain files are supported. Ion mobility and imaging files and files with other data files
+   * are still imported by the raw data import batch.
+   */
+  public static boolean isSupported(@NotNull RawDataFile file) {
+    return file.getClass() == RawDataFileImpl.class && file.getOtherDataFiles().isEmpty()
+           && file.getScans().stream().allMatch(scan -> scan instanceof SimpleScan);
+  }
+
+  /**
+   * Write the snapshot. The stream is flushed but not closed.
+   */
+  public static void write(@NotNull RawDataFile file, @NotNull OutputStream stream)
+      throws IOException {
+    final DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(stream, BLOCK_BYTES));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(file.getName());
+    writeNullableString(out, file.getAbsolutePath());
+    out.writeUTF(file.getColor().toString());
+    final LocalDateTime startTimeStamp = file.getStartTimeStamp();
+    writeNullableString(out, startTimeStamp != null ? startTimeStamp.toString() : null);
+    writeNullableString(out, appliedMethodsToXml(file.getAppliedMethods()));
+
+    final List<Scan> scans = file.getScans();
+    final int n = scans.size();
+    out.writeInt(n);
+    // metadata columns
+    for (Scan scan : scans) {
+      out.writeInt(scan.getScanNumber());
+    }
+    for (Scan scan : scans) {
+      out.writeInt(scan.getMSLevel());
+    }
+    for (Scan scan : scans) {
+      out.writeFloat(scan.getRetentionTime());
+    }
+    for (Scan scan : scans) {
+      final Float injectionTime = scan.getInjectionTime();
+      out.writeFloat(injectionTime != null ? injectionTime : Float.NaN);
+    }
+    for (Scan scan : scans) {
+      out.writeByte(scan.getSpectrumType().ordinal());
+    }
+    for (Scan scan : scans) {
+      out.writeByte(scan.getPolarity().ordinal());
+    }
+    for (Scan scan : scans) {
+      final Range<Double> range = scan.getScanningMZRange();
+      out.writeBoolean(range != null);
+      if (range != null) {
+        out.writeDouble(range.lowerEndpoint());
+        out.writeDouble(range.upperEndpoint());
+      }
+    }
+    for (Scan scan : scans) {
+      writeNullableString(out, scan.getScanDefinition());
+    }
+    for (Scan scan : scans) {
+      writeNullableString(out, msMsInfoToXml(scan.getMsMsInfo()));
+    }
+    for (Scan scan : scans) {
+      out.writeInt(scan.getNumberOfDataPoints());
+    }
+    for (Scan scan : scans) {
+      final MassList massList = scan.getMassList();
+      out.writeInt(massList != null ? massList.getNumberOfDataPoints() : -1);
+    }
+
+    // data of each scan
+    final ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES);
+    double[] buffer = new double[0];
+    for (Scan scan : scans) {
+      final int dps = scan.getNumberOfDataPoints();
+      buffer = scan.getMzValues(buffer);
+      writeDoubles(out, buffer, dps, block);
+      buffer = scan.getIntensityValues(buffer);
+      writeDoubles(out, buffer, dps, block);
+
+      final MassList massList = scan.getMassList();
+      if (massList != null) {
+        final int masses = massList.getNumberOfDataPoints();
+        buffer = massList.getMzValues(buffer);
+        writeDoubles(out, buffer, masses, block);
+        buffer = massList.getIntensityValues(buffer);
+        writeDoubles(out, buffer, masses, block);
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Read a snapshot into a new raw data file. Scans and mass lists are stored in the storage.
+   *
+   * @param resolvePath maps the saved absolute path to the path of the new file, e.g., to the
+   *                    unzipped file of a standalone project
+   */
+  @NotNull
+  public static RawDataFileImpl read(@NotNull InputStream stream,
+      @Nullable MemoryMapStorage storage, @NotNull UnaryOperator<String> resolvePath)
+      throws IOException {
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BLOCK_BYTES));
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a raw data snapshot");
+    }
+    final int version = in.readInt();
+    if (version > VERSION) {
+      throw new IOException("Raw data snapshot version %d is not supported".formatted(version));
+    }
+    final String name = in.readUTF();
+    final String path = readNullableString(in);
+    final Color color = Color.web(in.readUTF());
+    final String startTimeStamp = readNullableString(in);
+    final String appliedMethods = readNullableString(in);
+
+    final RawDataFileImpl file = new RawDataFileImpl(name,
+        path != null ? resolvePath.apply(path) : null, storage, color);
+    if (startTimeStamp != null) {
+      file.setStartTimeStamp(LocalDateTime.parse(startTimeStamp));
+    }
+    if (appliedMethods != null) {
+      file.getAppliedMethods().addAll(appliedMethodsFromXml(appliedMethods));
+    }
+
+    final int n = in.readInt();
+    final int[] scanNumbers = readInts(in, n);
+    final int[] msLevels = readInts(in, n);
+    final float[] rts = new float[n];
+    for (int i = 0; i < n; i++) {
+      rts[i] = in.readFloat();
+    }
+    final float[] injectionTimes = new float[n];
+    for (int i = 0; i < n; i++) {
+      injectionTimes[i] = in.readFloat();
+    }
+    final MassSpectrumType[] spectrumTypes = new MassSpectrumType[n];
+    for (int i = 0; i < n; i++) {
+      spectrumTypes[i] = MassSpectrumType.values()[in.readByte()];
+    }
+    final PolarityType[] polarities = new PolarityType[n];
+    for (int i = 0; i < n; i++) {
+      polarities[i] = PolarityType.values()[in.readByte()];
+    }
+    @SuppressWarnings("unchecked") final Range<Double>[] scanningRanges = new Range[n];
+    for (int i = 0; i < n; i++) {
+      if (in.readBoolean()) {
+        scanningRanges[i] = Range.closed(in.readDouble(), in.readDouble());
+      }
+    }
+    final String[] definitions = new String[n];
+    for (int i = 0; i < n; i++) {
+      definitions[i] = readNullableString(in);
+    }
+    final String[] msMsInfos = new String[n];
+    for (int i = 0; i < n; i++) {
+      msMsInfos[i] = readNullableString(in);
+    }
+    final int[] dataPoints = readInts(in, n);
+    final int[] masses = readInts(in, n);
+
+    final ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES);
+    for (int i = 0; i < n; i++) {
+      final double[] mzs = readDoubles(in, dataPoints[i], block);
+      final double[] intensities = readDoubles(in, dataPoints[i], block);
+      final SimpleScan scan = new SimpleScan(file, scanNumbers[i], msLevels[i], rts[i], null, mzs,
+          intensities, spectrumTypes[i], polarities[i], definitions[i], scanningRanges[i],
+          Float.isNaN(injectionTimes[i]) ? null : injectionTimes[i]);
+      if (masses[i] >= 0) {
+        scan.addMassList(new SimpleMassList(storage, readDoubles(in, masses[i], block),
+            readDoubles(in, masses[i], block)));
+      }
+      file.addScan(scan);
+    }
+
+    // MS/MS infos may point to other scans of this file
+    final List<RawDataFile> files = List.of(file);
+    for (int i = 0; i < n; i++) {
+      if (msMsInfos[i] != null) {
+        ((SimpleScan) file.getScan(i)).setMsMsInfo(msMsInfoFromXml(msMsInfos[i], file, files));
+      }
+    }
+    return file;
+  }
+
+  private static void writeDoubles(DataOutputStream out, double[] values, int length,
+      ByteBuffer block) throws IOException {
+    final int perBlock = block.capacity() / Double.BYTES;
+    for (int start = 0; start < length; start += perBlock) {
+      final int len = Math.min(perBlock, length - start);
+      block.clear();
+      block.asDoubleBuffer().put(values, start, len);
+      out.write(block.array(), 0, len * Double.BYTES);
+    }
+  }
+
+  private static double[] readDoubles(DataInputStream in, int length, ByteBuffer block)
+      throws IOException {
+    final double[] values = new double[length];
+    final int perBlock = block.capacity() / Double.BYTES;
+    for (int start = 0; start < length; start += perBlock) {
+      final int len = Math.min(perBlock, length - start);
+      in.readFully(block.array(), 0, len * Double.BYTES);
+      block.clear();
+      block.asDoubleBuffer().get(values, start, len);
+    }
+    return values;
+  }
+
+  private static int[] readInts(DataInputStream in, int length) throws IOException {
+    final int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = in.readInt();
+    }
+    return values;
+  }
+
+  /**
+   * Length prefixed UTF-8 without the 64k limit of {@link DataOutputStream#writeUTF(String)}
+   */
+  private static void writeNullableString(DataOutputStream out, @Nullable String value)
+      throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  @Nullable
+  private static String readNullableString(DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Nullable
+  private static String msMsInfoToXml(@Nullable MsMsInfo info) throws IOException {
+    if (info == null) {
+      return null;
+    }
+    try {
+      final StringWriter string = new StringWriter();
+      final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(string);
+      info.writeToXML(writer);
+      writer.flush();
+      writer.close();
+      return string.toString();
+    } catch (XMLStreamException e) {
+      throw new IOException("Cannot write MS/MS info", e);
+    }
+  }
+
+  @NotNull
+  private static MsMsInfo msMsInfoFromXml(@NotNull String xml, @NotNull RawDataFile file,
+      @NotNull List<RawDataFile> files) throws IOException {
+    try {
+      final XMLStreamReader reader = XMLInputFactory.newInstance()
+          .createXMLStreamReader(new StringReader(xml));
+      reader.nextTag();
+      return MsMsInfo.loadFromXML(reader, file, files);
+    } catch (XMLStreamException e) {
+      throw new IOException("Cannot read MS/MS info", e);
+    }
+  }
+
+  @Nullable
+  private static String appliedMethodsToXml(@NotNull List<FeatureListAppliedMethod> methods)
+      throws IOException {
+    if (methods.isEmpty()) {
+      return null;
+    }
+    try {
+      final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+          .newDocument();
+      final Element root = document.createElement(APPLIED_METHODS_ELEMENT);
+      document.appendChild(root);
+      for (FeatureListAppliedMethod method : methods) {
+        final Element element = document.createElement(APPLIED_METHOD_ELEMENT);
+        method.saveValueToXML(element);
+        root.appendChild(element);
+      }
+      final var transformer = TransformerFactory.newInstance().newTransformer();
+      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+      final StringWriter string = new StringWriter();
+      transformer.transform(new DOMSource(document), new StreamResult(string));
+      return string.toString();
+    } catch (Exception e) {
+      throw new IOException("Cannot write applied methods", e);
+    }
+  }
+
+  @NotNull
+  private static List<FeatureListAppliedMethod> appliedMethodsFromXml(@NotNull String xml)
+      throws IOException {
+    try {
+      final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+          .parse(new InputSource(new StringReader(xml)));
+      final NodeList elements = document.getElementsByTagName(APPLIED_METHOD_ELEMENT);
+      final List<FeatureListAppliedMethod> methods = new ArrayList<>();
+      for (int i = 0; i < elements.getLength(); i++) {
+        final SimpleFeatureListAppliedMethod method = SimpleFeatureListAppliedMethod.loadValueFromXML(
+            (Element) elements.item(i));
+        if (method != null) {
+          methods.add(method);
+        }
+      }
+      return methods;
+    } catch (Exception e) {
+      throw new IOException("Cannot read applied methods", e);
+    }
+  }
+}
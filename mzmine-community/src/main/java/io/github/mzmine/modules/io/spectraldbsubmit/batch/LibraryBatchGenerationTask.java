@@ -62,9 +62,9 @@ import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.FormulaUtils;
 import io.github.mzmine.util.FormulaWithExactMz;
-import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.annotations.CompoundAnnotationUtils;
 import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import io.github.mzmine.util.scans.FragmentScanSelection;
 import io.github.mzmine.util.scans.FragmentScanSelection.IncludeInputSpectra;
 import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
@@ -126,7 +126,7 @@ public class LibraryBatchGenerationTask extends AbstractTask {
     File file = parameters.getValue(LibraryBatchGenerationParameters.file);
     outFile = FileAndPathUtil.getRealFilePath(file, exportFormat);
 
-    library = new SpectralLibrary(MemoryMapStorage.forMassList(), outFile.getName() + "_batch",
+    library = new SpectralLibrary(TieredStorageManager.forMassList(), outFile.getName() + "_batch",
         outFile);
     // metadata as a map
     LibraryBatchMetadataParameters meta = parameters.getParameter(
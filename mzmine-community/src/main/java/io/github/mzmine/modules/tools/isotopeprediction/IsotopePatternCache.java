@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.tools.isotopeprediction;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.IsotopePattern;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.datamodel.impl.SimpleIsotopePattern;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.openscience.cdk.interfaces.IMolecularFormula;
+import org.openscience.cdk.tools.manipulator.MolecularFormulaManipulator;
+
+/**
+ * Bounded, thread safe cache of predicted isotope patterns shared by the formula prediction
+ * modules. Many features share the same candidate formulas (adducts, isotopologues, in-source
+ * fragments), so patterns are calculated once per (formula, charge, polarity, min abundance, merge
+ * width).
+ * <p>
+ * The min abundance is often derived from the noise level and the detected pattern height and thus
+ * differs for every feature. The cached pattern is calculated with the min abundance rounded down to
+ * two significant digits, so that features of similar height share patterns. Isotopes below the
+ * requested min abundance are then removed from the returned pattern, so that the threshold is
+ * exact. As the isotope generator also prunes intermediate combinations by the min abundance, the
+ * remaining intensities may differ slightly from a direct calculation.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class IsotopePatternCache {
+
+  private static final Logger logger = Logger.getLogger(IsotopePatternCache.class.getName());
+  private static final int MAX_PATTERNS = 100_000;
+  private static final MathContext MIN_ABUNDANCE_PRECISION = new MathContext(2,
+      RoundingMode.FLOOR);
+
+  private static final Cache<Key, IsotopePattern> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAX_PATTERNS).recordStats().build();
+
+  private IsotopePatternCache() {
+  }
+
+  /**
+   * Same as {@link IsotopePatternCalculator#calculateIsotopePattern(IMolecularFormula, double, int,
+   * PolarityType)} but cached. The returned pattern may be shared and must not be modified.
+   */
+  @NotNull
+  public static IsotopePattern getIsotopePattern(@NotNull IMolecularFormula formula,
+      double minAbundance, int charge, @NotNull PolarityType polarity) {
+    return getIsotopePattern(formula, minAbundance, 0.00005f, charge, polarity);
+  }
+
+  /**
+   * Same as
+   * {@link IsotopePatternCalculator#calculateIsotopePattern(IMolecularFormula, double, double, int,
+   * PolarityType, boolean)} without isotope compositions but cached. The returned pattern may be
+   * shared and must not be modified.
+   */
+  @NotNull
+  public static IsotopePattern getIsotopePattern(@NotNull IMolecularFormula formula,
+      double minAbundance, double mergeWidth, int charge, @NotNull PolarityType polarity) {
+    final double roundedMinAbundance = roundMinAbundance(minAbundance);
+    final Key key = new Key(MolecularFormulaManipulator.getString(formula), roundedMinAbundance,
+        mergeWidth, charge, polarity);
+    IsotopePattern pattern = CACHE.getIfPresent(key);
+    if (pattern == null) {
+      // concurrent misses may calculate the same pattern twice, which is cheaper than locking
+      pattern = IsotopePatternCalculator.calculateIsotopePattern(formula, roundedMinAbundance,
+          mergeWidth, charge, polarity, false);
+      CACHE.put(key, pattern);
+    }
+    return filterMinAbundance(pattern, minAbundance);
+  }
+
+  /**
+   * @return the same pattern if all isotopes are >= min abundance relative to the most abundant
+   * isotope or a new pattern without the isotopes below
+   */
+  @NotNull
+  static IsotopePattern filterMinAbundance(@NotNull IsotopePattern pattern, double minAbundance) {
+    final int n = pattern.getNumberOfDataPoints();
+    double max = 0;
+    for (int i = 0; i < n; i++) {
+      max = Math.max(max, pattern.getIntensityValue(i));
+    }
+    final double threshold = minAbundance * max;
+    int retained = 0;
+    for (int i = 0; i < n; i++) {
+      if (pattern.getIntensityValue(i) >= threshold) {
+        retained++;
+      }
+    }
+    if (retained == n) {
+      return pattern;
+    }
+    final DataPoint[] dataPoints = new DataPoint[retained];
+    for (int i = 0, r = 0; i < n; i++) {
+      if (pattern.getIntensityValue(i) >= threshold) {
+        dataPoints[r++] = new SimpleDataPoint(pattern.getMzValue(i), pattern.getIntensityValue(i));
+      }
+    }
+    return new SimpleIsotopePattern(dataPoints, pattern.getCharge(), pattern.getStatus(),
+        pattern.getDescription());
+  }
+
+  /**
+   * @return min abundance rounded down to two significant digits
+   */
+  static double roundMinAbundance(double minAbundance) {
+    if (!(minAbundance > 0) || Double.isInfinite(minAbundance)) {
+      return minAbundance;
+    }
+    return BigDecimal.valueOf(minAbundance).round(MIN_ABUNDANCE_PRECISION).doubleValue();
+  }
+
+  @NotNull
+  public static CacheStats getStats() {
+    return CACHE.stats();
+  }
+
+  public static long size() {
+    return CACHE.size();
+  }
+
+  /**
+   * Logs the hit and miss statistics
+   */
+  public static void logStats() {
+    final CacheStats stats = CACHE.stats();
+    logger.info(
+        "Isotope pattern cache: %d patterns, %d hits, %d misses (%.1f%% hit rate)".formatted(
+            CACHE.size(), stats.hitCount(), stats.missCount(), stats.hitRate() * 100));
+  }
+
+  public static void clear() {
+    CACHE.invalidateAll();
+  }
+
+  private record Key(String formula, double minAbundance, double mergeWidth, int charge,
+                     PolarityType polarity) {
+
+  }
+}
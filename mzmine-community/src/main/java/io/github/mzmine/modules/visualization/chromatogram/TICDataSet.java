@@ -33,6 +33,8 @@ import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.gui.chartbasics.simplechart.datasets.AbstractTaskXYZDataset;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.DecimatedXYDataset;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation;
 import io.github.mzmine.javafx.concurrent.threading.FxThread;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.taskcontrol.TaskPriority;
@@ -47,7 +49,9 @@ import java.util.logging.Logger;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.jetbrains.annotations.Nullable;
 import org.jfree.chart.axis.NumberAxis;
+import org.jfree.data.DomainOrder;
 
 /**
  * TIC visualizer data set. One data set is created per file shown in this visualizer. We need to
@@ -55,7 +59,7 @@ import org.jfree.chart.axis.NumberAxis;
  * <p>
  * Added the possibility to switch to TIC plot type from a "non-TICVisualizerWindow" context.
  */
-public class TICDataSet extends AbstractTaskXYZDataset {
+public class TICDataSet extends AbstractTaskXYZDataset implements DecimatedXYDataset {
 
   private static final long serialVersionUID = 1L;
   // For comparing small differences.
@@ -77,6 +81,8 @@ public class TICDataSet extends AbstractTaskXYZDataset {
   private double intensityMax;
   private TICVisualizerTab window;
   private String customSeriesKey = null;
+  private boolean rtAscending = false;
+  private XYDecimation decimation;
 
   /**
    * Create the data set.
@@ -179,6 +185,8 @@ public class TICDataSet extends AbstractTaskXYZDataset {
       calculateValues();
 
       if (status != TaskStatus.CANCELED) {
+        rtAscending = XYDecimation.isAscending(this, 0);
+        decimation = rtAscending ? XYDecimation.create(this, 0) : null;
 
         // Always redraw when we add last value.
         refresh();
@@ -329,6 +337,16 @@ public class TICDataSet extends AbstractTaskXYZDataset {
     return Ints.toArray(indices);
   }
 
+  @Override
+  public DomainOrder getDomainOrder() {
+    return rtAscending ? DomainOrder.ASCENDING : DomainOrder.NONE;
+  }
+
+  @Override
+  public @Nullable XYDecimation getDecimation() {
+    return decimation;
+  }
+
   public double getMinIntensity() {
 
     return intensityMin;
@@ -26,6 +26,8 @@
 package io.github.mzmine.modules.visualization.chromatogram;
 
 import io.github.mzmine.gui.chartbasics.simplechart.SimpleChartUtility;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation.DrawnItems;
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.Shape;
@@ -46,6 +48,8 @@ public class TICPlotRenderer extends XYLineAndShapeRenderer {
    */
   private static final long serialVersionUID = 1L;
   private final double transparency = 1.0f;
+  // items of the current dataset drawn for the visible range, null to draw all
+  private transient DrawnItems drawnItems;
 
   public TICPlotRenderer() {
     super(true, false);
@@ -59,10 +63,21 @@ public class TICPlotRenderer extends XYLineAndShapeRenderer {
     return (AlphaComposite.getInstance(type, (float) alpha));
   }
 
+  @Override
+  public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea, XYPlot plot,
+      XYDataset data, PlotRenderingInfo info) {
+    drawnItems = XYDecimation.getDrawnItems(plot, data, dataArea, this::fireChangeEvent);
+    return super.initialise(g2, dataArea, plot, data, info);
+  }
+
   public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea,
       PlotRenderingInfo info, XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis,
       XYDataset dataset, int series, int item, CrosshairState crosshairState, int pass) {
 
+    if (XYDecimation.isSkipped(drawnItems, state, series, item)) {
+      return;
+    }
+
     g2.setComposite(makeComposite(transparency));
 
     super.drawItem(g2, state, dataArea, info, plot, domainAxis, rangeAxis, dataset, series, item,
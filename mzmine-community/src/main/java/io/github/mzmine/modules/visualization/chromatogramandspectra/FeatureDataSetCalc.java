@@ -35,8 +35,11 @@ import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.IntensityMo
 import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.MzMode;
 import io.github.mzmine.gui.chartbasics.simplechart.datasets.ColoredXYDataset;
 import io.github.mzmine.gui.chartbasics.simplechart.datasets.RunOption;
+import io.github.mzmine.gui.preferences.MZminePreferences;
 import io.github.mzmine.javafx.concurrent.threading.FxThread;
+import io.github.mzmine.main.ConfigService;
 import io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.ExtractMzRangesIonSeriesFunction;
+import io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.MzBinnedXicIndexTask;
 import io.github.mzmine.modules.visualization.chromatogram.MzRangeEicDataSet;
 import io.github.mzmine.modules.visualization.chromatogram.TICPlot;
 import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
@@ -143,6 +146,12 @@ public class FeatureDataSetCalc extends AbstractTask {
         scanDataType, this);
     extractFunction.setMzMode(mzMode);
     extractFunction.setIntensityMode(intensityMode);
+    // EICs are redrawn for every selection, optionally index the mass lists once. An existing
+    // index is used by the extraction, the scan walk is used until then
+    if (scanDataType == ScanDataType.MASS_LIST && ConfigService.getPreferences()
+        .getValue(MZminePreferences.indexMassListsForEics)) {
+      MzBinnedXicIndexTask.buildInBackground(dataFile);
+    }
 
     BuildingIonSeries[] ionSeries = extractFunction.get();
 
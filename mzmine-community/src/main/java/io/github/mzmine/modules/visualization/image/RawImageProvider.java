@@ -36,6 +36,7 @@ import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.MobilityScanDataType;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
 import io.github.mzmine.datamodel.data_access.MobilityScanDataAccess;
+import io.github.mzmine.datamodel.data_access.MzBinnedXicIndex;
 import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
@@ -210,6 +211,14 @@ public class RawImageProvider implements PlotXYZDataProvider {
 
   @NotNull
   private SimpleIonTimeSeries extractFromScans() {
+    final MzBinnedXicIndex index = MzBinnedXicIndex.get(raw, ScanDataType.RAW);
+    if (index != null) {
+      final SimpleIonTimeSeries series = extractFromIndex(index);
+      if (series != null) {
+        return series;
+      }
+    }
+
     double minMz = mzRange.lowerEndpoint();
     double maxMz = mzRange.upperEndpoint();
 
@@ -258,6 +267,46 @@ public class RawImageProvider implements PlotXYZDataProvider {
     return new SimpleIonTimeSeries(null, mzs.toDoubleArray(), intensities.toDoubleArray(), scans);
   }
 
+  /**
+   * Same as {@link #extractFromScans()} but only visits the signals in the m/z bins of the m/z
+   * range
+   *
+   * @return the series or null if the selected scans are not covered by the index
+   */
+  @Nullable
+  private SimpleIonTimeSeries extractFromIndex(@NotNull MzBinnedXicIndex index) {
+    final List<Scan> scans = new ArrayList<>();
+    for (Scan scan : scanSelection.getMatchingScans(raw.getScans())) {
+      if (scan instanceof ImagingScan) {
+        scans.add(scan);
+      }
+    }
+    final int[] positions = index.mapScanPositions(scans);
+    if (positions == null) {
+      return null;
+    }
+
+    logger.info("ImageViewer: Start data point extraction from m/z index");
+    final double[] mzs = new double[scans.size()];
+    final double[] intensities = new double[scans.size()];
+    final double[] maxIntensities = new double[scans.size()];
+    index.forEachSignal(mzRange.lowerEndpoint(), mzRange.upperEndpoint(), 0,
+        index.getNumberOfScans() - 1, (scanPosition, mz, intensity) -> {
+          final int i = positions[scanPosition];
+          if (i < 0) {
+            return;
+          }
+          // sum intensity and find best signal
+          intensities[i] += intensity;
+          if (intensity > maxIntensities[i]) {
+            maxIntensities[i] = intensity;
+            mzs[i] = mz;
+          }
+        });
+    finishedPercentage = 1d;
+    return new SimpleIonTimeSeries(null, mzs, intensities, scans);
+  }
+
   @NotNull
   private SimpleIonTimeSeries extractFromMobilityScans(IMSRawDataFile imsRaw) {
     double minMz = mzRange.lowerEndpoint();
@@ -35,7 +35,7 @@ import io.github.mzmine.modules.dataprocessing.id_formulaprediction.restrictions
 import io.github.mzmine.modules.dataprocessing.id_formulaprediction.restrictions.rdbe.RDBERestrictionParameters;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreCalculator;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreParameters;
-import io.github.mzmine.modules.tools.isotopeprediction.IsotopePatternCalculator;
+import io.github.mzmine.modules.tools.isotopeprediction.IsotopePatternCache;
 import io.github.mzmine.modules.visualization.spectra.simplespectra.SpectraPlot;
 import io.github.mzmine.modules.visualization.spectra.simplespectra.datapointprocessing.DataPointProcessingController;
 import io.github.mzmine.modules.visualization.spectra.simplespectra.datapointprocessing.DataPointProcessingTask;
@@ -325,9 +325,8 @@ public class DPPSumFormulaPredictionTask extends DataPointProcessingTask {
 
     final double minPredictedAbundance = isotopeNoiseLevel / detectedPatternHeight;
 
-    predictedIsotopePattern = IsotopePatternCalculator
-        .calculateIsotopePattern(clonedFormula, minPredictedAbundance, charge,
-            ionType.getPolarity());
+    predictedIsotopePattern = IsotopePatternCache.getIsotopePattern(clonedFormula,
+        minPredictedAbundance, charge, ionType.getPolarity());
 
     return IsotopePatternScoreCalculator
         .getSimilarityScore(detectedPattern, predictedIsotopePattern, isotopeMZTolerance,
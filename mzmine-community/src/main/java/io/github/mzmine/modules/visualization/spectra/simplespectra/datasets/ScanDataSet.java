@@ -29,18 +29,23 @@ import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.datamodel.MassSpectrumType;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.DecimatedXYDataset;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation;
 import io.github.mzmine.util.collections.BinarySearch.DefaultTo;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Objects;
+import org.jetbrains.annotations.Nullable;
+import org.jfree.data.DomainOrder;
 import org.jfree.data.xy.AbstractXYDataset;
 import org.jfree.data.xy.IntervalXYDataset;
 
 /**
  * Spectra visualizer data set for scan data points
  */
-public class ScanDataSet extends AbstractXYDataset implements IntervalXYDataset, RelativeOption {
+public class ScanDataSet extends AbstractXYDataset implements IntervalXYDataset, RelativeOption,
+    DecimatedXYDataset {
 
   private static final long serialVersionUID = 1L;
 
@@ -53,6 +58,9 @@ public class ScanDataSet extends AbstractXYDataset implements IntervalXYDataset,
   private final Map<Double, String> mzAnnotationMap = new Hashtable<>();
   private final double maxIntensity;
   private boolean normalize;
+  // checked on first request by the plot
+  private Boolean mzAscending;
+  private XYDecimation decimation;
 
   /*
    * Save a local copy of m/z and intensity values, because accessing the scan every time may cause
@@ -223,6 +231,32 @@ public class ScanDataSet extends AbstractXYDataset implements IntervalXYDataset,
     return null;
   }
 
+  /**
+   * Scan signals are usually sorted by m/z, which allows the plot to only process visible signals
+   */
+  @Override
+  public DomainOrder getDomainOrder() {
+    checkDomainOrder();
+    return mzAscending ? DomainOrder.ASCENDING : DomainOrder.NONE;
+  }
+
+  /**
+   * Profile spectra with many signals are drawn with a reduced level of detail. Normalization does
+   * not change the selected signals.
+   */
+  @Override
+  public @Nullable XYDecimation getDecimation() {
+    checkDomainOrder();
+    return decimation;
+  }
+
+  private void checkDomainOrder() {
+    if (mzAscending == null) {
+      mzAscending = XYDecimation.isAscending(this, 0);
+      decimation = mzAscending ? XYDecimation.create(this, 0) : null;
+    }
+  }
+
   @Override
   public void setRelative(boolean relative) {
     normalize = relative;
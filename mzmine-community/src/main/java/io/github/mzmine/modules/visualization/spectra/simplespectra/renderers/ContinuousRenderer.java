@@ -26,6 +26,8 @@
 package io.github.mzmine.modules.visualization.spectra.simplespectra.renderers;
 
 import io.github.mzmine.gui.chartbasics.simplechart.SimpleChartUtility;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation;
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation.DrawnItems;
 import io.github.mzmine.main.MZmineCore;
 import java.awt.AlphaComposite;
 import java.awt.Color;
@@ -58,6 +60,8 @@ public class ContinuousRenderer extends XYLineAndShapeRenderer {
   // data points shape
   private static final Shape dataPointsShape = new Ellipse2D.Double(-2, -2, 5, 5);
   private final boolean isTransparent;
+  // items of the current dataset drawn for the visible range, null to draw all
+  private transient DrawnItems drawnItems;
 
   public ContinuousRenderer(Color color, boolean isTransparent) {
 
@@ -85,10 +89,21 @@ public class ContinuousRenderer extends XYLineAndShapeRenderer {
     SimpleChartUtility.tryApplyDefaultChartThemeToRenderer(this);
   }
 
+  @Override
+  public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea, XYPlot plot,
+      XYDataset data, PlotRenderingInfo info) {
+    drawnItems = XYDecimation.getDrawnItems(plot, data, dataArea, this::fireChangeEvent);
+    return super.initialise(g2, dataArea, plot, data, info);
+  }
+
   public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea,
       PlotRenderingInfo info, XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis,
       XYDataset dataset, int series, int item, CrosshairState crosshairState, int pass) {
 
+    if (XYDecimation.isSkipped(drawnItems, state, series, item)) {
+      return;
+    }
+
     if (isTransparent) {
       g2.setComposite(alphaComp);
     }
@@ -38,6 +38,7 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.RangeUtils;
 import io.github.mzmine.util.SortingDirection;
 import io.github.mzmine.util.SortingProperty;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.util.Collections;
 import java.util.Vector;
 import javafx.collections.FXCollections;
@@ -62,7 +63,7 @@ class TwoDBottomPanel extends HBox {
   private TwoDVisualizerTab masterFrame;
   private RawDataFile dataFile;
 
-  private final MemoryMapStorage flistStorage = MemoryMapStorage.forFeatureList();
+  private final MemoryMapStorage flistStorage = TieredStorageManager.forFeatureList();
 
   TwoDBottomPanel(TwoDVisualizerTab masterFrame, RawDataFile dataFile, ParameterSet parameters) {
 
@@ -32,6 +32,7 @@ import io.github.mzmine.datamodel.MassSpectrumType;
 import io.github.mzmine.datamodel.PolarityType;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.MzBinnedXicIndex;
 import io.github.mzmine.datamodel.features.FeatureList.FeatureListAppliedMethod;
 import io.github.mzmine.datamodel.otherdetectors.OtherDataFile;
 import io.github.mzmine.javafx.util.FxColorUtil;
@@ -409,6 +410,7 @@ public class RawDataFileImpl implements RawDataFile {
    */
   @Override
   public void applyMassListChanged(Scan scan, MassList old, MassList masses) {
+    MzBinnedXicIndex.massListsChanged(this);
   }
 
   @Nullable
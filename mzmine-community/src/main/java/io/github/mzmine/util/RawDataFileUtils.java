@@ -46,6 +46,7 @@ import io.github.mzmine.modules.io.import_rawdata_thermo_raw.ThermoRawImportTask
 import io.github.mzmine.modules.io.import_rawdata_zip.ZipImportTask;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.util.memory.TieredStorageManager;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
@@ -75,7 +76,7 @@ public class RawDataFileUtils {
       @NotNull Instant moduleCallDate, File... fileNames) throws IOException {
 
     // one storage for all files imported in the same task as they are typically analyzed together
-    final MemoryMapStorage storage = MemoryMapStorage.forRawDataFile();
+    final MemoryMapStorage storage = TieredStorageManager.forRawDataFile();
     for (File fileName : fileNames) {
 
       if ((!fileName.exists()) || (!fileName.canRead())) {
@@ -142,7 +143,7 @@ public class RawDataFileUtils {
           break;
         case BRUKER_TDF:
           newMZmineFile = MZmineCore.createNewIMSFile(fileName.getName(),
-              fileName.getAbsolutePath(), MemoryMapStorage.forRawDataFile());
+              fileName.getAbsolutePath(), TieredStorageManager.forRawDataFile());
           newTask = new TDFImportTask(project, fileName, (IMSRawDataFile) newMZmineFile, module,
               parameters, moduleCallDate);
           break;
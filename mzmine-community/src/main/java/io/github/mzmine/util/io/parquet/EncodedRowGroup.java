@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.io.parquet;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A row group with all column chunks encoded and compressed, ready to be appended by the
+ * {@link ParquetFileWriter}. Created by {@link ParquetFileWriter#encodeRowGroup(List, Object[][],
+ * int)}, which may run in parallel for multiple row groups.
+ *
+ * @param data    all column chunks
+ * @param numRows number of rows
+ * @param chunks  metadata of each column chunk with offsets relative to the start of data
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public record EncodedRowGroup(@NotNull byte[] data, int numRows,
+                              @NotNull List<ColumnChunk> chunks) {
+
+  /**
+   * @param dictionaryPageOffset relative offset of the dictionary page or -1
+   * @param dataPageOffset       relative offset of the data page
+   * @param uncompressedSize     size of all pages including headers before compression
+   * @param compressedSize       size of all pages including headers
+   * @param encodings            all encodings used in the chunk
+   */
+  record ColumnChunk(long dictionaryPageOffset, long dataPageOffset, long uncompressedSize,
+                     long compressedSize, int[] encodings) {
+
+    long startOffset() {
+      return dictionaryPageOffset >= 0 ? dictionaryPageOffset : dataPageOffset;
+    }
+  }
+
+  /**
+   * @return total size of the uncompressed column chunks
+   */
+  public long uncompressedSize() {
+    long sum = 0;
+    for (ColumnChunk chunk : chunks) {
+      sum += chunk.uncompressedSize();
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.io.parquet;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Growable byte buffer with the little endian and variable length encodings used by parquet and
+ * the thrift compact protocol
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+class ParquetBytes extends ByteArrayOutputStream {
+
+  ParquetBytes() {
+    super(1024);
+  }
+
+  ParquetBytes(int size) {
+    super(size);
+  }
+
+  void writeIntLE(int v) {
+    write(v);
+    write(v >>> 8);
+    write(v >>> 16);
+    write(v >>> 24);
+  }
+
+  void writeLongLE(long v) {
+    writeIntLE((int) v);
+    writeIntLE((int) (v >>> 32));
+  }
+
+  void writeUnsignedVarInt(long v) {
+    while ((v & ~0x7FL) != 0) {
+      write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    write((int) v);
+  }
+
+  void writeZigZagVarInt(long v) {
+    writeUnsignedVarInt((v << 1) ^ (v >> 63));
+  }
+
+  /**
+   * Overwrites 4 bytes at position
+   */
+  void setIntLE(int position, int v) {
+    buf[position] = (byte) v;
+    buf[position + 1] = (byte) (v >>> 8);
+    buf[position + 2] = (byte) (v >>> 16);
+    buf[position + 3] = (byte) (v >>> 24);
+  }
+}
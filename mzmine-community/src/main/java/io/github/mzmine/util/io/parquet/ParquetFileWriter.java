@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.io.parquet;
+
+import io.github.mzmine.util.io.parquet.EncodedRowGroup.ColumnChunk;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes a flat table of nullable columns to an Apache Parquet file without additional
+ * dependencies. Each row group holds one GZIP compressed data page per column, strings are
+ * dictionary encoded if at most half of the values are distinct. Row groups are encoded
+ * independently with {@link #encodeRowGroup(List, Object[][], int)} (thread safe, may run in
+ * parallel) and appended in order with {@link #writeRowGroup(EncodedRowGroup)}. The schema and the
+ * row group metadata are written as footer on {@link #close()}. Incomplete files are removed with
+ * {@link #abort()}, which skips the footer.
+ * <p>
+ * See the format specification at https://github.com/apache/parquet-format
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class ParquetFileWriter implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(ParquetFileWriter.class.getName());
+  private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+  // encodings
+  private static final int PLAIN = 0;
+  private static final int RLE = 3;
+  private static final int RLE_DICTIONARY = 8;
+  // page types
+  private static final int DATA_PAGE = 0;
+  private static final int DICTIONARY_PAGE = 2;
+  private static final int CODEC_GZIP = 2;
+  private static final int REPETITION_OPTIONAL = 1;
+  private static final int CONVERTED_TYPE_UTF8 = 0;
+
+  private final Path file;
+  private final List<ParquetColumn> columns;
+  private final OutputStream out;
+  private final List<EncodedRowGroup> rowGroups = new ArrayList<>();
+  private final List<Long> rowGroupOffsets = new ArrayList<>();
+  private long position;
+  private long numRows;
+  private boolean closed;
+
+  public ParquetFileWriter(@NotNull Path file, @NotNull List<ParquetColumn> columns)
+      throws IOException {
+    this.file = file;
+    this.columns = List.copyOf(columns);
+    out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+    out.write(MAGIC);
+    position = MAGIC.length;
+  }
+
+  public List<ParquetColumn> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Encodes and compresses one row group. Values that do not match the column type are written as
+   * null.
+   *
+   * @param columns the columns of the file
+   * @param values  values[column][row] may contain nulls
+   * @param numRows number of rows in this group
+   * @return the encoded row group
+   */
+  @NotNull
+  public static EncodedRowGroup encodeRowGroup(@NotNull List<ParquetColumn> columns,
+      @NotNull Object[][] values, int numRows) {
+    if (values.length != columns.size()) {
+      throw new IllegalArgumentException(
+          "Number of value columns %d does not match the schema with %d columns".formatted(
+              values.length, columns.size()));
+    }
+    final ParquetBytes data = new ParquetBytes(1 << 16);
+    final List<ColumnChunk> chunks = new ArrayList<>(columns.size());
+    try {
+      for (int c = 0; c < columns.size(); c++) {
+        chunks.add(encodeColumnChunk(columns.get(c).type(), values[c], numRows, data));
+      }
+    } catch (IOException e) {
+      // only in memory
+      throw new UncheckedIOException(e);
+    }
+    return new EncodedRowGroup(data.toByteArray(), numRows, chunks);
+  }
+
+  /**
+   * Appends a row group, row groups are written in the order of calls
+   */
+  public synchronized void writeRowGroup(@NotNull EncodedRowGroup rowGroup) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Writer is already closed");
+    }
+    if (rowGroup.chunks().size() != columns.size()) {
+      throw new IllegalArgumentException("Row group does not match the schema");
+    }
+    rowGroups.add(rowGroup);
+    rowGroupOffsets.add(position);
+    out.write(rowGroup.data());
+    position += rowGroup.data().length;
+    numRows += rowGroup.numRows();
+  }
+
+  /**
+   * Writes the footer and closes the file. The file is deleted if the footer cannot be written. No
+   * effect after {@link #abort()}.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      final ParquetBytes footer = new ParquetBytes();
+      writeFileMetaData(new ThriftCompactWriter(footer));
+      footer.writeIntLE(footer.size());
+      footer.writeBytes(MAGIC);
+      footer.writeTo(out);
+      out.close();
+    } catch (IOException | RuntimeException e) {
+      abort();
+      throw e;
+    }
+    closed = true;
+  }
+
+  /**
+   * Closes the file without footer and deletes it, used on cancel and errors. Later calls to
+   * {@link #close()} have no effect.
+   */
+  public synchronized void abort() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      out.close();
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Cannot close incomplete parquet file " + file, e);
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot delete incomplete parquet file " + file, e);
+    }
+  }
+
+  private void writeFileMetaData(ThriftCompactWriter thrift) {
+    thrift.structBegin().i32(1, 1);
+    // schema: root and one leaf per column
+    thrift.listField(2, ThriftCompactWriter.TYPE_STRUCT, columns.size() + 1);
+    thrift.structBegin().string(4, "schema").i32(5, columns.size()).structEnd();
+    for (ParquetColumn column : columns) {
+      thrift.structBegin().i32(1, column.type().getPhysicalType())
+          .i32(3, REPETITION_OPTIONAL).string(4, column.name());
+      if (column.type() == ParquetType.STRING) {
+        thrift.i32(6, CONVERTED_TYPE_UTF8);
+      }
+      thrift.structEnd();
+    }
+    thrift.i64(3, numRows);
+
+    thrift.listField(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+    for (int g = 0; g < rowGroups.size(); g++) {
+      final EncodedRowGroup group = rowGroups.get(g);
+      final long groupOffset = rowGroupOffsets.get(g);
+      thrift.structBegin().listField(1, ThriftCompactWriter.TYPE_STRUCT, columns.size());
+      for (int c = 0; c < columns.size(); c++) {
+        writeColumnChunk(thrift, columns.get(c), group.chunks().get(c), groupOffset,
+            group.numRows());
+      }
+      thrift.i64(2, group.uncompressedSize()).i64(3, group.numRows()).structEnd();
+    }
+    thrift.string(6, "mzmine").structEnd();
+  }
+
+  private static void writeColumnChunk(ThriftCompactWriter thrift, ParquetColumn column,
+      ColumnChunk chunk, long groupOffset, int numValues) {
+    thrift.structBegin().i64(2, groupOffset + chunk.startOffset());
+    // column metadata
+    thrift.structField(3).i32(1, column.type().getPhysicalType());
+    thrift.listField(2, ThriftCompactWriter.TYPE_I32, chunk.encodings().length);
+    for (int encoding : chunk.encodings()) {
+      thrift.i32Element(encoding);
+    }
+    thrift.listField(3, ThriftCompactWriter.TYPE_BINARY, 1).stringElement(column.name());
+    thrift.i32(4, CODEC_GZIP).i64(5, numValues).i64(6, chunk.uncompressedSize())
+        .i64(7, chunk.compressedSize()).i64(9, groupOffset + chunk.dataPageOffset());
+    if (chunk.dictionaryPageOffset() >= 0) {
+      thrift.i64(11, groupOffset + chunk.dictionaryPageOffset());
+    }
+    thrift.structEnd().structEnd();
+  }
+
+  private static ColumnChunk encodeColumnChunk(ParquetType type, Object[] values, int numRows,
+      ParquetBytes out) throws IOException {
+    // definition levels: 1 for values, 0 for nulls
+    final int[] levels = new int[numRows];
+    int nonNull = 0;
+    for (int i = 0; i < numRows; i++) {
+      if (type.accepts(values[i])) {
+        levels[i] = 1;
+        nonNull++;
+      }
+    }
+    final ParquetBytes page = new ParquetBytes(Math.max(64, nonNull * 8 + numRows / 4));
+    final int lengthPosition = page.size();
+    page.writeIntLE(0);
+    writeHybrid(levels, numRows, 1, page);
+    page.setIntLE(lengthPosition, page.size() - lengthPosition - 4);
+
+    long dictionaryOffset = -1;
+    long uncompressed = 0;
+    final long chunkStart = out.size();
+
+    final int[] dictionaryIndices = type == ParquetType.STRING ? new int[nonNull] : null;
+    final List<String> dictionary =
+        type == ParquetType.STRING ? createDictionary(values, numRows, nonNull, dictionaryIndices)
+            : null;
+
+    if (dictionary != null) {
+      final ParquetBytes dictionaryPage = new ParquetBytes();
+      for (String value : dictionary) {
+        writePlainString(value, dictionaryPage);
+      }
+      dictionaryOffset = out.size();
+      uncompressed += writePage(DICTIONARY_PAGE, dictionaryPage, dictionary.size(), PLAIN, out);
+      final int bitWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionary.size() - 1));
+      page.write(bitWidth);
+      writeHybrid(dictionaryIndices, nonNull, bitWidth, page);
+    } else {
+      writePlainValues(type, values, numRows, nonNull, page);
+    }
+
+    final long dataOffset = out.size();
+    uncompressed += writePage(DATA_PAGE, page, numRows, dictionary != null ? RLE_DICTIONARY : PLAIN,
+        out);
+    final int[] encodings =
+        dictionary != null ? new int[]{PLAIN, RLE, RLE_DICTIONARY} : new int[]{PLAIN, RLE};
+    return new ColumnChunk(dictionaryOffset, dataOffset, uncompressed, out.size() - chunkStart,
+        encodings);
+  }
+
+  /**
+   * @param indices (out) dictionary index of each non-null value
+   * @return the dictionary or null if too many values are distinct
+   */
+  private static List<String> createDictionary(Object[] values, int numRows, int nonNull,
+      int[] indices) {
+    if (nonNull == 0) {
+      return null;
+    }
+    final Object2IntOpenHashMap<String> dictionaryIndex = new Object2IntOpenHashMap<>();
+    dictionaryIndex.defaultReturnValue(-1);
+    final List<String> dictionary = new ArrayList<>();
+    int n = 0;
+    for (int i = 0; i < numRows; i++) {
+      if (values[i] instanceof String s) {
+        int index = dictionaryIndex.getInt(s);
+        if (index == -1) {
+          index = dictionary.size();
+          if (index >= nonNull / 2) {
+            return null;
+          }
+          dictionary.add(s);
+          dictionaryIndex.put(s, index);
+        }
+        indices[n++] = index;
+      }
+    }
+    return dictionary;
+  }
+
+  private static void writePlainValues(ParquetType type, Object[] values, int numRows, int nonNull,
+      ParquetBytes page) {
+    if (type == ParquetType.BOOLEAN) {
+      // bit packed, least significant bit first
+      int current = 0;
+      int bit = 0;
+      for (int i = 0; i < numRows; i++) {
+        if (values[i] instanceof Boolean b) {
+          if (b) {
+            current |= 1 << bit;
+          }
+          if (++bit == 8) {
+            page.write(current);
+            current = 0;
+            bit = 0;
+          }
+        }
+      }
+      if (bit > 0) {
+        page.write(current);
+      }
+      return;
+    }
+    for (int i = 0; i < numRows; i++) {
+      final Object value = values[i];
+      if (!type.accepts(value)) {
+        continue;
+      }
+      switch (type) {
+        case INT32 -> page.writeIntLE(((Number) value).intValue());
+        case INT64 -> page.writeLongLE((Long) value);
+        case FLOAT -> page.writeIntLE(Float.floatToRawIntBits((Float) value));
+        case DOUBLE -> page.writeLongLE(Double.doubleToRawLongBits((Double) value));
+        case STRING -> writePlainString((String) value, page);
+        case BOOLEAN -> throw new IllegalStateException("Booleans are bit packed");
+      }
+    }
+  }
+
+  private static void writePlainString(String value, ParquetBytes page) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    page.writeIntLE(bytes.length);
+    page.writeBytes(bytes);
+  }
+
+  /**
+   * Compresses the page body and writes header and compressed body
+   *
+   * @return the uncompressed size of header and body
+   */
+  private static long writePage(int pageType, ParquetBytes body, int numValues, int encoding,
+      ParquetBytes out) throws IOException {
+    final ParquetBytes compressed = new ParquetBytes(Math.max(64, body.size() / 4));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 1 << 16)) {
+      body.writeTo(gzip);
+    }
+
+    final ParquetBytes header = new ParquetBytes(64);
+    final ThriftCompactWriter thrift = new ThriftCompactWriter(header);
+    thrift.structBegin().i32(1, pageType).i32(2, body.size()).i32(3, compressed.size());
+    if (pageType == DICTIONARY_PAGE) {
+      thrift.structField(7).i32(1, numValues).i32(2, encoding).structEnd();
+    } else {
+      thrift.structField(5).i32(1, numValues).i32(2, encoding).i32(3, RLE).i32(4, RLE)
+          .structEnd();
+    }
+    thrift.structEnd();
+
+    header.writeTo(out);
+    compressed.writeTo(out);
+    return header.size() + body.size();
+  }
+
+  /**
+   * Encodes values with the RLE / bit packing hybrid encoding. Runs of at least 8 equal values
+   * are run length encoded, all other values are bit packed in groups of 8.
+   *
+   * @param values   the values
+   * @param n        number of values to encode
+   * @param bitWidth bits per value
+   */
+  static void writeHybrid(int[] values, int n, int bitWidth, ParquetBytes out) {
+    final int valueBytes = (bitWidth + 7) / 8;
+    int i = 0;
+    while (i < n) {
+      final int run = runLength(values, i, n);
+      if (run >= 8 || i + run == n) {
+        out.writeUnsignedVarInt((long) run << 1);
+        final int value = values[i];
+        for (int b = 0; b < valueBytes; b++) {
+          out.write(value >>> (8 * b));
+        }
+        i += run;
+        continue;
+      }
+      // bit packed groups of 8 until the next long run
+      int end = i + 8;
+      while (end < n && runLength(values, end, n) < 8) {
+        end += 8;
+      }
+      final int groups = (Math.min(end, n) - i + 7) / 8;
+      out.writeUnsignedVarInt(((long) groups << 1) | 1);
+      long buffer = 0;
+      int bits = 0;
+      for (int k = i; k < i + groups * 8; k++) {
+        // pad the last group with zeros
+        final long value = k < n ? values[k] & 0xFFFFFFFFL : 0;
+        buffer |= value << bits;
+        bits += bitWidth;
+        while (bits >= 8) {
+          out.write((int) buffer);
+          buffer >>>= 8;
+          bits -= 8;
+        }
+      }
+      i += groups * 8;
+    }
+  }
+
+  private static int runLength(int[] values, int start, int n) {
+    int end = start + 1;
+    while (end < n && values[end] == values[start]) {
+      end++;
+    }
+    return end - start;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.io.parquet;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Column types supported by the {@link ParquetFileWriter}. Strings are stored as UTF-8 byte arrays
+ * and dictionary encoded if many values repeat.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public enum ParquetType {
+
+  BOOLEAN(0), INT32(1), INT64(2), FLOAT(4), DOUBLE(5), STRING(6);
+
+  // physical type in the parquet format
+  private final int physicalType;
+
+  ParquetType(int physicalType) {
+    this.physicalType = physicalType;
+  }
+
+  int getPhysicalType() {
+    return physicalType;
+  }
+
+  /**
+   * @param valueClass class of the values
+   * @return the matching numeric or boolean type or {@link #STRING} for all other classes
+   */
+  public static ParquetType forValueClass(@Nullable Class<?> valueClass) {
+    if (valueClass == null) {
+      return STRING;
+    }
+    if (Double.class.equals(valueClass)) {
+      return DOUBLE;
+    }
+    if (Float.class.equals(valueClass)) {
+      return FLOAT;
+    }
+    if (Integer.class.equals(valueClass) || Short.class.equals(valueClass)
+        || Byte.class.equals(valueClass)) {
+      return INT32;
+    }
+    if (Long.class.equals(valueClass)) {
+      return INT64;
+    }
+    if (Boolean.class.equals(valueClass)) {
+      return BOOLEAN;
+    }
+    return STRING;
+  }
+
+  /**
+   * @return true if the value can be written to a column of this type
+   */
+  public boolean accepts(@Nullable Object value) {
+    return switch (this) {
+      case BOOLEAN -> value instanceof Boolean;
+      case INT32 -> value instanceof Integer || value instanceof Short || value instanceof Byte;
+      case INT64 -> value instanceof Long;
+      case FLOAT -> value instanceof Float;
+      case DOUBLE -> value instanceof Double;
+      case STRING -> value instanceof String;
+    };
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.io.parquet;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal writer of the thrift compact protocol, the encoding of parquet page headers and file
+ * metadata. Fields of a struct need to be written in ascending order of their ids.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+class ThriftCompactWriter {
+
+  static final int TYPE_I32 = 5;
+  static final int TYPE_I64 = 6;
+  static final int TYPE_BINARY = 8;
+  static final int TYPE_LIST = 9;
+  static final int TYPE_STRUCT = 12;
+
+  private final ParquetBytes out;
+  // last field id of each open struct
+  private final IntArrayList lastFieldIds = new IntArrayList();
+  private int lastFieldId = 0;
+
+  ThriftCompactWriter(ParquetBytes out) {
+    this.out = out;
+  }
+
+  /**
+   * Starts a struct that is not a field, like the top level struct or list elements
+   */
+  ThriftCompactWriter structBegin() {
+    lastFieldIds.push(lastFieldId);
+    lastFieldId = 0;
+    return this;
+  }
+
+  ThriftCompactWriter structEnd() {
+    out.write(0);
+    lastFieldId = lastFieldIds.popInt();
+    return this;
+  }
+
+  /**
+   * Starts a struct field, close with {@link #structEnd()}
+   */
+  ThriftCompactWriter structField(int id) {
+    fieldHeader(id, TYPE_STRUCT);
+    return structBegin();
+  }
+
+  ThriftCompactWriter i32(int id, int value) {
+    fieldHeader(id, TYPE_I32);
+    out.writeZigZagVarInt(value);
+    return this;
+  }
+
+  ThriftCompactWriter i64(int id, long value) {
+    fieldHeader(id, TYPE_I64);
+    out.writeZigZagVarInt(value);
+    return this;
+  }
+
+  ThriftCompactWriter string(int id, String value) {
+    fieldHeader(id, TYPE_BINARY);
+    stringElement(value);
+    return this;
+  }
+
+  /**
+   * Starts a list field. Write the elements with {@link #i32Element(int)},
+   * {@link #stringElement(String)} or {@link #structBegin()} and {@link #structEnd()}.
+   */
+  ThriftCompactWriter listField(int id, int elementType, int size) {
+    fieldHeader(id, TYPE_LIST);
+    if (size < 15) {
+      out.write((size << 4) | elementType);
+    } else {
+      out.write(0xF0 | elementType);
+      out.writeUnsignedVarInt(size);
+    }
+    return this;
+  }
+
+  ThriftCompactWriter i32Element(int value) {
+    out.writeZigZagVarInt(value);
+    return this;
+  }
+
+  ThriftCompactWriter stringElement(String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeUnsignedVarInt(bytes.length);
+    out.writeBytes(bytes);
+    return this;
+  }
+
+  private void fieldHeader(int id, int type) {
+    final int delta = id - lastFieldId;
+    if (delta > 0 && delta <= 15) {
+      out.write((delta << 4) | type);
+    } else {
+      out.write(type);
+      out.writeZigZagVarInt(id);
+    }
+    lastFieldId = id;
+  }
+}
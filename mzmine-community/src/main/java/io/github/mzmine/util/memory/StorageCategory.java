@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.memory;
+
+/**
+ * Categories of buffers handled by the {@link TieredStorageManager}. Each category may keep new
+ * buffers in memory as long as the memory used by all categories stays below its share of the
+ * budget. The shares are fixed by category and reflect the typical workflow: features and mass
+ * lists are read by most processing steps and get a larger share than raw scans and mobility
+ * scans, which are mostly read once during mass detection and feature detection. When the budget
+ * fills up, new buffers of categories with lower shares are therefore memory mapped first. Actual
+ * reads are not tracked.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public enum StorageCategory {
+
+  RAW_SCANS(0.6), MASS_LISTS(0.85), FEATURES(1d), MOBILITY_SCANS(0.4), OTHER(0.6);
+
+  private final double budgetShare;
+
+  StorageCategory(double budgetShare) {
+    this.budgetShare = budgetShare;
+  }
+
+  /**
+   * @return the share of the budget up to which new buffers of this category are kept in memory
+   */
+  public double getBudgetShare() {
+    return budgetShare;
+  }
+
+  @Override
+  public String toString() {
+    return switch (this) {
+      case RAW_SCANS -> "Raw scans";
+      case MASS_LISTS -> "Mass lists";
+      case FEATURES -> "Features";
+      case MOBILITY_SCANS -> "Mobility scans";
+      case OTHER -> "Other";
+    };
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.memory;
+
+/**
+ * Snapshot of the memory used by one {@link StorageCategory}.
+ *
+ * @param category      the category
+ * @param heapBytes     bytes currently held on the Java heap
+ * @param offHeapBytes  bytes currently held in direct buffers
+ * @param mappedBytes   bytes written to memory mapped files (files are only released when the
+ *                      storage is discarded)
+ * @param storedBuffers number of buffers stored since start
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public record StorageUsage(StorageCategory category, long heapBytes, long offHeapBytes,
+                           long mappedBytes, long storedBuffers) {
+
+  private static final double MB = 1024d * 1024d;
+
+  /**
+   * @return bytes held in memory (heap and off-heap)
+   */
+  public long inMemoryBytes() {
+    return heapBytes + offHeapBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "%s: heap %.1f MB, off-heap %.1f MB, memory mapped %.1f MB (%d buffers)".formatted(
+        category, heapBytes / MB, offHeapBytes / MB, mappedBytes / MB, storedBuffers);
+  }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.memory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import sun.misc.Unsafe;
+
+/**
+ * Decides for every new buffer whether it is kept on the Java heap, in a direct (off-heap) buffer
+ * or in the memory mapped files of its {@link MemoryMapStorage}. Without a budget (default), all
+ * buffers of a storage are memory mapped and the {@link io.github.mzmine.main.KeepInMemory} option
+ * decides which storages exist at all.
+ * <p>
+ * With a RAM budget, all storages are created and each buffer is placed based on the memory
+ * currently held by all categories: a category keeps new buffers in memory until the total reaches
+ * its {@link StorageCategory#getBudgetShare()}. Categories with a lower share therefore spill to
+ * memory mapping first. Small buffers stay on the heap, large buffers or buffers stored while the
+ * heap is under pressure go off-heap. Independent of the budget, heap buffers are limited to a
+ * share of the maximum heap and direct buffers to the direct memory limit
+ * (-XX:MaxDirectMemorySize). Released buffers are subtracted once they are garbage collected.
+ * <p>
+ * The tier is only selected when a buffer is stored. Buffers are never moved (demoted) later and
+ * the placement does not depend on how often a buffer is read. Concurrent stores may exceed the
+ * budget slightly.
+ * <p>
+ * Use the factory methods of this class instead of {@link MemoryMapStorage#forRawDataFile()} and
+ * others, so that the category of a storage is known.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class TieredStorageManager {
+
+  private static final Logger logger = Logger.getLogger(TieredStorageManager.class.getName());
+
+  /**
+   * Smaller buffers stay on the heap, wrapping them is cheaper than a direct allocation
+   */
+  static final long OFF_HEAP_MIN_BYTES = 256 * 1024;
+  /**
+   * New buffers go off-heap if more of the maximum heap is used
+   */
+  static final double HEAP_PRESSURE = 0.75;
+  /**
+   * Share of the maximum heap that may be used by heap buffers
+   */
+  static final double MAX_HEAP_SHARE = 0.3;
+  /**
+   * Share of the direct memory limit that may be used by direct buffers, the rest is left for
+   * other direct buffers, e.g., of file channels
+   */
+  static final double MAX_OFF_HEAP_SHARE = 0.8;
+
+  private static final Pattern BUDGET_PATTERN = Pattern.compile(
+      "(?:budget:)?(\\d+(?:\\.\\d+)?)\\s*([kmgt])b?");
+
+  private static final Cleaner cleaner = Cleaner.create();
+  private static final Map<MemoryMapStorage, StorageCategory> categories = Collections.synchronizedMap(
+      new WeakHashMap<>());
+  // raw data storage -> separate storage for mobility scans
+  private static final Map<MemoryMapStorage, MemoryMapStorage> mobilityStorages = Collections.synchronizedMap(
+      new WeakHashMap<>());
+  private static final Set<MemoryMapStorage> discarded = Collections.synchronizedSet(
+      Collections.newSetFromMap(new WeakHashMap<>()));
+  private static final Map<StorageCategory, Counters> counters = new EnumMap<>(
+      StorageCategory.class);
+
+  static {
+    for (StorageCategory category : StorageCategory.values()) {
+      counters.put(category, new Counters());
+    }
+  }
+
+  // RAM budget in bytes, 0 to memory map all stored buffers
+  private static volatile long budget = 0;
+  private static final long maxDirectMemory = findMaxDirectMemory();
+
+  private TieredStorageManager() {
+  }
+
+  /**
+   * @param bytes the RAM budget for all stored buffers or 0 to memory map all buffers of a
+   *              storage. Only applies to new buffers. A positive budget overrides the
+   *              {@link io.github.mzmine.main.KeepInMemory} option, so call after
+   *              {@link io.github.mzmine.main.KeepInMemory#enforceToMemoryMapping()}.
+   */
+  public static void setBudget(long bytes) {
+    budget = Math.max(bytes, 0);
+    if (budget > 0) {
+      // all storages need to exist to be managed
+      MemoryMapStorage.setStoreAllInRam(false);
+      logger.info("Storing spectral and feature data within a RAM budget of %d MB".formatted(
+          budget / 1024 / 1024));
+    }
+  }
+
+  public static long getBudget() {
+    return budget;
+  }
+
+  public static boolean isActive() {
+    return budget > 0;
+  }
+
+  /**
+   * Parses a budget like 64G, 512mb, 1.5t or budget:32g. The unit is required.
+   *
+   * @return the budget in bytes or -1 if the argument is no budget
+   */
+  public static long parseBudget(@Nullable String budget) {
+    if (budget == null) {
+      return -1;
+    }
+    final Matcher matcher = BUDGET_PATTERN.matcher(budget.trim().toLowerCase(Locale.ROOT));
+    if (!matcher.matches()) {
+      return -1;
+    }
+    final double value = Double.parseDouble(matcher.group(1));
+    // k, m, g, t
+    final int exponent = "kmgt".indexOf(matcher.group(2)) + 1;
+    return (long) (value * Math.pow(1024, exponent));
+  }
+
+  /**
+   * @return a new storage for raw data or null if raw data is kept in RAM
+   */
+  public static @Nullable MemoryMapStorage forRawDataFile() {
+    return register(MemoryMapStorage.forRawDataFile(), StorageCategory.RAW_SCANS);
+  }
+
+  /**
+   * @return a new storage for mass lists or null if mass lists are kept in RAM
+   */
+  public static @Nullable MemoryMapStorage forMassList() {
+    return register(MemoryMapStorage.forMassList(), StorageCategory.MASS_LISTS);
+  }
+
+  /**
+   * @return a new storage for feature lists or null if features are kept in RAM
+   */
+  public static @Nullable MemoryMapStorage forFeatureList() {
+    return register(MemoryMapStorage.forFeatureList(), StorageCategory.FEATURES);
+  }
+
+  /**
+   * Mobility scans are stored with the storage of their raw data file. With an active budget, they
+   * are placed in a separate storage of the {@link StorageCategory#MOBILITY_SCANS} category.
+   *
+   * @param rawStorage the storage of the raw data file
+   * @return the storage for mobility scans or null if raw data is kept in RAM
+   */
+  public static @Nullable MemoryMapStorage forMobilityScansOf(
+      @Nullable MemoryMapStorage rawStorage) {
+    if (rawStorage == null || !isActive()) {
+      return rawStorage;
+    }
+    return mobilityStorages.computeIfAbsent(rawStorage,
+        raw -> register(MemoryMapStorage.create(), StorageCategory.MOBILITY_SCANS));
+  }
+
+  /**
+   * Discards a storage together with the separate storage of its mobility scans
+   * ({@link #forMobilityScansOf(MemoryMapStorage)}). Storages that were already discarded by this
+   * method are skipped.
+   */
+  public static void discard(@NotNull MemoryMapStorage storage, @NotNull Unsafe unsafe)
+      throws IOException {
+    final MemoryMapStorage mobilityStorage = mobilityStorages.remove(storage);
+    try {
+      if (discarded.add(storage)) {
+        storage.discard(unsafe);
+      }
+    } finally {
+      if (mobilityStorage != null) {
+        discard(mobilityStorage, unsafe);
+      }
+    }
+  }
+
+  private static @Nullable MemoryMapStorage register(@Nullable MemoryMapStorage storage,
+      @NotNull StorageCategory category) {
+    if (storage != null) {
+      categories.put(storage, category);
+    }
+    return storage;
+  }
+
+  /**
+   * @return the category of a storage created by this class or {@link StorageCategory#OTHER}
+   */
+  public static @NotNull StorageCategory getCategory(@NotNull MemoryMapStorage storage) {
+    return categories.getOrDefault(storage, StorageCategory.OTHER);
+  }
+
+  @NotNull
+  public static DoubleBuffer storeData(@NotNull MemoryMapStorage storage,
+      @NotNull double[] values) throws IOException {
+    final StorageCategory category = getCategory(storage);
+    final long bytes = (long) values.length * Double.BYTES;
+    StorageTier tier = selectTier(category, bytes);
+    DoubleBuffer buffer = switch (tier) {
+      case HEAP -> DoubleBuffer.wrap(Arrays.copyOf(values, values.length));
+      case OFF_HEAP -> {
+        final ByteBuffer direct = allocateDirect(bytes);
+        yield direct == null ? null : direct.asDoubleBuffer().put(values).rewind();
+      }
+      case MEMORY_MAPPED -> null;
+    };
+    if (buffer == null) {
+      tier = StorageTier.MEMORY_MAPPED;
+      buffer = storage.storeData(values);
+    }
+    track(buffer, category, tier, bytes);
+    return buffer;
+  }
+
+  @NotNull
+  public static FloatBuffer storeData(@NotNull MemoryMapStorage storage, @NotNull float[] values)
+      throws IOException {
+    final StorageCategory category = getCategory(storage);
+    final long bytes = (long) values.length * Float.BYTES;
+    StorageTier tier = selectTier(category, bytes);
+    FloatBuffer buffer = switch (tier) {
+      case HEAP -> FloatBuffer.wrap(Arrays.copyOf(values, values.length));
+      case OFF_HEAP -> {
+        final ByteBuffer direct = allocateDirect(bytes);
+        yield direct == null ? null : direct.asFloatBuffer().put(values).rewind();
+      }
+      case MEMORY_MAPPED -> null;
+    };
+    if (buffer == null) {
+      tier = StorageTier.MEMORY_MAPPED;
+      buffer = storage.storeData(values);
+    }
+    track(buffer, category, tier, bytes);
+    return buffer;
+  }
+
+  @NotNull
+  public static IntBuffer storeData(@NotNull MemoryMapStorage storage, @NotNull int[] values)
+      throws IOException {
+    final StorageCategory category = getCategory(storage);
+    final long bytes = (long) values.length * Integer.BYTES;
+    StorageTier tier = selectTier(category, bytes);
+    IntBuffer buffer = switch (tier) {
+      case HEAP -> IntBuffer.wrap(Arrays.copyOf(values, values.length));
+      case OFF_HEAP -> {
+        final ByteBuffer direct = allocateDirect(bytes);
+        yield direct == null ? null : direct.asIntBuffer().put(values).rewind();
+      }
+      case MEMORY_MAPPED -> null;
+    };
+    if (buffer == null) {
+      tier = StorageTier.MEMORY_MAPPED;
+      buffer = storage.storeData(values);
+    }
+    track(buffer, category, tier, bytes);
+    return buffer;
+  }
+
+  /**
+   * @return a native ordered direct buffer or null if the direct memory limit is reached
+   */
+  private static @Nullable ByteBuffer allocateDirect(long bytes) {
+    try {
+      return ByteBuffer.allocateDirect(Math.toIntExact(bytes)).order(ByteOrder.nativeOrder());
+    } catch (OutOfMemoryError | ArithmeticException e) {
+      logger.fine("Cannot allocate direct buffer of %d bytes, memory mapping instead".formatted(
+          bytes));
+      return null;
+    }
+  }
+
+  private static StorageTier selectTier(@NotNull StorageCategory category, long bytes) {
+    final long currentBudget = budget;
+    if (currentBudget <= 0) {
+      return StorageTier.MEMORY_MAPPED;
+    }
+    final Runtime runtime = Runtime.getRuntime();
+    final long maxHeap = runtime.maxMemory();
+    final double heapUsage = (double) (runtime.totalMemory() - runtime.freeMemory()) / maxHeap;
+    long heapBytes = 0;
+    long offHeapBytes = 0;
+    for (Counters counter : counters.values()) {
+      heapBytes += counter.heap.sum();
+      offHeapBytes += counter.offHeap.sum();
+    }
+    final long heapFree = (long) (maxHeap * MAX_HEAP_SHARE) - heapBytes;
+    final long offHeapFree = (long) (maxDirectMemory * MAX_OFF_HEAP_SHARE) - offHeapBytes;
+    return selectTier(category, bytes, heapBytes + offHeapBytes, currentBudget, heapUsage,
+        heapFree, offHeapFree);
+  }
+
+  /**
+   * @param category    category of the buffer
+   * @param bytes       size of the buffer
+   * @param inMemory    bytes currently held in memory by all categories
+   * @param budget      the RAM budget
+   * @param heapUsage   used share of the maximum heap
+   * @param heapFree    bytes left for heap buffers within {@link #MAX_HEAP_SHARE}
+   * @param offHeapFree bytes left for direct buffers within the direct memory limit
+   * @return the tier for the new buffer
+   */
+  static @NotNull StorageTier selectTier(@NotNull StorageCategory category, long bytes,
+      long inMemory, long budget, double heapUsage, long heapFree, long offHeapFree) {
+    if (budget <= 0 || inMemory + bytes > budget * category.getBudgetShare()) {
+      return StorageTier.MEMORY_MAPPED;
+    }
+    final boolean fitsHeap = bytes <= heapFree && heapUsage <= HEAP_PRESSURE;
+    final boolean fitsOffHeap = bytes <= offHeapFree;
+    if (fitsOffHeap && (bytes >= OFF_HEAP_MIN_BYTES || !fitsHeap)) {
+      return StorageTier.OFF_HEAP;
+    }
+    if (fitsHeap) {
+      return StorageTier.HEAP;
+    }
+    return StorageTier.MEMORY_MAPPED;
+  }
+
+  /**
+   * @return the direct memory limit, defaults to the maximum heap like in the JVM
+   */
+  private static long findMaxDirectMemory() {
+    try {
+      final HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(
+          HotSpotDiagnosticMXBean.class);
+      final long max = Long.parseLong(bean.getVMOption("MaxDirectMemorySize").getValue());
+      if (max > 0) {
+        return max;
+      }
+    } catch (RuntimeException e) {
+      logger.fine("Cannot read the direct memory limit, using the maximum heap instead");
+    }
+    return Runtime.getRuntime().maxMemory();
+  }
+
+  private static void track(@NotNull Buffer buffer, @NotNull StorageCategory category,
+      @NotNull StorageTier tier, long bytes) {
+    final Counters counter = counters.get(category);
+    counter.buffers.increment();
+    final LongAdder tierBytes = switch (tier) {
+      case HEAP -> counter.heap;
+      case OFF_HEAP -> counter.offHeap;
+      case MEMORY_MAPPED -> counter.mapped;
+    };
+    tierBytes.add(bytes);
+    if (tier != StorageTier.MEMORY_MAPPED) {
+      // mapped files are only released when the storage is discarded
+      cleaner.register(buffer, new Release(tierBytes, bytes));
+    }
+  }
+
+  /**
+   * @return total bytes currently held on the heap and off-heap by all categories
+   */
+  public static long getInMemoryBytes() {
+    long sum = 0;
+    for (Counters counter : counters.values()) {
+      sum += counter.heap.sum() + counter.offHeap.sum();
+    }
+    return sum;
+  }
+
+  public static @NotNull StorageUsage getUsage(@NotNull StorageCategory category) {
+    final Counters counter = counters.get(category);
+    return new StorageUsage(category, counter.heap.sum(), counter.offHeap.sum(),
+        counter.mapped.sum(), counter.buffers.sum());
+  }
+
+  /**
+   * @return the usage of all categories
+   */
+  public static @NotNull List<StorageUsage> getUsage() {
+    return Arrays.stream(StorageCategory.values()).map(TieredStorageManager::getUsage).toList();
+  }
+
+  public static void logUsage() {
+    logger.info("Storage usage (budget %d MB):%n%s".formatted(budget / 1024 / 1024,
+        String.join("\n", getUsage().stream().map(StorageUsage::toString).toList())));
+  }
+
+  private static final class Counters {
+
+    private final LongAdder heap = new LongAdder();
+    private final LongAdder offHeap = new LongAdder();
+    private final LongAdder mapped = new LongAdder();
+    private final LongAdder buffers = new LongAdder();
+  }
+
+  /**
+   * Must not reference the buffer, otherwise it is never cleaned
+   */
+  private record Release(LongAdder tierBytes, long bytes) implements Runnable {
+
+    @Override
+    public void run() {
+      tierBytes.add(-bytes);
+    }
+  }
+}
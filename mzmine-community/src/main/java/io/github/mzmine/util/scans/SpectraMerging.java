@@ -28,9 +28,7 @@ package io.github.mzmine.util.scans;
 import com.google.common.collect.BoundType;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeMap;
-import com.google.common.collect.TreeRangeMap;
 import com.google.common.util.concurrent.AtomicDouble;
-import gnu.trove.list.array.TDoubleArrayList;
 import io.github.mzmine.datamodel.Frame;
 import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.MassList;
@@ -51,10 +49,7 @@ import io.github.mzmine.datamodel.impl.SimpleMergedMsMsSpectrum;
 import io.github.mzmine.datamodel.msms.MsMsInfo;
 import io.github.mzmine.datamodel.msms.PasefMsMsInfo;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
-import io.github.mzmine.util.DataPointSorter;
 import io.github.mzmine.util.MemoryMapStorage;
-import io.github.mzmine.util.SortingDirection;
-import io.github.mzmine.util.SortingProperty;
 import io.github.mzmine.util.maths.CenterFunction;
 import io.github.mzmine.util.maths.CenterMeasure;
 import io.github.mzmine.util.maths.Weighting;
@@ -67,8 +62,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -81,7 +74,7 @@ import org.jetbrains.annotations.Nullable;
  * {@link
  * io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderTask}.
  * Merging of data points from the same spectrum is prevented by indexing the data points prior to
- * sorting.
+ * sorting. The grouping runs on primitive arrays in {@link SpectraMergingKernel}.
  *
  * @author https://github.com/SteffenHeu
  */
@@ -102,8 +95,6 @@ public class SpectraMerging {
 
   public static final MZTolerance defaultMs2MergeTol = new MZTolerance(0.008, 25);
 
-  private static final DataPointSorter sorter = new DataPointSorter(SortingProperty.Intensity,
-      SortingDirection.Descending);
   private static final Logger logger = Logger.getLogger(SpectraMerging.class.getName());
 
   /**
@@ -129,103 +120,9 @@ public class SpectraMerging {
       @NotNull final SpectraMerging.IntensityMergingType intensityMergingType,
       @NotNull final CenterFunction mzCenterFunction, @Nullable final Double inputNoiseLevel,
       @Nullable final Double outputNoiseLevel, @Nullable final Integer minNumPeaks) {
-
-    if (source.isEmpty()) {
-      return new double[][]{new double[0], new double[0]};
-    }
-
-    final List<IndexedDataPoint> dataPoints = new ArrayList<>();
-    // extract all data points in the mass spectrum
-    final int numDp = source.stream().mapToInt(MassSpectrum::getNumberOfDataPoints).max()
-        .getAsInt();
-    final double[] rawMzs = new double[numDp];
-    final double[] rawIntensities = new double[numDp];
-
-    int index = 0;
-    for (T spectrum : source) {
-      spectrum.getMzValues(rawMzs);
-      spectrum.getIntensityValues(rawIntensities);
-
-      for (int i = 0; i < spectrum.getNumberOfDataPoints(); i++) {
-        if (inputNoiseLevel == null || rawIntensities[i] > inputNoiseLevel) {
-          final IndexedDataPoint dp = new IndexedDataPoint(rawMzs[i], rawIntensities[i], index);
-          dataPoints.add(dp);
-        }
-      }
-      index++;
-    }
-
-    dataPoints.sort(sorter);
-
-    // set is sorted by the index of the datapoint, so we can quickly check the presence of the same index
-    RangeMap<Double, SortedSet<IndexedDataPoint>> dataPointRanges = TreeRangeMap.create();
-
-    for (IndexedDataPoint dp : dataPoints) {
-      // todo hash map should be smarter, just put by index
-      SortedSet<IndexedDataPoint> dplist = dataPointRanges.get(dp.getMZ());
-      boolean containsIndex = false;
-
-      // no entry -> make a new one
-      if (dplist == null) {
-        dplist = new TreeSet<>(Comparator.comparingInt(IndexedDataPoint::getIndex));
-        Range<Double> range = createNewNonOverlappingRange(dataPointRanges,
-            tolerance.getToleranceRange(dp.getMZ()));
-        dataPointRanges.put(range, dplist);
-      } else { // we have an entry, check if if we have the same index in there already
-        if (dp.getIndex() > dplist.first().getIndex() && dp.getIndex() < dplist.last().getIndex()) {
-          for (IndexedDataPoint indexedDataPoint : dplist) {
-            if (dp.getIndex() == indexedDataPoint.getIndex()) {
-              containsIndex = true;
-              break;
-            }
-            if (dp.getIndex() > indexedDataPoint.getIndex()) {
-              break;
-            }
-          }
-        }
-        // if an entry contains that index, make a new entry (this way multiple data points from a
-        //  single scan will not be merged together)
-        if (containsIndex) {
-          dplist = new TreeSet<>(Comparator.comparingInt(IndexedDataPoint::getIndex));
-          Range<Double> range = createNewNonOverlappingRange(dataPointRanges,
-              tolerance.getToleranceRange(dp.getMZ()));
-          dataPointRanges.put(range, dplist);
-        }
-      }
-
-      // now add the datapoint to the set
-      dplist.add(dp);
-    }
-
-    final int numDps = dataPointRanges.asMapOfRanges().size();
-    final TDoubleArrayList newIntensities = new TDoubleArrayList(numDps);
-    final TDoubleArrayList newMzs = new TDoubleArrayList(numDps);
-
-    // now we got everything in place and have to calculate the new intensities and mzs
-    for (Entry<Range<Double>, SortedSet<IndexedDataPoint>> entry : dataPointRanges.asMapOfRanges()
-        .entrySet()) {
-      if (minNumPeaks != null && entry.getValue().size() < minNumPeaks) {
-        continue;
-      }
-
-      double[] mzs = entry.getValue().stream().mapToDouble(IndexedDataPoint::getMZ).toArray();
-      double[] intensities = entry.getValue().stream().mapToDouble(IndexedDataPoint::getIntensity)
-          .toArray();
-
-      double newMz = mzCenterFunction.calcCenter(mzs, intensities);
-      double newIntensity = switch (intensityMergingType) {
-        case SUMMED -> Arrays.stream(intensities).sum();
-        case MAXIMUM -> Arrays.stream(intensities).max().orElse(0d);
-        case AVERAGE -> Arrays.stream(intensities).average().orElse(0d);
-      };
-
-      if (outputNoiseLevel == null || newIntensity > outputNoiseLevel) {
-        newMzs.add(newMz);
-        newIntensities.add(newIntensity);
-      }
-    }
-
-    return new double[][]{newMzs.toArray(), newIntensities.toArray()};
+    return SpectraMergingKernel.get()
+        .merge(source, tolerance, intensityMergingType, mzCenterFunction, inputNoiseLevel,
+            outputNoiseLevel, minNumPeaks);
   }
 
   /**
@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.scans;
+
+import io.github.mzmine.datamodel.MassSpectrum;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.maths.CenterFunction;
+import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.Arrays;
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Allocation light implementation of
+ * {@link SpectraMerging#calculatedMergedMzsAndIntensities(Collection, MZTolerance,
+ * IntensityMergingType, CenterFunction, Double, Double, Integer)} on primitive arrays. Produces the
+ * same results as the former range map implementation: data points are processed in descending
+ * intensity order, a data point outside of all bins creates a new bin of its tolerance range that is
+ * trimmed to not overlap existing bins, and each bin keeps only the most intense data point of each
+ * spectrum.
+ * <p>
+ * Instead of a range map, all data points are index sorted by m/z once. Each bin owns a contiguous
+ * run of m/z positions, so finding the bin of a data point is an array lookup and the merged
+ * spectrum is created by a linear sweep over the m/z order.
+ * <p>
+ * Instances hold reusable buffers. Use {@link #get()} to retrieve the instance of the current
+ * thread. Not thread safe.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class SpectraMergingKernel {
+
+  private static final ThreadLocal<SpectraMergingKernel> THREAD_KERNEL = ThreadLocal.withInitial(
+      SpectraMergingKernel::new);
+
+  // data points in input order, the id is the index
+  private double[] mzs = new double[0];
+  private double[] intensities = new double[0];
+  private int[] spectrumIndex = new int[0];
+  private int size;
+  // ids in m/z order and the position of each id in this order
+  private int[] mzOrder = new int[0];
+  private int[] positionOf = new int[0];
+  // ids in processing order (intensity descending)
+  private int[] intensityOrder = new int[0];
+  // bin of each m/z position and the linked list of members of each bin
+  private int[] binOfPosition = new int[0];
+  private int[] nextMember = new int[0];
+
+  // bins
+  private double[] binLower = new double[0];
+  private double[] binUpper = new double[0];
+  private boolean[] binLowerClosed = new boolean[0];
+  private boolean[] binUpperClosed = new boolean[0];
+  private int[] binFirstMember = new int[0];
+  private int numBins;
+  private double maxBinWidth;
+
+  // range of the last trimmed bin
+  private double rangeLower;
+  private double rangeUpper;
+  private boolean rangeLowerClosed;
+  private boolean rangeUpperClosed;
+
+  private int[] memberBuffer = new int[16];
+  // selected member of each spectrum, valid if the stamp equals the current stamp
+  private int[] memberOfSpectrum = new int[0];
+  private int[] spectrumStamp = new int[0];
+  private int stamp = 0;
+
+  private SpectraMergingKernel() {
+  }
+
+  /**
+   * @return the kernel of the current thread
+   */
+  @NotNull
+  public static SpectraMergingKernel get() {
+    return THREAD_KERNEL.get();
+  }
+
+  /**
+   * See {@link SpectraMerging#calculatedMergedMzsAndIntensities(Collection, MZTolerance,
+   * IntensityMergingType, CenterFunction, Double, Double, Integer)}
+   *
+   * @return double[2][] array, [0][] being the mzs, [1] being the intensities.
+   */
+  public double[][] merge(@NotNull final Collection<? extends MassSpectrum> source,
+      @NotNull final MZTolerance tolerance,
+      @NotNull final IntensityMergingType intensityMergingType,
+      @NotNull final CenterFunction mzCenterFunction, @Nullable final Double inputNoiseLevel,
+      @Nullable final Double outputNoiseLevel, @Nullable final Integer minNumPeaks) {
+    extractDataPoints(source, inputNoiseLevel);
+    sortIndices();
+
+    numBins = 0;
+    maxBinWidth = 0;
+    Arrays.fill(binOfPosition, 0, size, -1);
+    for (int rank = 0; rank < size; rank++) {
+      final int id = intensityOrder[rank];
+      final int position = positionOf[id];
+      int bin = binOfPosition[position];
+      if (bin == -1) {
+        bin = createBin(tolerance, position);
+      }
+      nextMember[id] = binFirstMember[bin];
+      binFirstMember[bin] = id;
+    }
+
+    return sweep(intensityMergingType, mzCenterFunction, outputNoiseLevel, minNumPeaks);
+  }
+
+  private void extractDataPoints(Collection<? extends MassSpectrum> source,
+      @Nullable Double inputNoiseLevel) {
+    int total = 0;
+    for (MassSpectrum spectrum : source) {
+      total += spectrum.getNumberOfDataPoints();
+    }
+    ensureCapacity(total);
+
+    size = 0;
+    int index = 0;
+    for (MassSpectrum spectrum : source) {
+      final int n = spectrum.getNumberOfDataPoints();
+      for (int i = 0; i < n; i++) {
+        final double intensity = spectrum.getIntensityValue(i);
+        if (inputNoiseLevel == null || intensity > inputNoiseLevel) {
+          mzs[size] = spectrum.getMzValue(i);
+          intensities[size] = intensity;
+          spectrumIndex[size] = index;
+          size++;
+        }
+      }
+      index++;
+    }
+    if (spectrumStamp.length < index) {
+      memberOfSpectrum = new int[index];
+      spectrumStamp = new int[index];
+      stamp = 0;
+    }
+  }
+
+  private void sortIndices() {
+    for (int i = 0; i < size; i++) {
+      mzOrder[i] = i;
+      intensityOrder[i] = i;
+    }
+    // ties in m/z are always in the same bin, their order does not matter
+    DoubleArrays.quickSortIndirect(mzOrder, mzs, 0, size);
+    // same order as the DataPointSorter by intensity descending and a stable sort: sort ascending
+    // and reverse, then order runs of equal intensity by m/z descending and input order
+    DoubleArrays.quickSortIndirect(intensityOrder, intensities, 0, size);
+    IntArrays.reverse(intensityOrder, 0, size);
+    sortTies(intensities, 0, size, true);
+    for (int i = 0; i < size; i++) {
+      positionOf[mzOrder[i]] = i;
+    }
+  }
+
+  /**
+   * Sorts runs of equal values in the range either by m/z descending (and then by id) or by id
+   * ascending
+   */
+  private void sortTies(double[] values, int from, int to, boolean thenByMz) {
+    for (int start = from; start < to; ) {
+      final double value = values[intensityOrder[start]];
+      int end = start + 1;
+      while (end < to && Double.compare(value, values[intensityOrder[end]]) == 0) {
+        end++;
+      }
+      if (end - start > 1) {
+        if (thenByMz) {
+          DoubleArrays.quickSortIndirect(intensityOrder, mzs, start, end);
+          IntArrays.reverse(intensityOrder, start, end);
+          sortTies(mzs, start, end, false);
+        } else {
+          IntArrays.quickSort(intensityOrder, start, end);
+        }
+      }
+      start = end;
+    }
+  }
+
+  /**
+   * Creates a bin of the tolerance range around the data point at this position, trimmed to not
+   * overlap existing bins like {@link SpectraMerging#createNewNonOverlappingRange}. Positions of
+   * enclosed bins are taken over, as the range map replaced enclosed ranges.
+   *
+   * @return the new bin
+   */
+  private int createBin(MZTolerance tolerance, int position) {
+    final double mz = mzs[mzOrder[position]];
+    final double tol = tolerance.getMzToleranceForMass(mz);
+    trimToNonOverlapping(mz - tol, mz + tol);
+
+    final int bin = numBins++;
+    ensureBinCapacity(numBins);
+    binLower[bin] = rangeLower;
+    binUpper[bin] = rangeUpper;
+    binLowerClosed[bin] = rangeLowerClosed;
+    binUpperClosed[bin] = rangeUpperClosed;
+    binFirstMember[bin] = -1;
+    maxBinWidth = Math.max(maxBinWidth, rangeUpper - rangeLower);
+
+    binOfPosition[position] = bin;
+    for (int p = position - 1; p >= 0 && contains(bin, mzs[mzOrder[p]]); p--) {
+      binOfPosition[p] = bin;
+    }
+    for (int p = position + 1; p < size && contains(bin, mzs[mzOrder[p]]); p++) {
+      binOfPosition[p] = bin;
+    }
+    return bin;
+  }
+
+  /**
+   * Same as {@link SpectraMerging#createNewNonOverlappingRange} for a closed proposed range. The
+   * result is stored in the range fields.
+   */
+  private void trimToNonOverlapping(double lower, double upper) {
+    rangeLower = lower;
+    rangeUpper = upper;
+    rangeLowerClosed = true;
+    rangeUpperClosed = true;
+    while (true) {
+      final int lowerBin = findBin(
+          rangeLowerClosed ? rangeLower : rangeLower + SpectraMerging.EPSILON);
+      final int upperBin = findBin(
+          rangeUpperClosed ? rangeUpper : rangeUpper - SpectraMerging.EPSILON);
+      final boolean lowerOverlaps = lowerBin != -1 && intersectsRange(lowerBin);
+      final boolean upperOverlaps = upperBin != -1 && intersectsRange(upperBin);
+      if (!lowerOverlaps && !upperOverlaps) {
+        return;
+      }
+      if (lowerOverlaps) {
+        rangeLower = binUpper[lowerBin];
+        rangeLowerClosed = false;
+      }
+      if (upperOverlaps) {
+        rangeUpper = binLower[upperBin];
+        rangeUpperClosed = false;
+      }
+    }
+  }
+
+  /**
+   * @return the bin that contains the m/z or -1. Every bin contains the data point that created it,
+   * so only the closest assigned positions within the maximum bin width need to be checked.
+   */
+  private int findBin(double mz) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (mzs[mzOrder[mid]] < mz) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    for (int p = low; p < size && mzs[mzOrder[p]] - mz <= maxBinWidth; p++) {
+      final int bin = binOfPosition[p];
+      if (bin != -1) {
+        if (contains(bin, mz)) {
+          return bin;
+        }
+        break;
+      }
+    }
+    for (int p = low - 1; p >= 0 && mz - mzs[mzOrder[p]] <= maxBinWidth; p--) {
+      final int bin = binOfPosition[p];
+      if (bin != -1) {
+        return contains(bin, mz) ? bin : -1;
+      }
+    }
+    return -1;
+  }
+
+  private boolean contains(int bin, double mz) {
+    return (mz > binLower[bin] || (mz == binLower[bin] && binLowerClosed[bin])) && (
+        mz < binUpper[bin] || (mz == binUpper[bin] && binUpperClosed[bin]));
+  }
+
+  /**
+   * Same as a non-empty {@link com.google.common.collect.Range#intersection} of the bin and the
+   * current range
+   */
+  private boolean intersectsRange(int bin) {
+    final double lower;
+    final boolean lowerClosed;
+    if (binLower[bin] != rangeLower) {
+      lowerClosed = binLower[bin] > rangeLower ? binLowerClosed[bin] : rangeLowerClosed;
+      lower = Math.max(binLower[bin], rangeLower);
+    } else {
+      lowerClosed = binLowerClosed[bin] && rangeLowerClosed;
+      lower = rangeLower;
+    }
+    final double upper;
+    final boolean upperClosed;
+    if (binUpper[bin] != rangeUpper) {
+      upperClosed = binUpper[bin] < rangeUpper ? binUpperClosed[bin] : rangeUpperClosed;
+      upper = Math.min(binUpper[bin], rangeUpper);
+    } else {
+      upperClosed = binUpperClosed[bin] && rangeUpperClosed;
+      upper = rangeUpper;
+    }
+    return lower < upper || (lower == upper && lowerClosed && upperClosed);
+  }
+
+  /**
+   * Bins are contiguous in m/z order. Merges the members of each bin in ascending spectrum order.
+   */
+  private double[][] sweep(IntensityMergingType intensityMergingType,
+      CenterFunction mzCenterFunction, @Nullable Double outputNoiseLevel,
+      @Nullable Integer minNumPeaks) {
+    final DoubleArrayList newMzs = new DoubleArrayList(numBins);
+    final DoubleArrayList newIntensities = new DoubleArrayList(numBins);
+
+    int position = 0;
+    while (position < size) {
+      final int bin = binOfPosition[position];
+      do {
+        position++;
+      } while (position < size && binOfPosition[position] == bin);
+
+      final int members = collectMembers(bin);
+      if (minNumPeaks != null && members < minNumPeaks) {
+        continue;
+      }
+      final double[] binMzs = new double[members];
+      final double[] binIntensities = new double[members];
+      for (int i = 0; i < members; i++) {
+        binMzs[i] = mzs[memberBuffer[i]];
+        binIntensities[i] = intensities[memberBuffer[i]];
+      }
+
+      final double newMz = mzCenterFunction.calcCenter(binMzs, binIntensities);
+      final double newIntensity = switch (intensityMergingType) {
+        case SUMMED -> Arrays.stream(binIntensities).sum();
+        case MAXIMUM -> Arrays.stream(binIntensities).max().orElse(0d);
+        case AVERAGE -> Arrays.stream(binIntensities).average().orElse(0d);
+      };
+
+      if (outputNoiseLevel == null || newIntensity > outputNoiseLevel) {
+        newMzs.add(newMz);
+        newIntensities.add(newIntensity);
+      }
+    }
+    return new double[][]{newMzs.toDoubleArray(), newIntensities.toDoubleArray()};
+  }
+
+  /**
+   * Collects the first (most intense) member of each spectrum in ascending spectrum order into the
+   * member buffer.
+   *
+   * @return the number of members
+   */
+  private int collectMembers(int bin) {
+    stamp++;
+    if (stamp == Integer.MAX_VALUE) {
+      Arrays.fill(spectrumStamp, 0);
+      stamp = 1;
+    }
+    int n = 0;
+    // members were prepended in processing order, so the most intense member of a spectrum is the
+    // last one visited
+    for (int id = binFirstMember[bin]; id != -1; id = nextMember[id]) {
+      final int spectrum = spectrumIndex[id];
+      if (spectrumStamp[spectrum] != stamp) {
+        spectrumStamp[spectrum] = stamp;
+        if (n == memberBuffer.length) {
+          memberBuffer = Arrays.copyOf(memberBuffer, n * 2);
+        }
+        memberBuffer[n++] = spectrum;
+      }
+      memberOfSpectrum[spectrum] = id;
+    }
+    IntArrays.quickSort(memberBuffer, 0, n);
+    for (int i = 0; i < n; i++) {
+      memberBuffer[i] = memberOfSpectrum[memberBuffer[i]];
+    }
+    return n;
+  }
+
+  private void ensureCapacity(int n) {
+    if (mzs.length >= n) {
+      return;
+    }
+    mzs = new double[n];
+    intensities = new double[n];
+    spectrumIndex = new int[n];
+    mzOrder = new int[n];
+    positionOf = new int[n];
+    intensityOrder = new int[n];
+    binOfPosition = new int[n];
+    nextMember = new int[n];
+  }
+
+  private void ensureBinCapacity(int n) {
+    if (binLower.length >= n) {
+      return;
+    }
+    final int capacity = Math.max(n, Math.max(16, binLower.length * 2));
+    binLower = Arrays.copyOf(binLower, capacity);
+    binUpper = Arrays.copyOf(binUpper, capacity);
+    binLowerClosed = Arrays.copyOf(binLowerClosed, capacity);
+    binUpperClosed = Arrays.copyOf(binUpperClosed, capacity);
+    binFirstMember = Arrays.copyOf(binFirstMember, capacity);
+  }
+}
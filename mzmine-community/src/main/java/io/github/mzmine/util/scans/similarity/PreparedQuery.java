@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.scans.similarity;
+
+import io.github.mzmine.datamodel.DataPoint;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A query spectrum prepared once by {@link SpectralSimilarityFunction#prepareQuery(DataPoint[])}
+ * for the comparison with many library spectra.
+ *
+ * @param dataPoints the query data points
+ * @param spectrum   the weighted spectrum or null if the function does not use one
+ * @param weights    the weights of spectrum or null
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public record PreparedQuery(@NotNull DataPoint[] dataPoints, @Nullable WeightedSpectrum spectrum,
+                            @Nullable Weights weights) {
+
+  /**
+   * @param dataPoints the query data points without prepared spectrum
+   */
+  public PreparedQuery(@NotNull DataPoint[] dataPoints) {
+    this(dataPoints, null, null);
+  }
+
+  /**
+   * @return the prepared spectrum if it was created with these weights, otherwise a new spectrum
+   */
+  @NotNull
+  public WeightedSpectrum spectrum(@NotNull Weights weights) {
+    if (spectrum != null && this.weights == weights) {
+      return spectrum;
+    }
+    return WeightedSpectrum.of(dataPoints, weights);
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.scans.ScanAlignment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Allocation free signal alignment and (modified) cosine calculation on {@link WeightedSpectrum}.
+ * Produces the same matches as {@link ScanAlignment#alignOfSorted(MZTolerance, DataPoint[],
+ * DataPoint[])} and {@link ScanAlignment#alignOfSortedModAware(MZTolerance, DataPoint[],
+ * DataPoint[], double, double)}: signals of the first spectrum are matched in descending intensity
+ * order to the most intense remaining signal of the second spectrum within tolerance. Candidates
+ * are found by binary search on m/z instead of iterating all remaining signals.
+ * <p>
+ * Instances hold reusable buffers and the results of the last alignment. Use {@link #get()} to
+ * retrieve the instance of the current thread. Not thread safe.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class SpectralCosineKernel {
+
+  private static final ThreadLocal<SpectralCosineKernel> THREAD_KERNEL = ThreadLocal.withInitial(
+      SpectralCosineKernel::new);
+
+  // matched index of second spectrum for each signal in first or -1
+  private int[] matchOfFirst = new int[128];
+  // marks used signals of second if value equals the current stamp - avoids clearing
+  private int[] usedStamp = new int[128];
+  private int stamp = 0;
+
+  // results of last alignment
+  private WeightedSpectrum first;
+  private WeightedSpectrum second;
+  private int overlap;
+  private double dot;
+  private double matchedSquaredFirst;
+  private double matchedSquaredSecond;
+  private double matchedIntensityFirst;
+  private double matchedIntensitySecond;
+
+  private SpectralCosineKernel() {
+  }
+
+  /**
+   * @return the kernel of the current thread
+   */
+  @NotNull
+  public static SpectralCosineKernel get() {
+    return THREAD_KERNEL.get();
+  }
+
+  /**
+   * Align signals within m/z tolerance
+   *
+   * @param mzTol  tolerance checked around each signal of the first spectrum
+   * @param first  first spectrum
+   * @param second second spectrum
+   * @return the number of matched signals
+   */
+  public int align(@NotNull MZTolerance mzTol, @NotNull WeightedSpectrum first,
+      @NotNull WeightedSpectrum second) {
+    return align(mzTol, first, second, Double.NaN);
+  }
+
+  /**
+   * Align signals within m/z tolerance directly or shifted by the precursor m/z difference
+   * (modified cosine)
+   *
+   * @param mzTol             tolerance checked around each signal of the first spectrum
+   * @param first             first spectrum
+   * @param second            second spectrum
+   * @param precursorMzFirst  precursor m/z of the first spectrum
+   * @param precursorMzSecond precursor m/z of the second spectrum
+   * @return the number of matched signals
+   */
+  public int alignModAware(@NotNull MZTolerance mzTol, @NotNull WeightedSpectrum first,
+      @NotNull WeightedSpectrum second, double precursorMzFirst, double precursorMzSecond) {
+    return align(mzTol, first, second, precursorMzSecond - precursorMzFirst);
+  }
+
+  /**
+   * @param deltaMz shift added to signals of first spectrum for modified matches or NaN to only
+   *                match directly
+   */
+  private int align(@NotNull MZTolerance mzTol, @NotNull WeightedSpectrum first,
+      @NotNull WeightedSpectrum second, double deltaMz) {
+    this.first = first;
+    this.second = second;
+    overlap = 0;
+    dot = 0;
+    matchedSquaredFirst = 0;
+    matchedSquaredSecond = 0;
+    matchedIntensityFirst = 0;
+    matchedIntensitySecond = 0;
+
+    prepareBuffers(first.size(), second.size());
+    final boolean modAware = !Double.isNaN(deltaMz);
+
+    for (int i = 0; i < first.size(); i++) {
+      final double mz = first.getMz(i);
+      int match = findMostIntenseUnused(mzTol, second, mz, -1);
+      if (modAware) {
+        match = findMostIntenseUnused(mzTol, second, mz + deltaMz, match);
+      }
+
+      matchOfFirst[i] = match;
+      if (match >= 0) {
+        usedStamp[match] = stamp;
+        overlap++;
+        final double wa = first.getWeighted(i);
+        final double wb = second.getWeighted(match);
+        dot += wa * wb;
+        matchedSquaredFirst += wa * wa;
+        matchedSquaredSecond += wb * wb;
+        matchedIntensityFirst += first.getIntensity(i);
+        matchedIntensitySecond += second.getIntensity(match);
+      }
+    }
+    return overlap;
+  }
+
+  /**
+   * Same tolerance check as {@link MZTolerance#checkWithinTolerance(double, double)} with the
+   * tolerance range of the query m/z.
+   *
+   * @param currentBest current best index or -1
+   * @return the lowest index (most intense) unused signal within tolerance or currentBest
+   */
+  private int findMostIntenseUnused(MZTolerance mzTol, WeightedSpectrum spec, double mz,
+      int currentBest) {
+    final double tol = mzTol.getMzToleranceForMass(mz);
+    final double lower = mz - tol;
+    final double upper = mz + tol;
+    int best = currentBest;
+    for (int p = spec.lowerBoundMzPosition(lower); p < spec.size(); p++) {
+      if (spec.mzAtPosition(p) > upper) {
+        break;
+      }
+      final int index = spec.indexAtPosition(p);
+      if (usedStamp[index] != stamp && (best == -1 || index < best)) {
+        best = index;
+      }
+    }
+    return best;
+  }
+
+  private void prepareBuffers(int sizeFirst, int sizeSecond) {
+    if (matchOfFirst.length < sizeFirst) {
+      matchOfFirst = new int[Math.max(sizeFirst, matchOfFirst.length * 2)];
+    }
+    if (usedStamp.length < sizeSecond) {
+      usedStamp = new int[Math.max(sizeSecond, usedStamp.length * 2)];
+      stamp = 0;
+    }
+    stamp++;
+    if (stamp == Integer.MAX_VALUE) {
+      Arrays.fill(usedStamp, 0);
+      stamp = 1;
+    }
+  }
+
+  /**
+   * @return number of matched signals of last alignment
+   */
+  public int getOverlap() {
+    return overlap;
+  }
+
+  /**
+   * Cosine of the last alignment with all unmatched signals matched to zero intensity
+   */
+  public double getCosine() {
+    return getCosine(HandleUnmatchedSignalOptions.KEEP_ALL_AND_MATCH_TO_ZERO);
+  }
+
+  /**
+   * Cosine of the last alignment. The first spectrum is treated as the library spectrum and the
+   * second as the query (experimental) spectrum.
+   *
+   * @param handleUnmatched defines which unmatched signals contribute to the norm
+   */
+  public double getCosine(@NotNull HandleUnmatchedSignalOptions handleUnmatched) {
+    final double normFirst = switch (handleUnmatched) {
+      case KEEP_ALL_AND_MATCH_TO_ZERO, KEEP_LIBRARY_SIGNALS -> first.getSumSquaredWeighted();
+      case REMOVE_ALL, KEEP_EXPERIMENTAL_SIGNALS -> matchedSquaredFirst;
+    };
+    final double normSecond = switch (handleUnmatched) {
+      case KEEP_ALL_AND_MATCH_TO_ZERO, KEEP_EXPERIMENTAL_SIGNALS ->
+          second.getSumSquaredWeighted();
+      case REMOVE_ALL, KEEP_LIBRARY_SIGNALS -> matchedSquaredSecond;
+    };
+    return dot / (Math.sqrt(normFirst) * Math.sqrt(normSecond));
+  }
+
+  /**
+   * @return matched intensity / total intensity of the first spectrum
+   */
+  public double getExplainedIntensityFirst() {
+    return matchedIntensityFirst / first.getTotalIntensity();
+  }
+
+  /**
+   * @return matched intensity / total intensity of the second spectrum
+   */
+  public double getExplainedIntensitySecond() {
+    return matchedIntensitySecond / second.getTotalIntensity();
+  }
+
+  /**
+   * @param indexFirst index of a signal in the first spectrum
+   * @return the matched index in the second spectrum or -1
+   */
+  public int getMatchOfFirst(int indexFirst) {
+    return matchOfFirst[indexFirst];
+  }
+
+  /**
+   * Materializes the matched signals of the last alignment. Only call for results that passed all
+   * thresholds.
+   *
+   * @return list of matched data points [first, second] in the order of the first spectrum
+   */
+  @NotNull
+  public List<DataPoint[]> getMatchedDataPoints() {
+    final DataPoint[] dpsFirst = first.getDataPoints();
+    final DataPoint[] dpsSecond = second.getDataPoints();
+    final List<DataPoint[]> matched = new ArrayList<>(overlap);
+    for (int i = 0; i < first.size(); i++) {
+      final int match = matchOfFirst[i];
+      if (match >= 0) {
+        matched.add(new DataPoint[]{dpsFirst[i], dpsSecond[match]});
+      }
+    }
+    return matched;
+  }
+}
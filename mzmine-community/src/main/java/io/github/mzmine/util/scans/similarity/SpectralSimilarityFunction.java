@@ -30,6 +30,7 @@ import io.github.mzmine.modules.MZmineModule;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.util.scans.ScanAlignment;
 import java.util.List;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -48,6 +49,32 @@ public abstract class SpectralSimilarityFunction implements MZmineModule {
   public abstract SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch,
       DataPoint[] library, DataPoint[] query);
 
+  /**
+   * Prepares a query spectrum once for the comparison with many library spectra. Override if the
+   * function can reuse preparations, like a {@link WeightedSpectrum}.
+   *
+   * @param query the query data points
+   * @return the prepared query for {@link #getSimilarity(MZTolerance, int, DataPoint[],
+   * PreparedQuery)}
+   */
+  @NotNull
+  public PreparedQuery prepareQuery(@NotNull DataPoint[] query) {
+    return new PreparedQuery(query);
+  }
+
+  /**
+   * Same as {@link #getSimilarity(MZTolerance, int, DataPoint[], DataPoint[])} with a query
+   * prepared by {@link #prepareQuery(DataPoint[])}
+   *
+   * @param minMatch minimum overlap in signals
+   * @return A spectra similarity if all requirements were met - otherwise null
+   */
+  @Nullable
+  public SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch, DataPoint[] library,
+      @NotNull PreparedQuery query) {
+    return getSimilarity(mzTol, minMatch, library, query.dataPoints());
+  }
+
   /**
    * Align two mass lists. Override if alignement is changed in a specific spectral similarity
    * function.
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.util.DataPointSorter;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Primitive representation of a spectrum for the {@link SpectralCosineKernel}. All values are
+ * stored in parallel arrays sorted by {@link DataPointSorter#DEFAULT_INTENSITY} (the same order the
+ * {@link io.github.mzmine.util.scans.ScanAlignment} uses) and the weighted intensities and their
+ * squared sum are calculated once. An additional m/z sorted lookup is used to find signals within
+ * m/z tolerance by binary search.
+ * <p>
+ * Create once per spectrum and reuse for all pairwise comparisons.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class WeightedSpectrum {
+
+  // sorted by intensity descending
+  private final @NotNull DataPoint[] dataPoints;
+  private final double[] mzs;
+  private final double[] intensities;
+  private final double[] weighted;
+  private final double sumSquaredWeighted;
+  private final double totalIntensity;
+  // m/z sorted lookup: mz ascending and the index into the intensity sorted arrays
+  private final double[] mzAscending;
+  private final int[] mzAscendingToIndex;
+
+  private WeightedSpectrum(@NotNull DataPoint[] sortedDataPoints, @NotNull Weights weights) {
+    dataPoints = sortedDataPoints;
+    final int n = sortedDataPoints.length;
+    mzs = new double[n];
+    intensities = new double[n];
+    weighted = new double[n];
+    double sumSquared = 0;
+    double total = 0;
+    for (int i = 0; i < n; i++) {
+      final DataPoint dp = sortedDataPoints[i];
+      mzs[i] = dp.getMZ();
+      intensities[i] = dp.getIntensity();
+      weighted[i] = weights.apply(mzs[i], intensities[i]);
+      sumSquared += weighted[i] * weighted[i];
+      total += intensities[i];
+    }
+    sumSquaredWeighted = sumSquared;
+    totalIntensity = total;
+
+    mzAscendingToIndex = new int[n];
+    for (int i = 0; i < n; i++) {
+      mzAscendingToIndex[i] = i;
+    }
+    IntArrays.quickSort(mzAscendingToIndex, (a, b) -> Double.compare(mzs[a], mzs[b]));
+    mzAscending = new double[n];
+    for (int i = 0; i < n; i++) {
+      mzAscending[i] = mzs[mzAscendingToIndex[i]];
+    }
+  }
+
+  /**
+   * @param dataPoints data points in any order. The spectrum keeps a copy sorted by
+   *                   {@link DataPointSorter#DEFAULT_INTENSITY}, so later changes to the array, like
+   *                   sorting by m/z, do not change the spectrum.
+   * @param weights    the weights applied to m/z and intensity
+   * @return a new spectrum
+   */
+  @NotNull
+  public static WeightedSpectrum of(@NotNull DataPoint[] dataPoints, @NotNull Weights weights) {
+    final DataPoint[] sorted = Arrays.copyOf(dataPoints, dataPoints.length);
+    if (!isSortedByIntensity(sorted)) {
+      Arrays.sort(sorted, DataPointSorter.DEFAULT_INTENSITY);
+    }
+    return new WeightedSpectrum(sorted, weights);
+  }
+
+  private static boolean isSortedByIntensity(DataPoint[] dataPoints) {
+    for (int i = 1; i < dataPoints.length; i++) {
+      if (DataPointSorter.DEFAULT_INTENSITY.compare(dataPoints[i - 1], dataPoints[i]) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    return mzs.length;
+  }
+
+  /**
+   * @return data points sorted by intensity descending. Do not modify.
+   */
+  @NotNull
+  public DataPoint[] getDataPoints() {
+    return dataPoints;
+  }
+
+  public double getMz(int index) {
+    return mzs[index];
+  }
+
+  public double getIntensity(int index) {
+    return intensities[index];
+  }
+
+  public double getWeighted(int index) {
+    return weighted[index];
+  }
+
+  /**
+   * @return sum of all squared weighted intensities
+   */
+  public double getSumSquaredWeighted() {
+    return sumSquaredWeighted;
+  }
+
+  public double getTotalIntensity() {
+    return totalIntensity;
+  }
+
+  /**
+   * The first signal with m/z >= lower bound in m/z ascending order
+   *
+   * @return the position in m/z ascending order, may be {@link #size()}
+   */
+  int lowerBoundMzPosition(double lowerMz) {
+    int low = 0;
+    int high = mzAscending.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (mzAscending[mid] < lowerMz) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @param position position in m/z ascending order
+   * @return m/z at this position
+   */
+  double mzAtPosition(int position) {
+    return mzAscending[position];
+  }
+
+  /**
+   * @param position position in m/z ascending order
+   * @return the index in the intensity sorted arrays
+   */
+  int indexAtPosition(int position) {
+    return mzAscendingToIndex[position];
+  }
+}
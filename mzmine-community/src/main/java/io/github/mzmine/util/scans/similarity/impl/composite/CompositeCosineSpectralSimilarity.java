@@ -28,16 +28,14 @@ package io.github.mzmine.util.scans.similarity.impl.composite;
 import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
-import io.github.mzmine.util.maths.similarity.Similarity;
-import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.similarity.HandleUnmatchedSignalOptions;
+import io.github.mzmine.util.scans.similarity.PreparedQuery;
+import io.github.mzmine.util.scans.similarity.SpectralCosineKernel;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunction;
 import io.github.mzmine.util.scans.similarity.Weights;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Objects;
+import io.github.mzmine.util.scans.similarity.WeightedSpectrum;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -81,33 +79,54 @@ public class CompositeCosineSpectralSimilarity extends SpectralSimilarityFunctio
     return getSimilarity(weights, minCos, handleUnmatched, mzTol, minMatch, library, query);
   }
 
+  @Override
+  public @NotNull PreparedQuery prepareQuery(@NotNull DataPoint[] query) {
+    return new PreparedQuery(query, WeightedSpectrum.of(query, weights), weights);
+  }
+
+  @Override
+  public SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch, DataPoint[] library,
+      @NotNull PreparedQuery query) {
+    return getSimilarity(weights, minCos, handleUnmatched, mzTol, minMatch, library,
+        query.dataPoints(), query.spectrum(weights));
+  }
+
   public static SpectralSimilarity getSimilarity(Weights weights, double minCos,
       HandleUnmatchedSignalOptions handleUnmatched, MZTolerance mzTol, int minMatch,
       DataPoint[] library, DataPoint[] query) {
+    return getSimilarity(weights, minCos, handleUnmatched, mzTol, minMatch, library, query,
+        WeightedSpectrum.of(query, weights));
+  }
+
+  /**
+   * @param querySpec the weighted spectrum of query, prepared once for many library spectra
+   */
+  private static SpectralSimilarity getSimilarity(Weights weights, double minCos,
+      HandleUnmatchedSignalOptions handleUnmatched, MZTolerance mzTol, int minMatch,
+      DataPoint[] library, DataPoint[] query, WeightedSpectrum querySpec) {
 
-    // align
-    List<DataPoint[]> aligned = ScanAlignment.align(mzTol, library, query);
-    // removes all signals which were not found in both masslists
-    aligned = handleUnmatched.handleUnmatched(aligned);
+    // align on primitive arrays - library is first
+    final SpectralCosineKernel kernel = SpectralCosineKernel.get();
+    final WeightedSpectrum librarySpec = WeightedSpectrum.of(library, weights);
+    kernel.align(mzTol, librarySpec, querySpec);
 
     int queryN = query.length;
-    int overlap = calcOverlap(aligned);
+    int overlap = kernel.getOverlap();
 
     if (overlap >= minMatch) {
       // relative factor ranges from 0-1
-      double relativeFactor = calcRelativeNeighbourFactor(aligned);
+      double relativeFactor = calcRelativeNeighbourFactor(kernel, librarySpec, querySpec);
 
       // weighted cosine
-      double[][] diffArray = ScanAlignment.toIntensityMatrixWeighted(aligned,
-          weights.getIntensity(), weights.getMz());
-      double diffCosine = Similarity.COSINE.calc(diffArray);
+      double diffCosine = kernel.getCosine(handleUnmatched);
 
       // composite dot product identity score
       // NIST search similar
       double composite = (queryN * diffCosine + overlap * relativeFactor) / (queryN + overlap);
 
       if (composite >= minCos) {
-        return new SpectralSimilarity(name, composite, overlap, library, query, aligned);
+        return new SpectralSimilarity(name, composite, overlap, library, query,
+            kernel.getMatchedDataPoints());
       } else {
         return null;
       }
@@ -118,52 +137,41 @@ public class CompositeCosineSpectralSimilarity extends SpectralSimilarityFunctio
   /**
    * sum of relative ratios of neighbours in both mass lists
    *
-   * @param aligned list of aligned signals DataPoint[library, query]
+   * @param kernel  the kernel with the last alignment of library and query
+   * @param library library spectrum, first in alignment
+   * @param query   query spectrum, second in alignment
    */
-  private static double calcRelativeNeighbourFactor(List<DataPoint[]> aligned) {
-    // remove all unaligned signals
-    List<DataPoint[]> filtered = removeUnaligned(aligned);
-    // sort by mz
-    sortByMZ(filtered);
-
-    // overlapping within mass tolerance
-    int overlap = calcOverlap(aligned);
+  private static double calcRelativeNeighbourFactor(SpectralCosineKernel kernel,
+      WeightedSpectrum library, WeightedSpectrum query) {
+    // only aligned signals in library order
+    final int overlap = kernel.getOverlap();
+    final int[] matchedLibrary = new int[overlap];
+    final double[] minMzs = new double[library.size()];
+    for (int i = 0, m = 0; i < library.size(); i++) {
+      final int match = kernel.getMatchOfFirst(i);
+      if (match >= 0) {
+        matchedLibrary[m++] = i;
+        minMzs[i] = Math.min(library.getMz(i), query.getMz(match));
+      }
+    }
+    // stable sort by minimum mz of the aligned signals (ascending)
+    IntArrays.mergeSort(matchedLibrary, (a, b) -> Double.compare(minMzs[a], minMzs[b]));
 
     // sum of relative ratios of neighbours in both mass lists
     double factor = 0;
-    for (int i = 1; i < filtered.size(); i++) {
-      DataPoint[] match1 = filtered.get(i - 1);
-      DataPoint[] match2 = filtered.get(i);
-
-      // 0 is library
-      // 1 is query
-      double ratioLibrary = match2[0].getIntensity() / match1[0].getIntensity();
-      double ratioQuery = match2[1].getIntensity() / match1[1].getIntensity();
+    for (int i = 1; i < overlap; i++) {
+      final int lib1 = matchedLibrary[i - 1];
+      final int lib2 = matchedLibrary[i];
+
+      double ratioLibrary = library.getIntensity(lib2) / library.getIntensity(lib1);
+      double ratioQuery = query.getIntensity(kernel.getMatchOfFirst(lib2)) / query.getIntensity(
+          kernel.getMatchOfFirst(lib1));
       factor += Math.min(ratioLibrary, ratioQuery) / Math.max(ratioLibrary, ratioQuery);
     }
     // factor ranges from 0-1 * overlap
     return factor / (overlap);
   }
 
-  /**
-   * Sort aligned datapoints by their minimum mz values (ascending)
-   *
-   * @param filtered list of aligned signals DataPoint[library, query]
-   */
-  private static void sortByMZ(List<DataPoint[]> filtered) {
-    filtered.sort(Comparator.comparingDouble(CompositeCosineSpectralSimilarity::getMinMZ));
-  }
-
-  /**
-   * Minimum mz of all aligned data points
-   *
-   * @param dp array of aligned data points
-   * @return minimum mz of aligned data points
-   */
-  private static double getMinMZ(DataPoint[] dp) {
-    return Arrays.stream(dp).filter(Objects::nonNull).mapToDouble(DataPoint::getMZ).min().orElse(0);
-  }
-
   @Override
   @NotNull
   public String getName() {
@@ -28,13 +28,13 @@ package io.github.mzmine.util.scans.similarity.impl.cosine;
 import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
-import io.github.mzmine.util.maths.similarity.Similarity;
-import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.similarity.HandleUnmatchedSignalOptions;
+import io.github.mzmine.util.scans.similarity.PreparedQuery;
+import io.github.mzmine.util.scans.similarity.SpectralCosineKernel;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunction;
+import io.github.mzmine.util.scans.similarity.WeightedSpectrum;
 import io.github.mzmine.util.scans.similarity.Weights;
-import java.util.List;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -72,21 +72,32 @@ public class WeightedCosineSpectralSimilarity extends SpectralSimilarityFunction
   @Override
   public SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch, DataPoint[] library,
       DataPoint[] query) {
-    // align
-    List<DataPoint[]> aligned = alignDataPoints(mzTol, library, query);
-    // removes all signals which were not found in both masslists
-    aligned = handleUnmatched.handleUnmatched(aligned);
+    return getSimilarity(mzTol, minMatch, library, prepareQuery(query));
+  }
+
+  @Override
+  public @NotNull PreparedQuery prepareQuery(@NotNull DataPoint[] query) {
+    return new PreparedQuery(query, WeightedSpectrum.of(query, weights), weights);
+  }
+
+  @Override
+  public SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch, DataPoint[] library,
+      @NotNull PreparedQuery preparedQuery) {
+    final DataPoint[] query = preparedQuery.dataPoints();
+    // align on primitive arrays - library is first
+    final SpectralCosineKernel kernel = SpectralCosineKernel.get();
+    kernel.align(mzTol, WeightedSpectrum.of(library, weights), preparedQuery.spectrum(weights));
 
     // overlapping within mass tolerance
-    int overlap = calcOverlap(aligned);
+    int overlap = kernel.getOverlap();
 
     if (overlap >= minMatch) {
-      // weighted cosine
-      double[][] diffArray = ScanAlignment.toIntensityMatrixWeighted(aligned,
-          weights.getIntensity(), weights.getMz());
-      double diffCosine = Similarity.COSINE.calc(diffArray);
+      // weighted cosine - unmatched signals only contribute to the norm
+      double diffCosine = kernel.getCosine(handleUnmatched);
       if (diffCosine >= minCos) {
-        return new SpectralSimilarity(getName(), diffCosine, overlap, library, query, aligned);
+        // only materialize matches that pass all thresholds
+        return new SpectralSimilarity(getName(), diffCosine, overlap, library, query,
+            kernel.getMatchedDataPoints());
       } else {
         return null;
       }
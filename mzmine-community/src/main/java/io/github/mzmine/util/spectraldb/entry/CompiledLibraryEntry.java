@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.spectraldb.entry;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.structures.MolecularStructure;
+import io.github.mzmine.datamodel.structures.StructureParser;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lazy view of one entry in a {@link CompiledSpectralLibrary}. Peaks and fields are read from the
+ * memory mapped file on access. The fields are copied into a map once they are modified or
+ * requested as a map.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class CompiledLibraryEntry implements SpectralLibraryEntry {
+
+  private final @NotNull CompiledSpectralLibrary data;
+  private final int index;
+  private @Nullable SpectralLibrary library;
+  // copy of all fields after the first modification or call to getFields
+  private volatile @Nullable Map<DBEntryField, Object> fields;
+  private @Nullable MolecularStructure structure;
+
+  CompiledLibraryEntry(@NotNull CompiledSpectralLibrary data, int index,
+      @Nullable SpectralLibrary library) {
+    this.data = data;
+    this.index = index;
+    this.library = library;
+  }
+
+  @Override
+  public int getNumberOfDataPoints() {
+    return data.getNumberOfPeaks(index);
+  }
+
+  @Override
+  public MassSpectrumType getSpectrumType() {
+    return MassSpectrumType.CENTROIDED;
+  }
+
+  @Override
+  public double[] getMzValues(@NotNull double[] dst) {
+    if (dst.length < getNumberOfDataPoints()) {
+      dst = new double[getNumberOfDataPoints()];
+    }
+    data.getMzs(index, dst);
+    return dst;
+  }
+
+  @Override
+  public double[] getIntensityValues(@NotNull double[] dst) {
+    if (dst.length < getNumberOfDataPoints()) {
+      dst = new double[getNumberOfDataPoints()];
+    }
+    data.getIntensities(index, dst);
+    return dst;
+  }
+
+  @Override
+  public double getMzValue(int index) {
+    return data.getMz(data.getPeakStart(this.index) + index);
+  }
+
+  @Override
+  public double getIntensityValue(int index) {
+    return data.getIntensity(data.getPeakStart(this.index) + index);
+  }
+
+  @Override
+  public @Nullable Integer getBasePeakIndex() {
+    final int n = getNumberOfDataPoints();
+    if (n == 0) {
+      return null;
+    }
+    final int start = data.getPeakStart(index);
+    int basePeak = 0;
+    for (int i = 1; i < n; i++) {
+      if (data.getIntensity(start + i) > data.getIntensity(start + basePeak)) {
+        basePeak = i;
+      }
+    }
+    return basePeak;
+  }
+
+  @Override
+  public @Nullable Double getBasePeakMz() {
+    final Integer basePeak = getBasePeakIndex();
+    return basePeak == null ? null : getMzValue(basePeak);
+  }
+
+  @Override
+  public @Nullable Double getBasePeakIntensity() {
+    final Integer basePeak = getBasePeakIndex();
+    return basePeak == null ? null : getIntensityValue(basePeak);
+  }
+
+  @Override
+  public @Nullable Range<Double> getDataPointMZRange() {
+    final int n = getNumberOfDataPoints();
+    return n == 0 ? null : Range.closed(getMzValue(0), getMzValue(n - 1));
+  }
+
+  @Override
+  public @Nullable Double getTIC() {
+    final int start = data.getPeakStart(index);
+    double sum = 0;
+    for (int i = 0; i < getNumberOfDataPoints(); i++) {
+      sum += data.getIntensity(start + i);
+    }
+    return sum;
+  }
+
+  @Override
+  public @NotNull Iterator<DataPoint> iterator() {
+    return Arrays.asList(getDataPoints()).iterator();
+  }
+
+  @Override
+  public synchronized void putAll(Map<DBEntryField, Object> fields) {
+    getFields().putAll(fields);
+  }
+
+  @Override
+  public synchronized boolean putIfNotNull(DBEntryField field, Object value) {
+    if (field == DBEntryField.SMILES || field == DBEntryField.INCHI) {
+      structure = null; // clear and recalculate later
+    }
+
+    if (field != null && value != null) {
+      getFields().put(field, value);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public Double getPrecursorMZ() {
+    return (Double) getField(DBEntryField.PRECURSOR_MZ).orElse(null);
+  }
+
+  @Override
+  public Optional<Object> getField(DBEntryField f) {
+    final Map<DBEntryField, Object> copy = fields;
+    if (copy != null) {
+      return Optional.ofNullable(copy.get(f));
+    }
+    final Object value = data.getColumnValue(index, f);
+    return Optional.ofNullable(value != null ? value : data.getStringFieldValue(index, f));
+  }
+
+  @Override
+  public <T> T getOrElse(DBEntryField f, T defaultValue) {
+    return (T) getField(f).orElse(defaultValue);
+  }
+
+  @Override
+  public synchronized Map<DBEntryField, Object> getFields() {
+    if (fields == null) {
+      final Map<DBEntryField, Object> copy = new EnumMap<>(DBEntryField.class);
+      data.putAllFields(index, copy);
+      fields = copy;
+    }
+    return fields;
+  }
+
+  /**
+   * Saved in the same format as {@link SpectralDBEntry}
+   */
+  @Override
+  public void saveToXML(XMLStreamWriter writer) throws XMLStreamException {
+    final double[] mzs = getMzValues(new double[getNumberOfDataPoints()]);
+    final double[] intensities = getIntensityValues(new double[getNumberOfDataPoints()]);
+    new SpectralDBEntry(null, mzs, intensities, getFields(), library).saveToXML(writer);
+  }
+
+  @Override
+  public @Nullable SpectralLibrary getLibrary() {
+    return library;
+  }
+
+  @Override
+  public void setLibrary(@Nullable SpectralLibrary library) {
+    this.library = library;
+  }
+
+  @Override
+  public @Nullable String getLibraryName() {
+    return library != null ? library.getName() : null;
+  }
+
+  @Override
+  public MolecularStructure getStructure() {
+    if (structure != null) {
+      return structure;
+    }
+    String smiles = getOrElse(DBEntryField.SMILES, "");
+    String inchi = getOrElse(DBEntryField.INCHI, "");
+    structure = StructureParser.silent().parseStructure(smiles, inchi);
+    return structure;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Entry: %s (dp: %d)", getOrElse(DBEntryField.NAME, ""),
+        getNumberOfDataPoints());
+  }
+}
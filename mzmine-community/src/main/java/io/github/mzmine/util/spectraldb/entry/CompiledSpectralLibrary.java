@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.spectraldb.entry;
+
+import io.github.mzmine.datamodel.PolarityType;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Binary spectral library file that is opened by memory mapping instead of parsing. Peaks of all
+ * entries are concatenated into one m/z and one intensity region. Precursor m/z, RT, CCS, charge
+ * and polarity are stored as primitive columns. All other fields are stored as strings in a
+ * deduplicated string dictionary, as in the project save format, and are converted back by
+ * {@link DBEntryField#convertValue(String)}. The file starts with a magic string and a version.
+ * <p>
+ * Entries are accessed through lightweight {@link CompiledLibraryEntry} views. All reads use
+ * absolute positions so instances are safe for concurrent use.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public final class CompiledSpectralLibrary {
+
+  public static final String FILE_EXTENSION = "mzlib";
+  private static final Logger logger = Logger.getLogger(CompiledSpectralLibrary.class.getName());
+  private static final byte[] MAGIC = "MZMINELIB".getBytes(StandardCharsets.US_ASCII);
+  public static final int VERSION = 1;
+  private static final int NO_CHARGE = Integer.MIN_VALUE;
+  private static final PolarityType[] POLARITIES = PolarityType.values();
+  /**
+   * Fields stored in primitive columns
+   */
+  private static final List<DBEntryField> COLUMN_FIELDS = List.of(DBEntryField.PRECURSOR_MZ,
+      DBEntryField.RT, DBEntryField.CCS, DBEntryField.CHARGE, DBEntryField.POLARITY);
+
+  private final int numEntries;
+  private final DBEntryField[] fieldNames;
+  // peaks: start index of each entry (numEntries + 1)
+  private final LongBuffer peakOffsets;
+  private final DoubleBuffer mzs;
+  private final DoubleBuffer intensities;
+  // columns
+  private final DoubleBuffer precursorMzs;
+  private final FloatBuffer rts;
+  private final FloatBuffer ccs;
+  private final IntBuffer charges;
+  private final ByteBuffer polarities;
+  // other fields: start index of each entry (numEntries + 1), field and string id
+  private final IntBuffer fieldOffsets;
+  private final ShortBuffer fieldIds;
+  private final IntBuffer valueIds;
+  // string dictionary: start byte of each string (numStrings + 1) in the utf-8 blob
+  private final LongBuffer stringOffsets;
+  private final ByteBuffer strings;
+
+  private CompiledSpectralLibrary(FileChannel channel, long position, int numEntries,
+      long numPeaks, DBEntryField[] fieldNames, int numFieldValues, int numStrings)
+      throws IOException {
+    this.numEntries = numEntries;
+    this.fieldNames = fieldNames;
+    final Mapper mapper = new Mapper(channel, position);
+    peakOffsets = mapper.map((numEntries + 1L) * Long.BYTES).asLongBuffer();
+    mzs = mapper.map(numPeaks * Double.BYTES).asDoubleBuffer();
+    intensities = mapper.map(numPeaks * Double.BYTES).asDoubleBuffer();
+    precursorMzs = mapper.map((long) numEntries * Double.BYTES).asDoubleBuffer();
+    rts = mapper.map((long) numEntries * Float.BYTES).asFloatBuffer();
+    ccs = mapper.map((long) numEntries * Float.BYTES).asFloatBuffer();
+    charges = mapper.map((long) numEntries * Integer.BYTES).asIntBuffer();
+    polarities = mapper.map(numEntries);
+    fieldOffsets = mapper.map((numEntries + 1L) * Integer.BYTES).asIntBuffer();
+    fieldIds = mapper.map((long) numFieldValues * Short.BYTES).asShortBuffer();
+    valueIds = mapper.map((long) numFieldValues * Integer.BYTES).asIntBuffer();
+    stringOffsets = mapper.map((numStrings + 1L) * Long.BYTES).asLongBuffer();
+    strings = mapper.map(stringOffsets.get(numStrings));
+  }
+
+  /**
+   * Maps the file. Only the header is read, all other data is accessed on demand.
+   *
+   * @param file a file written by {@link #write(List, File)}
+   * @return the mapped library
+   * @throws IOException if the file is not a compiled library of the current version
+   */
+  @NotNull
+  public static CompiledSpectralLibrary open(@NotNull File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      // unbuffered header read so that the channel position is the end of the header
+      // mapped buffers stay valid after closing the channel
+      final DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+      final byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException("Not a compiled spectral library: " + file);
+      }
+      final int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException(
+            "Compiled spectral library version %d is not supported (expected %d): %s".formatted(
+                version, VERSION, file));
+      }
+      final int numEntries = in.readInt();
+      final long numPeaks = in.readLong();
+      final int numFieldValues = in.readInt();
+      final int numStrings = in.readInt();
+      final DBEntryField[] fieldNames = new DBEntryField[in.readInt()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        // unknown fields of newer versions are skipped
+        fieldNames[i] = parseField(in.readUTF());
+      }
+      return new CompiledSpectralLibrary(channel, channel.position(), numEntries, numPeaks,
+          fieldNames, numFieldValues, numStrings);
+    }
+  }
+
+  @Nullable
+  private static DBEntryField parseField(String name) {
+    try {
+      return DBEntryField.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      logger.fine("Unknown library field " + name);
+      return null;
+    }
+  }
+
+  /**
+   * Writes all entries to a compiled library. Writes to a temporary file first so that a
+   * concurrent reader never sees an incomplete file.
+   *
+   * @param entries the entries in library order
+   * @param file    the target file
+   */
+  public static void write(@NotNull List<SpectralLibraryEntry> entries, @NotNull File file)
+      throws IOException {
+    // collect fields and strings first
+    final List<DBEntryField> usedFields = new ArrayList<>();
+    final Map<DBEntryField, Short> fieldIndex = new HashMap<>();
+    final Map<String, Integer> stringIndex = new HashMap<>();
+    final List<byte[]> stringBytes = new ArrayList<>();
+    final int[] entryFieldOffsets = new int[entries.size() + 1];
+    final List<short[]> entryFields = new ArrayList<>(entries.size());
+    final List<int[]> entryValues = new ArrayList<>(entries.size());
+    long numPeaks = 0;
+    int numFieldValues = 0;
+    for (int i = 0; i < entries.size(); i++) {
+      final SpectralLibraryEntry entry = entries.get(i);
+      numPeaks += entry.getNumberOfDataPoints();
+      final List<Map.Entry<DBEntryField, Object>> stringFields = new ArrayList<>();
+      for (var field : entry.getFields().entrySet()) {
+        if (field.getValue() != null && !isColumnValue(field.getKey(), field.getValue())) {
+          stringFields.add(field);
+        }
+      }
+      final short[] ids = new short[stringFields.size()];
+      final int[] values = new int[stringFields.size()];
+      for (int f = 0; f < ids.length; f++) {
+        final DBEntryField field = stringFields.get(f).getKey();
+        ids[f] = fieldIndex.computeIfAbsent(field, key -> {
+          usedFields.add(key);
+          return (short) (usedFields.size() - 1);
+        });
+        values[f] = stringIndex.computeIfAbsent(String.valueOf(stringFields.get(f).getValue()),
+            value -> {
+              stringBytes.add(value.getBytes(StandardCharsets.UTF_8));
+              return stringBytes.size() - 1;
+            });
+      }
+      entryFields.add(ids);
+      entryValues.add(values);
+      numFieldValues += ids.length;
+      entryFieldOffsets[i + 1] = numFieldValues;
+    }
+
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    final Path tmp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(),
+        "library_", ".tmp");
+    try {
+      try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp),
+          1 << 16))) {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        out.writeLong(numPeaks);
+        out.writeInt(numFieldValues);
+        out.writeInt(stringBytes.size());
+        out.writeInt(usedFields.size());
+        for (DBEntryField field : usedFields) {
+          out.writeUTF(field.name());
+        }
+
+        // peaks
+        long offset = 0;
+        out.writeLong(offset);
+        for (SpectralLibraryEntry entry : entries) {
+          offset += entry.getNumberOfDataPoints();
+          out.writeLong(offset);
+        }
+        double[] buffer = new double[0];
+        for (SpectralLibraryEntry entry : entries) {
+          buffer = entry.getMzValues(buffer);
+          for (int p = 0; p < entry.getNumberOfDataPoints(); p++) {
+            out.writeDouble(buffer[p]);
+          }
+        }
+        for (SpectralLibraryEntry entry : entries) {
+          buffer = entry.getIntensityValues(buffer);
+          for (int p = 0; p < entry.getNumberOfDataPoints(); p++) {
+            out.writeDouble(buffer[p]);
+          }
+        }
+
+        // columns
+        for (SpectralLibraryEntry entry : entries) {
+          out.writeDouble(getNumber(entry, DBEntryField.PRECURSOR_MZ, Double.NaN));
+        }
+        for (SpectralLibraryEntry entry : entries) {
+          out.writeFloat((float) getNumber(entry, DBEntryField.RT, Double.NaN));
+        }
+        for (SpectralLibraryEntry entry : entries) {
+          out.writeFloat((float) getNumber(entry, DBEntryField.CCS, Double.NaN));
+        }
+        for (SpectralLibraryEntry entry : entries) {
+          final Object charge = entry.getFields().get(DBEntryField.CHARGE);
+          out.writeInt(charge instanceof Integer c ? c : NO_CHARGE);
+        }
+        for (SpectralLibraryEntry entry : entries) {
+          final Object polarity = entry.getFields().get(DBEntryField.POLARITY);
+          out.writeByte(polarity instanceof PolarityType p ? p.ordinal() : -1);
+        }
+
+        // other fields
+        for (int offsetValue : entryFieldOffsets) {
+          out.writeInt(offsetValue);
+        }
+        for (short[] ids : entryFields) {
+          for (short id : ids) {
+            out.writeShort(id);
+          }
+        }
+        for (int[] values : entryValues) {
+          for (int value : values) {
+            out.writeInt(value);
+          }
+        }
+
+        // dictionary
+        long stringOffset = 0;
+        out.writeLong(stringOffset);
+        for (byte[] bytes : stringBytes) {
+          stringOffset += bytes.length;
+          out.writeLong(stringOffset);
+        }
+        for (byte[] bytes : stringBytes) {
+          out.write(bytes);
+        }
+      }
+      Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * @return true if the value is stored in a primitive column
+   */
+  private static boolean isColumnValue(DBEntryField field, Object value) {
+    return switch (field) {
+      case PRECURSOR_MZ, RT, CCS -> value instanceof Number;
+      case CHARGE -> value instanceof Integer;
+      case POLARITY -> value instanceof PolarityType;
+      default -> false;
+    };
+  }
+
+  private static double getNumber(SpectralLibraryEntry entry, DBEntryField field,
+      double defaultValue) {
+    return entry.getFields().get(field) instanceof Number n ? n.doubleValue() : defaultValue;
+  }
+
+  public int size() {
+    return numEntries;
+  }
+
+  /**
+   * @return lightweight views of all entries in library order
+   */
+  @NotNull
+  public List<SpectralLibraryEntry> createEntries(@Nullable SpectralLibrary library) {
+    final List<SpectralLibraryEntry> entries = new ArrayList<>(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      entries.add(new CompiledLibraryEntry(this, i, library));
+    }
+    return entries;
+  }
+
+  int getPeakStart(int entry) {
+    return (int) peakOffsets.get(entry);
+  }
+
+  int getNumberOfPeaks(int entry) {
+    return (int) (peakOffsets.get(entry + 1) - peakOffsets.get(entry));
+  }
+
+  double getMz(int peak) {
+    return mzs.get(peak);
+  }
+
+  double getIntensity(int peak) {
+    return intensities.get(peak);
+  }
+
+  void getMzs(int entry, double[] dst) {
+    mzs.get(getPeakStart(entry), dst, 0, getNumberOfPeaks(entry));
+  }
+
+  void getIntensities(int entry, double[] dst) {
+    intensities.get(getPeakStart(entry), dst, 0, getNumberOfPeaks(entry));
+  }
+
+  /**
+   * @return the value of a column field or null if not set or the field is not a column
+   */
+  @Nullable
+  Object getColumnValue(int entry, DBEntryField field) {
+    return switch (field) {
+      case PRECURSOR_MZ -> {
+        final double mz = precursorMzs.get(entry);
+        yield Double.isNaN(mz) ? null : mz;
+      }
+      case RT -> {
+        final float rt = rts.get(entry);
+        yield Float.isNaN(rt) ? null : rt;
+      }
+      case CCS -> {
+        final float value = ccs.get(entry);
+        yield Float.isNaN(value) ? null : value;
+      }
+      case CHARGE -> {
+        final int charge = charges.get(entry);
+        yield charge == NO_CHARGE ? null : charge;
+      }
+      case POLARITY -> {
+        final byte polarity = polarities.get(entry);
+        yield polarity < 0 || polarity >= POLARITIES.length ? null : POLARITIES[polarity];
+      }
+      default -> null;
+    };
+  }
+
+  /**
+   * @return the converted value of a string field or null
+   */
+  @Nullable
+  Object getStringFieldValue(int entry, DBEntryField field) {
+    for (int i = fieldOffsets.get(entry); i < fieldOffsets.get(entry + 1); i++) {
+      if (fieldNames[fieldIds.get(i)] == field) {
+        return convert(field, getString(valueIds.get(i)));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds all fields of an entry to the map
+   */
+  void putAllFields(int entry, Map<DBEntryField, Object> target) {
+    for (DBEntryField field : COLUMN_FIELDS) {
+      final Object value = getColumnValue(entry, field);
+      if (value != null) {
+        target.put(field, value);
+      }
+    }
+    for (int i = fieldOffsets.get(entry); i < fieldOffsets.get(entry + 1); i++) {
+      final DBEntryField field = fieldNames[fieldIds.get(i)];
+      if (field != null) {
+        target.put(field, convert(field, getString(valueIds.get(i))));
+      }
+    }
+  }
+
+  private static Object convert(DBEntryField field, String value) {
+    try {
+      return field.convertValue(value);
+    } catch (NumberFormatException e) {
+      return value;
+    }
+  }
+
+  private String getString(int id) {
+    final long start = stringOffsets.get(id);
+    final byte[] bytes = new byte[(int) (stringOffsets.get(id + 1) - start)];
+    strings.get((int) start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Maps consecutive regions of a file
+   */
+  private static final class Mapper {
+
+    private final FileChannel channel;
+    private long position;
+
+    private Mapper(FileChannel channel, long position) {
+      this.channel = channel;
+      this.position = position;
+    }
+
+    private ByteBuffer map(long size) throws IOException {
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Library region of %d bytes is too large to be mapped".formatted(size));
+      }
+      final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, size);
+      position += size;
+      return buffer;
+    }
+  }
+}
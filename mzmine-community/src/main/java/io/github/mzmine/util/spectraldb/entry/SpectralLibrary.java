@@ -54,6 +54,10 @@ public class SpectralLibrary {
   @Nullable
   private final MemoryMapStorage storage;
   private final ObservableSet<DataType> types = FXCollections.observableSet(new LinkedHashSet<>());
+  // lazily built precursor index - reset on change. Built and reset while holding the lock of this
+  // library so that entries are never added during the build
+  @Nullable
+  private volatile SpectralLibraryIndex index;
 
   public SpectralLibrary(@Nullable MemoryMapStorage storage, @NotNull File path) {
     this(storage, path.getName(), path);
@@ -71,12 +75,34 @@ public class SpectralLibrary {
     return Collections.unmodifiableList(entries);
   }
 
-  public void addEntry(SpectralLibraryEntry entry) {
+  public synchronized void addEntry(SpectralLibraryEntry entry) {
     entry.setLibrary(this);
     entries.add(entry);
+    index = null;
+  }
+
+  /**
+   * The index is built once on first access and reused by all library searches until new entries
+   * are added. Adding entries waits for a running build and resets the index.
+   *
+   * @return an index of all entries sorted by precursor m/z
+   */
+  @NotNull
+  public SpectralLibraryIndex getIndex() {
+    SpectralLibraryIndex current = index;
+    if (current == null) {
+      synchronized (this) {
+        current = index;
+        if (current == null) {
+          current = SpectralLibraryIndex.create(entries);
+          index = current;
+        }
+      }
+    }
+    return current;
   }
 
-  public void addEntries(Collection<SpectralLibraryEntry> entries) {
+  public synchronized void addEntries(Collection<SpectralLibraryEntry> entries) {
     entries.forEach(this::addEntry);
   }
 
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.entry;
+
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.IndexRange;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable index of library entries sorted by precursor m/z and partitioned by polarity. Range
+ * queries use binary search so that the cost of a precursor lookup only depends on the number of
+ * candidates within the tolerance window and not on the library size. Entries without precursor m/z
+ * are only available through {@link #getEntries()}.
+ * <p>
+ * Candidates are always returned in the original library order so that matching results do not
+ * depend on the use of the index.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class SpectralLibraryIndex {
+
+  private final @NotNull List<SpectralLibraryEntry> entries;
+  private final @NotNull Map<PolarityType, Partition> partitions;
+
+  private SpectralLibraryIndex(@NotNull List<SpectralLibraryEntry> entries,
+      @NotNull Map<PolarityType, Partition> partitions) {
+    this.entries = entries;
+    this.partitions = partitions;
+  }
+
+  /**
+   * @param entries all library entries in library order. The list is copied.
+   * @return a new index
+   */
+  @NotNull
+  public static SpectralLibraryIndex create(@NotNull List<SpectralLibraryEntry> entries) {
+    final List<SpectralLibraryEntry> copy = List.copyOf(entries);
+
+    Map<PolarityType, IntArrayList> indicesByPolarity = new EnumMap<>(PolarityType.class);
+    for (int i = 0; i < copy.size(); i++) {
+      final SpectralLibraryEntry entry = copy.get(i);
+      if (entry.getPrecursorMZ() == null) {
+        continue;
+      }
+      indicesByPolarity.computeIfAbsent(entry.getPolarity(), _ -> new IntArrayList()).add(i);
+    }
+
+    Map<PolarityType, Partition> partitions = new EnumMap<>(PolarityType.class);
+    indicesByPolarity.forEach(
+        (polarity, indices) -> partitions.put(polarity, Partition.create(copy, indices)));
+    return new SpectralLibraryIndex(copy, partitions);
+  }
+
+  /**
+   * @return all entries in library order, including those without precursor m/z
+   */
+  @NotNull
+  public List<SpectralLibraryEntry> getEntries() {
+    return entries;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * All entries with a precursor m/z that may be within tolerance of the query m/z. The search
+   * window is slightly wider than the tolerance range of the query m/z to account for ppm
+   * tolerances that are calculated on the library m/z. The final tolerance check is therefore still
+   * required.
+   *
+   * @param precursorMz query m/z
+   * @param mzTol       precursor tolerance
+   * @param polarities  polarities of the query spectra. Null or a collection containing
+   *                    {@link PolarityType#UNKNOWN} or null returns all polarities. Library entries
+   *                    of unknown polarity always match.
+   * @return candidates in library order
+   */
+  @NotNull
+  public List<SpectralLibraryEntry> getCandidates(final double precursorMz,
+      @NotNull final MZTolerance mzTol, @Nullable final Collection<PolarityType> polarities) {
+    final double delta = mzTol.getMzToleranceForMass(
+        precursorMz + 2 * mzTol.getMzToleranceForMass(precursorMz));
+    return getCandidates(precursorMz - delta, precursorMz + delta, polarities);
+  }
+
+  /**
+   * All entries with a precursor m/z within lower and upper bound (both included)
+   *
+   * @param polarities polarities of the query spectra. Null or a collection containing
+   *                   {@link PolarityType#UNKNOWN} or null returns all polarities. Library entries
+   *                   of unknown polarity always match.
+   * @return candidates in library order
+   */
+  @NotNull
+  public List<SpectralLibraryEntry> getCandidates(final double lowerMz, final double upperMz,
+      @Nullable final Collection<PolarityType> polarities) {
+    final IntArrayList candidates = new IntArrayList();
+    for (final var partition : partitions.entrySet()) {
+      if (acceptPolarity(partition.getKey(), polarities)) {
+        partition.getValue().addIndices(lowerMz, upperMz, candidates);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return List.of();
+    }
+    // restore library order
+    candidates.unstableSort(null);
+    final List<SpectralLibraryEntry> result = new ArrayList<>(candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      result.add(entries.get(candidates.getInt(i)));
+    }
+    return result;
+  }
+
+  /**
+   * Same logic as a weak polarity check: undefined polarities on either side are always accepted.
+   */
+  private static boolean acceptPolarity(@NotNull PolarityType entryPolarity,
+      @Nullable Collection<PolarityType> polarities) {
+    if (polarities == null || entryPolarity == PolarityType.UNKNOWN) {
+      return true;
+    }
+    for (PolarityType polarity : polarities) {
+      if (polarity == null || polarity == PolarityType.UNKNOWN || polarity == entryPolarity) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Entries of one polarity sorted by precursor m/z
+   *
+   * @param precursorMzs sorted precursor m/z
+   * @param indices      index of the entry in the library for each precursor m/z
+   */
+  private record Partition(double[] precursorMzs, int[] indices) {
+
+    private static Partition create(List<SpectralLibraryEntry> entries, IntArrayList indices) {
+      final int[] sortedIndices = indices.toIntArray();
+      final double[] mzs = new double[sortedIndices.length];
+      for (int i = 0; i < sortedIndices.length; i++) {
+        mzs[i] = entries.get(sortedIndices[i]).getPrecursorMZ();
+      }
+      // sort indices by m/z - keep library order for equal m/z
+      it.unimi.dsi.fastutil.Arrays.mergeSort(0, sortedIndices.length,
+          (a, b) -> Double.compare(mzs[a], mzs[b]), (a, b) -> {
+            final int tmpIndex = sortedIndices[a];
+            sortedIndices[a] = sortedIndices[b];
+            sortedIndices[b] = tmpIndex;
+            final double tmpMz = mzs[a];
+            mzs[a] = mzs[b];
+            mzs[b] = tmpMz;
+          });
+      return new Partition(mzs, sortedIndices);
+    }
+
+    private void addIndices(double lowerMz, double upperMz, IntArrayList target) {
+      final IndexRange range = BinarySearch.indexRange(precursorMzs, lowerMz, upperMz);
+      if (range.isEmpty()) {
+        return;
+      }
+      for (int i = range.min(); i < range.maxExclusive(); i++) {
+        target.add(indices[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.spectraldb.parser;
+
+import com.google.common.hash.Hashing;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.io.SemverVersionReader;
+import io.github.mzmine.util.spectraldb.entry.CompiledSpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Opens a {@link CompiledSpectralLibrary} file. No parsing is needed, the entries are views on the
+ * memory mapped file.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public class CompiledLibraryParser extends SpectralDBParser {
+
+  private static final Logger logger = Logger.getLogger(CompiledLibraryParser.class.getName());
+  private static final String CACHE_DIR = "spectral_library_cache";
+
+  private volatile int processed = 0;
+  private volatile int total = 0;
+
+  public CompiledLibraryParser(int bufferEntries, LibraryEntryProcessor processor) {
+    super(bufferEntries, processor);
+  }
+
+  /**
+   * Compiled versions of text libraries are kept in the mzmine user directory. The name is
+   * {@code <library name>_<path hash>_<version hash>}. The version hash depends on the size and
+   * modification date of the library, on the mzmine version that parsed it, and on the compiled
+   * format version. Changed files and parser updates lead to a new compilation.
+   *
+   * @param libraryFile the original library file
+   * @return the compiled library file (may not exist yet) or null if there is no mzmine directory
+   */
+  @Nullable
+  public static File getCacheFile(@NotNull File libraryFile) {
+    if (FileAndPathUtil.getMzmineDir() == null) {
+      return null;
+    }
+    final String versionKey = "%d;%d;%s;%d".formatted(libraryFile.length(),
+        libraryFile.lastModified(), SemverVersionReader.getMZmineVersion(),
+        CompiledSpectralLibrary.VERSION);
+    return new File(FileAndPathUtil.resolveInMzmineDir(CACHE_DIR),
+        "%s%s.%s".formatted(getCachePrefix(libraryFile), hash(versionKey),
+            CompiledSpectralLibrary.FILE_EXTENSION));
+  }
+
+  /**
+   * Removes all compiled versions of this library except the current one
+   *
+   * @param libraryFile the original library file
+   * @param current     the current compiled file that is kept
+   */
+  public static void deleteOutdatedCacheFiles(@NotNull File libraryFile, @NotNull File current) {
+    final String prefix = getCachePrefix(libraryFile);
+    final File[] outdated = current.getAbsoluteFile().getParentFile().listFiles(
+        file -> file.isFile() && file.getName().startsWith(prefix) && file.getName()
+            .endsWith("." + CompiledSpectralLibrary.FILE_EXTENSION) && !file.equals(current));
+    if (outdated == null) {
+      return;
+    }
+    for (File file : outdated) {
+      try {
+        Files.deleteIfExists(file.toPath());
+        logger.fine(() -> "Removed outdated compiled library " + file);
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Cannot remove outdated compiled library " + file, e);
+      }
+    }
+  }
+
+  private static String getCachePrefix(@NotNull File libraryFile) {
+    return "%s_%s_".formatted(FileAndPathUtil.eraseFormat(libraryFile.getName()),
+        hash(libraryFile.getAbsolutePath()));
+  }
+
+  private static String hash(String key) {
+    return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString().substring(0, 12);
+  }
+
+  @Override
+  public boolean parse(AbstractTask mainTask, File dataBaseFile, SpectralLibrary library)
+      throws IOException {
+    logger.info("Opening compiled spectral library " + dataBaseFile.getAbsolutePath());
+    final CompiledSpectralLibrary compiled = CompiledSpectralLibrary.open(dataBaseFile);
+    final List<SpectralLibraryEntry> entries = compiled.createEntries(library);
+    total = entries.size();
+
+    final int batchSize = bufferEntries > 0 ? bufferEntries : Math.max(1, total);
+    for (int start = 0; start < total; start += batchSize) {
+      if (mainTask != null && mainTask.isCanceled()) {
+        return false;
+      }
+      final int end = Math.min(total, start + batchSize);
+      processor.processNextEntries(new ArrayList<>(entries.subList(start, end)), start);
+      processed = end;
+    }
+    logger.info(total + " library entries imported");
+    return true;
+  }
+
+  @Override
+  public int getProcessedEntries() {
+    return processed;
+  }
+
+  @Override
+  public double getProgress() {
+    return total == 0 ? 0 : processed / (double) total;
+  }
+}
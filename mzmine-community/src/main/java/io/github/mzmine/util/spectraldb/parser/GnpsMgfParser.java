@@ -34,7 +34,6 @@ import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -42,13 +41,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Main format for library entries in GNPS
  *
  * @author Robin Schmid
  */
-public class GnpsMgfParser extends SpectralDBTextParser {
+public class GnpsMgfParser extends SpectralDBChunkedParser {
 
   public GnpsMgfParser(int bufferEntries, LibraryEntryProcessor processor) {
     super(bufferEntries, processor);
@@ -56,12 +57,21 @@ public class GnpsMgfParser extends SpectralDBTextParser {
 
   private final static Logger logger = Logger.getLogger(GnpsMgfParser.class.getName());
 
+  @Override
+  protected boolean isRecordStart(@Nullable String previousLine, @NotNull String line) {
+    return line.strip().equalsIgnoreCase("BEGIN IONS");
+  }
+
   @Override
   public boolean parse(AbstractTask mainTask, File dataBaseFile, SpectralLibrary library)
       throws IOException {
-    super.parse(mainTask, dataBaseFile, library);
     logger.info("Parsing mgf spectral library " + dataBaseFile.getAbsolutePath());
+    return super.parse(mainTask, dataBaseFile, library);
+  }
 
+  @Override
+  protected @NotNull List<SpectralLibraryEntry> parseChunk(@NotNull BufferedReader br,
+      @NotNull SpectralLibrary library, boolean firstChunk) throws IOException {
     // BEGIN IONS
     // meta data
     // SCANS=1 .... n (the scan ID; could be used to put all spectra of the
@@ -69,116 +79,105 @@ public class GnpsMgfParser extends SpectralDBTextParser {
     // data
     // END IONS
 
-    int correct = 0;
+    final List<SpectralLibraryEntry> entries = new ArrayList<>();
     State state = State.WAIT_FOR_META;
     Map<DBEntryField, Object> fields = new EnumMap<>(DBEntryField.class);
     List<DataPoint> dps = new ArrayList<>();
     int sep = -1;
-    // create db
-    try (BufferedReader br = new BufferedReader(new FileReader(dataBaseFile))) {
-      for (String l; (l = br.readLine()) != null; ) {
-        // main task was canceled?
-        if (mainTask != null && mainTask.isCanceled()) {
-          return false;
-        }
-        try {
-          if (l.length() > 1) {
-            // meta data start?
-            if (state.equals(State.WAIT_FOR_META)) {
-              if (l.equalsIgnoreCase("BEGIN IONS")) {
-                fields = new EnumMap<>(fields);
-                dps.clear();
-                state = State.META;
+    for (String l; (l = br.readLine()) != null; ) {
+      try {
+        if (l.length() > 1) {
+          // meta data start?
+          if (state.equals(State.WAIT_FOR_META)) {
+            if (l.equalsIgnoreCase("BEGIN IONS")) {
+              // each record starts with empty fields, so chunks are independent
+              fields = new EnumMap<>(DBEntryField.class);
+              dps.clear();
+              state = State.META;
+            }
+          } else {
+            if (l.equalsIgnoreCase("END IONS")) {
+              // add entry and reset
+              if (fields.size() > 1 && dps.size() > 1) {
+                SpectralLibraryEntry entry = SpectralLibraryEntry.create(library.getStorage(),
+                    fields, dps.toArray(new DataPoint[dps.size()]));
+                entries.add(entry);
               }
+              state = State.WAIT_FOR_META;
             } else {
-              if (l.equalsIgnoreCase("END IONS")) {
-                // add entry and reset
-                if (fields.size() > 1 && dps.size() > 1) {
-                  SpectralLibraryEntry entry = SpectralLibraryEntry.create(library.getStorage(),
-                      fields, dps.toArray(new DataPoint[dps.size()]));
-                  // add and push
-                  addLibraryEntry(entry);
-                  correct++;
-                }
-                state = State.WAIT_FOR_META;
-              } else {
-                sep = l.indexOf('=');
-                if (sep == -1) {
-                  // data starts
-                  state = State.DATA;
-                }
-                switch (state) {
-                  case WAIT_FOR_META:
-                    // wait for next entry
-                    break;
-                  case DATA:
-                    // split for any white space (tab or space ...)
-                    String[] data = l.split("\\s+");
-                    dps.add(new SimpleDataPoint(Double.parseDouble(data[0]),
-                        Double.parseDouble(data[1])));
-                    break;
-                  case META:
-                    if (sep != -1 && sep < l.length() - 1) {
-                      DBEntryField field = DBEntryField.forMgfID(l.substring(0, sep));
-                      if (field != null) {
-                        String content = l.substring(sep + 1);
-                        if (!content.isBlank()) {
-                          try {
-                            // allow 1+ as 1 and 2- as -2
-                            if (field.equals(DBEntryField.CHARGE)) {
-                              content = parseCharge(content);
-                            }
+              sep = l.indexOf('=');
+              if (sep == -1) {
+                // data starts
+                state = State.DATA;
+              }
+              switch (state) {
+                case WAIT_FOR_META:
+                  // wait for next entry
+                  break;
+                case DATA:
+                  // split for any white space (tab or space ...)
+                  String[] data = l.split("\\s+");
+                  dps.add(new SimpleDataPoint(Double.parseDouble(data[0]),
+                      Double.parseDouble(data[1])));
+                  break;
+                case META:
+                  if (sep != -1 && sep < l.length() - 1) {
+                    DBEntryField field = DBEntryField.forMgfID(l.substring(0, sep));
+                    if (field != null) {
+                      String content = l.substring(sep + 1);
+                      if (!content.isBlank()) {
+                        try {
+                          // allow 1+ as 1 and 2- as -2
+                          if (field.equals(DBEntryField.CHARGE)) {
+                            content = parseCharge(content);
+                          }
 
-                            Object value = field.convertValue(content);
+                          Object value = field.convertValue(content);
 
-                            // name
-                            if (field.equals(DBEntryField.NAME)) {
-                              String name = ((String) value);
-                              int lastSpace = name.lastIndexOf(' ');
-                              if (lastSpace != -1 && lastSpace < name.length() - 2) {
-                                String adductCandidate = name.substring(lastSpace + 1);
-                                // check for valid
-                                // adduct with the
-                                // adduct parser
-                                // from export
-                                // use as adduct
-                                String adduct = AdductParser.parse(adductCandidate);
-                                if (adduct != null && !adduct.isEmpty()) {
-                                  fields.put(DBEntryField.ION_TYPE, adduct);
-                                }
+                          // name
+                          if (field.equals(DBEntryField.NAME)) {
+                            String name = ((String) value);
+                            int lastSpace = name.lastIndexOf(' ');
+                            if (lastSpace != -1 && lastSpace < name.length() - 2) {
+                              String adductCandidate = name.substring(lastSpace + 1);
+                              // check for valid
+                              // adduct with the
+                              // adduct parser
+                              // from export
+                              // use as adduct
+                              String adduct = AdductParser.parse(adductCandidate);
+                              if (adduct != null && !adduct.isEmpty()) {
+                                fields.put(DBEntryField.ION_TYPE, adduct);
                               }
                             }
-                            // retention time is in seconds, mzmine uses minutes
-                            if (field.equals(DBEntryField.RT)) {
-                              value = ((Float) value) / 60.f;
-                            }
+                          }
+                          // retention time is in seconds, mzmine uses minutes
+                          if (field.equals(DBEntryField.RT)) {
+                            value = ((Float) value) / 60.f;
+                          }
 
-                            if (value != null) {
-                              fields.put(field, value);
-                            }
-                          } catch (Exception e) {
-                            logger.log(Level.WARNING,
-                                "Cannot convert value type of " + content + " to "
-                                + field.getObjectClass().toString(), e);
+                          if (value != null) {
+                            fields.put(field, value);
                           }
+                        } catch (Exception e) {
+                          logger.log(Level.WARNING,
+                              "Cannot convert value type of " + content + " to "
+                              + field.getObjectClass().toString(), e);
                         }
                       }
                     }
-                    break;
-                }
+                  }
+                  break;
               }
             }
           }
-        } catch (Exception ex) {
-          logger.log(Level.WARNING, "Error for entry", ex);
-          state = State.WAIT_FOR_META;
         }
-        processedLines.incrementAndGet();
+      } catch (Exception ex) {
+        logger.log(Level.WARNING, "Error for entry", ex);
+        state = State.WAIT_FOR_META;
       }
-      // finish and process all entries
-      finish();
-      return true;
     }
+    return entries;
   }
 
   private String parseCharge(final String str) {
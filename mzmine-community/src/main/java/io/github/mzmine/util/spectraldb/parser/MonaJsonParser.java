@@ -41,7 +41,6 @@ import jakarta.json.JsonValue;
 import jakarta.json.JsonValue.ValueType;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
@@ -53,6 +52,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 // top level json objects/arrays
@@ -62,86 +62,75 @@ import org.jetbrains.annotations.Nullable;
  *
  * @author Robin Schmid
  */
-public class MonaJsonParser extends SpectralDBTextParser {
+public class MonaJsonParser extends SpectralDBChunkedParser {
 
   private static final String COMPOUND = "compound", MONA_ID = "id", META_DATA = "metaData", SPECTRUM = "spectrum", SPLASH = "splash", SUBMITTER = "submitter";
 
   private static final Logger logger = Logger.getLogger(MonaJsonParser.class.getName());
 
+  private final AtomicInteger error = new AtomicInteger(0);
+
   public MonaJsonParser(int bufferEntries, LibraryEntryProcessor processor) {
     super(bufferEntries, processor);
   }
 
+  @Override
+  protected boolean isRecordStart(@Nullable String previousLine, @NotNull String line) {
+    // one entry per line
+    return true;
+  }
+
   @Override
   public boolean parse(AbstractTask mainTask, File dataBaseFile, SpectralLibrary library)
       throws IOException {
-    super.parse(mainTask, dataBaseFile, library);
     logger.info("Parsing MONA spectral json library " + dataBaseFile.getAbsolutePath());
+    error.set(0);
+    if (!super.parse(mainTask, dataBaseFile, library)) {
+      return false;
+    }
+    if (error.get() > 0) {
+      logger.warning(String.format("MoNA spectral library %s was imported with %d entries failing.",
+          dataBaseFile.getName(), error.get()));
+    }
+    return true;
+  }
 
-    AtomicInteger correct = new AtomicInteger(0);
-    AtomicInteger error = new AtomicInteger(0);
-
-    List<SpectralLibraryEntry> results = new ArrayList<>();
-
-    // create db
-    try (BufferedReader br = new BufferedReader(new FileReader(dataBaseFile))) {
-      // test on first ten if it is really a MoNA file
-      String l = br.readLine();
-      while (l != null) {
-        if (l.length() > 2) {
-          final SpectralLibraryEntry entry = parseLineToEntry(library, correct, error, l);
-          if (entry != null) {
-            results.add(entry);
-          }
-        }
-        processedLines.incrementAndGet();
-
-        if ((correct.get() + error.get()) >= 4) {
-          break;
-        }
-
-        l = br.readLine();
+  @Override
+  protected @Nullable List<SpectralLibraryEntry> parseChunk(@NotNull BufferedReader br,
+      @NotNull SpectralLibrary library, boolean firstChunk) throws IOException {
+    final List<SpectralLibraryEntry> entries = new ArrayList<>();
+    int correct = 0;
+    int chunkError = 0;
+    for (String l; (l = br.readLine()) != null; ) {
+      if (l.length() <= 2) {
+        continue;
+      }
+      final SpectralLibraryEntry entry = parseLineToEntry(library, l);
+      if (entry != null) {
+        entries.add(entry);
+        correct++;
+      } else {
+        chunkError++;
       }
 
-      if (error.get() > correct.get()) {
-        logger.warning("Stopping to parse file " + dataBaseFile.getName() + " as MoNA library, "
+      // test on first four of the file if it is really a MoNA file
+      if (firstChunk && correct + chunkError == 4 && chunkError > correct) {
+        logger.warning("Stopping to parse file as MoNA library, "
                        + "there were too many entries with mismatching format. This is usually the case when "
                        + "reading GNPS json libraries and just to determine the file type.");
-        return false;
-      }
-
-      // read the rest in parallel
-      final List<SpectralLibraryEntry> entries = br.lines().filter(line -> {
-            processedLines.incrementAndGet();
-            return line.length() > 2;
-          }).parallel().map(line -> parseLineToEntry(library, correct, error, line))
-          .filter(Objects::nonNull).toList();
-
-      if (error.get() > 0) {
-        logger.warning(
-            String.format("MoNA spectral library %s was imported with %d entries failing.",
-                dataBaseFile.getName(), error.get()));
+        return null;
       }
-      // combine
-      results.addAll(entries);
-      processor.processNextEntries(results, 0);
-      return true;
     }
+    error.addAndGet(chunkError);
+    return entries;
   }
 
-  private SpectralLibraryEntry parseLineToEntry(SpectralLibrary library, AtomicInteger correct,
-      AtomicInteger error, String l) {
+  @Nullable
+  private SpectralLibraryEntry parseLineToEntry(SpectralLibrary library, String l) {
     try {
-      final SpectralLibraryEntry entry = parseToEntry(library, l);
-      if (entry != null) {
-        correct.getAndIncrement();
-        return entry;
-      } else {
-        error.getAndIncrement();
-      }
+      return parseToEntry(library, l);
     } catch (Exception ex) {
       logger.log(Level.FINEST, "During mona parser read: " + ex.getMessage());
-      error.getAndIncrement();
     }
     return null;
   }
@@ -33,7 +33,6 @@ import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -41,9 +40,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-public class NistMspParser extends SpectralDBTextParser {
+public class NistMspParser extends SpectralDBChunkedParser {
 
   private static final Logger logger = Logger.getLogger(NistMspParser.class.getName());
 
@@ -52,12 +52,23 @@ public class NistMspParser extends SpectralDBTextParser {
   }
 
 
+  @Override
+  protected boolean isRecordStart(@Nullable String previousLine, @NotNull String line) {
+    // records are separated by empty rows
+    return previousLine != null && previousLine.length() <= 1 && line.length() > 1;
+  }
+
   @Override
   public boolean parse(AbstractTask mainTask, File dataBaseFile, SpectralLibrary library)
       throws IOException {
-    super.parse(mainTask, dataBaseFile, library);
     logger.info("Parsing NIST msp spectral library " + dataBaseFile.getAbsolutePath());
+    return super.parse(mainTask, dataBaseFile, library);
+  }
 
+  @Override
+  protected @NotNull List<SpectralLibraryEntry> parseChunk(@NotNull BufferedReader br,
+      @NotNull SpectralLibrary library, boolean firstChunk) throws IOException {
+    final List<SpectralLibraryEntry> entries = new ArrayList<>();
     // metadata fields and data points
     Map<DBEntryField, Object> fields = new EnumMap<>(DBEntryField.class);
     List<DataPoint> dps = new ArrayList<>();
@@ -66,57 +77,46 @@ public class NistMspParser extends SpectralDBTextParser {
     // currently loading data?
     boolean isData = false;
 
-    // read DB file
-    try (BufferedReader br = new BufferedReader(new FileReader(dataBaseFile))) {
-      for (String l; (l = br.readLine()) != null; ) {
-        // main task was canceled?
-        if (mainTask != null && mainTask.isCanceled()) {
-          return false;
-        }
-        try {
-          if (l.length() > 1) {
-            // meta data?
-            sep = isData ? -1 : l.indexOf(": ");
-            if (sep != -1 && sep < l.length() - 2) {
-              extractMetaData(fields, l, sep);
-            } else {
-              // data?
-              DataPoint dp = extractDataPoint(l);
-              if (dp != null) {
-                dps.add(dp);
-                isData = true;
-              } else {
-                isData = false;
-              }
-            }
+    for (String l; (l = br.readLine()) != null; ) {
+      try {
+        if (l.length() > 1) {
+          // meta data?
+          sep = isData ? -1 : l.indexOf(": ");
+          if (sep != -1 && sep < l.length() - 2) {
+            extractMetaData(fields, l, sep);
           } else {
-            // empty row
-            if (isData) {
-              // empty row after data
-              // add entry and reset
-              SpectralLibraryEntry entry = SpectralLibraryEntry.create(library.getStorage(), fields,
-                  dps.toArray(new DataPoint[dps.size()]));
-              // add and push
-              addLibraryEntry(entry);
-              // reset
-              fields = new EnumMap<>(fields);
-              dps.clear();
+            // data?
+            DataPoint dp = extractDataPoint(l);
+            if (dp != null) {
+              dps.add(dp);
+              isData = true;
+            } else {
               isData = false;
             }
           }
-        } catch (Exception ex) {
-          logger.log(Level.WARNING, "Error for entry", ex);
-          // reset on error
-          isData = false;
-          fields = new EnumMap<>(fields);
-          dps.clear();
+        } else {
+          // empty row
+          if (isData) {
+            // empty row after data
+            // add entry and reset
+            SpectralLibraryEntry entry = SpectralLibraryEntry.create(library.getStorage(), fields,
+                dps.toArray(new DataPoint[dps.size()]));
+            entries.add(entry);
+            // reset - each record starts with empty fields, so chunks are independent
+            fields = new EnumMap<>(DBEntryField.class);
+            dps.clear();
+            isData = false;
+          }
         }
-        processedLines.incrementAndGet();
+      } catch (Exception ex) {
+        logger.log(Level.WARNING, "Error for entry", ex);
+        // reset on error
+        isData = false;
+        fields = new EnumMap<>(DBEntryField.class);
+        dps.clear();
       }
-      // finish and process all entries
-      finish();
-      return true;
     }
+    return entries;
   }
 
   /**
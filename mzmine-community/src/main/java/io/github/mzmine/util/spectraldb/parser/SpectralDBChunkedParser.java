@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.spectraldb.parser;
+
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parses text libraries in parallel. The file is split into byte ranges that start at a record
+ * start (defined by {@link #isRecordStart(String, String)}) and the ranges are parsed concurrently
+ * by {@link #parseChunk(BufferedReader, SpectralLibrary, boolean)}. Parsed chunks are added in file order, so
+ * the entries and the batches pushed to the {@link LibraryEntryProcessor} are the same as for a
+ * sequential read. The number of chunks in flight is bounded. Progress is reported in bytes.
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+public abstract class SpectralDBChunkedParser extends SpectralDBParser {
+
+  private static final Logger logger = Logger.getLogger(SpectralDBChunkedParser.class.getName());
+
+  private static final long MIN_CHUNK_BYTES = 1L << 20;
+  private static final long MAX_CHUNK_BYTES = 16L << 20;
+  // only the start of lines is needed to find record starts
+  private static final int MAX_LINE_PREFIX_BYTES = 256;
+
+  private final AtomicLong processedBytes = new AtomicLong(0L);
+  private long totalBytes = 0L;
+
+  public SpectralDBChunkedParser(int bufferEntries, LibraryEntryProcessor processor) {
+    super(bufferEntries, processor);
+  }
+
+  /**
+   * Defines where the file may be split into chunks. Only called for complete lines.
+   *
+   * @param previousLine the line before or null if unknown. Lines are cut to their first 256 bytes.
+   * @param line         the current line, also cut to its first 256 bytes
+   * @return true if a record starts at line
+   */
+  protected abstract boolean isRecordStart(@Nullable String previousLine, @NotNull String line);
+
+  /**
+   * Parse all records of a chunk. Called concurrently for different chunks.
+   *
+   * @param reader     reads the lines of one chunk that starts at a record start
+   * @param library    the target library
+   * @param firstChunk true for the chunk at the start of the file. Checks if the file matches the
+   *                   format should only run on the first chunk, later chunks count records with
+   *                   errors and continue.
+   * @return the entries in order of the chunk or null if the first chunk does not match the format
+   */
+  @Nullable
+  protected abstract List<SpectralLibraryEntry> parseChunk(@NotNull BufferedReader reader,
+      @NotNull SpectralLibrary library, boolean firstChunk) throws IOException;
+
+  @Override
+  public boolean parse(AbstractTask mainTask, File dataBaseFile, SpectralLibrary library)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(dataBaseFile.toPath(), StandardOpenOption.READ)) {
+      totalBytes = channel.size();
+      final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+      final long chunkBytes = Math.max(MIN_CHUNK_BYTES,
+          Math.min(MAX_CHUNK_BYTES, totalBytes / (parallelism * 4L)));
+      final int maxInFlight = parallelism * 2;
+      logger.fine(() -> "Parsing %s in chunks of %d bytes".formatted(dataBaseFile.getName(),
+          chunkBytes));
+
+      final Deque<CompletableFuture<List<SpectralLibraryEntry>>> pending = new ArrayDeque<>();
+      long start = 0;
+      while (start < totalBytes || !pending.isEmpty()) {
+        // main task was canceled?
+        if (mainTask != null && mainTask.isCanceled()) {
+          pending.forEach(chunk -> chunk.cancel(false));
+          return false;
+        }
+        if (start < totalBytes && pending.size() < maxInFlight) {
+          final long end = findRecordStart(channel, start + chunkBytes);
+          final long chunkStart = start;
+          pending.add(CompletableFuture.supplyAsync(
+              () -> readAndParseChunk(channel, chunkStart, end, library)));
+          start = end;
+          continue;
+        }
+
+        // add entries in file order
+        final List<SpectralLibraryEntry> entries = join(pending.removeFirst());
+        if (entries == null) {
+          logger.warning(
+              "Stopping to parse file %s, there were too many entries with mismatching format.".formatted(
+                  dataBaseFile.getName()));
+          pending.forEach(chunk -> chunk.cancel(false));
+          return false;
+        }
+        for (final SpectralLibraryEntry entry : entries) {
+          addLibraryEntry(entry);
+        }
+      }
+    }
+    // finish and process last entries
+    finish();
+    return true;
+  }
+
+  @Nullable
+  private static List<SpectralLibraryEntry> join(
+      CompletableFuture<List<SpectralLibraryEntry>> chunk) throws IOException {
+    try {
+      return chunk.join();
+    } catch (RuntimeException ex) {
+      if (ex.getCause() instanceof UncheckedIOException io) {
+        throw io.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  @Nullable
+  private List<SpectralLibraryEntry> readAndParseChunk(FileChannel channel, long start, long end,
+      SpectralLibrary library) {
+    try {
+      final byte[] bytes = new byte[Math.toIntExact(end - start)];
+      final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of file at " + (start + buffer.position()));
+        }
+      }
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+        final List<SpectralLibraryEntry> entries = parseChunk(reader, library, start == 0);
+        processedBytes.addAndGet(end - start);
+        return entries;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @param position the first record start at or after this position is searched. The line at the
+   *                 position is skipped as it might be incomplete.
+   * @return the position of the next record start or the file size
+   */
+  private long findRecordStart(FileChannel channel, long position) throws IOException {
+    final long size = channel.size();
+    if (position >= size) {
+      return size;
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    final ByteArrayOutputStream line = new ByteArrayOutputStream(MAX_LINE_PREFIX_BYTES);
+    String previousLine = null;
+    boolean skipIncomplete = true;
+    long lineStart = position;
+    long pos = position;
+    while (pos < size) {
+      buffer.clear();
+      final int read = channel.read(buffer, pos);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        final byte b = buffer.get(i);
+        if (b != '\n') {
+          if (b != '\r' && line.size() < MAX_LINE_PREFIX_BYTES) {
+            line.write(b);
+          }
+          continue;
+        }
+        final String current = line.toString(StandardCharsets.UTF_8);
+        if (!skipIncomplete && isRecordStart(previousLine, current)) {
+          return lineStart;
+        }
+        previousLine = skipIncomplete ? null : current;
+        skipIncomplete = false;
+        line.reset();
+        lineStart = pos + i + 1;
+      }
+      pos += read;
+    }
+    // last line without line break
+    if (!skipIncomplete && lineStart < size && isRecordStart(previousLine,
+        line.toString(StandardCharsets.UTF_8))) {
+      return lineStart;
+    }
+    return size;
+  }
+
+  @Override
+  public double getProgress() {
+    return totalBytes == 0 ? 0 : processedBytes.get() / (double) totalBytes;
+  }
+}
@@ -26,6 +26,7 @@
 package io.github.mzmine.util.spectraldb.parser;
 
 import io.github.mzmine.util.files.FileTypeFilter;
+import io.github.mzmine.util.spectraldb.entry.CompiledSpectralLibrary;
 import io.github.mzmine.util.spectraldb.parser.gnps.GNPSJsonParser;
 import java.io.BufferedReader;
 import java.io.File;
@@ -44,6 +45,7 @@ public class SpectralLibraryFormatChecker {
     FileTypeFilter msp = new FileTypeFilter("msp", "");
     FileTypeFilter mgf = new FileTypeFilter("mgf", "");
     FileTypeFilter jdx = new FileTypeFilter("jdx", "");
+    FileTypeFilter compiled = new FileTypeFilter(CompiledSpectralLibrary.FILE_EXTENSION, "");
 
     if (json.accept(dataBaseFile)) {
       return getJsonParser(dataBaseFile, bufferEntries, processor);
@@ -57,6 +59,8 @@ public class SpectralLibraryFormatChecker {
       return new JdxParser(bufferEntries, processor);
     } else if (mgf.accept(dataBaseFile)) {
       return new GnpsMgfParser(bufferEntries, processor);
+    } else if (compiled.accept(dataBaseFile)) {
+      return new CompiledLibraryParser(bufferEntries, processor);
     } else {
       throw new UnsupportedFormatException(
           "Format not supported: " + dataBaseFile.getAbsolutePath());
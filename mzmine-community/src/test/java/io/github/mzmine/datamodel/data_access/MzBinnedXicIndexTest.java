@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.datamodel.data_access;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.IntensityMode;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.MzMode;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.ExtractMzRangesIonSeriesFunction;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MzBinnedXicIndexTest {
+
+  /**
+   * Random MS1 scans with every fourth scan being MS2
+   */
+  private static RawDataFile createFile(Random rand) throws IOException {
+    RawDataFile file = new RawDataFileImpl("test", null, null);
+    for (int s = 0; s < 400; s++) {
+      double[] mzs = new double[50 + rand.nextInt(200)];
+      for (int i = 0; i < mzs.length; i++) {
+        mzs[i] = 100 + rand.nextDouble() * 900;
+      }
+      Arrays.sort(mzs);
+      double[] intensities = new double[mzs.length];
+      for (int i = 0; i < mzs.length; i++) {
+        intensities[i] = Math.round(Math.exp(rand.nextGaussian() + 6));
+      }
+      int msLevel = s % 4 == 3 ? 2 : 1;
+      file.addScan(new SimpleScan(file, s, msLevel, s * 0.05f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "",
+          Range.closed(mzs[0], mzs[mzs.length - 1])));
+    }
+    return file;
+  }
+
+  @Test
+  void sameAsScanWalk() throws IOException {
+    Random rand = new Random(42);
+    RawDataFile file = createFile(rand);
+    List<Range<Double>> ranges = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      double mz = 100 + rand.nextDouble() * 900;
+      ranges.add(Range.closed(mz - 0.02, mz + 0.02));
+    }
+    ranges.sort((a, b) -> Double.compare(a.lowerEndpoint(), b.lowerEndpoint()));
+    List<Scan> scans = new ScanSelection(1, Range.closed(3f, 15f)).getMatchingScans(
+        file.getScans());
+
+    assertNull(MzBinnedXicIndex.get(file, ScanDataType.RAW));
+    for (IntensityMode intensityMode : IntensityMode.values()) {
+      for (MzMode mzMode : MzMode.values()) {
+        var walk = new ExtractMzRangesIonSeriesFunction(file, scans, ranges, ScanDataType.RAW,
+            null);
+        walk.setMzMode(mzMode);
+        walk.setIntensityMode(intensityMode);
+        BuildingIonSeries[] expected = walk.get();
+
+        var indexed = new ExtractMzRangesIonSeriesFunction(file, scans, ranges, ScanDataType.RAW,
+            null);
+        indexed.setMzMode(mzMode);
+        indexed.setIntensityMode(intensityMode);
+        indexed.setUseIndex(true);
+        BuildingIonSeries[] actual = indexed.get();
+
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+          assertArrayEquals(expected[i].getIntensities(), actual[i].getIntensities());
+          assertArrayEquals(expected[i].getMzs(), actual[i].getMzs());
+        }
+        // invalidate to compare the scan walk again
+        MzBinnedXicIndex.invalidate(file);
+      }
+    }
+  }
+
+  @Test
+  void ionTimeSeries() throws IOException {
+    RawDataFile file = createFile(new Random(7));
+    MzBinnedXicIndex index = MzBinnedXicIndex.getOrBuild(file, ScanDataType.RAW, null);
+    assertNotNull(index);
+    assertEquals(300, index.getNumberOfScans());
+
+    Range<Double> mzRange = Range.closed(400d, 400.5);
+    Range<Float> rtRange = Range.closed(2f, 12f);
+    IonTimeSeries<? extends Scan> series = index.getIonTimeSeries(mzRange, rtRange,
+        MzMode.DEFAULT, IntensityMode.SUM, null);
+
+    List<Scan> scans = new ScanSelection(1, rtRange).getMatchingScans(file.getScans());
+    BuildingIonSeries expected = new BuildingIonSeries(scans.size(), MzMode.DEFAULT,
+        IntensityMode.SUM);
+    for (int s = 0; s < scans.size(); s++) {
+      Scan scan = scans.get(s);
+      for (int i = 0; i < scan.getNumberOfDataPoints(); i++) {
+        if (mzRange.contains(scan.getMzValue(i))) {
+          expected.addValue(s, scan.getMzValue(i), scan.getIntensityValue(i));
+        }
+      }
+    }
+    IonTimeSeries<? extends Scan> expectedSeries = expected.toIonTimeSeriesWithLeadingAndTrailingZero(
+        null, scans);
+    assertEquals(expectedSeries.getSpectra(), series.getSpectra());
+    assertArrayEquals(expectedSeries.getIntensityValues(new double[0]),
+        series.getIntensityValues(new double[0]));
+    MzBinnedXicIndex.invalidate(file);
+  }
+
+  @Test
+  void massListChangeInvalidatesIndex() throws IOException {
+    RawDataFile file = createFile(new Random(3));
+    for (Scan scan : file.getScans()) {
+      scan.addMassList(new SimpleMassList(null, scan.getMzValues(new double[0]),
+          scan.getIntensityValues(new double[0])));
+    }
+    assertNotNull(MzBinnedXicIndex.getOrBuild(file, ScanDataType.MASS_LIST, null));
+    assertNotNull(MzBinnedXicIndex.getOrBuild(file, ScanDataType.RAW, null));
+
+    // any step that replaces a mass list, e.g., mass calibration
+    Scan scan = file.getScan(0);
+    scan.addMassList(new SimpleMassList(null, new double[]{200d}, new double[]{1000d}));
+
+    assertNull(MzBinnedXicIndex.get(file, ScanDataType.MASS_LIST));
+    assertNotNull(MzBinnedXicIndex.get(file, ScanDataType.RAW));
+    MzBinnedXicIndex rebuilt = MzBinnedXicIndex.getOrBuild(file, ScanDataType.MASS_LIST, null);
+    assertNotNull(rebuilt);
+    assertEquals(file.getScans().stream().filter(s -> s.getMSLevel() == 1)
+        .mapToInt(s -> s.getMassList().getNumberOfDataPoints()).sum(),
+        rebuilt.getNumberOfSignals());
+    MzBinnedXicIndex.invalidate(file);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.numbers.ChargeType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.collections.MapChangeListener;
+import org.junit.jupiter.api.Test;
+
+class ColumnarDataModelMapTest {
+
+  private final DataType<Double> mzType = DataTypes.get(MZType.class);
+  private final DataType<Float> rtType = DataTypes.get(RTType.class);
+  private final DataType<Integer> chargeType = DataTypes.get(ChargeType.class);
+  private final DataType<FeatureStatus> detectionType = DataTypes.get(DetectionType.class);
+
+  @Test
+  void columnTypes() {
+    assertTrue(DataTypeColumns.isColumnType(mzType));
+    assertTrue(DataTypeColumns.isColumnType(rtType));
+    assertTrue(DataTypeColumns.isColumnType(chargeType));
+    assertFalse(DataTypeColumns.isColumnType(detectionType));
+  }
+
+  @Test
+  void sameAsHashMap() {
+    final DataTypeColumns columns = new DataTypeColumns();
+    final ColumnarDataModelMap first = new ColumnarDataModelMap(columns);
+    final ColumnarDataModelMap map = new ColumnarDataModelMap(columns);
+    first.put(mzType, 1d);
+
+    map.put(mzType, 200.5);
+    map.put(rtType, Float.NaN);
+    map.put(chargeType, -2);
+    map.put(detectionType, FeatureStatus.DETECTED);
+
+    final Map<DataType, Object> expected = new HashMap<>();
+    expected.put(mzType, 200.5);
+    expected.put(rtType, Float.NaN);
+    expected.put(chargeType, -2);
+    expected.put(detectionType, FeatureStatus.DETECTED);
+    assertEquals(expected, map);
+    assertEquals(4, map.size());
+    assertEquals(1d, first.get(mzType));
+
+    assertEquals(-2, map.remove(chargeType));
+    assertNull(map.get(chargeType));
+    assertFalse(map.containsKey(chargeType));
+    assertEquals(3, map.size());
+
+    // null values are kept as mappings like in a HashMap
+    map.put(chargeType, null);
+    assertTrue(map.containsKey(chargeType));
+    assertNull(map.get(chargeType));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertEquals(1, first.size());
+  }
+
+  @Test
+  void listeners() {
+    final ColumnarDataModelMap map = new ColumnarDataModelMap(new DataTypeColumns());
+    final List<String> changes = new ArrayList<>();
+    map.addListener((MapChangeListener<? super DataType, ? super Object>) change -> changes.add(
+        "%s %s %s %s".formatted(change.wasAdded(), change.wasRemoved(), change.getValueRemoved(),
+            change.getValueAdded())));
+
+    map.put(rtType, 1f);
+    map.put(rtType, 1f);
+    map.put(rtType, 2f);
+    map.remove(rtType);
+    assertEquals(List.of("true false null 1.0", "true true 1.0 2.0", "false true 2.0 null"),
+        changes);
+  }
+}
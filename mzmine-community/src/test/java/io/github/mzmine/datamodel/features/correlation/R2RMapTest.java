@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class R2RMapTest {
+
+  @Test
+  void undirectedKey() {
+    assertEquals(R2RMap.toKey(5, 100_000), R2RMap.toKey(100_000, 5));
+    assertEquals(5, R2RMap.lowerID(R2RMap.toKey(100_000, 5)));
+    assertEquals(100_000, R2RMap.higherID(R2RMap.toKey(100_000, 5)));
+    // the int based pairing overflowed for large IDs
+    assertNotEquals(R2RMap.toKey(70_000, 70_001), R2RMap.toKey(70_000, 70_002));
+  }
+
+  @Test
+  void concurrentPut() {
+    final R2RMap<Integer> map = new R2RMap<>();
+    final int ids = 2000;
+    IntStream.range(0, ids).parallel().forEach(a -> {
+      for (int b = a + 1; b < ids; b += 3) {
+        map.put(R2RMap.toKey(b, a), a);
+      }
+    });
+    long expected = IntStream.range(0, ids).mapToLong(a -> (ids - a - 1 + 2) / 3).sum();
+    assertEquals(expected, map.size());
+    assertEquals(expected, map.values().size());
+    assertEquals(7, map.get(R2RMap.toKey(7, 8)));
+    assertNull(map.get(R2RMap.toKey(7, 9)));
+
+    final R2RMap<Number> copy = new R2RMap<>();
+    copy.putAll(map);
+    assertEquals(expected, copy.size());
+    copy.clear();
+    assertTrue(copy.isEmpty());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.datamodel.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import io.github.mzmine.datamodel.impl.MobilityScanValues.DoubleValues;
+import io.github.mzmine.datamodel.impl.MobilityScanValues.FloatValues;
+import io.github.mzmine.datamodel.impl.MobilityScanValues.IntIndexedValues;
+import io.github.mzmine.datamodel.impl.MobilityScanValues.IntValues;
+import io.github.mzmine.datamodel.impl.MobilityScanValues.ShortIndexedValues;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MobilityScanValuesTest {
+
+  /**
+   * m/z values of TOF bins, each bin is hit multiple times
+   */
+  private static double[] createMzs(Random rand, int bins, int n) {
+    final double[] binMzs = new double[bins];
+    for (int i = 0; i < bins; i++) {
+      binMzs[i] = 100 + 1500 * rand.nextDouble();
+    }
+    final double[] mzs = new double[n];
+    for (int i = 0; i < n; i++) {
+      mzs[i] = binMzs[rand.nextInt(bins)];
+    }
+    return mzs;
+  }
+
+  private static void assertSameValues(double[] expected, MobilityScanValues values,
+      double relativeError) {
+    assertEquals(expected.length, values.size());
+    final double[] bulk = new double[expected.length + 3];
+    values.get(0, bulk, 3, expected.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], values.get(i), Math.abs(expected[i]) * relativeError);
+      assertEquals(values.get(i), bulk[i + 3]);
+    }
+  }
+
+  @Test
+  void indexedMzs() {
+    final Random rand = new Random(42);
+    double[] mzs = createMzs(rand, 5000, 50001);
+    var values = MobilityScanValues.encodeMzs(null, mzs, MobilityScanStorageEncoding.LOSSLESS);
+    assertInstanceOf(ShortIndexedValues.class, values);
+    assertSameValues(mzs, values, 0);
+
+    mzs = createMzs(rand, 70000, 300000);
+    values = MobilityScanValues.encodeMzs(null, mzs, MobilityScanStorageEncoding.LOSSLESS);
+    assertInstanceOf(IntIndexedValues.class, values);
+    assertSameValues(mzs, values, 0);
+  }
+
+  @Test
+  void uniqueMzs() {
+    final Random rand = new Random(1);
+    final double[] mzs = createMzs(rand, 1_000_000, 1000);
+    assertInstanceOf(DoubleValues.class,
+        MobilityScanValues.encodeMzs(null, mzs, MobilityScanStorageEncoding.LOSSLESS));
+    final var values = MobilityScanValues.encodeMzs(null, mzs, MobilityScanStorageEncoding.COMPACT);
+    assertInstanceOf(FloatValues.class, values);
+    assertSameValues(mzs, values, 6E-8);
+  }
+
+  @Test
+  void intensities() {
+    final Random rand = new Random(7);
+    final double[] integers = new double[1000];
+    final double[] decimals = new double[1000];
+    for (int i = 0; i < integers.length; i++) {
+      integers[i] = rand.nextInt(100_000);
+      decimals[i] = rand.nextDouble() * 1E6;
+    }
+
+    var values = MobilityScanValues.encodeIntensities(null, integers,
+        MobilityScanStorageEncoding.LOSSLESS);
+    assertInstanceOf(IntValues.class, values);
+    assertSameValues(integers, values, 0);
+
+    values = MobilityScanValues.encodeIntensities(null, decimals,
+        MobilityScanStorageEncoding.LOSSLESS);
+    assertInstanceOf(DoubleValues.class, values);
+    assertSameValues(decimals, values, 0);
+
+    values = MobilityScanValues.encodeIntensities(null, decimals,
+        MobilityScanStorageEncoding.COMPACT);
+    assertInstanceOf(FloatValues.class, values);
+    assertSameValues(decimals, values, 6E-8);
+
+    values = MobilityScanValues.encodeIntensities(null, integers,
+        MobilityScanStorageEncoding.DOUBLE);
+    assertInstanceOf(DoubleValues.class, values);
+    assertSameValues(integers, values, 0);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.gui.chartbasics.simplechart.datasets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.gui.chartbasics.simplechart.datasets.XYDecimation.DrawnItems;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import org.jfree.data.xy.DefaultXYDataset;
+import org.junit.jupiter.api.Test;
+
+class XYDecimationTest {
+
+  private static DefaultXYDataset createDataset(int items, long seed) {
+    Random rand = new Random(seed);
+    double[][] data = new double[2][items];
+    double x = 100;
+    for (int i = 0; i < items; i++) {
+      x += rand.nextDouble() * 0.01;
+      data[0][i] = x;
+      data[1][i] = Math.abs(Math.sin(i / 5000d)) * 1E6 + rand.nextDouble() * 1E4;
+    }
+    DefaultXYDataset dataset = new DefaultXYDataset();
+    dataset.addSeries("test", data);
+    return dataset;
+  }
+
+  @Test
+  void keepsExtremesOfEachColumn() {
+    DefaultXYDataset dataset = createDataset(200_000, 1);
+    int n = dataset.getItemCount(0);
+    double lower = dataset.getXValue(0, 1000);
+    double upper = dataset.getXValue(0, 150_000);
+    int columns = 800;
+    BitSet selected = XYDecimation.selectItems(dataset, 0, 999, 150_001, lower, upper, columns);
+    assertTrue(selected.cardinality() <= columns * 4);
+    assertTrue(selected.get(999));
+    assertTrue(selected.get(150_001));
+
+    double scale = columns / (upper - lower);
+    double[] min = new double[columns];
+    double[] max = new double[columns];
+    double[] selectedMin = new double[columns];
+    double[] selectedMax = new double[columns];
+    Arrays.fill(min, Double.POSITIVE_INFINITY);
+    Arrays.fill(selectedMin, Double.POSITIVE_INFINITY);
+    for (int i = 999; i <= 150_001 && i < n; i++) {
+      int c = Math.min(columns - 1, Math.max(0, (int) ((dataset.getXValue(0, i) - lower) * scale)));
+      double y = dataset.getYValue(0, i);
+      min[c] = Math.min(min[c], y);
+      max[c] = Math.max(max[c], y);
+      if (selected.get(i)) {
+        selectedMin[c] = Math.min(selectedMin[c], y);
+        selectedMax[c] = Math.max(selectedMax[c], y);
+      }
+    }
+    for (int c = 0; c < columns; c++) {
+      assertEquals(min[c], selectedMin[c]);
+      assertEquals(max[c], selectedMax[c]);
+    }
+  }
+
+  @Test
+  void onlyForLargeAscendingData() {
+    assertNull(XYDecimation.create(createDataset(XYDecimation.MIN_ITEMS - 1, 2), 0));
+    assertNotNull(XYDecimation.create(createDataset(XYDecimation.MIN_ITEMS, 2), 0));
+
+    DefaultXYDataset unsorted = new DefaultXYDataset();
+    double[][] data = new double[2][XYDecimation.MIN_ITEMS * 2];
+    for (int i = 0; i < data[0].length; i++) {
+      data[0][i] = i % 100;
+      data[1][i] = i;
+    }
+    unsorted.addSeries("unsorted", data);
+    assertNull(XYDecimation.create(unsorted, 0));
+  }
+
+  @Test
+  void visibleRangeComputedInBackground() throws InterruptedException {
+    DefaultXYDataset dataset = createDataset(500_000, 3);
+    XYDecimation decimation = XYDecimation.create(dataset, 0);
+    assertNotNull(decimation);
+
+    // zoomed in: full resolution
+    double lower = dataset.getXValue(0, 1000);
+    assertNull(decimation.getDrawnItems(lower, dataset.getXValue(0, 1500), 800, null));
+
+    // zoomed out: overview first, then the selection for the visible range
+    double upper = dataset.getXValue(0, 400_000);
+    DrawnItems overview = decimation.getDrawnItems(lower, upper, 800, null);
+    assertNotNull(overview);
+    assertEquals(XYDecimation.OVERVIEW_COLUMNS, overview.columns());
+
+    DrawnItems view = overview;
+    for (int i = 0; i < 200 && view.columns() != 800; i++) {
+      Thread.sleep(10);
+      view = decimation.getDrawnItems(lower, upper, 800, null);
+    }
+    assertEquals(800, view.columns());
+    assertTrue(view.getNumberOfDrawnItems() <= 800 * 4 + 2);
+    assertSame(view, decimation.getDrawnItems(lower, upper, 800, null));
+  }
+}
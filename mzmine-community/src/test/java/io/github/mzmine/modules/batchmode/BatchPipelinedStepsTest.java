@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.batchmode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureList.FeatureListAppliedMethod;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.main.MZmineCore;
+import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.batchmode.timing.StepTimeMeasurement;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ADAPChromatogramBuilderParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderModule;
+import io.github.mzmine.modules.dataprocessing.featdet_smoothing.FeatureSmoothingOptions;
+import io.github.mzmine.modules.dataprocessing.featdet_smoothing.SmoothingModule;
+import io.github.mzmine.modules.dataprocessing.featdet_smoothing.SmoothingParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_smoothing.savitzkygolay.SavitzkyGolayParameters;
+import io.github.mzmine.modules.impl.MZmineProcessingStepImpl;
+import io.github.mzmine.modules.io.import_rawdata_all.AdvancedSpectraImportParameters;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportModule;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportParameters;
+import io.github.mzmine.modules.io.import_spectral_library.SpectralLibraryImportParameters;
+import io.github.mzmine.modules.tools.batchwizard.subparameters.MassDetectorWizardOptions;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.OriginalFeatureListHandlingParameter.OriginalFeatureListOption;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsSelectionType;
+import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesSelectionType;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.ProjectService;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.mzio.users.user.CurrentUserService;
+import java.io.File;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import testutils.MZmineTestUtil;
+
+/**
+ * Runs the same batch with and without pipelining of per-file steps
+ *
+ * @author Robin Schmid (https://github.com/robinschmid)
+ */
+class BatchPipelinedStepsTest {
+
+  private static final Logger logger = Logger.getLogger(BatchPipelinedStepsTest.class.getName());
+  private static final List<String> FILES = List.of("rawdatafiles/DOM_a.mzML",
+      "rawdatafiles/DOM_b.mzXML");
+
+  @BeforeAll
+  static void init() {
+    MZmineTestUtil.startMzmineCore();
+    if (!CurrentUserService.isValid()) {
+      var msg = "No test user supplied add user to TESTRUNNER_USER environment var";
+      logger.warning(msg);
+      throw new UnsupportedOperationException(msg);
+    }
+  }
+
+  @AfterAll
+  static void tearDown() {
+    MZmineTestUtil.cleanProject();
+  }
+
+  @Test
+  void pipelinedStepsSameAsSequential() {
+    final BatchTask sequential = runBatch(false);
+    final Map<String, String> expected = summarizeFeatureLists();
+    assertTrue(sequential.getFileStepTimes().isEmpty());
+
+    final BatchTask pipelined = runBatch(true);
+    final Map<String, String> actual = summarizeFeatureLists();
+
+    // two raw data files, chromatograms and smoothed feature lists of both
+    assertEquals(6, expected.size());
+    assertEquals(expected, actual);
+
+    // each file ran both per-file steps in order
+    final List<StepTimeMeasurement> fileTimes = pipelined.getFileStepTimes();
+    assertEquals(4, fileTimes.size());
+    for (String file : List.of("DOM_a.mzML", "DOM_b.mzXML")) {
+      final List<Integer> steps = fileTimes.stream().filter(time -> file.equals(time.file()))
+          .map(StepTimeMeasurement::stepNumber).toList();
+      assertEquals(List.of(1, 2), steps);
+    }
+    // thread CPU time of each file and step, summed for the pipelined steps
+    if (StepTimeMeasurement.threadCpuNanos() >= 0) {
+      assertTrue(fileTimes.stream().allMatch(time -> time.cpuTime() != null));
+      assertTrue(pipelined.getStepTimes().stream().filter(time -> time.stepNumber() > 0)
+          .allMatch(time -> time.cpuTime() != null));
+    }
+    // the whole batch and one entry per step, no additional entry for the pipelined steps
+    assertEquals(List.of(0, 0, 1, 2),
+        pipelined.getStepTimes().stream().map(StepTimeMeasurement::stepNumber).toList());
+  }
+
+  private static BatchTask runBatch(boolean pipelinePerFileSteps) {
+    MZmineTestUtil.cleanProject();
+    final MZmineProject project = ProjectService.getProject();
+
+    final ParameterSet parameters = new BatchModeParameters().cloneParameterSet();
+    parameters.getParameter(BatchModeParameters.batchQueue).setValue(createQueue());
+    parameters.setParameter(BatchModeParameters.pipelinePerFileSteps, pipelinePerFileSteps);
+
+    final BatchTask task = new BatchTask(project, parameters, Instant.now());
+    task.run();
+    assertEquals(TaskStatus.FINISHED, task.getStatus(), task.getErrorMessage());
+    return task;
+  }
+
+  /**
+   * @return feature list name mapped to the applied methods and all row values in order
+   */
+  private static Map<String, String> summarizeFeatureLists() {
+    final Map<String, String> summary = new TreeMap<>();
+    for (FeatureList flist : ProjectService.getProject().getCurrentFeatureLists()) {
+      final StringBuilder b = new StringBuilder();
+      for (FeatureListAppliedMethod method : flist.getAppliedMethods()) {
+        b.append(method.getModule().getClass().getSimpleName()).append(';');
+      }
+      for (FeatureListRow row : flist.getRows()) {
+        b.append('\n').append(row.getAverageMZ()).append(' ').append(row.getAverageRT())
+            .append(' ').append(row.getMaxHeight()).append(' ').append(row.getMaxArea());
+      }
+      summary.put(flist.getName(), b.toString());
+    }
+    // import does not create feature lists, add the files to check all were processed
+    ProjectService.getProject().getCurrentRawDataFiles()
+        .forEach(raw -> summary.put(raw.getName(), raw.getName()));
+    assertFalse(summary.isEmpty());
+    return summary;
+  }
+
+  private static BatchQueue createQueue() {
+    final ClassLoader loader = BatchPipelinedStepsTest.class.getClassLoader();
+    final File[] files = FILES.stream().map(name -> new File(loader.getResource(name).getFile()))
+        .toArray(File[]::new);
+    final AllSpectralDataImportParameters paramImport = new AllSpectralDataImportParameters();
+    paramImport.setParameter(AllSpectralDataImportParameters.fileNames, files);
+    paramImport.setParameter(SpectralLibraryImportParameters.dataBaseFiles, new File[0]);
+    paramImport.setParameter(AllSpectralDataImportParameters.advancedImport, true);
+    paramImport.getParameter(AllSpectralDataImportParameters.advancedImport).setEmbeddedParameters(
+        AdvancedSpectraImportParameters.create(MassDetectorWizardOptions.ABSOLUTE_NOISE_LEVEL, 0d,
+            0d, null, ScanSelection.ALL_SCANS, false));
+
+    final ParameterSet paramChrom = new ADAPChromatogramBuilderParameters().cloneParameterSet();
+    paramChrom.getParameter(ADAPChromatogramBuilderParameters.dataFiles)
+        .setValue(RawDataFilesSelectionType.BATCH_LAST_FILES);
+    paramChrom.setParameter(ADAPChromatogramBuilderParameters.scanSelection, new ScanSelection(1));
+    paramChrom.setParameter(ADAPChromatogramBuilderParameters.minimumConsecutiveScans, 4);
+    paramChrom.setParameter(ADAPChromatogramBuilderParameters.mzTolerance,
+        new MZTolerance(0.002, 10));
+    paramChrom.setParameter(ADAPChromatogramBuilderParameters.minHighestPoint, 3E5);
+    paramChrom.setParameter(ADAPChromatogramBuilderParameters.minGroupIntensity, 1E5);
+    paramChrom.setParameter(ADAPChromatogramBuilderParameters.suffix, "chrom");
+
+    final ParameterSet paramSmooth = new SmoothingParameters().cloneParameterSet();
+    paramSmooth.getParameter(SmoothingParameters.featureLists)
+        .setValue(FeatureListsSelectionType.BATCH_LAST_FEATURELISTS);
+    paramSmooth.setParameter(SmoothingParameters.handleOriginal, OriginalFeatureListOption.KEEP);
+    paramSmooth.setParameter(SmoothingParameters.suffix, "smooth");
+    paramSmooth.setParameter(SmoothingParameters.smoothingAlgorithm,
+        FeatureSmoothingOptions.SAVITZKY_GOLAY);
+    final var sgParam = paramSmooth.getEmbeddedParameterValue(
+        SmoothingParameters.smoothingAlgorithm);
+    sgParam.setParameter(SavitzkyGolayParameters.mobilitySmoothing, false);
+    sgParam.setParameter(SavitzkyGolayParameters.rtSmoothing, true, 5);
+
+    final BatchQueue queue = new BatchQueue();
+    queue.add(step(AllSpectralDataImportModule.class, paramImport));
+    queue.add(step(ModularADAPChromatogramBuilderModule.class, paramChrom));
+    queue.add(step(SmoothingModule.class, paramSmooth));
+    return queue;
+  }
+
+  private static MZmineProcessingStepImpl<MZmineProcessingModule> step(
+      Class<? extends MZmineProcessingModule> moduleClass, ParameterSet parameters) {
+    return new MZmineProcessingStepImpl<>(MZmineCore.getModuleInstance(moduleClass), parameters);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.dataanalysis.pca_new;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.modules.dataanalysis.utils.AbundanceMatrix;
+import io.github.mzmine.modules.dataanalysis.utils.StatisticUtils;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.OneFifthOfMinimumImputer;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.AutoScalingFunction;
+import java.util.Random;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.junit.jupiter.api.Test;
+
+class PCAUtilsTest {
+
+  /**
+   * Positive abundances with a few latent sample groups and noise. Some values are missing.
+   */
+  private static AbundanceMatrix createData(int samples, int features) {
+    final Random rand = new Random(42);
+    final int factors = 4;
+    final double[][] sampleFactors = new double[samples][factors];
+    for (int s = 0; s < samples; s++) {
+      for (int f = 0; f < factors; f++) {
+        sampleFactors[s][f] = rand.nextGaussian() * (factors - f) * 3;
+      }
+    }
+    final AbundanceMatrix matrix = new AbundanceMatrix(samples, features);
+    for (int feature = 0; feature < features; feature++) {
+      final double base = 1000 + rand.nextDouble() * 1000;
+      final double[] weights = new double[factors];
+      for (int f = 0; f < factors; f++) {
+        weights[f] = rand.nextGaussian() * 10;
+      }
+      for (int s = 0; s < samples; s++) {
+        double value = base + rand.nextGaussian();
+        for (int f = 0; f < factors; f++) {
+          value += sampleFactors[s][f] * weights[f];
+        }
+        matrix.set(s, feature, rand.nextInt(50) == 0 ? Double.NaN : Math.max(1, value));
+      }
+    }
+    return matrix;
+  }
+
+  private static RealMatrix toRealMatrix(AbundanceMatrix data) {
+    final RealMatrix matrix = new Array2DRowRealMatrix(data.getNumberOfSamples(),
+        data.getNumberOfFeatures());
+    for (int s = 0; s < data.getNumberOfSamples(); s++) {
+      for (int f = 0; f < data.getNumberOfFeatures(); f++) {
+        matrix.setEntry(s, f, data.get(s, f));
+      }
+    }
+    return matrix;
+  }
+
+  @Test
+  void pretreatmentSameAsRealMatrix() {
+    final AbundanceMatrix data = createData(20, 300);
+    final RealMatrix expected = toRealMatrix(data);
+    StatisticUtils.imputeMissingValues(expected, true, new OneFifthOfMinimumImputer());
+    StatisticUtils.centerAndScale(expected, new AutoScalingFunction(), true);
+
+    data.imputeMissingValues(new OneFifthOfMinimumImputer())
+        .centerAndScale(new AutoScalingFunction());
+    for (int s = 0; s < data.getNumberOfSamples(); s++) {
+      for (int f = 0; f < data.getNumberOfFeatures(); f++) {
+        assertEquals(expected.getEntry(s, f), data.get(s, f), 1E-4);
+      }
+    }
+  }
+
+  @Test
+  void truncatedSameAsFullSvd() {
+    final AbundanceMatrix data = createData(60, 3000);
+    data.imputeMissingValues(new OneFifthOfMinimumImputer())
+        .centerAndScale(new AutoScalingFunction());
+
+    final PCAResult full = new PCAResult(new SingularValueDecomposition(toRealMatrix(data)));
+    final PCAResult truncated = PCAUtils.truncatedPCA(data, 3);
+    assertEquals(3, truncated.componentCount());
+
+    final RealMatrix fullScores = full.projectDataToScores(3);
+    final RealMatrix truncatedScores = truncated.projectDataToScores(3);
+    final RealMatrix fullLoadings = full.getLoadingsMatrix();
+    final RealMatrix truncatedLoadings = truncated.getLoadingsMatrix();
+    for (int c = 0; c < 3; c++) {
+      assertEquals(full.singularValues()[c], truncated.singularValues()[c],
+          full.singularValues()[c] * 1E-4);
+      // components are defined up to their sign
+      final double sign = Math.signum(
+          fullScores.getColumnVector(c).dotProduct(truncatedScores.getColumnVector(c)));
+      for (int s = 0; s < data.getNumberOfSamples(); s++) {
+        assertEquals(fullScores.getEntry(s, c), sign * truncatedScores.getEntry(s, c),
+            full.singularValues()[c] * 1E-3);
+      }
+      for (int f = 0; f < data.getNumberOfFeatures(); f++) {
+        assertEquals(fullLoadings.getEntry(c, f), sign * truncatedLoadings.getEntry(c, f), 1E-3);
+      }
+    }
+  }
+
+  @Test
+  void smallMatrixIsDecomposedExactly() {
+    final AbundanceMatrix data = createData(8, 50);
+    data.imputeMissingValues(new OneFifthOfMinimumImputer())
+        .centerAndScale(new AutoScalingFunction());
+    final PCAResult result = PCAUtils.truncatedPCA(data, PCAUtils.DEFAULT_COMPONENTS);
+    assertEquals(8, result.componentCount());
+  }
+}
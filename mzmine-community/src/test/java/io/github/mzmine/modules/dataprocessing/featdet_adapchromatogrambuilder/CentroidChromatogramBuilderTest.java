@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.util.DataPointSorter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CentroidChromatogramBuilderTest {
+
+  /**
+   * Random centroids of ion traces with m/z jitter, some close traces and noise. Intensities are
+   * rounded to create ties.
+   */
+  private static Scan[] createScans(Random rand) throws IOException {
+    RawDataFile file = new RawDataFileImpl("test", null, null);
+    double[] traceMzs = new double[150];
+    for (int t = 0; t < traceMzs.length; t++) {
+      // every third trace is close to the one before
+      traceMzs[t] = t % 3 == 2 ? traceMzs[t - 1] + rand.nextDouble() * 0.01
+          : 100 + rand.nextDouble() * 900;
+    }
+    Scan[] scans = new Scan[300];
+    for (int s = 0; s < scans.length; s++) {
+      List<double[]> dps = new ArrayList<>();
+      for (double traceMz : traceMzs) {
+        if (rand.nextInt(5) > 0) {
+          dps.add(new double[]{traceMz + rand.nextGaussian() * 0.002,
+              Math.round(Math.exp(rand.nextGaussian() + 6))});
+        }
+      }
+      for (int n = 0; n < 100; n++) {
+        dps.add(new double[]{100 + rand.nextDouble() * 900, Math.round(rand.nextDouble() * 200)});
+      }
+      dps.sort((a, b) -> Double.compare(a[0], b[0]));
+      double[] mzs = dps.stream().mapToDouble(dp -> dp[0]).toArray();
+      double[] intensities = dps.stream().mapToDouble(dp -> dp[1]).toArray();
+      scans[s] = new SimpleScan(file, s, 1, s * 0.05f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "",
+          Range.closed(mzs[0], mzs[mzs.length - 1]));
+    }
+    return scans;
+  }
+
+  @Test
+  void sameAsRangeMapBuilder() throws IOException {
+    Random rand = new Random(42);
+    Scan[] scans = createScans(rand);
+    for (MZTolerance mzTol : List.of(new MZTolerance(0.002, 10), new MZTolerance(0.005, 20),
+        new MZTolerance(0.0005, 3))) {
+      for (double minHighestPoint : new double[]{0, 150, 500}) {
+        List<ADAPChromatogram> expected = buildWithRangeMap(scans, mzTol, minHighestPoint);
+
+        CentroidChromatogramBuilder builder = new CentroidChromatogramBuilder(scans,
+            Arrays.stream(scans).mapToInt(Scan::getNumberOfDataPoints).sum());
+        for (int s = 0; s < scans.length; s++) {
+          for (int i = 0; i < scans[s].getNumberOfDataPoints(); i++) {
+            builder.add(s, scans[s].getMzValue(i), scans[s].getIntensityValue(i));
+          }
+        }
+        builder.sortByIntensity();
+        List<ADAPChromatogram> actual = builder.buildChromatograms(mzTol, minHighestPoint, null);
+
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int c = 0; c < expected.size(); c++) {
+          assertSameChromatogram(expected.get(c), actual.get(c));
+        }
+      }
+    }
+  }
+
+  @Test
+  void intervalsRemoveEnclosed() {
+    SortedMzIntervals intervals = new SortedMzIntervals();
+    int a = intervals.add(100.0, 100.01);
+    int b = intervals.add(100.02, 100.03);
+    int c = intervals.add(100.05, 100.06);
+    assertEquals(a, intervals.find(100.0));
+    assertEquals(-1, intervals.find(100.01));
+    assertEquals(b, intervals.find(100.025));
+
+    // encloses b
+    int d = intervals.add(100.01, 100.04);
+    assertEquals(d, intervals.find(100.025));
+    assertArrayEquals(new int[]{a, d, c}, intervals.idsInMzOrder());
+    assertThrows(IllegalArgumentException.class, () -> intervals.add(100.055, 100.07));
+  }
+
+  @Test
+  void intervalsSplitBlocks() {
+    SortedMzIntervals intervals = new SortedMzIntervals();
+    Random rand = new Random(1);
+    RangeMap<Double, Integer> expected = TreeRangeMap.create();
+    for (int i = 0; i < 20000; i++) {
+      double lower = rand.nextInt(1_000_000) * 0.001;
+      if (intervals.find(lower) >= 0 || intervals.find(lower + 0.0005) >= 0) {
+        continue;
+      }
+      int id = intervals.add(lower, lower + 0.0005);
+      expected.put(Range.closedOpen(lower, lower + 0.0005), id);
+    }
+    for (int i = 0; i < 20000; i++) {
+      double mz = rand.nextDouble() * 1000;
+      Integer id = expected.get(mz);
+      assertEquals(id == null ? -1 : id, intervals.find(mz));
+    }
+    assertArrayEquals(expected.asMapOfRanges().values().stream().mapToInt(i -> i).toArray(),
+        intervals.idsInMzOrder());
+  }
+
+  private static void assertSameChromatogram(ADAPChromatogram expected, ADAPChromatogram actual) {
+    assertEquals(List.copyOf(expected.getScanNumbers()), List.copyOf(actual.getScanNumbers()));
+    List<DataPoint> expectedDps = List.copyOf(expected.getDataPoints());
+    List<DataPoint> actualDps = List.copyOf(actual.getDataPoints());
+    for (int i = 0; i < expectedDps.size(); i++) {
+      assertEquals(expectedDps.get(i).getMZ(), actualDps.get(i).getMZ());
+      assertEquals(expectedDps.get(i).getIntensity(), actualDps.get(i).getIntensity());
+    }
+  }
+
+  /**
+   * The former implementation of the chromatogram building based on data point objects and a
+   * {@link TreeRangeMap}
+   */
+  private static List<ADAPChromatogram> buildWithRangeMap(Scan[] scans, MZTolerance mzTolerance,
+      double minHighestPoint) {
+    RangeMap<Double, ADAPChromatogram> rangeToChromMap = TreeRangeMap.create();
+    List<ExpandedDataPoint> all = new ArrayList<>();
+    for (Scan scan : scans) {
+      for (int i = 0; i < scan.getNumberOfDataPoints(); i++) {
+        all.add(new ExpandedDataPoint(scan.getMzValue(i), scan.getIntensityValue(i), scan));
+      }
+    }
+    ExpandedDataPoint[] allMzValues = all.toArray(ExpandedDataPoint[]::new);
+    Arrays.parallelSort(allMzValues, DataPointSorter.DEFAULT_INTENSITY);
+
+    for (ExpandedDataPoint mzFeature : allMzValues) {
+      final Entry<Range<Double>, ADAPChromatogram> existing = rangeToChromMap.getEntry(
+          mzFeature.getMZ());
+      if (existing != null) {
+        existing.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
+      } else if (mzFeature.getIntensity() >= minHighestPoint) {
+        Range<Double> toleranceRange = mzTolerance.getToleranceRange(mzFeature.getMZ());
+        final Entry<Range<Double>, ADAPChromatogram> minusRange = rangeToChromMap.getEntry(
+            toleranceRange.lowerEndpoint());
+        final Entry<Range<Double>, ADAPChromatogram> plusRange = rangeToChromMap.getEntry(
+            toleranceRange.upperEndpoint());
+        Double toBeLowerBound =
+            minusRange == null ? toleranceRange.lowerEndpoint() : minusRange.getKey().upperEndpoint();
+        Double toBeUpperBound =
+            plusRange == null ? toleranceRange.upperEndpoint() : plusRange.getKey().lowerEndpoint();
+
+        if (toBeLowerBound < toBeUpperBound) {
+          ADAPChromatogram newChrom = new ADAPChromatogram();
+          newChrom.addMzFeature(mzFeature.getScan(), mzFeature);
+          rangeToChromMap.put(Range.closedOpen(toBeLowerBound, toBeUpperBound), newChrom);
+        } else if (toBeLowerBound.equals(toBeUpperBound) && plusRange != null) {
+          plusRange.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
+        } else {
+          throw new IllegalStateException();
+        }
+      }
+    }
+    return List.copyOf(rangeToChromMap.asMapOfRanges().values());
+  }
+}
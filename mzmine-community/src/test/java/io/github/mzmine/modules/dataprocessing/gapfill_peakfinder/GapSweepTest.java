@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class GapSweepTest {
+
+  private static List<Gap> createGaps(Random rand, int n) {
+    List<Gap> gaps = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      float rt = rand.nextFloat() * 20;
+      double mz = 100 + rand.nextDouble() * 900;
+      gaps.add(new Gap(null, null, Range.closed(mz - 0.005, mz + 0.005),
+          Range.closed(rt - 0.2f, rt + 0.2f), 0.5));
+    }
+    return gaps;
+  }
+
+  private static List<Gap> expectedActive(List<Gap> gaps, float rt) {
+    return gaps.stream().filter(gap -> gap.getRtRange().contains(rt)).toList();
+  }
+
+  @Test
+  void activeGapsSameAsRtRangeCheck() {
+    Random rand = new Random(42);
+    List<Gap> gaps = createGaps(rand, 2000);
+    GapSweep<Gap> sweep = new GapSweep<>(gaps);
+
+    for (float rt = -1; rt < 21; rt += 0.013f) {
+      final float scanRt = rt;
+      List<Gap> active = sweep.advanceTo(rt);
+      // the sweep may only contain gaps within RT range
+      assertEquals(expectedActive(gaps, rt).size(), active.size());
+      assertEquals(active.size(),
+          active.stream().filter(gap -> gap.getRtRange().contains(scanRt)).count());
+
+      for (int i = 1; i < active.size(); i++) {
+        assertTrue(active.get(i - 1).getMzRange().lowerEndpoint() <= active.get(i)
+            .getMzRange().lowerEndpoint());
+      }
+    }
+  }
+
+  @Test
+  void unsortedRetentionTimes() {
+    Random rand = new Random(1);
+    List<Gap> gaps = createGaps(rand, 500);
+    GapSweep<Gap> sweep = new GapSweep<>(gaps);
+    for (int i = 0; i < 200; i++) {
+      float rt = rand.nextFloat() * 20;
+      assertEquals(expectedActive(gaps, rt).size(), sweep.advanceTo(rt).size());
+    }
+  }
+}
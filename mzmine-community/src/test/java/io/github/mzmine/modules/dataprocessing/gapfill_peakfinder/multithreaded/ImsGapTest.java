@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.multithreaded;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.Frame;
+import io.github.mzmine.datamodel.IMSRawDataFile;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.MobilityType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.data_access.BinningMobilogramDataAccess;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.MobilityScanDataType;
+import io.github.mzmine.datamodel.data_access.MobilityScanDataAccess;
+import io.github.mzmine.datamodel.impl.BuildingMobilityScan;
+import io.github.mzmine.datamodel.impl.SimpleFrame;
+import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.GapDataPoint;
+import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.GapSweep;
+import io.github.mzmine.project.impl.IMSRawDataFileImpl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link ImsGap#offerNextFrame(MobilityScanDataAccess, List)} with the previous gap
+ * filling, which offered every frame to each gap with {@link ImsGap#offerNextScan}.
+ */
+class ImsGapTest {
+
+  private static final int FRAMES = 80;
+  private static final int MOBILITY_SCANS = 40;
+
+  private static IMSRawDataFile createFile(Random rand, MobilityType mobilityType)
+      throws IOException {
+    final IMSRawDataFile file = new IMSRawDataFileImpl("test", null, null, Color.BLACK);
+    // tims mobilities decrease with the mobility scan number
+    final double[] mobilities = new double[MOBILITY_SCANS];
+    for (int i = 0; i < MOBILITY_SCANS; i++) {
+      mobilities[i] = mobilityType == MobilityType.TIMS ? 1.6 - i * 0.025 : 10 + i * 0.5;
+    }
+
+    for (int f = 0; f < FRAMES; f++) {
+      final SimpleFrame frame = new SimpleFrame(file, f, 1, f * 0.05f, new double[]{100d},
+          new double[]{1d}, MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "",
+          Range.closed(100d, 110d), mobilityType, null, null);
+      frame.setMobilities(mobilities);
+      final List<BuildingMobilityScan> mobilityScans = new ArrayList<>();
+      for (int m = 0; m < MOBILITY_SCANS; m++) {
+        final double[] mzs = new double[1 + rand.nextInt(80)];
+        final double[] intensities = new double[mzs.length];
+        for (int i = 0; i < mzs.length; i++) {
+          mzs[i] = 100 + rand.nextDouble() * 10;
+          intensities[i] = 100 + rand.nextDouble() * 1E4;
+        }
+        Arrays.sort(mzs);
+        mobilityScans.add(new BuildingMobilityScan(m, mzs, intensities));
+      }
+      frame.setMobilityScans(mobilityScans, false);
+      file.addScan(frame);
+    }
+    return file;
+  }
+
+  private static List<CapturingImsGap> createGaps(Random rand, IMSRawDataFile file,
+      BinningMobilogramDataAccess binning) {
+    final List<CapturingImsGap> gaps = new ArrayList<>();
+    final Range<Double> mobilityRange = file.getFrames().get(0).getMobilityRange();
+    final double mobilityWidth = mobilityRange.upperEndpoint() - mobilityRange.lowerEndpoint();
+    for (int i = 0; i < 300; i++) {
+      final double mz = 100 + rand.nextDouble() * 10;
+      final float rt = rand.nextFloat() * FRAMES * 0.05f;
+      final float mobility = (float) (mobilityRange.lowerEndpoint()
+                                      + rand.nextDouble() * mobilityWidth);
+      final float mobilityTolerance = (float) (mobilityWidth * 0.2);
+      gaps.add(new CapturingImsGap(file, Range.closed(mz - 0.05, mz + 0.05),
+          Range.closed(rt - 0.5f, rt + 0.5f),
+          Range.closed(mobility - mobilityTolerance, mobility + mobilityTolerance), binning));
+    }
+    return gaps;
+  }
+
+  @Test
+  void timsSameAsOfferNextScan() throws IOException {
+    assertSameAsOfferNextScan(MobilityType.TIMS);
+  }
+
+  @Test
+  void driftTubeSameAsOfferNextScan() throws IOException {
+    assertSameAsOfferNextScan(MobilityType.DRIFT_TUBE);
+  }
+
+  private static void assertSameAsOfferNextScan(MobilityType mobilityType) throws IOException {
+    final IMSRawDataFile file = createFile(new Random(42), mobilityType);
+    final BinningMobilogramDataAccess binning = new BinningMobilogramDataAccess(file, 1);
+    final List<CapturingImsGap> previousGaps = createGaps(new Random(7), file, binning);
+    final List<CapturingImsGap> gaps = createGaps(new Random(7), file, binning);
+
+    // previous gap filling: every frame is offered to each gap
+    final List<Frame> frames = new ArrayList<>(file.getFrames());
+    MobilityScanDataAccess access = new MobilityScanDataAccess(file, MobilityScanDataType.RAW,
+        frames);
+    while (access.hasNextFrame()) {
+      access.nextFrame();
+      for (ImsGap gap : previousGaps) {
+        access.resetMobilityScan();
+        gap.offerNextScan(access);
+      }
+    }
+
+    access = new MobilityScanDataAccess(file, MobilityScanDataType.RAW, frames);
+    final GapSweep<ImsGap> sweep = new GapSweep<>(List.copyOf(gaps));
+    while (access.hasNextFrame()) {
+      final Frame frame = access.nextFrame();
+      ImsGap.offerNextFrame(access, sweep.advanceTo(frame.getRetentionTime()));
+    }
+
+    int filled = 0;
+    for (int i = 0; i < gaps.size(); i++) {
+      final boolean previousFilled = previousGaps.get(i).noMoreOffers();
+      assertEquals(previousFilled, gaps.get(i).noMoreOffers());
+      assertSameMobilograms(previousGaps.get(i).result, gaps.get(i).result);
+      if (previousFilled) {
+        filled++;
+      }
+    }
+    assertTrue(filled > 10, "Only " + filled + " gaps were filled");
+  }
+
+  private static void assertSameMobilograms(List<GapDataPoint> expected,
+      List<GapDataPoint> actual) {
+    if (expected == null || actual == null) {
+      assertSame(expected, actual);
+      return;
+    }
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      final DataPointIonMobilitySeries e = (DataPointIonMobilitySeries) expected.get(i);
+      final DataPointIonMobilitySeries a = (DataPointIonMobilitySeries) actual.get(i);
+      assertEquals(e.getSpectra(), a.getSpectra());
+      assertArrayEquals(e.getMzValues(new double[e.getNumberOfValues()]),
+          a.getMzValues(new double[a.getNumberOfValues()]));
+      assertArrayEquals(e.getIntensityValues(new double[e.getNumberOfValues()]),
+          a.getIntensityValues(new double[a.getNumberOfValues()]));
+    }
+  }
+
+  /**
+   * Keeps the data points of the best peak instead of adding a feature to a row
+   */
+  private static class CapturingImsGap extends ImsGap {
+
+    private List<GapDataPoint> result;
+
+    CapturingImsGap(IMSRawDataFile file, Range<Double> mzRange, Range<Float> rtRange,
+        Range<Float> mobilityRange, BinningMobilogramDataAccess binning) {
+      super(null, file, mzRange, rtRange, mobilityRange, 0.5, binning);
+    }
+
+    @Override
+    protected boolean addFeatureToRow() {
+      result = List.copyOf(bestPeakDataPoints);
+      return true;
+    }
+  }
+}
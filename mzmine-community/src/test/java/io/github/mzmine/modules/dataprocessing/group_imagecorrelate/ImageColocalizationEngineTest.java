@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.dataprocessing.group_imagecorrelate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.github.mzmine.modules.dataprocessing.group_imagecorrelate.ImageColocalizationEngine.SparseImage;
+import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ImageColocalizationEngineTest {
+
+  private static final int PIXELS = 400;
+  private static final int ROWS = 150;
+  private static final int MIN_PIXELS = 5;
+
+  private static SparseImage[] createImages(Random rand, double noiseLevel) {
+    final SparseImage[] images = new SparseImage[ROWS];
+    final double[][] patterns = new double[5][PIXELS];
+    for (double[] pattern : patterns) {
+      for (int p = 0; p < PIXELS; p++) {
+        pattern[p] = rand.nextDouble() < 0.3 ? rand.nextDouble() * 1E5 : 0;
+      }
+    }
+    for (int r = 0; r < ROWS; r++) {
+      if (rand.nextInt(10) == 0) {
+        continue; // no feature in this file
+      }
+      final double[] pattern = patterns[rand.nextInt(patterns.length)];
+      final double[] intensities = new double[PIXELS];
+      for (int p = 0; p < PIXELS; p++) {
+        intensities[p] = pattern[p] * (0.8 + 0.4 * rand.nextDouble()) + rand.nextDouble() * 500;
+      }
+      images[r] = ImageColocalizationEngine.preprocess(intensities, PIXELS, noiseLevel, 3, 0.2,
+          0.99, MIN_PIXELS);
+    }
+    return images;
+  }
+
+  /**
+   * Same calculation as the pairwise path on the pixels retained in both images
+   */
+  private static double pairwise(SparseImage a, SparseImage b, SimilarityMeasure measure) {
+    final double[][] data = new double[Math.min(a.pixels().length, b.pixels().length)][];
+    int n = 0;
+    for (int i = 0, j = 0; i < a.pixels().length && j < b.pixels().length; ) {
+      if (a.pixels()[i] == b.pixels()[j]) {
+        data[n++] = new double[]{a.values()[i++], b.values()[j++]};
+      } else if (a.pixels()[i] < b.pixels()[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    if (n < MIN_PIXELS) {
+      return 0;
+    }
+    final double[][] joint = new double[n][];
+    System.arraycopy(data, 0, joint, 0, n);
+    return measure.calc(joint);
+  }
+
+  @Test
+  void sameAsPairwise() {
+    for (SimilarityMeasure measure : new SimilarityMeasure[]{SimilarityMeasure.PEARSON,
+        SimilarityMeasure.COSINE_SIM}) {
+      final Random rand = new Random(42);
+      final SparseImage[] file1 = createImages(rand, 1000);
+      final SparseImage[] file2 = createImages(rand, 1000);
+
+      final double minSimilarity = 0.3;
+      final var engine = new ImageColocalizationEngine(ROWS, measure, MIN_PIXELS, minSimilarity);
+      engine.addFile(file1, PIXELS);
+      engine.addFile(file2, PIXELS);
+
+      final Map<Long, double[]> results = new ConcurrentHashMap<>();
+      engine.compute((a, b, similarities) -> results.put((long) a * ROWS + b, similarities),
+          () -> false, new AtomicLong());
+      assertFalse(results.isEmpty());
+
+      for (int a = 0; a < ROWS; a++) {
+        for (int b = a + 1; b < ROWS; b++) {
+          double sum = 0;
+          int count = 0;
+          final double[] expected = new double[2];
+          for (SparseImage[] file : new SparseImage[][]{file1, file2}) {
+            if (file[a] != null && file[b] != null) {
+              expected[count++] = pairwise(file[a], file[b], measure);
+              sum += expected[count - 1];
+            }
+          }
+          final double[] actual = results.get((long) a * ROWS + b);
+          if (count > 0 && sum / count >= minSimilarity) {
+            assertEquals(count, actual.length);
+            for (int i = 0; i < count; i++) {
+              assertEquals(expected[i], actual[i], 1E-6);
+            }
+          } else if (actual != null) {
+            // only rounding differences at the threshold
+            assertEquals(minSimilarity, sum / count, 1E-6);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void preprocess() {
+    final double[] intensities = {0, 50, 200, 400, 300, 100, 800, 0};
+    // noise level only
+    final SparseImage image = ImageColocalizationEngine.preprocess(intensities, 7, 100, 0, 0, 0,
+        0);
+    assertArrayEquals(new int[]{2, 3, 4, 5, 6}, image.pixels());
+    assertArrayEquals(new double[]{0.25, 0.5, 0.375, 0.125, 1}, image.values(), 1E-12);
+
+    // hotspot removal removes the maximum
+    final SparseImage noHotspot = ImageColocalizationEngine.preprocess(intensities, 7, 100, 0, 0,
+        0.8, 0);
+    assertArrayEquals(new int[]{2, 3, 4, 5}, noHotspot.pixels());
+  }
+}
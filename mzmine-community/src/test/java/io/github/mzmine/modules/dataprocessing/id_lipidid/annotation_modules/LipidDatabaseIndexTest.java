@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_lipidid.annotation_modules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.github.mzmine.datamodel.IonizationType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.ILipidClass;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.LipidClasses;
+import io.github.mzmine.modules.dataprocessing.id_lipidid.common.lipids.LipidIon;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LipidDatabaseIndexTest {
+
+  private static final ILipidClass[] classes = {LipidClasses.DIACYLGLYCEROPHOSPHOCHOLINES,
+      LipidClasses.TRIACYLGLYCEROLS, LipidClasses.NACYLSPHINGOSINESANDNACYLSPHINGANINES};
+  private static final Set<PolarityType> polarities = Set.of(PolarityType.POSITIVE,
+      PolarityType.NEGATIVE);
+
+  @Test
+  void sameAsSortedDatabase() {
+    List<LipidIon> expected = LipidAnnotationUtils.buildLipidDatabase(classes, 12, 22, 0, 4, true,
+        null, polarities).stream().sorted(Comparator.comparingDouble(LipidIon::mz)).toList();
+    LipidDatabaseIndex index = LipidDatabaseIndex.build(classes, 12, 22, 0, 4, true, null,
+        polarities);
+
+    assertEquals(expected.size(), index.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).mz(), index.getMz(i));
+      assertEquals(expected.get(i).lipidAnnotation().getAnnotation(),
+          index.getLipidIon(i).lipidAnnotation().getAnnotation());
+      assertEquals(expected.get(i).ionizationType(), index.getLipidIon(i).ionizationType());
+    }
+
+    double mz = index.getMz(index.size() / 2);
+    int lower = index.lowerBoundIndex(mz);
+    assertEquals(mz, index.getMz(lower));
+    assertEquals(0, index.lowerBoundIndex(0));
+    assertEquals(index.size(), index.lowerBoundIndex(Double.MAX_VALUE));
+  }
+
+  @Test
+  void saveAndLoad(@TempDir Path dir) {
+    LipidDatabaseIndex index = LipidDatabaseIndex.build(classes, 14, 20, 0, 2, false, null,
+        polarities);
+    String key = LipidDatabaseIndex.createKey(classes, 14, 20, 0, 2, false, null, polarities);
+    File file = dir.resolve("lipids.bin").toFile();
+    index.save(file, key);
+
+    LipidDatabaseIndex loaded = LipidDatabaseIndex.load(file, key, classes);
+    assertNotNull(loaded);
+    assertEquals(index.size(), loaded.size());
+    for (int i = 0; i < index.size(); i++) {
+      assertEquals(index.getMz(i), loaded.getMz(i));
+      LipidIon ion = loaded.getLipidIon(i);
+      assertEquals(index.getLipidIon(i).lipidAnnotation().getAnnotation(),
+          ion.lipidAnnotation().getAnnotation());
+      assertEquals(index.getLipidIon(i).ionizationType(), ion.ionizationType());
+      // created once
+      assertSame(ion, loaded.getLipidIon(i));
+    }
+
+    // other parameters are not loaded from this file
+    String otherKey = LipidDatabaseIndex.createKey(classes, 14, 20, 0, 3, false, null,
+        polarities);
+    assertNotEquals(key, otherKey);
+    assertNull(LipidDatabaseIndex.load(file, otherKey, classes));
+    assertNotEquals(key, LipidDatabaseIndex.createKey(classes, 14, 20, 0, 2, false,
+        new IonizationType[]{IonizationType.POSITIVE_HYDROGEN}, polarities));
+  }
+}
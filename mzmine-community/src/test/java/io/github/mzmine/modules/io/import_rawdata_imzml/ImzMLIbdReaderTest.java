@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImzMLIbdReaderTest {
+
+  private static File getFile(String name) throws URISyntaxException {
+    return new File(ImzMLIbdReaderTest.class.getClassLoader()
+        .getResource("rawdatafiles/additional/" + name).toURI());
+  }
+
+  @Test
+  void continuousAndProcessedSameData() throws Exception {
+    // both examples contain the same spectra, continuous shares one m/z array
+    try (var continuous = ImzMLIbdReader.open(getFile("Example_Continuous.imzML"), 9);
+        var processed = ImzMLIbdReader.open(getFile("Example_Processed.imzML"), 9)) {
+      assertNotNull(continuous);
+      assertNotNull(processed);
+      assertEquals(9, continuous.getNumberOfSpectra());
+
+      for (int i = 0; i < 9; i++) {
+        assertTrue(processed.hasData(i));
+        final SimpleSpectralArrays a = continuous.readSpectrum(i);
+        final SimpleSpectralArrays b = processed.readSpectrum(i);
+        assertEquals(8399, a.mzs().length);
+        assertArrayEquals(a.mzs(), b.mzs());
+        assertArrayEquals(a.intensities(), b.intensities());
+        // m/z ascending
+        for (int dp = 1; dp < a.mzs().length; dp++) {
+          assertTrue(a.mzs()[dp - 1] < a.mzs()[dp]);
+        }
+      }
+    }
+  }
+
+  @Test
+  void wrongNumberOfSpectra() throws Exception {
+    assertNull(ImzMLIbdReader.open(getFile("Example_Processed.imzML"), 10));
+  }
+
+  @Test
+  void dataTypesAndCompression(@TempDir Path dir) throws IOException {
+    final Path imzML = dir.resolve("test.imzML");
+    Files.writeString(imzML, """
+        <?xml version="1.0" encoding="ISO-8859-1"?>
+        <mzML xmlns="http://psi.hupo.org/ms/mzml" version="1.1">
+          <referenceableParamGroupList count="2">
+            <referenceableParamGroup id="mzArray">
+              <cvParam cvRef="MS" accession="MS:1000576" name="no compression"/>
+              <cvParam cvRef="MS" accession="MS:1000514" name="m/z array"/>
+              <cvParam cvRef="MS" accession="MS:1000523" name="64-bit float"/>
+            </referenceableParamGroup>
+            <referenceableParamGroup id="intensityArray">
+              <cvParam cvRef="MS" accession="MS:1000515" name="intensity array"/>
+              <cvParam cvRef="MS" accession="MS:1000519" name="32-bit integer"/>
+            </referenceableParamGroup>
+          </referenceableParamGroupList>
+          <run id="run">
+            <spectrumList count="2">
+              <spectrum id="Scan=1" index="0">
+                <binaryDataArrayList count="2">
+                  <binaryDataArray encodedLength="0">
+                    <referenceableParamGroupRef ref="mzArray"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000103" value="2"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000102" value="16"/>
+                    <binary/>
+                  </binaryDataArray>
+                  <binaryDataArray encodedLength="0">
+                    <referenceableParamGroupRef ref="intensityArray"/>
+                    <cvParam cvRef="MS" accession="MS:1000576" name="no compression"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000103" value="2"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000102" value="32"/>
+                    <binary/>
+                  </binaryDataArray>
+                </binaryDataArrayList>
+              </spectrum>
+              <spectrum id="Scan=2" index="1">
+                <binaryDataArrayList count="2">
+                  <binaryDataArray encodedLength="0">
+                    <referenceableParamGroupRef ref="mzArray"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000103" value="2"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000102" value="16"/>
+                    <binary/>
+                  </binaryDataArray>
+                  <binaryDataArray encodedLength="0">
+                    <referenceableParamGroupRef ref="intensityArray"/>
+                    <cvParam cvRef="MS" accession="MS:1000574" name="zlib compression"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000103" value="2"/>
+                    <cvParam cvRef="IMS" accession="IMS:1000102" value="32"/>
+                    <binary/>
+                  </binaryDataArray>
+                </binaryDataArrayList>
+              </spectrum>
+            </spectrumList>
+          </run>
+        </mzML>
+        """);
+    final ByteBuffer ibd = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+    ibd.position(16);
+    ibd.putDouble(100.5).putDouble(200.25).putInt(7).putInt(-3);
+    Files.write(dir.resolve("test.ibd"), ibd.array());
+
+    try (var reader = ImzMLIbdReader.open(imzML.toFile(), 2)) {
+      assertNotNull(reader);
+      assertTrue(reader.hasData(0));
+      // compressed intensities are left to the imzML parser
+      assertFalse(reader.hasData(1));
+      final SimpleSpectralArrays data = reader.readSpectrum(0);
+      assertArrayEquals(new double[]{100.5, 200.25}, data.mzs());
+      assertArrayEquals(new double[]{7, -3}, data.intensities());
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.projectsave;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.annotations.CommentType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.modules.io.projectsave.FeatureListBinaryFormat.Column;
+import io.github.mzmine.modules.io.projectsave.FeatureListBinaryFormat.Rows;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class FeatureListBinaryFormatTest {
+
+  @Test
+  void rowsAndColumns() throws IOException {
+    final RawDataFile raw = Mockito.mock(RawDataFile.class);
+    Mockito.when(raw.getName()).thenReturn("raw");
+    final ModularFeatureList flist = new ModularFeatureList("List", null, raw);
+
+    final List<FeatureListRow> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      final ModularFeatureListRow row;
+      if (i % 3 == 0) {
+        // row without feature
+        row = new ModularFeatureListRow(flist, i + 1);
+      } else {
+        ModularFeature f = new ModularFeature(flist);
+        f.set(RawFileType.class, raw);
+        f.set(DetectionType.class, FeatureStatus.DETECTED);
+        f.set(RTType.class, i / 10f);
+        row = new ModularFeatureListRow(flist, i + 1, f);
+      }
+      if (i % 2 == 0) {
+        row.set(MZType.class, 100d + i);
+      }
+      row.set(CommentType.class, "comment");
+      rows.add(row);
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    FeatureListBinaryFormat.writeRows(out, flist, rows, List.of(raw), 30);
+    FeatureListBinaryFormat.writeColumns(out,
+        rows.stream().map(ModularFeatureListRow.class::cast).toList());
+    out.flush();
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    final Rows read = FeatureListBinaryFormat.readRows(in);
+    assertEquals("List", read.name());
+    assertEquals(4, read.numChunks());
+    assertEquals(List.of("raw"), read.fileNames());
+    assertArrayEquals(rows.stream().mapToInt(FeatureListRow::getID).toArray(), read.ids());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(i % 3 != 0, read.featurePresent()[0].get(i));
+    }
+
+    final List<Column> columns = FeatureListBinaryFormat.readColumns(in, rows.size());
+    // the comment is not a column value
+    assertFalse(columns.stream().anyMatch(c -> c.type() instanceof CommentType));
+    final Column mz = columns.stream().filter(c -> c.type() instanceof MZType).findFirst()
+        .orElseThrow();
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.get(i).get(MZType.class), mz.values()[i]);
+    }
+    assertTrue(FeatureListBinaryFormat.isColumnValue(new MZType(), 5d));
+    assertFalse(FeatureListBinaryFormat.isColumnValue(new CommentType(), "text"));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.projectsave;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassList;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.impl.DDAMsMsInfoImpl;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.datamodel.msms.ActivationMethod;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RawDataFileSnapshotTest {
+
+  @Test
+  void roundTrip() throws IOException {
+    Random rand = new Random(42);
+    RawDataFile file = new RawDataFileImpl("test.mzML", "/data/test.mzML", null);
+    for (int s = 0; s < 100; s++) {
+      // large scans span multiple blocks
+      double[] mzs = new double[s == 50 ? 20_000 : rand.nextInt(300)];
+      for (int i = 0; i < mzs.length; i++) {
+        mzs[i] = 100 + rand.nextDouble() * 900;
+      }
+      Arrays.sort(mzs);
+      double[] intensities = rand.doubles(mzs.length, 0, 1E6).toArray();
+      int msLevel = s % 5 == 0 ? 1 : 2;
+      var info = msLevel == 1 ? null
+          : new DDAMsMsInfoImpl(mzs.length > 0 ? mzs[0] : 500, 1, 35f, null, null, 2,
+              ActivationMethod.CID, Range.closed(499.5, 500.5));
+      SimpleScan scan = new SimpleScan(file, s + 1, msLevel, s * 0.1f, info, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "scan " + s,
+          s % 3 == 0 ? null : Range.closed(50d, 1500d), s % 2 == 0 ? null : 10f);
+      if (s % 4 != 0) {
+        scan.addMassList(new SimpleMassList(null, Arrays.copyOf(mzs, mzs.length / 2),
+            Arrays.copyOf(intensities, mzs.length / 2)));
+      }
+      file.addScan(scan);
+    }
+    assertTrue(RawDataFileSnapshot.isSupported(file));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    RawDataFileSnapshot.write(file, out);
+    RawDataFile loaded = RawDataFileSnapshot.read(new ByteArrayInputStream(out.toByteArray()),
+        null, path -> path);
+
+    assertEquals(file.getName(), loaded.getName());
+    assertEquals(file.getAbsolutePath(), loaded.getAbsolutePath());
+    assertEquals(file.getColor(), loaded.getColor());
+    assertEquals(file.getNumOfScans(), loaded.getNumOfScans());
+    for (int s = 0; s < file.getNumOfScans(); s++) {
+      Scan a = file.getScan(s);
+      Scan b = loaded.getScan(s);
+      assertEquals(a.getScanNumber(), b.getScanNumber());
+      assertEquals(a.getMSLevel(), b.getMSLevel());
+      assertEquals(a.getRetentionTime(), b.getRetentionTime());
+      assertEquals(a.getInjectionTime(), b.getInjectionTime());
+      assertEquals(a.getPolarity(), b.getPolarity());
+      assertEquals(a.getSpectrumType(), b.getSpectrumType());
+      assertEquals(a.getScanDefinition(), b.getScanDefinition());
+      assertEquals(a.getScanningMZRange(), b.getScanningMZRange());
+      assertArrayEquals(a.getMzValues(new double[0]), b.getMzValues(new double[0]));
+      assertArrayEquals(a.getIntensityValues(new double[0]), b.getIntensityValues(new double[0]));
+
+      if (a.getMsMsInfo() == null) {
+        assertNull(b.getMsMsInfo());
+      } else {
+        var infoA = (DDAMsMsInfoImpl) a.getMsMsInfo();
+        var infoB = assertInstanceOf(DDAMsMsInfoImpl.class, b.getMsMsInfo());
+        assertEquals(infoA.getIsolationMz(), infoB.getIsolationMz());
+        assertEquals(infoA.getActivationEnergy(), infoB.getActivationEnergy());
+        assertEquals(infoA.getIsolationWindow(), infoB.getIsolationWindow());
+        assertEquals(b, infoB.getMsMsScan());
+      }
+
+      MassList massA = a.getMassList();
+      MassList massB = b.getMassList();
+      if (massA == null) {
+        assertNull(massB);
+      } else {
+        assertArrayEquals(massA.getMzValues(new double[0]), massB.getMzValues(new double[0]));
+        assertArrayEquals(massA.getIntensityValues(new double[0]),
+            massB.getIntensityValues(new double[0]));
+      }
+    }
+  }
+}
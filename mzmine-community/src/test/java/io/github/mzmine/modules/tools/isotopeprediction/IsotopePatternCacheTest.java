@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.tools.isotopeprediction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.IsotopePattern;
+import io.github.mzmine.datamodel.PolarityType;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IMolecularFormula;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.tools.manipulator.MolecularFormulaManipulator;
+
+class IsotopePatternCacheTest {
+
+  private static IMolecularFormula formula(String formula) {
+    return MolecularFormulaManipulator.getMolecularFormula(formula,
+        SilentChemObjectBuilder.getInstance());
+  }
+
+  @Test
+  void roundMinAbundance() {
+    assertEquals(0.0012, IsotopePatternCache.roundMinAbundance(0.00123456), 1E-15);
+    assertEquals(0.0019, IsotopePatternCache.roundMinAbundance(0.0019999), 1E-15);
+    assertEquals(0.01, IsotopePatternCache.roundMinAbundance(0.01), 1E-15);
+    assertEquals(0, IsotopePatternCache.roundMinAbundance(0));
+  }
+
+  @Test
+  void sameAsCalculator() {
+    final long hits = IsotopePatternCache.getStats().hitCount();
+    final IsotopePattern first = IsotopePatternCache.getIsotopePattern(formula("C8H16NO6"),
+        0.00123456, 1, PolarityType.POSITIVE);
+    // other formula instance and min abundance in the same range
+    final IsotopePattern second = IsotopePatternCache.getIsotopePattern(formula("C8H16NO6"),
+        0.00121, 1, PolarityType.POSITIVE);
+    assertEquals(hits + 1, IsotopePatternCache.getStats().hitCount());
+
+    // calculated with the rounded min abundance and filtered to the requested min abundance
+    final IsotopePattern expected = IsotopePatternCache.filterMinAbundance(
+        IsotopePatternCalculator.calculateIsotopePattern(formula("C8H16NO6"), 0.0012, 1,
+            PolarityType.POSITIVE), 0.00123456);
+    assertEquals(expected.getNumberOfDataPoints(), first.getNumberOfDataPoints());
+    for (int i = 0; i < expected.getNumberOfDataPoints(); i++) {
+      assertEquals(expected.getMzValue(i), first.getMzValue(i), 1E-12);
+      assertEquals(expected.getIntensityValue(i), first.getIntensityValue(i), 1E-12);
+    }
+
+    assertTrue(second.getNumberOfDataPoints() >= first.getNumberOfDataPoints());
+
+    // polarity changes the electron mass
+    final IsotopePattern negative = IsotopePatternCache.getIsotopePattern(formula("C8H16NO6"),
+        0.00123456, 1, PolarityType.NEGATIVE);
+    assertEquals(first.getMzValue(0) + 2 * IsotopePatternCalculator.ELECTRON_MASS,
+        negative.getMzValue(0), 1E-9);
+  }
+
+  @Test
+  void exactMinAbundance() {
+    final double minAbundance = 0.0199;
+    final IsotopePattern lower = IsotopePatternCalculator.calculateIsotopePattern(
+        formula("C20H30Cl2NO6S"), 0.0001, 1, PolarityType.POSITIVE);
+    final IsotopePattern filtered = IsotopePatternCache.filterMinAbundance(lower, minAbundance);
+    assertTrue(filtered.getNumberOfDataPoints() < lower.getNumberOfDataPoints());
+    final double max = lower.getBasePeakIntensity();
+    for (int i = 0; i < filtered.getNumberOfDataPoints(); i++) {
+      assertTrue(filtered.getIntensityValue(i) >= minAbundance * max);
+    }
+    // nothing to remove returns the same pattern
+    assertSame(filtered, IsotopePatternCache.filterMinAbundance(filtered, minAbundance));
+
+    final IsotopePattern cached = IsotopePatternCache.getIsotopePattern(formula("C20H30Cl2NO6S"),
+        minAbundance, 1, PolarityType.POSITIVE);
+    for (int i = 0; i < cached.getNumberOfDataPoints(); i++) {
+      assertTrue(cached.getIntensityValue(i) >= minAbundance * cached.getBasePeakIntensity());
+    }
+  }
+}
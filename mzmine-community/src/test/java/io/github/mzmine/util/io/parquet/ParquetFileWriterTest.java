@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.io.parquet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParquetFileWriterTest {
+
+  private static final List<ParquetColumn> COLUMNS = List.of(
+      new ParquetColumn("id", ParquetType.INT32), new ParquetColumn("mz", ParquetType.DOUBLE),
+      new ParquetColumn("annotation", ParquetType.STRING));
+
+  @Test
+  void forValueClass() {
+    assertEquals(ParquetType.DOUBLE, ParquetType.forValueClass(Double.class));
+    assertEquals(ParquetType.FLOAT, ParquetType.forValueClass(Float.class));
+    assertEquals(ParquetType.INT32, ParquetType.forValueClass(Integer.class));
+    assertEquals(ParquetType.INT64, ParquetType.forValueClass(Long.class));
+    assertEquals(ParquetType.BOOLEAN, ParquetType.forValueClass(Boolean.class));
+    assertEquals(ParquetType.STRING, ParquetType.forValueClass(List.class));
+    assertEquals(ParquetType.STRING, ParquetType.forValueClass(null));
+  }
+
+  @Test
+  void hybridRoundTrip() {
+    final Random random = new Random(42);
+    for (int bitWidth : new int[]{1, 3, 8, 13}) {
+      final int n = 1000;
+      final int[] values = new int[n];
+      for (int i = 0; i < n; i++) {
+        // mix of long runs and random values
+        values[i] = (i / 50) % 2 == 0 ? 1 : random.nextInt(1 << bitWidth);
+      }
+      final ParquetBytes out = new ParquetBytes();
+      ParquetFileWriter.writeHybrid(values, n, bitWidth, out);
+      assertArrayEquals(values, readHybrid(ByteBuffer.wrap(out.toByteArray()), n, bitWidth),
+          "bit width " + bitWidth);
+    }
+  }
+
+  @Test
+  void writeFile(@TempDir Path dir) throws IOException {
+    final Path file = dir.resolve("test.parquet");
+    final int numRows = 100;
+    final Object[][] values = new Object[COLUMNS.size()][numRows];
+    for (int r = 0; r < numRows; r++) {
+      values[0][r] = r;
+      values[1][r] = r % 7 == 0 ? null : 100d + r;
+      values[2][r] = r % 2 == 0 ? "A" : "B";
+    }
+
+    try (ParquetFileWriter writer = new ParquetFileWriter(file, COLUMNS)) {
+      writer.writeRowGroup(ParquetFileWriter.encodeRowGroup(COLUMNS, values, numRows));
+      writer.writeRowGroup(ParquetFileWriter.encodeRowGroup(COLUMNS, values, numRows));
+    }
+
+    final byte[] bytes = Files.readAllBytes(file);
+    final byte[] magic = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    assertArrayEquals(magic, Arrays.copyOfRange(bytes, 0, 4));
+    assertArrayEquals(magic, Arrays.copyOfRange(bytes, bytes.length - 4, bytes.length));
+    final int footerLength = ByteBuffer.wrap(bytes, bytes.length - 8, 4)
+        .order(ByteOrder.LITTLE_ENDIAN).getInt();
+    assertTrue(footerLength > 0 && footerLength < bytes.length - 12);
+    final String footer = new String(bytes, bytes.length - 8 - footerLength, footerLength,
+        StandardCharsets.ISO_8859_1);
+    for (ParquetColumn column : COLUMNS) {
+      assertTrue(footer.contains(column.name()), column.name());
+    }
+  }
+
+  /**
+   * Decodes the footer, page headers, definition levels, dictionary pages and values of all
+   * column chunks and compares them to the written values
+   */
+  @Test
+  void decodeFile(@TempDir Path dir) throws IOException {
+    final List<ParquetColumn> columns = List.of(new ParquetColumn("id", ParquetType.INT32),
+        new ParquetColumn("mz", ParquetType.DOUBLE),
+        new ParquetColumn("annotation", ParquetType.STRING),
+        new ParquetColumn("name", ParquetType.STRING),
+        new ParquetColumn("area", ParquetType.FLOAT),
+        new ParquetColumn("scan", ParquetType.INT64),
+        new ParquetColumn("ms2", ParquetType.BOOLEAN));
+    final Random random = new Random(42);
+    final int[] groupRows = {1000, 37};
+    final List<Object[][]> groups = new ArrayList<>();
+    for (int numRows : groupRows) {
+      final Object[][] values = new Object[columns.size()][numRows];
+      for (int r = 0; r < numRows; r++) {
+        values[0][r] = r;
+        values[1][r] = r % 7 == 0 ? null : 100d + random.nextDouble();
+        // repeating values are dictionary encoded
+        values[2][r] = r % 5 == 0 ? null : "anno" + (r % 3);
+        // distinct values are plain encoded
+        values[3][r] = r % 11 == 0 ? null : "name \u00e4 " + random.nextInt();
+        values[4][r] = r % 3 == 0 ? null : random.nextFloat();
+        // wrong type is written as null
+        values[5][r] = r % 4 == 0 ? r : (long) r * Integer.MAX_VALUE;
+        values[6][r] = r % 13 == 0 ? null : random.nextBoolean();
+      }
+      groups.add(values);
+    }
+
+    try (ParquetFileWriter writer = new ParquetFileWriter(file(dir), columns)) {
+      for (int g = 0; g < groups.size(); g++) {
+        writer.writeRowGroup(ParquetFileWriter.encodeRowGroup(columns, groups.get(g),
+            groupRows[g]));
+      }
+    }
+
+    final ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file(dir)))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    final int footerLength = data.getInt(data.limit() - 8);
+    data.position(data.limit() - 8 - footerLength);
+    final Map<Integer, Object> metaData = readStruct(data);
+    assertEquals(1037L, metaData.get(3));
+    final List<?> schema = (List<?>) metaData.get(2);
+    assertEquals(columns.size() + 1, schema.size());
+    final List<?> rowGroups = (List<?>) metaData.get(4);
+    assertEquals(groups.size(), rowGroups.size());
+
+    for (int g = 0; g < groups.size(); g++) {
+      final Map<?, ?> rowGroup = (Map<?, ?>) rowGroups.get(g);
+      assertEquals((long) groupRows[g], rowGroup.get(3));
+      final List<?> chunks = (List<?>) rowGroup.get(1);
+      for (int c = 0; c < columns.size(); c++) {
+        final ParquetType type = columns.get(c).type();
+        final Map<?, ?> meta = (Map<?, ?>) ((Map<?, ?>) chunks.get(c)).get(3);
+        assertEquals(type.getPhysicalType(), meta.get(1));
+        assertEquals(columns.get(c).name(),
+            new String((byte[]) ((List<?>) meta.get(3)).get(0), StandardCharsets.UTF_8));
+        assertEquals((long) groupRows[g], meta.get(5));
+
+        List<String> dictionary = null;
+        if (meta.get(11) instanceof Long dictionaryOffset) {
+          data.position((int) (long) dictionaryOffset);
+          final Map<Integer, Object> header = readStruct(data);
+          assertEquals(2, header.get(1));
+          final Map<?, ?> dictionaryHeader = (Map<?, ?>) header.get(7);
+          final ByteBuffer page = readPage(data, header);
+          dictionary = new ArrayList<>();
+          for (int i = 0; i < (int) dictionaryHeader.get(1); i++) {
+            dictionary.add(readString(page));
+          }
+          assertFalse(page.hasRemaining());
+        }
+        // repeating annotations are dictionary encoded, distinct names are plain
+        if (c == 2 || c == 3) {
+          assertEquals(c == 2, dictionary != null);
+        }
+
+        data.position((int) (long) (Long) meta.get(9));
+        final Map<Integer, Object> header = readStruct(data);
+        assertEquals(0, header.get(1));
+        final Map<?, ?> dataHeader = (Map<?, ?>) header.get(5);
+        assertEquals(groupRows[g], dataHeader.get(1));
+        assertEquals(dictionary != null ? 8 : 0, dataHeader.get(2));
+        final Object[] decoded = decodeDataPage(readPage(data, header), type, groupRows[g],
+            dictionary);
+
+        final Object[] expected = groups.get(g)[c];
+        for (int r = 0; r < groupRows[g]; r++) {
+          final Object value = type.accepts(expected[r]) ? expected[r] : null;
+          assertEquals(value, decoded[r], "column " + columns.get(c).name() + " row " + r);
+        }
+      }
+    }
+  }
+
+  @Test
+  void abortDeletesFile(@TempDir Path dir) throws IOException {
+    final Object[][] values = new Object[COLUMNS.size()][10];
+    final ParquetFileWriter writer = new ParquetFileWriter(file(dir), COLUMNS);
+    writer.writeRowGroup(ParquetFileWriter.encodeRowGroup(COLUMNS, values, 10));
+    writer.abort();
+    assertFalse(Files.exists(file(dir)));
+    // no footer after abort
+    writer.close();
+    assertFalse(Files.exists(file(dir)));
+    assertThrows(IllegalStateException.class,
+        () -> writer.writeRowGroup(ParquetFileWriter.encodeRowGroup(COLUMNS, values, 10)));
+  }
+
+  @Test
+  void rejectMismatchingSchema() {
+    assertThrows(IllegalArgumentException.class,
+        () -> ParquetFileWriter.encodeRowGroup(COLUMNS, new Object[1][10], 10));
+  }
+
+  private static Path file(Path dir) {
+    return dir.resolve("test.parquet");
+  }
+
+  /**
+   * Reads the compressed body of a page after its header
+   *
+   * @return the decompressed body
+   */
+  private static ByteBuffer readPage(ByteBuffer data, Map<Integer, Object> header)
+      throws IOException {
+    final byte[] compressed = new byte[(int) header.get(3)];
+    data.get(compressed);
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      final byte[] body = gzip.readAllBytes();
+      assertEquals(header.get(2), body.length);
+      return ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  /**
+   * Decodes the definition levels and the plain or dictionary encoded values
+   */
+  private static Object[] decodeDataPage(ByteBuffer page, ParquetType type, int numRows,
+      List<String> dictionary) {
+    final int levelsLength = page.getInt();
+    final int levelsEnd = page.position() + levelsLength;
+    final int[] levels = readHybrid(page, numRows, 1);
+    assertEquals(levelsEnd, page.position());
+    final int nonNull = Arrays.stream(levels).sum();
+
+    final Object[] values = new Object[nonNull];
+    if (dictionary != null) {
+      final int[] indices = readHybrid(page, nonNull, page.get());
+      for (int i = 0; i < nonNull; i++) {
+        values[i] = dictionary.get(indices[i]);
+      }
+    } else {
+      for (int i = 0; i < nonNull; i++) {
+        values[i] = switch (type) {
+          case BOOLEAN -> (page.get(page.position() + i / 8) >>> (i % 8) & 1) == 1;
+          case INT32 -> page.getInt();
+          case INT64 -> page.getLong();
+          case FLOAT -> page.getFloat();
+          case DOUBLE -> page.getDouble();
+          case STRING -> readString(page);
+        };
+      }
+      if (type == ParquetType.BOOLEAN) {
+        page.position(page.position() + (nonNull + 7) / 8);
+      }
+    }
+    assertFalse(page.hasRemaining());
+
+    final Object[] rows = new Object[numRows];
+    int v = 0;
+    for (int r = 0; r < numRows; r++) {
+      rows[r] = levels[r] == 1 ? values[v++] : null;
+    }
+    return rows;
+  }
+
+  private static String readString(ByteBuffer page) {
+    final byte[] bytes = new byte[page.getInt()];
+    page.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a struct of the thrift compact protocol
+   *
+   * @return values by field id: Integer, Long, byte[], List or Map for structs
+   */
+  private static Map<Integer, Object> readStruct(ByteBuffer data) {
+    final Map<Integer, Object> fields = new HashMap<>();
+    int id = 0;
+    while (true) {
+      final int header = data.get() & 0xFF;
+      if (header == 0) {
+        return fields;
+      }
+      final int delta = header >>> 4;
+      id = delta != 0 ? id + delta : (int) readZigZag(data);
+      final int type = header & 0x0F;
+      fields.put(id, type == 1 || type == 2 ? type == 1 : readValue(data, type));
+    }
+  }
+
+  private static Object readValue(ByteBuffer data, int type) {
+    return switch (type) {
+      case 5 -> (int) readZigZag(data);
+      case 6 -> readZigZag(data);
+      case 8 -> {
+        final byte[] bytes = new byte[(int) readVarInt(data)];
+        data.get(bytes);
+        yield bytes;
+      }
+      case 9 -> {
+        final int header = data.get() & 0xFF;
+        int size = header >>> 4;
+        if (size == 15) {
+          size = (int) readVarInt(data);
+        }
+        final List<Object> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(data, header & 0x0F));
+        }
+        yield list;
+      }
+      case 12 -> readStruct(data);
+      default -> throw new IllegalStateException("Unexpected thrift type " + type);
+    };
+  }
+
+  private static long readVarInt(ByteBuffer data) {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = data.get() & 0xFF;
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  private static long readZigZag(ByteBuffer data) {
+    final long v = readVarInt(data);
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /**
+   * Decodes the RLE / bit packing hybrid encoding starting at the position of data
+   */
+  private static int[] readHybrid(ByteBuffer data, int n, int bitWidth) {
+    final int[] values = new int[n];
+    final int valueBytes = (bitWidth + 7) / 8;
+    int i = 0;
+    while (i < n) {
+      final long header = readVarInt(data);
+
+      if ((header & 1) == 0) {
+        final int run = (int) (header >>> 1);
+        int value = 0;
+        for (int k = 0; k < valueBytes; k++) {
+          value |= (data.get() & 0xFF) << (8 * k);
+        }
+        Arrays.fill(values, i, Math.min(n, i + run), value);
+        i += run;
+      } else {
+        final int count = (int) (header >>> 1) * 8;
+        long buffer = 0;
+        int bits = 0;
+        for (int k = 0; k < count; k++) {
+          while (bits < bitWidth) {
+            buffer |= (long) (data.get() & 0xFF) << bits;
+            bits += 8;
+          }
+          if (i + k < n) {
+            values[i + k] = (int) (buffer & ((1L << bitWidth) - 1));
+          }
+          buffer >>>= bitWidth;
+          bits -= bitWidth;
+        }
+        i += count;
+      }
+    }
+    return values;
+  }
+}
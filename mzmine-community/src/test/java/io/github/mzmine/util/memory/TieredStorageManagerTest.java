@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TieredStorageManagerTest {
+
+  private static final long GB = 1024L * 1024L * 1024L;
+  private static final long FREE = 100 * GB;
+
+  @Test
+  void parseBudget() {
+    assertEquals(64 * GB, TieredStorageManager.parseBudget("64G"));
+    assertEquals(64 * GB, TieredStorageManager.parseBudget("64gb"));
+    assertEquals(512L * 1024 * 1024, TieredStorageManager.parseBudget("budget:512M"));
+    assertEquals(GB + GB / 2, TieredStorageManager.parseBudget("1.5g"));
+    assertEquals(-1, TieredStorageManager.parseBudget("64"));
+    assertEquals(-1, TieredStorageManager.parseBudget("all"));
+    assertEquals(-1, TieredStorageManager.parseBudget("masses_features"));
+    assertEquals(-1, TieredStorageManager.parseBudget(null));
+  }
+
+  @Test
+  void selectTier() {
+    final long budget = 10 * GB;
+    final long small = 1024;
+    final long large = TieredStorageManager.OFF_HEAP_MIN_BYTES;
+    assertEquals(StorageTier.MEMORY_MAPPED, tier(StorageCategory.FEATURES, small, 0, 0, 0));
+    assertEquals(StorageTier.HEAP, tier(StorageCategory.FEATURES, small, 0, budget, 0));
+    assertEquals(StorageTier.OFF_HEAP, tier(StorageCategory.FEATURES, large, 0, budget, 0));
+    // heap under pressure
+    assertEquals(StorageTier.OFF_HEAP, tier(StorageCategory.FEATURES, small, 0, budget, 0.9));
+
+    // cold categories are memory mapped first
+    final long used = 5 * GB;
+    assertEquals(StorageTier.MEMORY_MAPPED,
+        tier(StorageCategory.MOBILITY_SCANS, small, used, budget, 0));
+    assertEquals(StorageTier.HEAP, tier(StorageCategory.RAW_SCANS, small, used, budget, 0));
+    assertEquals(StorageTier.MEMORY_MAPPED,
+        tier(StorageCategory.RAW_SCANS, small, 7 * GB, budget, 0));
+    assertEquals(StorageTier.HEAP, tier(StorageCategory.MASS_LISTS, small, 7 * GB, budget, 0));
+    assertEquals(StorageTier.MEMORY_MAPPED,
+        tier(StorageCategory.FEATURES, small, budget, budget, 0));
+  }
+
+  @Test
+  void selectTierWithinMemoryLimits() {
+    final long budget = 10 * GB;
+    final long small = 1024;
+    final long large = TieredStorageManager.OFF_HEAP_MIN_BYTES;
+    // heap limit reached
+    assertEquals(StorageTier.OFF_HEAP,
+        TieredStorageManager.selectTier(StorageCategory.FEATURES, small, 0, budget, 0, 0, FREE));
+    // direct memory limit reached
+    assertEquals(StorageTier.HEAP,
+        TieredStorageManager.selectTier(StorageCategory.FEATURES, large, 0, budget, 0, FREE, 0));
+    assertEquals(StorageTier.MEMORY_MAPPED,
+        TieredStorageManager.selectTier(StorageCategory.FEATURES, small, 0, budget, 0.9, FREE, 0));
+    assertEquals(StorageTier.MEMORY_MAPPED,
+        TieredStorageManager.selectTier(StorageCategory.FEATURES, large, 0, budget, 0, small, 0));
+  }
+
+  /**
+   * Tier without heap and direct memory limits
+   */
+  private static StorageTier tier(StorageCategory category, long bytes, long inMemory, long budget,
+      double heapUsage) {
+    return TieredStorageManager.selectTier(category, bytes, inMemory, budget, heapUsage, FREE,
+        FREE);
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.scans;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import gnu.trove.list.array.TDoubleArrayList;
+import io.github.mzmine.datamodel.MassSpectrum;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.DataPointSorter;
+import io.github.mzmine.util.SortingDirection;
+import io.github.mzmine.util.SortingProperty;
+import io.github.mzmine.util.maths.CenterFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The former range map implementation of
+ * {@link SpectraMerging#calculatedMergedMzsAndIntensities(Collection, MZTolerance,
+ * SpectraMerging.IntensityMergingType, CenterFunction, Double, Double, Integer)} as a reference for
+ * {@link SpectraMergingKernel}.
+ */
+class RangeMapSpectraMerging {
+
+  private static final DataPointSorter sorter = new DataPointSorter(SortingProperty.Intensity,
+      SortingDirection.Descending);
+
+  public static <T extends MassSpectrum> double[][] calculatedMergedMzsAndIntensities(
+      @NotNull final Collection<T> source, @NotNull final MZTolerance tolerance,
+      @NotNull final SpectraMerging.IntensityMergingType intensityMergingType,
+      @NotNull final CenterFunction mzCenterFunction, @Nullable final Double inputNoiseLevel,
+      @Nullable final Double outputNoiseLevel, @Nullable final Integer minNumPeaks) {
+
+    if (source.isEmpty()) {
+      return new double[][]{new double[0], new double[0]};
+    }
+
+    final List<IndexedDataPoint> dataPoints = new ArrayList<>();
+    // extract all data points in the mass spectrum
+    final int numDp = source.stream().mapToInt(MassSpectrum::getNumberOfDataPoints).max()
+        .getAsInt();
+    final double[] rawMzs = new double[numDp];
+    final double[] rawIntensities = new double[numDp];
+
+    int index = 0;
+    for (T spectrum : source) {
+      spectrum.getMzValues(rawMzs);
+      spectrum.getIntensityValues(rawIntensities);
+
+      for (int i = 0; i < spectrum.getNumberOfDataPoints(); i++) {
+        if (inputNoiseLevel == null || rawIntensities[i] > inputNoiseLevel) {
+          final IndexedDataPoint dp = new IndexedDataPoint(rawMzs[i], rawIntensities[i], index);
+          dataPoints.add(dp);
+        }
+      }
+      index++;
+    }
+
+    dataPoints.sort(sorter);
+
+    // set is sorted by the index of the datapoint, so we can quickly check the presence of the same index
+    RangeMap<Double, SortedSet<IndexedDataPoint>> dataPointRanges = TreeRangeMap.create();
+
+    for (IndexedDataPoint dp : dataPoints) {
+      // todo hash map should be smarter, just put by index
+      SortedSet<IndexedDataPoint> dplist = dataPointRanges.get(dp.getMZ());
+      boolean containsIndex = false;
+
+      // no entry -> make a new one
+      if (dplist == null) {
+        dplist = new TreeSet<>(Comparator.comparingInt(IndexedDataPoint::getIndex));
+        Range<Double> range = SpectraMerging.createNewNonOverlappingRange(dataPointRanges,
+            tolerance.getToleranceRange(dp.getMZ()));
+        dataPointRanges.put(range, dplist);
+      } else { // we have an entry, check if if we have the same index in there already
+        if (dp.getIndex() > dplist.first().getIndex() && dp.getIndex() < dplist.last().getIndex()) {
+          for (IndexedDataPoint indexedDataPoint : dplist) {
+            if (dp.getIndex() == indexedDataPoint.getIndex()) {
+              containsIndex = true;
+              break;
+            }
+            if (dp.getIndex() > indexedDataPoint.getIndex()) {
+              break;
+            }
+          }
+        }
+        // if an entry contains that index, make a new entry (this way multiple data points from a
+        //  single scan will not be merged together)
+        if (containsIndex) {
+          dplist = new TreeSet<>(Comparator.comparingInt(IndexedDataPoint::getIndex));
+          Range<Double> range = SpectraMerging.createNewNonOverlappingRange(dataPointRanges,
+              tolerance.getToleranceRange(dp.getMZ()));
+          dataPointRanges.put(range, dplist);
+        }
+      }
+
+      // now add the datapoint to the set
+      dplist.add(dp);
+    }
+
+    final int numDps = dataPointRanges.asMapOfRanges().size();
+    final TDoubleArrayList newIntensities = new TDoubleArrayList(numDps);
+    final TDoubleArrayList newMzs = new TDoubleArrayList(numDps);
+
+    // now we got everything in place and have to calculate the new intensities and mzs
+    for (Entry<Range<Double>, SortedSet<IndexedDataPoint>> entry : dataPointRanges.asMapOfRanges()
+        .entrySet()) {
+      if (minNumPeaks != null && entry.getValue().size() < minNumPeaks) {
+        continue;
+      }
+
+      double[] mzs = entry.getValue().stream().mapToDouble(IndexedDataPoint::getMZ).toArray();
+      double[] intensities = entry.getValue().stream().mapToDouble(IndexedDataPoint::getIntensity)
+          .toArray();
+
+      double newMz = mzCenterFunction.calcCenter(mzs, intensities);
+      double newIntensity = switch (intensityMergingType) {
+        case SUMMED -> Arrays.stream(intensities).sum();
+        case MAXIMUM -> Arrays.stream(intensities).max().orElse(0d);
+        case AVERAGE -> Arrays.stream(intensities).average().orElse(0d);
+      };
+
+      if (outputNoiseLevel == null || newIntensity > outputNoiseLevel) {
+        newMzs.add(newMz);
+        newIntensities.add(newIntensity);
+      }
+    }
+
+    return new double[][]{newMzs.toArray(), newIntensities.toArray()};
+  }
+
+}
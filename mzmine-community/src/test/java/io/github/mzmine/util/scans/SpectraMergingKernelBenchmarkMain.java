@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.scans;
+
+import io.github.mzmine.datamodel.MassList;
+import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Speed test of the former range map spectra merging against the primitive
+ * {@link SpectraMergingKernel}. Uses DDA like merges (few spectra with many signals) and PASEF like
+ * merges (many mobility scans with few signals). Run the main method, the throughput of both paths
+ * is logged.
+ */
+public class SpectraMergingKernelBenchmarkMain {
+
+  private static final Logger logger = Logger.getLogger(
+      SpectraMergingKernelBenchmarkMain.class.getName());
+
+  private static final int MERGES = 500;
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) {
+    final Random rand = new Random(42);
+    final List<List<MassList>> dda = new ArrayList<>();
+    final List<List<MassList>> pasef = new ArrayList<>();
+    for (int i = 0; i < MERGES; i++) {
+      dda.add(SpectraMergingKernelTest.createSpectra(rand, 5, 100, 400));
+      pasef.add(SpectraMergingKernelTest.createSpectra(rand, 300, 2, 30));
+    }
+
+    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+      benchmark(iteration, "DDA", dda);
+      benchmark(iteration, "PASEF", pasef);
+    }
+  }
+
+  private static void benchmark(int iteration, String name, List<List<MassList>> merges) {
+    long start = System.nanoTime();
+    long signalsOld = 0;
+    for (List<MassList> spectra : merges) {
+      signalsOld += RangeMapSpectraMerging.calculatedMergedMzsAndIntensities(spectra,
+          SpectraMerging.pasefMS2MergeTol, IntensityMergingType.SUMMED,
+          SpectraMerging.DEFAULT_CENTER_FUNCTION, null, null, null)[0].length;
+    }
+    final double secondsOld = (System.nanoTime() - start) / 1E9;
+
+    start = System.nanoTime();
+    long signalsNew = 0;
+    for (List<MassList> spectra : merges) {
+      signalsNew += SpectraMerging.calculatedMergedMzsAndIntensities(spectra,
+          SpectraMerging.pasefMS2MergeTol, IntensityMergingType.SUMMED,
+          SpectraMerging.DEFAULT_CENTER_FUNCTION, null, null, null)[0].length;
+    }
+    final double secondsNew = (System.nanoTime() - start) / 1E9;
+
+    logger.info(
+        "Iteration %d %s: %d merges; range map %.2f s (%.0f merges/s, %d signals); primitive kernel %.2f s (%.0f merges/s, %d signals)".formatted(
+            iteration, name, merges.size(), secondsOld, merges.size() / secondsOld, signalsOld,
+            secondsNew, merges.size() / secondsNew, signalsNew));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.scans;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.datamodel.MassList;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.maths.CenterFunction;
+import io.github.mzmine.util.maths.CenterMeasure;
+import io.github.mzmine.util.maths.Weighting;
+import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpectraMergingKernelTest {
+
+  /**
+   * Random spectra that share signals (jittered in the range of the tolerance) and contain multiple
+   * signals of the same spectrum within tolerance. Intensities are rounded to create ties.
+   *
+   * @param spectra number of spectra, e.g., few for DDA and many mobility scans for PASEF
+   * @param minDps  minimum number of signals per spectrum
+   * @param maxDps  maximum number of signals per spectrum
+   */
+  static List<MassList> createSpectra(Random rand, int spectra, int minDps, int maxDps) {
+    final double[] shared = new double[Math.max(10, maxDps)];
+    for (int i = 0; i < shared.length; i++) {
+      shared[i] = 50 + rand.nextDouble() * 1200;
+    }
+
+    final List<MassList> result = new ArrayList<>();
+    for (int s = 0; s < spectra; s++) {
+      final int n = minDps + rand.nextInt(maxDps - minDps + 1);
+      final double[] mzs = new double[n];
+      final double[] intensities = new double[n];
+      for (int i = 0; i < n; i++) {
+        final double center = rand.nextInt(5) == 0 ? 50 + rand.nextDouble() * 1200
+            : shared[rand.nextInt(shared.length)];
+        mzs[i] = center + rand.nextGaussian() * 0.008;
+        intensities[i] = Math.round(Math.exp(rand.nextGaussian() + 4));
+      }
+      Arrays.sort(mzs);
+      result.add(new SimpleMassList(null, mzs, intensities));
+    }
+    return result;
+  }
+
+  @Test
+  void sameAsRangeMapMerging() {
+    final Random rand = new Random(42);
+    final MZTolerance[] tolerances = {SpectraMerging.defaultMs1MergeTol,
+        SpectraMerging.pasefMS2MergeTol, new MZTolerance(0.002, 5)};
+    final CenterFunction[] centerFunctions = {SpectraMerging.DEFAULT_CENTER_FUNCTION,
+        new CenterFunction(CenterMeasure.MEDIAN, Weighting.NONE)};
+
+    for (int i = 0; i < 300; i++) {
+      // DDA or PASEF like
+      final List<MassList> spectra =
+          i % 2 == 0 ? createSpectra(rand, 1 + rand.nextInt(8), 20, 300)
+              : createSpectra(rand, 50 + rand.nextInt(300), 1, 20);
+      final MZTolerance tol = tolerances[i % tolerances.length];
+      final CenterFunction cf = centerFunctions[i % centerFunctions.length];
+      final IntensityMergingType type = IntensityMergingType.values()[i
+          % IntensityMergingType.values().length];
+      final Double inputNoise = i % 5 == 0 ? 30d : null;
+      final Double outputNoise = i % 7 == 0 ? 100d : null;
+      final Integer minNumPeaks = i % 3 == 0 ? 2 : null;
+
+      final double[][] expected = RangeMapSpectraMerging.calculatedMergedMzsAndIntensities(spectra,
+          tol, type, cf, inputNoise, outputNoise, minNumPeaks);
+      final double[][] actual = SpectraMerging.calculatedMergedMzsAndIntensities(spectra, tol,
+          type, cf, inputNoise, outputNoise, minNumPeaks);
+      assertArrayEquals(expected[0], actual[0]);
+      assertArrayEquals(expected[1], actual[1]);
+    }
+  }
+
+  @Test
+  void emptySource() {
+    final double[][] merged = SpectraMerging.calculatedMergedMzsAndIntensities(List.of(),
+        SpectraMerging.defaultMs2MergeTol, IntensityMergingType.SUMMED,
+        SpectraMerging.DEFAULT_CENTER_FUNCTION, null, null, null);
+    assertEquals(0, merged[0].length);
+    assertEquals(0, merged[1].length);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Speed test of the pairwise modified cosine on {@link DataPoint} arrays (old path through
+ * {@link io.github.mzmine.util.scans.ScanAlignment}) against the primitive
+ * {@link SpectralCosineKernel}. Uses random MS2 spectra with 20-220 signals that share fragments
+ * with other spectra. Run the main method, the throughput of both paths is logged.
+ */
+public class SpectralCosineKernelBenchmarkMain {
+
+  private static final Logger logger = Logger.getLogger(
+      SpectralCosineKernelBenchmarkMain.class.getName());
+
+  private static final MZTolerance mzTol = new MZTolerance(0.005, 10);
+  private static final int SPECTRA = 1500;
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) {
+    Random rand = new Random(42);
+    DataPoint[][] spectra = new DataPoint[SPECTRA][];
+    double[] precursors = new double[SPECTRA];
+    for (int i = 0; i < SPECTRA; i++) {
+      precursors[i] = 200 + rand.nextDouble() * 800;
+      // every second spectrum is related to the one before
+      DataPoint[] related = i % 2 == 1 ? spectra[i - 1] : null;
+      double shift = related == null ? 0 : precursors[i] - precursors[i - 1];
+      spectra[i] = SpectralCosineKernelTest.createSpectrum(rand, related, shift);
+    }
+
+    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+      // old path
+      long start = System.nanoTime();
+      long matchesOld = 0;
+      for (int a = 0; a < SPECTRA - 1; a++) {
+        for (int b = a + 1; b < SPECTRA; b++) {
+          var sim = ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol,
+              spectra[a], spectra[b], 4, ModifiedCosineSpectralNetworkingTask.SIZE_OVERLAP,
+              precursors[a], precursors[b]);
+          if (sim != null && sim.cosine() >= 0.7) {
+            matchesOld++;
+          }
+        }
+      }
+      double secondsOld = (System.nanoTime() - start) / 1E9;
+
+      // new path including the preparation of spectra
+      start = System.nanoTime();
+      WeightedSpectrum[] prepared = new WeightedSpectrum[SPECTRA];
+      for (int i = 0; i < SPECTRA; i++) {
+        prepared[i] = WeightedSpectrum.of(spectra[i], Weights.SQRT);
+      }
+      long matchesNew = 0;
+      for (int a = 0; a < SPECTRA - 1; a++) {
+        for (int b = a + 1; b < SPECTRA; b++) {
+          var sim = ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol,
+              prepared[a], prepared[b], 4, 0.7, precursors[a], precursors[b]);
+          if (sim != null) {
+            matchesNew++;
+          }
+        }
+      }
+      double secondsNew = (System.nanoTime() - start) / 1E9;
+
+      long pairs = (long) SPECTRA * (SPECTRA - 1) / 2;
+      logger.info(
+          "Iteration %d: %d pairs; DataPoint alignment %.2f s (%.0f pairs/s, %d matches); primitive kernel %.2f s (%.0f pairs/s, %d matches)".formatted(
+              iteration, pairs, secondsOld, pairs / secondsOld, matchesOld, secondsNew,
+              pairs / secondsNew, matchesNew));
+    }
+  }
+}
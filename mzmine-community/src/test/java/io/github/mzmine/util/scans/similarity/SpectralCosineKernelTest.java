@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.features.correlation.SpectralSimilarity;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.DataPointSorter;
+import io.github.mzmine.util.maths.similarity.Similarity;
+import io.github.mzmine.util.scans.ScanAlignment;
+import io.github.mzmine.util.scans.similarity.impl.composite.CompositeCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedCosineSpectralSimilarity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpectralCosineKernelTest {
+
+  private static final MZTolerance mzTol = new MZTolerance(0.005, 10);
+
+  /**
+   * Random MS2 spectrum that shares some fragments with the other spectrum (also shifted by the
+   * precursor difference)
+   */
+  static DataPoint[] createSpectrum(Random rand, DataPoint[] other, double shift) {
+    int n = 20 + rand.nextInt(200);
+    List<DataPoint> dps = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      double intensity = Math.exp(rand.nextGaussian() * 2 + 8);
+      if (other != null && rand.nextBoolean()) {
+        var dp = other[rand.nextInt(other.length)];
+        double mz = dp.getMZ() + (rand.nextInt(4) == 0 ? shift : 0) + rand.nextGaussian() * 0.002;
+        dps.add(new SimpleDataPoint(mz, intensity));
+      } else {
+        dps.add(new SimpleDataPoint(50 + rand.nextDouble() * 950, intensity));
+      }
+    }
+    DataPoint[] array = dps.toArray(DataPoint[]::new);
+    Arrays.sort(array, DataPointSorter.DEFAULT_INTENSITY);
+    return array;
+  }
+
+  @Test
+  void sameAsModifiedCosineOfDataPoints() {
+    Random rand = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      double precursorA = 200 + rand.nextDouble() * 800;
+      double precursorB = precursorA + rand.nextDouble() * 100;
+      DataPoint[] a = createSpectrum(rand, null, 0);
+      DataPoint[] b = createSpectrum(rand, a, precursorB - precursorA);
+
+      var expected = ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol, a,
+          b, 1, ModifiedCosineSpectralNetworkingTask.SIZE_OVERLAP, precursorA, precursorB);
+      var actual = ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol,
+          WeightedSpectrum.of(a, Weights.SQRT), WeightedSpectrum.of(b, Weights.SQRT), 1, 0,
+          precursorA, precursorB);
+      assertSame(expected, actual);
+
+      // direct matches only
+      expected = ModifiedCosineSpectralNetworkingTask.createMS2Sim(mzTol, a, b, 1);
+      actual = ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol,
+          WeightedSpectrum.of(a, Weights.SQRT), WeightedSpectrum.of(b, Weights.SQRT), 1, 0, -1,
+          -1);
+      assertSame(expected, actual);
+    }
+  }
+
+  @Test
+  void thresholds() {
+    Random rand = new Random(1);
+    DataPoint[] a = createSpectrum(rand, null, 0);
+    var spec = WeightedSpectrum.of(a, Weights.SQRT);
+    assertNotNull(ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol, spec,
+        spec, a.length, 0.99, -1, -1));
+    assertNull(ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(mzTol, spec, spec,
+        a.length + 1, 0.99, -1, -1));
+  }
+
+  @Test
+  void handleUnmatchedSameAsAlignment() {
+    Random rand = new Random(7);
+    for (int i = 0; i < 200; i++) {
+      DataPoint[] library = createSpectrum(rand, null, 0);
+      DataPoint[] query = createSpectrum(rand, library, 0);
+      Weights weights = Weights.VALUES[i % Weights.VALUES.length];
+
+      var kernel = SpectralCosineKernel.get();
+      kernel.align(mzTol, WeightedSpectrum.of(library, weights),
+          WeightedSpectrum.of(query, weights));
+
+      for (HandleUnmatchedSignalOptions option : HandleUnmatchedSignalOptions.values()) {
+        var aligned = option.handleUnmatched(
+            ScanAlignment.align(mzTol, library.clone(), query.clone()));
+        double[][] diffArray = ScanAlignment.toIntensityMatrixWeighted(aligned,
+            weights.getIntensity(), weights.getMz());
+        assertEquals(Similarity.COSINE.calc(diffArray), kernel.getCosine(option), 1E-9);
+        assertEquals(ScanAlignment.removeUnaligned(aligned).size(), kernel.getOverlap());
+      }
+    }
+  }
+
+  /**
+   * Each passing match sorts the query array by m/z in place. Later matches with the same array or
+   * the same prepared query must still use the intensity sorted data points.
+   */
+  @Test
+  void consecutiveMatchesWithSameQuery() {
+    Random rand = new Random(3);
+    DataPoint[] query = createSpectrum(rand, null, 0);
+    DataPoint[] library1 = query.clone();
+    DataPoint[] library2 = Arrays.copyOf(query, query.length * 2 / 3);
+    for (SpectralSimilarityFunction function : List.of(new WeightedCosineSpectralSimilarity(),
+        new CompositeCosineSpectralSimilarity())) {
+      final PreparedQuery prepared = function.prepareQuery(query);
+      for (DataPoint[] library : List.of(library1, library2, library1)) {
+        // fresh copies as reference
+        var expected = function.getSimilarity(mzTol, 1, library.clone(), query.clone());
+        assertNotNull(expected);
+        assertSameMatch(expected, function.getSimilarity(mzTol, 1, library.clone(), query));
+        assertSameMatch(expected, function.getSimilarity(mzTol, 1, library.clone(), prepared));
+      }
+    }
+  }
+
+  private static void assertSameMatch(
+      io.github.mzmine.util.scans.similarity.SpectralSimilarity expected,
+      io.github.mzmine.util.scans.similarity.SpectralSimilarity actual) {
+    assertNotNull(actual);
+    assertEquals(expected.getScore(), actual.getScore(), 1E-9);
+    assertEquals(expected.getOverlap(), actual.getOverlap());
+    assertArrayEquals(expected.getAlignedDataPoints(), actual.getAlignedDataPoints());
+  }
+
+  private static void assertSame(SpectralSimilarity expected, SpectralSimilarity actual) {
+    if (expected == null) {
+      assertNull(actual);
+      return;
+    }
+    assertNotNull(actual);
+    assertEquals(expected.overlap(), actual.overlap());
+    assertEquals(expected.sizeA(), actual.sizeA());
+    assertEquals(expected.sizeB(), actual.sizeB());
+    assertEquals(expected.cosine(), actual.cosine(), 1E-9);
+    assertEquals(expected.explainedIntensityA(), actual.explainedIntensityA(), 1E-9);
+    assertEquals(expected.explainedIntensityB(), actual.explainedIntensityB(), 1E-9);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.spectraldb.entry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompiledSpectralLibraryTest {
+
+  @TempDir
+  File tempDir;
+
+  private static List<SpectralLibraryEntry> createEntries() {
+    final Random rand = new Random(42);
+    final List<SpectralLibraryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      final DataPoint[] dps = new DataPoint[rand.nextInt(30)];
+      double mz = 50;
+      for (int p = 0; p < dps.length; p++) {
+        mz += rand.nextDouble() * 20;
+        dps[p] = new SimpleDataPoint(mz, 1 + rand.nextDouble() * 1000);
+      }
+      final SpectralLibraryEntry entry = SpectralLibraryEntry.create(null, 100 + i * 7.5, dps);
+      entry.putIfNotNull(DBEntryField.NAME, "compound " + (i % 10));
+      entry.putIfNotNull(DBEntryField.SMILES, i % 3 == 0 ? "CCO" : "c1ccccc1");
+      entry.putIfNotNull(DBEntryField.RT, i % 4 == 0 ? null : 1.5f * i);
+      entry.putIfNotNull(DBEntryField.CCS, i % 5 == 0 ? 180.5f : null);
+      // charge may also be a string
+      entry.putIfNotNull(DBEntryField.CHARGE, i % 2 == 0 ? i % 3 + 1 : "2+");
+      entry.putIfNotNull(DBEntryField.POLARITY,
+          i % 3 == 0 ? PolarityType.NEGATIVE : PolarityType.POSITIVE);
+      entry.putIfNotNull(DBEntryField.COMMENT, "\u00e4\u00f6\u00fc comment \u2713");
+      entries.add(entry);
+    }
+    return entries;
+  }
+
+  @Test
+  void sameEntriesAfterCompile() throws IOException {
+    final List<SpectralLibraryEntry> entries = createEntries();
+    final File file = new File(tempDir, "library.mzlib");
+    CompiledSpectralLibrary.write(entries, file);
+
+    final CompiledSpectralLibrary compiled = CompiledSpectralLibrary.open(file);
+    final List<SpectralLibraryEntry> views = compiled.createEntries(null);
+    assertEquals(entries.size(), compiled.size());
+    for (int i = 0; i < entries.size(); i++) {
+      final SpectralLibraryEntry expected = entries.get(i);
+      final SpectralLibraryEntry actual = views.get(i);
+      assertEquals(expected.getNumberOfDataPoints(), actual.getNumberOfDataPoints());
+      assertArrayEquals(expected.getMzValues(new double[0]), actual.getMzValues(new double[0]));
+      assertArrayEquals(expected.getIntensityValues(new double[0]),
+          actual.getIntensityValues(new double[0]));
+      assertEquals(expected.getTIC(), actual.getTIC(), 1E-9);
+      assertEquals(expected.getBasePeakIndex(), actual.getBasePeakIndex());
+      assertEquals(expected.getDataPointMZRange(), actual.getDataPointMZRange());
+
+      // lazy field access before the fields are copied
+      for (DBEntryField field : DBEntryField.values()) {
+        assertEquals(expected.getField(field), actual.getField(field), field.name());
+      }
+      assertEquals(expected.getPrecursorMZ(), actual.getPrecursorMZ());
+      assertEquals(expected.getPolarity(), actual.getPolarity());
+      assertEquals(expected.getFields(), actual.getFields());
+    }
+  }
+
+  @Test
+  void modifyView() throws IOException {
+    final File file = new File(tempDir, "library.mzlib");
+    CompiledSpectralLibrary.write(createEntries(), file);
+    final SpectralLibraryEntry entry = CompiledSpectralLibrary.open(file).createEntries(null)
+        .getFirst();
+
+    entry.putIfNotNull(DBEntryField.NAME, "changed");
+    assertEquals(Optional.of("changed"), entry.getField(DBEntryField.NAME));
+    assertEquals(Optional.of(100d), entry.getField(DBEntryField.PRECURSOR_MZ));
+  }
+
+  @Test
+  void rejectOtherFiles() throws IOException {
+    final File file = new File(tempDir, "library.mzlib");
+    Files.writeString(file.toPath(), "NAME: not compiled");
+    assertThrows(IOException.class, () -> CompiledSpectralLibrary.open(file));
+  }
+}
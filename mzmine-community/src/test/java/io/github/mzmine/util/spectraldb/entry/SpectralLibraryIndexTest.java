@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.entry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SpectralLibraryIndexTest {
+
+  private final MZTolerance mzTol = new MZTolerance(0.005, 10);
+  private List<SpectralLibraryEntry> entries;
+  private SpectralLibraryIndex index;
+
+  @BeforeEach
+  void init() {
+    entries = new ArrayList<>();
+    // unsorted m/z with alternating polarity
+    final double[] mzs = {500.2, 100.05, 300.1, 100.052, 800.4, 300.1};
+    final PolarityType[] polarities = {PolarityType.POSITIVE, PolarityType.NEGATIVE,
+        PolarityType.POSITIVE, PolarityType.UNKNOWN, PolarityType.NEGATIVE,
+        PolarityType.NEGATIVE};
+    for (int i = 0; i < mzs.length; i++) {
+      var entry = SpectralLibraryEntry.create(null, mzs[i],
+          new DataPoint[]{new SimpleDataPoint(50, 100)});
+      entry.putIfNotNull(DBEntryField.POLARITY, polarities[i]);
+      entries.add(entry);
+    }
+    // no precursor m/z
+    entries.add(SpectralLibraryEntry.create(null, new HashMap<>(),
+        new DataPoint[]{new SimpleDataPoint(50, 100)}));
+    index = SpectralLibraryIndex.create(entries);
+  }
+
+  @Test
+  void allEntries() {
+    assertEquals(entries, index.getEntries());
+  }
+
+  @Test
+  void libraryIndexResetOnAdd() {
+    final SpectralLibrary library = new SpectralLibrary(null, new File("test.json"));
+    library.addEntries(entries.subList(0, 3));
+    final SpectralLibraryIndex first = library.getIndex();
+    assertSame(first, library.getIndex());
+    assertEquals(entries.subList(0, 3), first.getEntries());
+
+    library.addEntry(entries.get(3));
+    assertEquals(entries.subList(0, 4), library.getIndex().getEntries());
+  }
+
+  @Test
+  void libraryIndexWhileAdding() {
+    final SpectralLibrary library = new SpectralLibrary(null, new File("test.json"));
+    // searches build the index while entries are added
+    IntStream.range(0, 2000).parallel().forEach(i -> {
+      if (i % 10 == 0) {
+        library.getIndex();
+      } else {
+        library.addEntry(SpectralLibraryEntry.create(null, 100d + i,
+            new DataPoint[]{new SimpleDataPoint(50, 100)}));
+      }
+    });
+    assertEquals(library.getEntries(), library.getIndex().getEntries());
+  }
+
+  @Test
+  void candidatesInLibraryOrder() {
+    assertEquals(List.of(entries.get(1), entries.get(3)),
+        index.getCandidates(100.051, mzTol, null));
+    assertEquals(List.of(entries.get(2), entries.get(5)), index.getCandidates(300.1, mzTol, null));
+    assertEquals(List.of(), index.getCandidates(200, mzTol, null));
+  }
+
+  @Test
+  void polarityFilter() {
+    assertEquals(List.of(entries.get(3)),
+        index.getCandidates(100.051, mzTol, Set.of(PolarityType.POSITIVE)));
+    assertEquals(List.of(entries.get(1), entries.get(3)),
+        index.getCandidates(100.051, mzTol, Set.of(PolarityType.NEGATIVE)));
+    assertEquals(List.of(entries.get(2)),
+        index.getCandidates(300.1, mzTol, Set.of(PolarityType.POSITIVE)));
+    assertEquals(List.of(entries.get(2), entries.get(5)),
+        index.getCandidates(300.1, mzTol, Set.of(PolarityType.UNKNOWN)));
+  }
+
+  @Test
+  void sameAsToleranceCheck() {
+    for (double mz = 99; mz < 802; mz += 0.001) {
+      List<SpectralLibraryEntry> expected = new ArrayList<>();
+      for (SpectralLibraryEntry entry : entries) {
+        if (entry.getPrecursorMZ() != null && mzTol.checkWithinTolerance(entry.getPrecursorMZ(),
+            mz)) {
+          expected.add(entry);
+        }
+      }
+      final double query = mz;
+      List<SpectralLibraryEntry> actual = index.getCandidates(mz, mzTol, null).stream()
+          .filter(e -> mzTol.checkWithinTolerance(e.getPrecursorMZ(), query)).toList();
+      assertEquals(expected, actual);
+    }
+  }
+}
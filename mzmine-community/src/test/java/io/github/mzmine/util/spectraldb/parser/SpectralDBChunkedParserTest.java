@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.spectraldb.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.util.spectraldb.entry.DBEntryField;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpectralDBChunkedParserTest {
+
+  // large enough to be split into multiple chunks
+  private static final int ENTRIES = 20_000;
+
+  @TempDir
+  File tempDir;
+
+  private static int numPeaks(int entry) {
+    return 2 + entry % 25;
+  }
+
+  private static List<SpectralLibraryEntry> parse(
+      Function<LibraryEntryProcessor, SpectralDBParser> parserFactory, File file)
+      throws Exception {
+    final List<SpectralLibraryEntry> entries = new ArrayList<>();
+    final List<Integer> alreadyProcessed = new ArrayList<>();
+    final SpectralDBParser parser = parserFactory.apply((list, processed) -> {
+      alreadyProcessed.add(processed);
+      entries.addAll(list);
+    });
+    assertTrue(parser.parse(null, file, new SpectralLibrary(null, file)));
+    assertEquals(1d, parser.getProgress());
+    // batches are pushed in order
+    for (int i = 0; i < alreadyProcessed.size(); i++) {
+      assertEquals(i * 1000, alreadyProcessed.get(i));
+    }
+    return entries;
+  }
+
+  private static void assertEntries(List<SpectralLibraryEntry> entries) {
+    assertEquals(ENTRIES, entries.size());
+    for (int i = 0; i < ENTRIES; i++) {
+      final SpectralLibraryEntry entry = entries.get(i);
+      assertEquals(Optional.of("compound " + i), entry.getField(DBEntryField.NAME));
+      assertEquals(100d + i * 0.01, entry.getPrecursorMZ(), 1E-9);
+      assertEquals(numPeaks(i), entry.getNumberOfDataPoints());
+      // fields are not carried over from the entry before
+      assertEquals(i % 2 == 0, entry.getField(DBEntryField.SMILES).isPresent());
+    }
+  }
+
+  @Test
+  void parseMgfInChunks() throws Exception {
+    final StringBuilder mgf = new StringBuilder();
+    for (int i = 0; i < ENTRIES; i++) {
+      // mixed line breaks
+      final String nl = i % 3 == 0 ? "\r\n" : "\n";
+      mgf.append("BEGIN IONS").append(nl);
+      mgf.append("NAME=compound ").append(i).append(nl);
+      mgf.append("PEPMASS=").append(100d + i * 0.01).append(nl);
+      if (i % 2 == 0) {
+        mgf.append("SMILES=CCO").append(nl);
+      }
+      for (int p = 0; p < numPeaks(i); p++) {
+        mgf.append(50 + p * 10.5).append(' ').append(1000 + p).append(nl);
+      }
+      mgf.append("END IONS").append(nl).append(nl);
+    }
+    final File file = write("library.mgf", mgf);
+    assertEntries(parse(processor -> new GnpsMgfParser(1000, processor), file));
+  }
+
+  @Test
+  void parseMspInChunks() throws Exception {
+    final StringBuilder msp = new StringBuilder();
+    for (int i = 0; i < ENTRIES; i++) {
+      msp.append("Name: compound ").append(i).append('\n');
+      msp.append("PrecursorMZ: ").append(100d + i * 0.01).append('\n');
+      if (i % 2 == 0) {
+        msp.append("SMILES: CCO").append('\n');
+      }
+      msp.append("Num Peaks: ").append(numPeaks(i)).append('\n');
+      for (int p = 0; p < numPeaks(i); p++) {
+        msp.append(50 + p * 10.5).append('\t').append(1000 + p).append('\n');
+      }
+      msp.append('\n');
+    }
+    final File file = write("library.msp", msp);
+    assertEntries(parse(processor -> new NistMspParser(1000, processor), file));
+  }
+
+  @Test
+  void formatCheckOnlyOnFirstChunk() throws Exception {
+    // a later chunk may start with a few broken records
+    final StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      json.append("{\"broken\": ").append('\n');
+    }
+    for (int i = 0; i < 3; i++) {
+      json.append("{\"peaks\": [[50.0, 1000.0], [60.5, 200.0]]}").append('\n');
+    }
+    final SpectralLibrary library = new SpectralLibrary(null, new File(tempDir, "lib.json"));
+    final MZmineJsonParser parser = new MZmineJsonParser(1000, (list, processed) -> {
+    });
+
+    assertNull(parser.parseChunk(new BufferedReader(new StringReader(json.toString())), library,
+        true));
+    final List<SpectralLibraryEntry> entries = parser.parseChunk(
+        new BufferedReader(new StringReader(json.toString())), library, false);
+    assertNotNull(entries);
+    assertEquals(3, entries.size());
+  }
+
+  private File write(String name, CharSequence content) throws IOException {
+    final File file = new File(tempDir, name);
+    Files.writeString(file.toPath(), content);
+    assertTrue(file.length() > (2 << 20), "File should be split into chunks");
+    return file;
+  }
+}
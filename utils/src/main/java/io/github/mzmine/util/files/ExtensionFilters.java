@@ -78,6 +78,8 @@ public class ExtensionFilters {
       "*.msp");
   public static final ExtensionFilter MGF = new ExtensionFilter("mgf mass spectra format", "*.mgf");
   public static final ExtensionFilter JDCAMX = new ExtensionFilter("JCAM-DX files", "*.jdx");
+  public static final ExtensionFilter COMPILED_LIBRARY = new ExtensionFilter(
+      "compiled mzmine spectral library", "*.mzlib");
 
   /**
    * MASS SPEC formats
@@ -123,10 +125,10 @@ public class ExtensionFilters {
       WIFF2, //
       ALL_FILES);
   private static final ExtensionFilter ALL_SPECTRAL_LIBRARY_FILTER = new ExtensionFilter(
-      "All spectral libraries", "*.json", "*.msp", "*.mgf", "*.jdx");
+      "All spectral libraries", "*.json", "*.msp", "*.mgf", "*.jdx", "*.mzlib");
   // LISTS
   public static final List<ExtensionFilter> ALL_LIBRARY = List.of(ALL_SPECTRAL_LIBRARY_FILTER,
-      JSON_LIBRARY, MGF, MSP, JDCAMX, ALL_FILES);
+      JSON_LIBRARY, MGF, MSP, JDCAMX, COMPILED_LIBRARY, ALL_FILES);
 
 
   public static String getExtensionName(ExtensionFilter filter) {